@@ -4,8 +4,13 @@ import java.time.LocalDateTime;
 import java.util.Scanner;
 import java.util.concurrent.TimeUnit;
 
+import app.biblioteca.eventos.BusEventos;
 import app.biblioteca.exceptions.RecursoNoDisponibleException;
+import app.biblioteca.interfaces.RecursoDigital;
 import app.biblioteca.interfaces.ServicioNotificaciones;
+import app.biblioteca.logging.RegistroEventos;
+import app.biblioteca.metrics.ExportadorConsola;
+import app.biblioteca.metrics.RegistroMetricas;
 import app.biblioteca.models.Audiolibro;
 import app.biblioteca.models.CategoriaRecurso;
 import app.biblioteca.models.Libro;
@@ -13,12 +18,17 @@ import app.biblioteca.models.Prestamo;
 import app.biblioteca.models.Reserva;
 import app.biblioteca.models.Revista;
 import app.biblioteca.models.Usuario;
+import app.biblioteca.reports.EstadisticasCategorias;
 import app.biblioteca.reports.ReporteRecursosMasPrestados;
 import app.biblioteca.reports.ReporteVisualizer;
+import app.biblioteca.services.Autocompletado;
+import app.biblioteca.services.ControlCuotas;
 import app.biblioteca.services.GestorRecursos;
 import app.biblioteca.services.GestorUsuarios;
 import app.biblioteca.services.MonitorReservas;
 import app.biblioteca.services.MonitorVencimientos;
+import app.biblioteca.services.NotificadorEventos;
+import app.biblioteca.services.PoolLicencias;
 import app.biblioteca.services.ServicioNotificacionManager;
 import app.biblioteca.services.ServicioNotificacionesEmail;
 import app.biblioteca.services.SistemaPrestamos;
@@ -28,12 +38,28 @@ public class App {
     public static void main(String[] args) {
         try {
             // Inicializar servicios principales
+            RegistroEventos registroEventos = RegistroEventos.compartido();
             GestorUsuarios gestorUsuarios = new GestorUsuarios();
             GestorRecursos gestorRecursos = new GestorRecursos();
             ServicioNotificaciones servicioNotificaciones = new ServicioNotificacionesEmail();
             ServicioNotificacionManager notificacionManager = new ServicioNotificacionManager(servicioNotificaciones);
-            SistemaPrestamos sistemaPrestamos = new SistemaPrestamos(gestorRecursos);
-            SistemaReservas sistemaReservas = new SistemaReservas(gestorRecursos);
+            ControlCuotas controlCuotas = ControlCuotas.porDefecto();
+            SistemaPrestamos sistemaPrestamos = new SistemaPrestamos(gestorRecursos, controlCuotas);
+            SistemaReservas sistemaReservas = new SistemaReservas(gestorRecursos, controlCuotas);
+
+            // Estadísticas por categoría actualizadas con cada evento
+            EstadisticasCategorias estadisticasCategorias = new EstadisticasCategorias();
+
+            // Sugerencias de títulos y autores ordenadas por cantidad de préstamos
+            Autocompletado autocompletado = new Autocompletado();
+
+            // Métricas publicadas por JMX
+            RegistroMetricas metricas = RegistroMetricas.compartido();
+            metricas.registrarIndicador("notificaciones.enCola", notificacionManager::getTamanioCola);
+            metricas.registrarIndicador("prestamos.activos", sistemaPrestamos::contarPrestamosActivos);
+            metricas.registrarIndicador("reservas.pendientes", sistemaReservas::contarReservasActivas);
+            metricas.agregarExportador(new ExportadorConsola());
+            metricas.registrarEnJmx();
 
             // Iniciar monitores
             MonitorVencimientos monitorVencimientos = new MonitorVencimientos(sistemaPrestamos, notificacionManager);
@@ -42,6 +68,22 @@ public class App {
             MonitorReservas monitorReservas = new MonitorReservas(sistemaReservas, gestorRecursos, notificacionManager);
             monitorReservas.iniciar();
 
+            PoolLicencias poolLicencias = new PoolLicencias(sistemaPrestamos, sistemaReservas, gestorRecursos);
+            poolLicencias.iniciar();
+            monitorReservas.setPoolLicencias(poolLicencias);
+
+            // Los servicios publican sus eventos en el bus; estadísticas, notificaciones y
+            // asignación de reservas se procesan en los hilos de los suscriptores
+            BusEventos busEventos = new BusEventos();
+            busEventos.suscribir("eventos-estadisticas", estadisticasCategorias);
+            busEventos.suscribir("eventos-notificaciones", new NotificadorEventos(notificacionManager));
+            busEventos.suscribir("eventos-reservas", monitorReservas);
+            busEventos.suscribir("eventos-autocompletado", autocompletado);
+            busEventos.iniciar();
+            gestorRecursos.agregarObservador(busEventos);
+            sistemaPrestamos.agregarObservador(busEventos);
+            sistemaReservas.agregarObservador(busEventos);
+
             // Crear usuarios y recursos
             System.out.println("==== Creación de usuarios y recursos ====");
 
@@ -72,40 +114,66 @@ public class App {
             gestorRecursos.agregarRecurso(revista1);
             gestorRecursos.agregarRecurso(audiolibro1);
 
+            // Se rechaza por repetir el ISBN de libro1, aunque tenga otro identificador
+            gestorRecursos.agregarRecurso(new Libro("L003", "Cien años de soledad", "Gabriel García Márquez",
+                    "978-0307476463", 432));
+
+            registroEventos.vaciar();
             System.out.println("\n==== Demostración del sistema de préstamos ====");
 
             // Realizar varios préstamos para generar datos para los reportes
             try {
                 // Primer préstamo
                 Prestamo prestamo1 = sistemaPrestamos.prestarRecurso(libro1.getIdentificador(), usuario1);
-                notificacionManager.enviarNotificacionPrestamo(prestamo1);
 
                 // Segundo préstamo
                 Prestamo prestamo2 = sistemaPrestamos.prestarRecurso(libro2.getIdentificador(), usuario2);
-                notificacionManager.enviarNotificacionPrestamo(prestamo2);
 
                 // Devolución del primer préstamo
                 TimeUnit.SECONDS.sleep(1);
                 System.out.println("\n-- Devolución de un recurso --");
                 sistemaPrestamos.devolverRecurso(prestamo1.getId());
-                notificacionManager.enviarNotificacionDevolucion(prestamo1);
 
                 // Préstamo de nuevo del mismo libro
                 TimeUnit.SECONDS.sleep(1);
                 Prestamo prestamo3 = sistemaPrestamos.prestarRecurso(libro1.getIdentificador(), usuario1);
-                notificacionManager.enviarNotificacionPrestamo(prestamo3);
 
                 // Devolver el segundo préstamo
                 TimeUnit.SECONDS.sleep(1);
                 sistemaPrestamos.devolverRecurso(prestamo2.getId());
-                notificacionManager.enviarNotificacionDevolucion(prestamo2);
 
                 // Prestamos de revista y audiolibro
                 Prestamo prestamo4 = sistemaPrestamos.prestarRecurso(revista1.getIdentificador(), usuario2);
-                notificacionManager.enviarNotificacionPrestamo(prestamo4);
 
                 Prestamo prestamo5 = sistemaPrestamos.prestarRecurso(audiolibro1.getIdentificador(), usuario1);
-                notificacionManager.enviarNotificacionPrestamo(prestamo5);
+
+                // Un título con dos ejemplares: con ambos prestados, la reserva
+                // espera al primero que se devuelva
+                System.out.println("\n-- Título con varios ejemplares --");
+                gestorRecursos.agregarEjemplares(libro2.getIdentificador(), 1);
+                Prestamo prestamo6 = sistemaPrestamos.prestarRecurso(libro2.getIdentificador(), usuario1);
+                sistemaPrestamos.prestarRecurso(libro2.getIdentificador(), usuario2);
+                sistemaReservas.reservarRecurso(libro2.getIdentificador(), usuario2, 1);
+                System.out.println("Ejemplares libres de '" + libro2.getTitulo() + "': "
+                        + gestorRecursos.getInventario().disponibles(libro2));
+                sistemaPrestamos.devolverRecurso(prestamo6.getId());
+                busEventos.vaciar(5, TimeUnit.SECONDS);
+                System.out.println("Ejemplares libres tras la devolución: "
+                        + gestorRecursos.getInventario().disponibles(libro2) + " (el devuelto quedó apartado)");
+                sistemaPrestamos.prestarRecurso(libro2.getIdentificador(), usuario2);
+
+                // Un audiolibro con una licencia, ocupada por prestamo5: al
+                // devolverla pasa directamente a quien la reservó
+                System.out.println("\n-- Audiolibro con licencias --");
+                poolLicencias.asignarLicencias(audiolibro1.getIdentificador(), 1);
+                sistemaReservas.reservarRecurso(audiolibro1.getIdentificador(), usuario2, 1);
+                sistemaPrestamos.devolverRecurso(prestamo5.getId());
+                TimeUnit.MILLISECONDS.sleep(500);
+                System.out.println(usuario2.getNombre() + " tiene '" + audiolibro1.getTitulo() + "': "
+                        + sistemaPrestamos.listarPrestamosActivosPorUsuario(usuario2).stream()
+                                .anyMatch(p -> p.getRecurso() == audiolibro1));
+                poolLicencias.asignarLicencias(audiolibro1.getIdentificador(), 3);
+                System.out.println("Licencias libres: " + poolLicencias.licenciasLibres(audiolibro1));
 
             } catch (RecursoNoDisponibleException e) {
                 System.err.println("Error: " + e.getMessage());
@@ -115,6 +183,8 @@ public class App {
             TimeUnit.SECONDS.sleep(2);
 
             // Mostrar reportes
+            busEventos.vaciar(5, TimeUnit.SECONDS);
+            registroEventos.vaciar();
             System.out.println("\n==== Demostración del sistema de reportes ====");
 
             // Crear servicio de reportes
@@ -124,17 +194,42 @@ public class App {
             ReporteVisualizer.imprimirEncabezado("REPORTE DE RECURSOS MÁS PRESTADOS");
             reporteRecursos.mostrarReporte(10);
 
+            // Sugerencias para lo que se escribe en una terminal
+            ReporteVisualizer.imprimirEncabezado("AUTOCOMPLETADO");
+            for (String prefijo : new String[] { "cien", "garc", "el p", "nat" }) {
+                System.out.println("\"" + prefijo + "\" -> " + autocompletado.sugerir(prefijo, 5).stream()
+                        .map(RecursoDigital::getTitulo).toList());
+            }
+
+            // Búsqueda por título con errores de tipeo
+            ReporteVisualizer.imprimirEncabezado("BÚSQUEDA APROXIMADA");
+            for (String titulo : new String[] { "Cien anos de soledad", "1948", "El Principito" }) {
+                System.out.println("\"" + titulo + "\" -> " + gestorRecursos.buscarRecursosPorTituloAproximado(titulo)
+                        .stream().map(RecursoDigital::getTitulo).toList());
+            }
+
+            // Mostrar estadísticas por categoría
+            ReporteVisualizer.imprimirEncabezado("PRÉSTAMOS POR CATEGORÍA");
+            ReporteVisualizer.imprimirEstadisticasPorCategoria(estadisticasCategorias.prestamosPorCategoria());
+
             // Mostrar fecha de generación
             ReporteVisualizer.imprimirFechaGeneracion();
 
+            // Mostrar métricas de la ejecución
+            metricas.exportar();
+
             // Esperar para finalizar
             TimeUnit.SECONDS.sleep(2);
 
             // Detener los servicios
+            registroEventos.vaciar();
             System.out.println("\n==== Finalizando la aplicación ====");
             monitorVencimientos.detener();
+            busEventos.detener();
             monitorReservas.detener();
+            poolLicencias.detener();
             notificacionManager.detener();
+            registroEventos.detener();
 
             System.out.println("Aplicación finalizada correctamente.");
 
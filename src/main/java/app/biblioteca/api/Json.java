@@ -0,0 +1,173 @@
+package app.biblioteca.api;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import app.biblioteca.interfaces.RecursoDigital;
+import app.biblioteca.models.Audiolibro;
+import app.biblioteca.models.Libro;
+import app.biblioteca.models.Prestamo;
+import app.biblioteca.models.Reserva;
+import app.biblioteca.models.Revista;
+import app.biblioteca.models.Usuario;
+
+/**
+ * Serialización a JSON de las respuestas de la API. Admite cadenas,
+ * números, booleanos, mapas, colecciones y los modelos del dominio; el resto
+ * de los valores se escribe con {@code toString()}.
+ */
+final class Json {
+
+    private Json() {
+    }
+
+    static String escribir(Object valor) {
+        StringBuilder salida = new StringBuilder(256);
+        escribir(salida, valor);
+        return salida.toString();
+    }
+
+    static Map<String, Object> objeto(Object... clavesYValores) {
+        Map<String, Object> objeto = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < clavesYValores.length; i += 2) {
+            objeto.put((String) clavesYValores[i], clavesYValores[i + 1]);
+        }
+        return objeto;
+    }
+
+    private static void escribir(StringBuilder salida, Object valor) {
+        if (valor == null) {
+            salida.append("null");
+        } else if (valor instanceof Number || valor instanceof Boolean) {
+            salida.append(valor);
+        } else if (valor instanceof Map) {
+            escribirMapa(salida, (Map<?, ?>) valor);
+        } else if (valor instanceof Collection) {
+            escribirColeccion(salida, (Collection<?>) valor);
+        } else if (valor instanceof RecursoDigital) {
+            escribirMapa(salida, recurso((RecursoDigital) valor));
+        } else if (valor instanceof Usuario) {
+            escribirMapa(salida, usuario((Usuario) valor));
+        } else if (valor instanceof Prestamo) {
+            escribirMapa(salida, prestamo((Prestamo) valor));
+        } else if (valor instanceof Reserva) {
+            escribirMapa(salida, reserva((Reserva) valor));
+        } else {
+            escribirCadena(salida, valor.toString());
+        }
+    }
+
+    private static void escribirMapa(StringBuilder salida, Map<?, ?> mapa) {
+        salida.append('{');
+        boolean primero = true;
+        for (Map.Entry<?, ?> entrada : mapa.entrySet()) {
+            if (!primero) {
+                salida.append(',');
+            }
+            primero = false;
+            escribirCadena(salida, String.valueOf(entrada.getKey()));
+            salida.append(':');
+            escribir(salida, entrada.getValue());
+        }
+        salida.append('}');
+    }
+
+    private static void escribirColeccion(StringBuilder salida, Collection<?> coleccion) {
+        salida.append('[');
+        boolean primero = true;
+        for (Object elemento : coleccion) {
+            if (!primero) {
+                salida.append(',');
+            }
+            primero = false;
+            escribir(salida, elemento);
+        }
+        salida.append(']');
+    }
+
+    private static void escribirCadena(StringBuilder salida, String cadena) {
+        salida.append('"');
+        for (int i = 0; i < cadena.length(); i++) {
+            char c = cadena.charAt(i);
+            switch (c) {
+                case '"':
+                    salida.append("\\\"");
+                    break;
+                case '\\':
+                    salida.append("\\\\");
+                    break;
+                case '\n':
+                    salida.append("\\n");
+                    break;
+                case '\r':
+                    salida.append("\\r");
+                    break;
+                case '\t':
+                    salida.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        salida.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        salida.append(c);
+                    }
+            }
+        }
+        salida.append('"');
+    }
+
+    private static Map<String, Object> recurso(RecursoDigital recurso) {
+        Map<String, Object> objeto = objeto(
+                "id", recurso.getIdentificador(),
+                "titulo", recurso.getTitulo(),
+                "tipo", recurso.getTipo(),
+                "categoria", recurso.getCategoria(),
+                "estado", recurso.getEstado());
+
+        if (recurso instanceof Libro) {
+            Libro libro = (Libro) recurso;
+            objeto.put("autor", libro.getAutor());
+            objeto.put("isbn", libro.getIsbn());
+        } else if (recurso instanceof Revista) {
+            Revista revista = (Revista) recurso;
+            objeto.put("editorial", revista.getEditorial());
+            objeto.put("issn", revista.getIssn());
+        } else if (recurso instanceof Audiolibro) {
+            Audiolibro audiolibro = (Audiolibro) recurso;
+            objeto.put("autor", audiolibro.getAutor());
+            objeto.put("narrador", audiolibro.getNarrador());
+        }
+        return objeto;
+    }
+
+    private static Map<String, Object> usuario(Usuario usuario) {
+        return objeto(
+                "id", usuario.getId(),
+                "nombre", usuario.getNombre(),
+                "email", usuario.getEmail());
+    }
+
+    private static Map<String, Object> prestamo(Prestamo prestamo) {
+        return objeto(
+                "id", prestamo.getId(),
+                "recurso", prestamo.getRecurso().getIdentificador(),
+                "usuario", prestamo.getUsuario().getId(),
+                "fechaPrestamo", prestamo.getFechaPrestamo(),
+                "fechaDevolucion", prestamo.getFechaDevolucion(),
+                "renovaciones", prestamo.getRenovaciones(),
+                "devuelto", prestamo.isDevuelto());
+    }
+
+    private static Map<String, Object> reserva(Reserva reserva) {
+        return objeto(
+                "id", reserva.getId(),
+                "recurso", reserva.getRecurso().getIdentificador(),
+                "usuario", reserva.getUsuario().getId(),
+                "prioridad", reserva.getPrioridad(),
+                "prioridadEfectiva", reserva.getPrioridadEfectiva(),
+                "fechaReserva", reserva.getFechaReserva(),
+                "fechaLimite", reserva.getFechaLimite(),
+                "activa", reserva.isActiva());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,544 @@
+package app.biblioteca.api;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Array;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import app.biblioteca.benchmark.GeneradorCarga;
+import app.biblioteca.exceptions.LimiteExcedidoException;
+import app.biblioteca.exceptions.RecursoNoDisponibleException;
+import app.biblioteca.exceptions.UsuarioNoEncontradoException;
+import app.biblioteca.interfaces.RecursoDigital;
+import app.biblioteca.logging.NivelRegistro;
+import app.biblioteca.logging.RegistroEventos;
+import app.biblioteca.metrics.RegistroMetricas;
+import app.biblioteca.metrics.Temporizador;
+import app.biblioteca.models.CategoriaRecurso;
+import app.biblioteca.models.EstadoRecurso;
+import app.biblioteca.models.Prestamo;
+import app.biblioteca.models.Reserva;
+import app.biblioteca.models.TipoRecurso;
+import app.biblioteca.models.Usuario;
+import app.biblioteca.reports.EstadisticasCategorias;
+import app.biblioteca.reports.ReporteRecursosMasPrestados;
+import app.biblioteca.reports.ReporteUsuariosActivos;
+import app.biblioteca.services.Autocompletado;
+import app.biblioteca.services.ControlCuotas;
+import app.biblioteca.services.FiltroRecursos;
+import app.biblioteca.services.GestorRecursos;
+import app.biblioteca.services.GestorUsuarios;
+import app.biblioteca.services.InventarioEjemplares;
+import app.biblioteca.services.SistemaPrestamos;
+import app.biblioteca.services.SistemaReservas;
+
+/**
+ * API HTTP/JSON sobre el {@link HttpServer} del JDK, para que los puestos de
+ * atención y las terminales de autoservicio de las sucursales usen los
+ * servicios de forma concurrente.
+ *
+ * Rutas:
+ * <ul>
+ * <li>{@code GET /recursos?titulo=&aproximado=true&disponibles=true}, {@code GET /recursos?tipo=&categoria=&estado=},
+ * {@code GET /recursos/{id}}, {@code GET|POST /recursos/{id}/ejemplares} (cantidad)</li>
+ * <li>{@code GET /usuarios/{id}}, {@code POST /usuarios} (id, nombre, email)</li>
+ * <li>{@code GET /prestamos?usuario=}, {@code POST /prestamos} (recurso, usuario),
+ * {@code POST /prestamos/{id}/devolucion}, {@code POST /prestamos/{id}/renovacion}</li>
+ * <li>{@code GET /reservas?recurso=|usuario=}, {@code GET /reservas/{id}/posicion},
+ * {@code POST /reservas} (recurso, usuario, prioridad), {@code POST /reservas/{id}/prioridad} (prioridad),
+ * {@code DELETE /reservas/{id}}</li>
+ * <li>{@code GET /reportes/recursos-mas-prestados?limite=}, {@code GET /reportes/usuarios-activos},
+ * {@code GET /reportes/categorias}</li>
+ * <li>{@code GET /autocompletado?prefijo=&cantidad=}</li>
+ * <li>{@code GET /metricas}</li>
+ * </ul>
+ * Los parámetros de POST se envían en la consulta o en el cuerpo como
+ * {@code application/x-www-form-urlencoded}.
+ *
+ * Las solicitudes se atienden en un pool fijo de hilos. El servidor HTTP
+ * del JDK multiplexa las conexiones en su hilo despachador, por lo que el
+ * pool solo limita las solicitudes en curso y no la cantidad de terminales
+ * conectadas; como los servicios trabajan en memoria, cada solicitud ocupa
+ * su hilo muy poco tiempo.
+ */
+public class ServidorBiblioteca {
+    private static final RegistroEventos REGISTRO = RegistroEventos.compartido();
+    private static final Temporizador TIEMPO_SOLICITUD = RegistroMetricas.compartido()
+            .temporizador("api.solicitudes");
+    private static final LongAdder ERRORES = RegistroMetricas.compartido().contador("api.errores");
+    private static final String TIPO_JSON = "application/json; charset=utf-8";
+
+    private final GestorRecursos gestorRecursos;
+    private final GestorUsuarios gestorUsuarios;
+    private final SistemaPrestamos sistemaPrestamos;
+    private final SistemaReservas sistemaReservas;
+    private final ReporteRecursosMasPrestados reporteRecursos;
+    private final ReporteUsuariosActivos reporteUsuarios;
+    private EstadisticasCategorias estadisticasCategorias;
+    private Autocompletado autocompletado;
+    private HttpServer servidor;
+    private ExecutorService ejecutor;
+
+    public ServidorBiblioteca(GestorRecursos gestorRecursos, GestorUsuarios gestorUsuarios,
+            SistemaPrestamos sistemaPrestamos, SistemaReservas sistemaReservas) {
+        this.gestorRecursos = gestorRecursos;
+        this.gestorUsuarios = gestorUsuarios;
+        this.sistemaPrestamos = sistemaPrestamos;
+        this.sistemaReservas = sistemaReservas;
+        this.reporteRecursos = new ReporteRecursosMasPrestados(sistemaPrestamos);
+        this.reporteUsuarios = new ReporteUsuariosActivos(sistemaPrestamos, gestorUsuarios);
+    }
+
+    /**
+     * Habilita {@code /reportes/categorias} con las estadísticas indicadas
+     */
+    public void setEstadisticasCategorias(EstadisticasCategorias estadisticasCategorias) {
+        this.estadisticasCategorias = estadisticasCategorias;
+    }
+
+    /**
+     * Habilita {@code /autocompletado?prefijo=&cantidad=} con el índice indicado
+     */
+    public void setAutocompletado(Autocompletado autocompletado) {
+        this.autocompletado = autocompletado;
+    }
+
+    /**
+     * Inicia el servidor
+     *
+     * @param puerto Puerto en el que escucha; 0 elige uno libre
+     * @param hilos  Solicitudes que se atienden en paralelo
+     */
+    public synchronized void iniciar(int puerto, int hilos) throws IOException {
+        if (servidor != null) {
+            throw new IllegalStateException("El servidor ya está iniciado");
+        }
+
+        AtomicInteger numeroHilo = new AtomicInteger();
+        ejecutor = Executors.newFixedThreadPool(hilos, tarea -> {
+            Thread hilo = new Thread(tarea, "api-biblioteca-" + numeroHilo.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+
+        servidor = HttpServer.create(new InetSocketAddress(puerto), 1024);
+        servidor.setExecutor(ejecutor);
+        servidor.createContext("/recursos", intercambio -> atender(intercambio, this::recursos));
+        servidor.createContext("/usuarios", intercambio -> atender(intercambio, this::usuarios));
+        servidor.createContext("/prestamos", intercambio -> atender(intercambio, this::prestamos));
+        servidor.createContext("/reservas", intercambio -> atender(intercambio, this::reservas));
+        servidor.createContext("/reportes", intercambio -> atender(intercambio, this::reportes));
+        servidor.createContext("/autocompletado", intercambio -> atender(intercambio, this::autocompletado));
+        servidor.createContext("/metricas",
+                intercambio -> atender(intercambio, solicitud -> Respuesta.ok(RegistroMetricas.compartido()
+                        .instantanea())));
+        servidor.start();
+
+        REGISTRO.info("api.iniciada", "API escuchando en el puerto {} con {} hilos", getPuerto(), hilos);
+    }
+
+    public synchronized int getPuerto() {
+        return servidor == null ? -1 : servidor.getAddress().getPort();
+    }
+
+    /**
+     * Deja de aceptar conexiones y espera hasta un segundo a que terminen
+     * las solicitudes en curso
+     */
+    public synchronized void detener() {
+        if (servidor == null) {
+            return;
+        }
+        servidor.stop(1);
+        ejecutor.shutdown();
+        try {
+            if (!ejecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                ejecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            ejecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        servidor = null;
+        REGISTRO.info("api.detenida", "API detenida");
+    }
+
+    private Respuesta recursos(SolicitudApi solicitud) {
+        if (solicitud.cantidadSegmentos() == 2 && "ejemplares".equals(solicitud.segmento(1))) {
+            return ejemplares(solicitud);
+        }
+
+        exigirMetodo(solicitud, "GET");
+
+        if (solicitud.cantidadSegmentos() == 1) {
+            RecursoDigital recurso = gestorRecursos.buscarRecursoPorId(solicitud.segmento(0));
+            return recurso == null ? Respuesta.noEncontrado("No existe el recurso " + solicitud.segmento(0))
+                    : Respuesta.ok(recurso);
+        }
+
+        String titulo = solicitud.parametro("titulo");
+        FiltroRecursos filtro = filtroRecursos(solicitud);
+        List<RecursoDigital> recursos;
+        if (filtro != null) {
+            recursos = gestorRecursos.consultar(filtro);
+        } else if (titulo != null && "true".equals(solicitud.parametro("aproximado"))) {
+            recursos = gestorRecursos.buscarRecursosPorTituloAproximado(titulo);
+        } else if (titulo != null) {
+            recursos = gestorRecursos.buscarRecursosPorTitulo(titulo);
+        } else if ("true".equals(solicitud.parametro("disponibles"))) {
+            recursos = gestorRecursos.listarRecursosDisponibles();
+        } else {
+            recursos = gestorRecursos.listarRecursos();
+        }
+        return Respuesta.ok(recursos);
+    }
+
+    /**
+     * Ejemplares de un título: GET los informa y POST agrega la cantidad
+     * indicada en el parámetro cantidad
+     */
+    private Respuesta ejemplares(SolicitudApi solicitud) {
+        RecursoDigital recurso = gestorRecursos.buscarRecursoPorId(solicitud.segmento(0));
+        if (recurso == null) {
+            return Respuesta.noEncontrado("No existe el recurso " + solicitud.segmento(0));
+        }
+
+        if ("POST".equals(solicitud.getMetodo())) {
+            int cantidad = solicitud.parametroEntero("cantidad", 1);
+            if (cantidad <= 0) {
+                throw new IllegalArgumentException("El parámetro 'cantidad' debe ser positivo");
+            }
+            gestorRecursos.agregarEjemplares(recurso.getIdentificador(), cantidad);
+        } else {
+            exigirMetodo(solicitud, "GET");
+        }
+
+        InventarioEjemplares inventario = gestorRecursos.getInventario();
+        return Respuesta.ok(Json.objeto("id", recurso.getIdentificador(), "ejemplares", inventario.total(recurso),
+                "disponibles", inventario.disponibles(recurso)));
+    }
+
+    private Respuesta autocompletado(SolicitudApi solicitud) {
+        exigirMetodo(solicitud, "GET");
+        if (autocompletado == null) {
+            return Respuesta.noEncontrado("El autocompletado no está habilitado");
+        }
+        String prefijo = solicitud.parametroObligatorio("prefijo");
+        int cantidad = solicitud.parametroEntero("cantidad", Autocompletado.MAXIMO_SUGERENCIAS);
+        return Respuesta.ok(autocompletado.sugerir(prefijo, cantidad));
+    }
+
+    /**
+     * Filtro armado con los parámetros tipo, categoria y estado; cada uno
+     * admite varios valores separados por comas
+     */
+    private static FiltroRecursos filtroRecursos(SolicitudApi solicitud) {
+        List<FiltroRecursos> filtros = new ArrayList<>();
+        String tipos = solicitud.parametro("tipo");
+        String categorias = solicitud.parametro("categoria");
+        String estados = solicitud.parametro("estado");
+
+        if (tipos != null) {
+            filtros.add(FiltroRecursos.tipo(valores(TipoRecurso.class, tipos)));
+        }
+        if (categorias != null) {
+            filtros.add(FiltroRecursos.categoria(valores(CategoriaRecurso.class, categorias)));
+        }
+        if (estados != null) {
+            filtros.add(FiltroRecursos.estado(valores(EstadoRecurso.class, estados)));
+        }
+        return filtros.isEmpty() ? null : FiltroRecursos.todos(filtros.toArray(new FiltroRecursos[0]));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E extends Enum<E>> E[] valores(Class<E> tipo, String lista) {
+        String[] nombres = lista.split(",");
+        E[] valores = (E[]) Array.newInstance(tipo, nombres.length);
+        for (int i = 0; i < nombres.length; i++) {
+            // valueOf lanza IllegalArgumentException, que se responde con 400
+            valores[i] = Enum.valueOf(tipo, nombres[i].trim().toUpperCase());
+        }
+        return valores;
+    }
+
+    private Respuesta usuarios(SolicitudApi solicitud) throws UsuarioNoEncontradoException {
+        if ("POST".equals(solicitud.getMetodo()) && solicitud.cantidadSegmentos() == 0) {
+            Usuario usuario = new Usuario(solicitud.parametroObligatorio("id"),
+                    solicitud.parametroObligatorio("nombre"), solicitud.parametroObligatorio("email"));
+            return gestorUsuarios.registrarUsuario(usuario)
+                    ? Respuesta.creado(usuario)
+                    : Respuesta.conflicto("Ya existe un usuario con ese ID o email");
+        }
+
+        exigirMetodo(solicitud, "GET");
+        if (solicitud.cantidadSegmentos() == 1) {
+            return Respuesta.ok(gestorUsuarios.buscarPorId(solicitud.segmento(0)));
+        }
+        return Respuesta.ok(gestorUsuarios.listarUsuarios());
+    }
+
+    private Respuesta prestamos(SolicitudApi solicitud)
+            throws RecursoNoDisponibleException, UsuarioNoEncontradoException {
+        if ("GET".equals(solicitud.getMetodo())) {
+            String idUsuario = solicitud.parametro("usuario");
+            return Respuesta.ok(idUsuario == null
+                    ? sistemaPrestamos.listarPrestamosActivos()
+                    : sistemaPrestamos.listarPrestamosActivosPorUsuario(gestorUsuarios.buscarPorId(idUsuario)));
+        }
+
+        exigirMetodo(solicitud, "POST");
+        if (solicitud.cantidadSegmentos() == 0) {
+            Usuario usuario = gestorUsuarios.buscarPorId(solicitud.parametroObligatorio("usuario"));
+            Prestamo prestamo = sistemaPrestamos.prestarRecurso(solicitud.parametroObligatorio("recurso"), usuario);
+            return Respuesta.creado(prestamo);
+        }
+
+        if (solicitud.cantidadSegmentos() == 2) {
+            String idPrestamo = solicitud.segmento(0);
+            switch (solicitud.segmento(1)) {
+                case "devolucion":
+                    return sistemaPrestamos.devolverRecurso(idPrestamo)
+                            ? Respuesta.ok(Json.objeto("id", idPrestamo, "devuelto", true))
+                            : Respuesta.conflicto("El préstamo no existe o ya fue devuelto");
+                case "renovacion":
+                    return sistemaPrestamos.renovarPrestamo(idPrestamo)
+                            ? Respuesta.ok(Json.objeto("id", idPrestamo, "renovado", true))
+                            : Respuesta.conflicto("El préstamo no puede renovarse");
+                default:
+                    break;
+            }
+        }
+        return Respuesta.noEncontrado("Ruta desconocida");
+    }
+
+    private Respuesta reservas(SolicitudApi solicitud)
+            throws RecursoNoDisponibleException, UsuarioNoEncontradoException {
+        switch (solicitud.getMetodo()) {
+            case "GET": {
+                if (solicitud.cantidadSegmentos() == 2 && "posicion".equals(solicitud.segmento(1))) {
+                    return posicionReserva(solicitud.segmento(0));
+                }
+                String idRecurso = solicitud.parametro("recurso");
+                String idUsuario = solicitud.parametro("usuario");
+                if (idRecurso != null) {
+                    return Respuesta.ok(sistemaReservas.listarReservasPorRecurso(idRecurso));
+                }
+                if (idUsuario != null) {
+                    return Respuesta.ok(sistemaReservas.listarReservasPorUsuario(
+                            gestorUsuarios.buscarPorId(idUsuario)));
+                }
+                return Respuesta.ok(sistemaReservas.listarReservasActivas());
+            }
+            case "POST": {
+                if (solicitud.cantidadSegmentos() == 2 && "prioridad".equals(solicitud.segmento(1))) {
+                    String idReserva = solicitud.segmento(0);
+                    int prioridad = solicitud.parametroEntero("prioridad", 1);
+                    return sistemaReservas.cambiarPrioridad(idReserva, prioridad)
+                            ? Respuesta.ok(Json.objeto("id", idReserva, "prioridad", prioridad))
+                            : Respuesta.conflicto("La reserva no existe o ya no está activa");
+                }
+                Usuario usuario = gestorUsuarios.buscarPorId(solicitud.parametroObligatorio("usuario"));
+                Reserva reserva = sistemaReservas.reservarRecurso(solicitud.parametroObligatorio("recurso"), usuario,
+                        solicitud.parametroEntero("prioridad", 1));
+                return Respuesta.creado(reserva);
+            }
+            case "DELETE":
+                if (solicitud.cantidadSegmentos() != 1) {
+                    return Respuesta.noEncontrado("Ruta desconocida");
+                }
+                return sistemaReservas.cancelarReserva(solicitud.segmento(0))
+                        ? Respuesta.ok(Json.objeto("id", solicitud.segmento(0), "cancelada", true))
+                        : Respuesta.conflicto("La reserva no existe o ya no está activa");
+            default:
+                throw new MetodoNoPermitidoException();
+        }
+    }
+
+    private Respuesta posicionReserva(String idReserva) {
+        Duration espera = sistemaReservas.estimarEspera(idReserva);
+        if (espera == null) {
+            return Respuesta.noEncontrado("La reserva no existe o ya no está activa");
+        }
+        return Respuesta.ok(Json.objeto("id", idReserva, "posicion", sistemaReservas.obtenerPosicion(idReserva),
+                "esperaEstimadaDias", espera.toDays()));
+    }
+
+    private Respuesta reportes(SolicitudApi solicitud) throws Exception {
+        exigirMetodo(solicitud, "GET");
+
+        switch (String.valueOf(solicitud.segmento(0))) {
+            case "recursos-mas-prestados": {
+                List<Map<String, Object>> filas = new ArrayList<>();
+                reporteRecursos.generarReporte(solicitud.parametroEntero("limite", 10))
+                        .forEach((recurso, cantidad) -> filas.add(Json.objeto("recurso", recurso,
+                                "prestamos", cantidad)));
+                return Respuesta.ok(filas);
+            }
+            case "usuarios-activos": {
+                List<Map<String, Object>> filas = new ArrayList<>();
+                // El planificador reutiliza el resultado mientras no cambien los préstamos
+                reporteUsuarios.programarReporte().obtenerResultado(30, TimeUnit.SECONDS)
+                        .forEach((usuario, cantidad) -> filas.add(Json.objeto("usuario", usuario,
+                                "prestamos", cantidad)));
+                filas.sort((a, b) -> Integer.compare((Integer) b.get("prestamos"), (Integer) a.get("prestamos")));
+                return Respuesta.ok(filas);
+            }
+            case "categorias":
+                if (estadisticasCategorias == null) {
+                    return Respuesta.noEncontrado("Las estadísticas por categoría no están habilitadas");
+                }
+                return Respuesta.ok(Json.objeto(
+                        "prestamos", estadisticasCategorias.prestamosPorCategoria(),
+                        "utilizacion", estadisticasCategorias.utilizacionPorCategoria(),
+                        "reservasPendientes", estadisticasCategorias.reservasPendientesPorCategoria()));
+            default:
+                return Respuesta.noEncontrado("Reporte desconocido");
+        }
+    }
+
+    private void atender(HttpExchange intercambio, Manejador manejador) throws IOException {
+        long inicio = TIEMPO_SOLICITUD.iniciar();
+        Respuesta respuesta;
+        try {
+            respuesta = manejador.atender(new SolicitudApi(intercambio));
+        } catch (IllegalArgumentException e) {
+            respuesta = Respuesta.error(400, e.getMessage());
+        } catch (UsuarioNoEncontradoException e) {
+            respuesta = Respuesta.noEncontrado(e.getMessage());
+        } catch (MetodoNoPermitidoException e) {
+            respuesta = Respuesta.error(405, "Método no permitido");
+        } catch (LimiteExcedidoException e) {
+            respuesta = Respuesta.error(429, e.getMessage());
+        } catch (RecursoNoDisponibleException e) {
+            respuesta = Respuesta.conflicto(e.getMessage());
+        } catch (TimeoutException e) {
+            respuesta = Respuesta.error(503, "El reporte no terminó a tiempo");
+        } catch (Exception e) {
+            REGISTRO.error("api.error", "Error al atender la solicitud: {}", e);
+            respuesta = Respuesta.error(500, "Error interno");
+        }
+
+        try {
+            if (respuesta.estado >= 400) {
+                ERRORES.increment();
+            }
+            byte[] cuerpo = Json.escribir(respuesta.cuerpo).getBytes(StandardCharsets.UTF_8);
+            intercambio.getResponseHeaders().set("Content-Type", TIPO_JSON);
+            intercambio.sendResponseHeaders(respuesta.estado, cuerpo.length);
+            try (OutputStream salida = intercambio.getResponseBody()) {
+                salida.write(cuerpo);
+            }
+        } finally {
+            intercambio.close();
+            TIEMPO_SOLICITUD.registrar(inicio);
+        }
+    }
+
+    private static void exigirMetodo(SolicitudApi solicitud, String metodo) {
+        if (!metodo.equals(solicitud.getMetodo())) {
+            throw new MetodoNoPermitidoException();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Manejador {
+        Respuesta atender(SolicitudApi solicitud) throws Exception;
+    }
+
+    private static final class MetodoNoPermitidoException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        MetodoNoPermitidoException() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static final class Respuesta {
+        private final int estado;
+        private final Object cuerpo;
+
+        private Respuesta(int estado, Object cuerpo) {
+            this.estado = estado;
+            this.cuerpo = cuerpo;
+        }
+
+        static Respuesta ok(Object cuerpo) {
+            return new Respuesta(200, cuerpo);
+        }
+
+        static Respuesta creado(Object cuerpo) {
+            return new Respuesta(201, cuerpo);
+        }
+
+        static Respuesta noEncontrado(String mensaje) {
+            return error(404, mensaje);
+        }
+
+        static Respuesta conflicto(String mensaje) {
+            return error(409, mensaje);
+        }
+
+        static Respuesta error(int estado, String mensaje) {
+            return new Respuesta(estado, Json.objeto("error", mensaje));
+        }
+    }
+
+    /**
+     * Inicia la API con un catálogo y usuarios sintéticos, para probarla con
+     * carga desde localhost.
+     *
+     * Uso: {@code ServidorBiblioteca [puerto] [hilos] [recursos] [usuarios]}
+     */
+    public static void main(String[] args) throws IOException {
+        int puerto = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        int hilos = args.length > 1 ? Integer.parseInt(args[1]) : 4 * Runtime.getRuntime().availableProcessors();
+        int cantidadRecursos = args.length > 2 ? Integer.parseInt(args[2]) : 10_000;
+        int cantidadUsuarios = args.length > 3 ? Integer.parseInt(args[3]) : 2_000;
+
+        REGISTRO.setNivel(NivelRegistro.ADVERTENCIA);
+
+        GestorRecursos gestorRecursos = new GestorRecursos();
+        GestorUsuarios gestorUsuarios = new GestorUsuarios();
+        ControlCuotas controlCuotas = ControlCuotas.porDefecto();
+        SistemaPrestamos sistemaPrestamos = new SistemaPrestamos(gestorRecursos, controlCuotas);
+        SistemaReservas sistemaReservas = new SistemaReservas(gestorRecursos, controlCuotas);
+
+        EstadisticasCategorias estadisticasCategorias = new EstadisticasCategorias();
+        gestorRecursos.agregarObservador(estadisticasCategorias);
+        sistemaPrestamos.agregarObservador(estadisticasCategorias);
+        sistemaReservas.agregarObservador(estadisticasCategorias);
+        Autocompletado autocompletado = new Autocompletado();
+        gestorRecursos.agregarObservador(autocompletado);
+        sistemaPrestamos.agregarObservador(autocompletado);
+
+        GeneradorCarga generador = new GeneradorCarga(gestorRecursos, gestorUsuarios, sistemaPrestamos,
+                sistemaReservas, 42L);
+        generador.poblarCatalogo(cantidadRecursos, 0.99);
+        generador.poblarUsuarios(cantidadUsuarios);
+
+        ServidorBiblioteca servidor = new ServidorBiblioteca(gestorRecursos, gestorUsuarios, sistemaPrestamos,
+                sistemaReservas);
+        servidor.setEstadisticasCategorias(estadisticasCategorias);
+        servidor.setAutocompletado(autocompletado);
+        servidor.iniciar(puerto, hilos);
+        Runtime.getRuntime().addShutdownHook(new Thread(servidor::detener));
+
+        System.out.println("API de la biblioteca en http://localhost:" + servidor.getPuerto()
+                + "/ con " + cantidadRecursos + " recursos y " + cantidadUsuarios + " usuarios (C0..C"
+                + (cantidadUsuarios - 1) + ")");
+    }
+}
\ No newline at end of file
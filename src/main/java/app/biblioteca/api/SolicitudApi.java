@@ -0,0 +1,97 @@
+package app.biblioteca.api;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.sun.net.httpserver.HttpExchange;
+
+/**
+ * Datos de una solicitud HTTP: método, segmentos de la ruta relativos al
+ * contexto y parámetros. Los parámetros se leen de la consulta y, en las
+ * solicitudes POST, también del cuerpo en formato
+ * {@code application/x-www-form-urlencoded}.
+ */
+final class SolicitudApi {
+    private static final int TAMANIO_MAXIMO_CUERPO = 64 * 1024;
+
+    private final String metodo;
+    private final String[] segmentos;
+    private final Map<String, String> parametros = new HashMap<>();
+
+    SolicitudApi(HttpExchange intercambio) throws IOException {
+        this.metodo = intercambio.getRequestMethod();
+
+        String ruta = intercambio.getRequestURI().getPath()
+                .substring(intercambio.getHttpContext().getPath().length());
+        this.segmentos = ruta.isEmpty() || ruta.equals("/")
+                ? new String[0]
+                : ruta.replaceAll("^/+|/+$", "").split("/+");
+
+        leerParametros(intercambio.getRequestURI().getRawQuery());
+        if ("POST".equals(metodo)) {
+            leerParametros(leerCuerpo(intercambio.getRequestBody()));
+        }
+    }
+
+    String getMetodo() {
+        return metodo;
+    }
+
+    int cantidadSegmentos() {
+        return segmentos.length;
+    }
+
+    String segmento(int indice) {
+        return indice < segmentos.length ? segmentos[indice] : null;
+    }
+
+    String parametro(String nombre) {
+        return parametros.get(nombre);
+    }
+
+    String parametroObligatorio(String nombre) {
+        String valor = parametros.get(nombre);
+        if (valor == null || valor.isBlank()) {
+            throw new IllegalArgumentException("Falta el parámetro '" + nombre + "'");
+        }
+        return valor;
+    }
+
+    int parametroEntero(String nombre, int porDefecto) {
+        String valor = parametros.get(nombre);
+        if (valor == null || valor.isBlank()) {
+            return porDefecto;
+        }
+        try {
+            return Integer.parseInt(valor.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("El parámetro '" + nombre + "' debe ser un número entero");
+        }
+    }
+
+    private void leerParametros(String codificados) {
+        if (codificados == null || codificados.isEmpty()) {
+            return;
+        }
+        for (String par : codificados.split("&")) {
+            int separador = par.indexOf('=');
+            String nombre = separador < 0 ? par : par.substring(0, separador);
+            String valor = separador < 0 ? "" : par.substring(separador + 1);
+            parametros.put(URLDecoder.decode(nombre, StandardCharsets.UTF_8),
+                    URLDecoder.decode(valor, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static String leerCuerpo(InputStream cuerpo) throws IOException {
+        byte[] bytes = cuerpo.readNBytes(TAMANIO_MAXIMO_CUERPO + 1);
+        if (bytes.length > TAMANIO_MAXIMO_CUERPO) {
+            throw new IllegalArgumentException("El cuerpo de la solicitud supera los "
+                    + TAMANIO_MAXIMO_CUERPO + " bytes");
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,293 @@
+package app.biblioteca.benchmark;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import app.biblioteca.exceptions.RecursoNoDisponibleException;
+import app.biblioteca.logging.NivelRegistro;
+import app.biblioteca.logging.RegistroEventos;
+import app.biblioteca.metrics.RegistroMetricas;
+import app.biblioteca.metrics.Temporizador;
+import app.biblioteca.models.Audiolibro;
+import app.biblioteca.models.Libro;
+import app.biblioteca.models.Prestamo;
+import app.biblioteca.models.Reserva;
+import app.biblioteca.models.Usuario;
+import app.biblioteca.reports.ReporteManager;
+import app.biblioteca.reports.ReporteRecursosMasPrestados;
+import app.biblioteca.reports.ReporteUsuariosActivos;
+import app.biblioteca.services.GestorRecursos;
+import app.biblioteca.services.PoolLicencias;
+import app.biblioteca.services.SistemaPrestamos;
+import app.biblioteca.services.SistemaReservas;
+
+/**
+ * Suite de benchmarks de las rutas críticas del sistema: préstamo y
+ * devolución con varios hilos, licencias de un audiolibro muy pedido,
+ * reservas sobre colas profundas, búsqueda por título en catálogos de
+ * distintos tamaños y generación de reportes sobre historiales grandes.
+ *
+ * Uso: {@code BenchmarksBiblioteca [hilosMax] [tamaniosCatalogo] [prestamosHistorial] [profundidadCola]}
+ * <br>
+ * Por ejemplo {@code BenchmarksBiblioteca 8 1000,100000,10000000 200000 10000}.
+ */
+public class BenchmarksBiblioteca {
+
+    private static final int ITERACIONES_CALENTAMIENTO = 3;
+    private static final int ITERACIONES_MEDICION = 5;
+    private static final long DURACION_ITERACION_MILLIS = 1000;
+    private static final int RECURSOS_POR_HILO = 64;
+
+    public static void main(String[] args) {
+        int hilosMax = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int[] tamanios = args.length > 1 ? parsearTamanios(args[1]) : new int[] { 1_000, 10_000, 100_000 };
+        int prestamosHistorial = args.length > 2 ? Integer.parseInt(args[2]) : 50_000;
+        int profundidadCola = args.length > 3 ? Integer.parseInt(args[3]) : 1_000;
+
+        // Solo errores, para que el registro no compita por la consola con los resultados
+        RegistroEventos.compartido().setNivel(NivelRegistro.ERROR);
+
+        MedidorRendimiento medidor = new MedidorRendimiento(ITERACIONES_CALENTAMIENTO, ITERACIONES_MEDICION,
+                DURACION_ITERACION_MILLIS);
+
+        for (int hilos = 1; hilos <= hilosMax; hilos *= 2) {
+            imprimir(benchmarkTemporizador(medidor, hilos));
+        }
+
+        for (int hilos = 1; hilos <= hilosMax; hilos *= 2) {
+            imprimir(benchmarkPrestamoDevolucion(medidor, hilos));
+        }
+        for (int hilos = 1; hilos <= hilosMax; hilos *= 2) {
+            imprimir(benchmarkLicencias(medidor, hilos));
+        }
+        imprimir(benchmarkSiguienteReserva(medidor, profundidadCola));
+        imprimir(benchmarkPosicionReserva(medidor, profundidadCola));
+        imprimir(benchmarkCambiarPrioridad(medidor, profundidadCola));
+        imprimir(benchmarkReservarCancelar(medidor, profundidadCola));
+        for (int tamanio : tamanios) {
+            imprimir(benchmarkBusquedaPorTitulo(medidor, tamanio));
+        }
+        benchmarkReportes(medidor, prestamosHistorial).forEach(BenchmarksBiblioteca::imprimir);
+    }
+
+    /**
+     * Costo de instrumentar una operación, para comparar con las rutas
+     * críticas que lo usan
+     */
+    static MedidorRendimiento.Resultado benchmarkTemporizador(MedidorRendimiento medidor, int hilos) {
+        Temporizador temporizador = new RegistroMetricas().temporizador("benchmark");
+        return medidor.medir("Temporizador.iniciar+registrar", hilos,
+                hilo -> temporizador.registrar(temporizador.iniciar()));
+    }
+
+    /**
+     * Cada hilo presta y devuelve recursos de su propio subconjunto, de modo
+     * que la contención medida es la de los servicios y no la de los datos
+     */
+    static MedidorRendimiento.Resultado benchmarkPrestamoDevolucion(MedidorRendimiento medidor, int hilos) {
+        GestorRecursos gestor = new GestorRecursos();
+        SistemaPrestamos sistema = new SistemaPrestamos(gestor);
+        Usuario[] usuarios = new Usuario[hilos];
+        int[] posiciones = new int[hilos * 16];
+
+        silenciado(() -> {
+            for (int h = 0; h < hilos; h++) {
+                usuarios[h] = crearUsuario(h);
+                for (int i = 0; i < RECURSOS_POR_HILO; i++) {
+                    gestor.agregarRecurso(crearLibro(h * RECURSOS_POR_HILO + i));
+                }
+            }
+        });
+
+        return medidor.medir("SistemaPrestamos.prestar+devolver", hilos, hilo -> {
+            // Posiciones separadas por 16 enteros para no compartir línea de caché
+            int i = posiciones[hilo * 16]++ % RECURSOS_POR_HILO;
+            Prestamo prestamo = sistema.prestarRecurso(idLibro(hilo * RECURSOS_POR_HILO + i), usuarios[hilo]);
+            sistema.devolverRecurso(prestamo.getId());
+        });
+    }
+
+    /**
+     * Todos los hilos piden y devuelven licencias del mismo audiolibro, que
+     * tiene la mitad de licencias que hilos; un pedido sin licencia libre
+     * cuenta como operación rechazada
+     */
+    static MedidorRendimiento.Resultado benchmarkLicencias(MedidorRendimiento medidor, int hilos) {
+        GestorRecursos gestor = new GestorRecursos();
+        SistemaPrestamos sistema = new SistemaPrestamos(gestor);
+        PoolLicencias pool = new PoolLicencias(sistema, new SistemaReservas(gestor), gestor);
+        Usuario[] usuarios = new Usuario[hilos];
+        int licencias = Math.max(1, hilos / 2);
+
+        silenciado(() -> {
+            gestor.agregarRecurso(new Audiolibro("A0", "Audiolibro 0", "Autor 0", "Narrador 0", 60));
+            for (int h = 0; h < hilos; h++) {
+                usuarios[h] = crearUsuario(h);
+            }
+            pool.iniciar();
+            pool.asignarLicencias("A0", licencias);
+        });
+
+        try {
+            return medidor.medir("PoolLicencias.prestar+devolver[" + licencias + "]", hilos, hilo -> {
+                try {
+                    Prestamo prestamo = sistema.prestarRecurso("A0", usuarios[hilo]);
+                    sistema.devolverRecurso(prestamo.getId());
+                } catch (RecursoNoDisponibleException e) {
+                    // Sin licencia libre
+                }
+            });
+        } finally {
+            silenciado(pool::detener);
+        }
+    }
+
+    static MedidorRendimiento.Resultado benchmarkSiguienteReserva(MedidorRendimiento medidor, int profundidad) {
+        SistemaReservas sistema = prepararColaReservas(profundidad);
+        return medidor.medir("SistemaReservas.obtenerSiguienteReserva[" + profundidad + "]", 1,
+                hilo -> sistema.obtenerSiguienteReserva(idLibro(0)));
+    }
+
+    /**
+     * Posición en la fila de una reserva en la mitad de la cola
+     */
+    static MedidorRendimiento.Resultado benchmarkPosicionReserva(MedidorRendimiento medidor, int profundidad) {
+        SistemaReservas sistema = prepararColaReservas(profundidad);
+        String idReserva = sistema.listarReservasPorRecurso(idLibro(0)).get(profundidad / 2).getId();
+        return medidor.medir("SistemaReservas.obtenerPosicion[" + profundidad + "]", 1,
+                hilo -> sistema.obtenerPosicion(idReserva));
+    }
+
+    /**
+     * Mueve una reserva en la mitad de la cola entre dos prioridades
+     */
+    static MedidorRendimiento.Resultado benchmarkCambiarPrioridad(MedidorRendimiento medidor, int profundidad) {
+        SistemaReservas sistema = prepararColaReservas(profundidad);
+        String idReserva = sistema.listarReservasPorRecurso(idLibro(0)).get(profundidad / 2).getId();
+        int[] prioridad = new int[1];
+        return medidor.medir("SistemaReservas.cambiarPrioridad[" + profundidad + "]", 1,
+                hilo -> sistema.cambiarPrioridad(idReserva, prioridad[0]++ % 10));
+    }
+
+    /**
+     * Reserva y cancela sobre una cola ya cargada, manteniendo su profundidad
+     */
+    static MedidorRendimiento.Resultado benchmarkReservarCancelar(MedidorRendimiento medidor, int profundidad) {
+        SistemaReservas sistema = prepararColaReservas(profundidad);
+        Usuario usuario = crearUsuario(profundidad);
+        int[] prioridad = new int[1];
+
+        return medidor.medir("SistemaReservas.reservar+cancelar[" + profundidad + "]", 1, hilo -> {
+            Reserva reserva = sistema.reservarRecurso(idLibro(0), usuario, prioridad[0]++ % 10);
+            sistema.cancelarReserva(reserva.getId());
+        });
+    }
+
+    static MedidorRendimiento.Resultado benchmarkBusquedaPorTitulo(MedidorRendimiento medidor, int tamanio) {
+        GestorRecursos gestor = new GestorRecursos();
+        silenciado(() -> {
+            for (int i = 0; i < tamanio; i++) {
+                gestor.agregarRecurso(crearLibro(i));
+            }
+        });
+
+        String buscado = "título " + (tamanio / 2);
+        return medidor.medir("GestorRecursos.buscarRecursosPorTitulo[" + tamanio + "]", 1,
+                hilo -> gestor.buscarRecursosPorTitulo(buscado));
+    }
+
+    static List<MedidorRendimiento.Resultado> benchmarkReportes(MedidorRendimiento medidor, int prestamos) {
+        GestorRecursos gestor = new GestorRecursos();
+        SistemaPrestamos sistema = new SistemaPrestamos(gestor);
+        int cantidadRecursos = Math.max(1, prestamos / 10);
+        int cantidadUsuarios = Math.max(1, prestamos / 20);
+
+        silenciado(() -> {
+            for (int i = 0; i < cantidadRecursos; i++) {
+                gestor.agregarRecurso(crearLibro(i));
+            }
+            Usuario[] usuarios = new Usuario[cantidadUsuarios];
+            for (int i = 0; i < cantidadUsuarios; i++) {
+                usuarios[i] = crearUsuario(i);
+            }
+            for (int i = 0; i < prestamos; i++) {
+                try {
+                    Prestamo prestamo = sistema.prestarRecurso(idLibro(i % cantidadRecursos),
+                            usuarios[i % cantidadUsuarios]);
+                    sistema.devolverRecurso(prestamo.getId());
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+
+        ReporteManager manager = new ReporteManager(sistema);
+        ReporteRecursosMasPrestados masPrestados = new ReporteRecursosMasPrestados(sistema);
+        ReporteUsuariosActivos usuariosActivos = new ReporteUsuariosActivos(sistema);
+
+        List<MedidorRendimiento.Resultado> resultados = new ArrayList<>();
+        resultados.add(medidor.medir("ReporteManager.recursosMasPrestados[" + prestamos + "]", 1,
+                hilo -> manager.generarReporteRecursosMasPrestados(10)));
+        resultados.add(medidor.medir("ReporteRecursosMasPrestados.generar[" + prestamos + "]", 1,
+                hilo -> masPrestados.generarReporte(10)));
+        resultados.add(medidor.medir("ReporteUsuariosActivos.generar[" + prestamos + "]", 1,
+                hilo -> usuariosActivos.generarReporte()));
+        resultados.add(medidor.medir("ReporteUsuariosActivos.puntuacion[" + prestamos + "]", 1,
+                hilo -> usuariosActivos.generarReportePuntuacion()));
+        return resultados;
+    }
+
+    private static SistemaReservas prepararColaReservas(int profundidad) {
+        GestorRecursos gestor = new GestorRecursos();
+        SistemaReservas sistema = new SistemaReservas(gestor);
+
+        silenciado(() -> {
+            gestor.agregarRecurso(crearLibro(0));
+            for (int i = 0; i < profundidad; i++) {
+                try {
+                    sistema.reservarRecurso(idLibro(0), crearUsuario(i), i % 10);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        });
+        return sistema;
+    }
+
+    private static void silenciado(Runnable accion) {
+        PrintStream salidaOriginal = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            accion.run();
+        } finally {
+            System.setOut(salidaOriginal);
+        }
+    }
+
+    private static Libro crearLibro(int i) {
+        return new Libro(idLibro(i), "Título " + i, "Autor " + (i % 500), "978" + i, 100 + i % 400);
+    }
+
+    private static String idLibro(int i) {
+        return "L" + i;
+    }
+
+    private static Usuario crearUsuario(int i) {
+        return new Usuario("U" + i, "Usuario " + i, "usuario" + i + "@example.com");
+    }
+
+    private static int[] parsearTamanios(String valor) {
+        String[] partes = valor.split(",");
+        int[] tamanios = new int[partes.length];
+        for (int i = 0; i < partes.length; i++) {
+            tamanios[i] = Integer.parseInt(partes[i].trim());
+        }
+        return tamanios;
+    }
+
+    private static void imprimir(MedidorRendimiento.Resultado resultado) {
+        System.out.println(resultado);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,160 @@
+package app.biblioteca.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import app.biblioteca.api.ServidorBiblioteca;
+import app.biblioteca.metrics.HistogramaLatencias;
+
+/**
+ * Cliente de carga para {@link ServidorBiblioteca}. Simula terminales de
+ * sucursal que, en lazo cerrado, consultan recursos, piden préstamos y
+ * devuelven los que tienen. Cada terminal usa un usuario distinto de la
+ * población sintética del servidor ({@code C0..Cn}), por lo que no puede
+ * haber más terminales que usuarios.
+ */
+public class ClienteCargaHttp {
+    private static final Pattern ID_RECURSO = Pattern.compile("\\{\"id\":\"([^\"]+)\"");
+    private static final Pattern ID_PRESTAMO = Pattern.compile("^\\{\"id\":\"([^\"]+)\"");
+
+    private final HttpClient cliente;
+    private final String base;
+    private final List<String> recursos = new ArrayList<>();
+    private final HistogramaLatencias latencias = new HistogramaLatencias();
+    private final LongAdder exitosas = new LongAdder();
+    private final LongAdder rechazadas = new LongAdder();
+    private final LongAdder fallidas = new LongAdder();
+
+    public ClienteCargaHttp(String base) {
+        this.base = base.endsWith("/") ? base.substring(0, base.length() - 1) : base;
+        this.cliente = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    /**
+     * Descarga los identificadores del catálogo del servidor
+     */
+    public void cargarCatalogo() throws Exception {
+        HttpResponse<String> respuesta = cliente.send(HttpRequest.newBuilder(URI.create(base + "/recursos")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        Matcher matcher = ID_RECURSO.matcher(respuesta.body());
+        while (matcher.find()) {
+            recursos.add(matcher.group(1));
+        }
+        if (recursos.isEmpty()) {
+            throw new IllegalStateException("El servidor no tiene recursos");
+        }
+    }
+
+    /**
+     * Ejecuta la carga con la cantidad de terminales indicada
+     *
+     * @param terminales Clientes concurrentes, cada uno con su usuario
+     * @param duracion   Tiempo durante el cual se envían solicitudes
+     */
+    public void ejecutar(int terminales, Duration duracion) throws InterruptedException {
+        long fin = System.nanoTime() + duracion.toNanos();
+        List<Thread> hilos = new ArrayList<>();
+
+        for (int i = 0; i < terminales; i++) {
+            String usuario = "C" + i;
+            Thread hilo = new Thread(() -> terminal(usuario, fin), "terminal-" + i);
+            hilo.setDaemon(true);
+            hilos.add(hilo);
+            hilo.start();
+        }
+        for (Thread hilo : hilos) {
+            hilo.join();
+        }
+    }
+
+    private void terminal(String usuario, long finNanos) {
+        ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+        Deque<String> prestamos = new ArrayDeque<>();
+
+        while (System.nanoTime() < finNanos) {
+            double tirada = aleatorio.nextDouble();
+            HttpRequest solicitud;
+            boolean esPrestamo = false;
+
+            if (tirada < 0.60 || (tirada < 0.85 && prestamos.isEmpty())) {
+                String recurso = recursos.get(aleatorio.nextInt(recursos.size()));
+                solicitud = HttpRequest.newBuilder(URI.create(base + "/recursos/" + recurso)).build();
+            } else if (tirada < 0.85 && prestamos.size() < 3) {
+                String recurso = recursos.get(aleatorio.nextInt(recursos.size()));
+                solicitud = post("/prestamos", "recurso=" + recurso + "&usuario=" + usuario);
+                esPrestamo = true;
+            } else if (!prestamos.isEmpty()) {
+                solicitud = post("/prestamos/" + prestamos.poll() + "/devolucion", "");
+            } else {
+                solicitud = HttpRequest.newBuilder(URI.create(base + "/prestamos?usuario=" + usuario)).build();
+            }
+
+            long inicio = System.nanoTime();
+            try {
+                HttpResponse<String> respuesta = cliente.send(solicitud, HttpResponse.BodyHandlers.ofString());
+                latencias.registrar(System.nanoTime() - inicio);
+
+                if (respuesta.statusCode() < 300) {
+                    exitosas.increment();
+                    Matcher matcher = ID_PRESTAMO.matcher(respuesta.body());
+                    if (esPrestamo && matcher.find()) {
+                        prestamos.add(matcher.group(1));
+                    }
+                } else if (respuesta.statusCode() < 500) {
+                    rechazadas.increment();
+                } else {
+                    fallidas.increment();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                fallidas.increment();
+            }
+        }
+    }
+
+    private HttpRequest post(String ruta, String formulario) {
+        return HttpRequest.newBuilder(URI.create(base + ruta))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(formulario))
+                .build();
+    }
+
+    public String resumen(Duration duracion) {
+        long total = latencias.getTotal();
+        return String.format(Locale.ROOT,
+                "Solicitudes: %,d (%,.1f/s) | exitosas=%,d rechazadas=%,d fallidas=%,d%n%s",
+                total, total * 1000.0 / Math.max(1, duracion.toMillis()), exitosas.sum(), rechazadas.sum(),
+                fallidas.sum(), latencias.resumenMicros());
+    }
+
+    /**
+     * Uso: {@code ClienteCargaHttp [url] [terminales] [segundos]}
+     */
+    public static void main(String[] args) throws Exception {
+        String url = args.length > 0 ? args[0] : "http://localhost:8080";
+        int terminales = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        Duration duracion = Duration.ofSeconds(args.length > 2 ? Integer.parseInt(args[2]) : 10);
+
+        ClienteCargaHttp carga = new ClienteCargaHttp(url);
+        carga.cargarCatalogo();
+        carga.ejecutar(terminales, duracion);
+        System.out.println(carga.resumen(duracion));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,319 @@
+package app.biblioteca.benchmark;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import app.biblioteca.exceptions.RecursoNoDisponibleException;
+import app.biblioteca.interfaces.RecursoDigital;
+import app.biblioteca.logging.NivelRegistro;
+import app.biblioteca.logging.RegistroEventos;
+import app.biblioteca.models.Audiolibro;
+import app.biblioteca.models.CategoriaRecurso;
+import app.biblioteca.models.Libro;
+import app.biblioteca.models.Prestamo;
+import app.biblioteca.models.RecursoBase;
+import app.biblioteca.models.Reserva;
+import app.biblioteca.models.Revista;
+import app.biblioteca.models.Usuario;
+import app.biblioteca.services.ControlCuotas;
+import app.biblioteca.services.GestorRecursos;
+import app.biblioteca.services.GestorUsuarios;
+import app.biblioteca.services.SistemaPrestamos;
+import app.biblioteca.services.SistemaReservas;
+
+/**
+ * Generador de carga sintética para dimensionar una sucursal antes de
+ * ponerla en producción. Crea un catálogo con popularidad según una
+ * distribución de Zipf (pocos recursos concentran la mayoría de los
+ * pedidos) repartido entre libros, revistas y audiolibros de distintas
+ * categorías, y una población de usuarios.
+ *
+ * La carga es de lazo abierto: las operaciones se programan a intervalos
+ * fijos según la tasa objetivo, sin esperar a que termine la anterior, y la
+ * latencia se mide desde el instante programado. Así una demora del sistema
+ * se refleja en la latencia en lugar de reducir silenciosamente la tasa.
+ */
+public class GeneradorCarga {
+
+    public enum TipoOperacion {
+        PRESTAR, DEVOLVER, RESERVAR, CANCELAR
+    }
+
+    private static final PrintStream SALIDA_NULA = new PrintStream(OutputStream.nullOutputStream());
+    // Categorías que se asignan al catálogo, de la más a la menos frecuente
+    private static final CategoriaRecurso[] CATEGORIAS = Arrays.stream(CategoriaRecurso.values())
+            .filter(c -> c != CategoriaRecurso.SIN_CATEGORIA)
+            .toArray(CategoriaRecurso[]::new);
+
+    private final GestorRecursos gestorRecursos;
+    private final GestorUsuarios gestorUsuarios;
+    private final SistemaPrestamos sistemaPrestamos;
+    private final SistemaReservas sistemaReservas;
+    private final Random aleatorio;
+    private final List<RecursoDigital> recursos = new ArrayList<>();
+    private final List<Usuario> usuarios = new ArrayList<>();
+    private final Queue<String> prestamosActivos = new ConcurrentLinkedQueue<>();
+    private final Queue<String> reservasActivas = new ConcurrentLinkedQueue<>();
+    private DistribucionZipf popularidad;
+    // Proporción acumulada de cada tipo de operación
+    private double[] mezclaAcumulada = { 0.40, 0.75, 0.90, 1.0 };
+
+    public GeneradorCarga(GestorRecursos gestorRecursos, GestorUsuarios gestorUsuarios,
+            SistemaPrestamos sistemaPrestamos, SistemaReservas sistemaReservas, long semilla) {
+        this.gestorRecursos = gestorRecursos;
+        this.gestorUsuarios = gestorUsuarios;
+        this.sistemaPrestamos = sistemaPrestamos;
+        this.sistemaReservas = sistemaReservas;
+        this.aleatorio = new Random(semilla);
+    }
+
+    /**
+     * Crea y registra el catálogo
+     *
+     * @param cantidad      Cantidad de recursos
+     * @param exponenteZipf Sesgo de la popularidad; 0 es uniforme y valores
+     *                      cercanos a 1 son típicos de bibliotecas
+     */
+    public void poblarCatalogo(int cantidad, double exponenteZipf) {
+        DistribucionZipf categorias = new DistribucionZipf(CATEGORIAS.length, 1.0);
+
+        silenciado(() -> {
+            for (int i = 0; i < cantidad; i++) {
+                RecursoBase recurso = crearRecurso(i);
+                recurso.setCategoria(CATEGORIAS[categorias.muestra(aleatorio.nextDouble())]);
+                gestorRecursos.agregarRecurso(recurso);
+                recursos.add(recurso);
+            }
+        });
+
+        // El recurso en la posición i es el i-ésimo más popular
+        popularidad = new DistribucionZipf(cantidad, exponenteZipf);
+    }
+
+    public void poblarUsuarios(int cantidad) {
+        silenciado(() -> {
+            for (int i = 0; i < cantidad; i++) {
+                Usuario usuario = new Usuario("C" + i, "Usuario " + i, "carga" + i + "@example.com");
+                gestorUsuarios.registrarUsuario(usuario);
+                usuarios.add(usuario);
+            }
+        });
+    }
+
+    /**
+     * Define la proporción de cada tipo de operación. Los valores se
+     * normalizan, por lo que no es necesario que sumen 1.
+     */
+    public void setMezcla(double prestar, double devolver, double reservar, double cancelar) {
+        double total = prestar + devolver + reservar + cancelar;
+        if (total <= 0) {
+            throw new IllegalArgumentException("La mezcla de operaciones debe tener algún valor positivo");
+        }
+        mezclaAcumulada = new double[] {
+                prestar / total,
+                (prestar + devolver) / total,
+                (prestar + devolver + reservar) / total,
+                1.0 };
+    }
+
+    /**
+     * Ejecuta la carga a la tasa indicada durante el tiempo indicado
+     *
+     * @param operacionesPorSegundo Tasa objetivo de llegada de operaciones
+     * @param duracion              Tiempo durante el cual se generan operaciones
+     * @param hilos                 Hilos que atienden las operaciones
+     * @return Rendimiento y latencias observadas
+     */
+    public ResultadoCarga ejecutar(double operacionesPorSegundo, Duration duracion, int hilos) {
+        if (popularidad == null || usuarios.isEmpty()) {
+            throw new IllegalStateException("Debe poblarse el catálogo y los usuarios antes de ejecutar la carga");
+        }
+
+        ResultadoCarga resultado = new ResultadoCarga(operacionesPorSegundo);
+        ExecutorService ejecutor = Executors.newFixedThreadPool(hilos, tarea -> {
+            Thread hilo = new Thread(tarea, "carga-biblioteca");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        long intervaloNanos = (long) (1_000_000_000L / operacionesPorSegundo);
+        long total = (long) (operacionesPorSegundo * duracion.toNanos() / 1_000_000_000L);
+
+        PrintStream salidaOriginal = System.out;
+        System.setOut(SALIDA_NULA);
+        long inicio = System.nanoTime();
+        long pendientes = 0;
+        try {
+            for (long i = 0; i < total; i++) {
+                long programado = inicio + i * intervaloNanos;
+                long espera = programado - System.nanoTime();
+                if (espera > 0) {
+                    LockSupport.parkNanos(espera);
+                }
+                ejecutor.execute(() -> ejecutarOperacion(programado, resultado));
+            }
+
+            ejecutor.shutdown();
+            // Las operaciones atrasadas tienen hasta una vez la duración para completarse
+            if (!ejecutor.awaitTermination(Math.max(1, duracion.toMillis()), TimeUnit.MILLISECONDS)) {
+                pendientes = ejecutor.shutdownNow().size();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pendientes = ejecutor.shutdownNow().size();
+        } finally {
+            System.setOut(salidaOriginal);
+        }
+
+        resultado.finalizar(Duration.ofNanos(System.nanoTime() - inicio), pendientes);
+        return resultado;
+    }
+
+    private void ejecutarOperacion(long programadoNanos, ResultadoCarga resultado) {
+        ThreadLocalRandom aleatorioHilo = ThreadLocalRandom.current();
+        TipoOperacion tipo = elegirOperacion(aleatorioHilo.nextDouble());
+        boolean exitosa;
+
+        try {
+            exitosa = ejecutar(tipo, aleatorioHilo);
+        } catch (RecursoNoDisponibleException e) {
+            exitosa = false;
+        }
+
+        resultado.registrar(tipo, System.nanoTime() - programadoNanos, exitosa);
+    }
+
+    private boolean ejecutar(TipoOperacion tipo, ThreadLocalRandom aleatorioHilo)
+            throws RecursoNoDisponibleException {
+        switch (tipo) {
+            case PRESTAR: {
+                Prestamo prestamo = sistemaPrestamos.prestarRecurso(recursoPopular(aleatorioHilo),
+                        usuarioAlAzar(aleatorioHilo));
+                prestamosActivos.add(prestamo.getId());
+                return true;
+            }
+            case DEVOLVER: {
+                String idPrestamo = prestamosActivos.poll();
+                return idPrestamo != null && sistemaPrestamos.devolverRecurso(idPrestamo);
+            }
+            case RESERVAR: {
+                Reserva reserva = sistemaReservas.reservarRecurso(recursoPopular(aleatorioHilo),
+                        usuarioAlAzar(aleatorioHilo), aleatorioHilo.nextInt(10));
+                reservasActivas.add(reserva.getId());
+                return true;
+            }
+            case CANCELAR: {
+                String idReserva = reservasActivas.poll();
+                return idReserva != null && sistemaReservas.cancelarReserva(idReserva);
+            }
+            default:
+                throw new IllegalStateException("Operación desconocida: " + tipo);
+        }
+    }
+
+    private TipoOperacion elegirOperacion(double valor) {
+        TipoOperacion[] tipos = TipoOperacion.values();
+        for (int i = 0; i < tipos.length; i++) {
+            if (valor < mezclaAcumulada[i]) {
+                return tipos[i];
+            }
+        }
+        return tipos[tipos.length - 1];
+    }
+
+    private String recursoPopular(ThreadLocalRandom aleatorioHilo) {
+        return recursos.get(popularidad.muestra(aleatorioHilo.nextDouble())).getIdentificador();
+    }
+
+    private Usuario usuarioAlAzar(ThreadLocalRandom aleatorioHilo) {
+        return usuarios.get(aleatorioHilo.nextInt(usuarios.size()));
+    }
+
+    /**
+     * Reparte el catálogo en 60% libros, 25% revistas y 15% audiolibros
+     */
+    private RecursoBase crearRecurso(int i) {
+        double tipo = aleatorio.nextDouble();
+        if (tipo < 0.60) {
+            return new Libro("L" + i, "Libro " + i, "Autor " + (i % 997), "978" + i, 80 + aleatorio.nextInt(900));
+        } else if (tipo < 0.85) {
+            return new Revista("R" + i, "Revista " + i, "Editorial " + (i % 97), "ISSN-" + i,
+                    1 + aleatorio.nextInt(300));
+        } else {
+            return new Audiolibro("A" + i, "Audiolibro " + i, "Autor " + (i % 997), "Narrador " + (i % 53),
+                    30 + aleatorio.nextInt(900));
+        }
+    }
+
+    private static void silenciado(Runnable accion) {
+        PrintStream salidaOriginal = System.out;
+        System.setOut(SALIDA_NULA);
+        try {
+            accion.run();
+        } finally {
+            System.setOut(salidaOriginal);
+        }
+    }
+
+    /**
+     * Uso: {@code GeneradorCarga [recursos] [usuarios] [opsPorSegundo] [segundos] [hilos] [exponenteZipf]}
+     */
+    public static void main(String[] args) {
+        int cantidadRecursos = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int cantidadUsuarios = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+        double tasa = args.length > 2 ? Double.parseDouble(args[2]) : 5_000;
+        int segundos = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        int hilos = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+        double exponente = args.length > 5 ? Double.parseDouble(args[5]) : 0.99;
+
+        // Solo errores, para que el registro no compita por la consola con los resultados
+        RegistroEventos.compartido().setNivel(NivelRegistro.ERROR);
+
+        GestorRecursos gestorRecursos = new GestorRecursos();
+        ControlCuotas controlCuotas = ControlCuotas.porDefecto();
+        GeneradorCarga generador = new GeneradorCarga(gestorRecursos, new GestorUsuarios(),
+                new SistemaPrestamos(gestorRecursos, controlCuotas),
+                new SistemaReservas(gestorRecursos, controlCuotas), 42L);
+
+        generador.poblarCatalogo(cantidadRecursos, exponente);
+        generador.poblarUsuarios(cantidadUsuarios);
+        System.out.println(generador.ejecutar(tasa, Duration.ofSeconds(segundos), hilos));
+    }
+
+    /**
+     * Distribución de Zipf sobre los rangos 0..n-1, muestreada por búsqueda
+     * binaria sobre la función de distribución acumulada
+     */
+    private static final class DistribucionZipf {
+        private final double[] acumulada;
+
+        DistribucionZipf(int n, double exponente) {
+            acumulada = new double[n];
+            double suma = 0;
+            for (int i = 0; i < n; i++) {
+                suma += 1.0 / Math.pow(i + 1, exponente);
+                acumulada[i] = suma;
+            }
+            for (int i = 0; i < n; i++) {
+                acumulada[i] /= suma;
+            }
+        }
+
+        int muestra(double uniforme) {
+            int posicion = Arrays.binarySearch(acumulada, uniforme);
+            int rango = posicion >= 0 ? posicion : -posicion - 1;
+            return Math.min(rango, acumulada.length - 1);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,176 @@
+package app.biblioteca.benchmark;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Arnés mínimo de microbenchmarks, sin dependencias externas. Sigue el
+ * esquema de JMH: iteraciones de calentamiento que se descartan, iteraciones
+ * de medición de duración fija y varios hilos ejecutando la misma operación.
+ * Informa operaciones por segundo y bytes asignados por operación (equivalente
+ * al perfilador de GC de JMH), medidos con
+ * {@link com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)}.
+ *
+ * La salida estándar se silencia mientras se mide, ya que los servicios
+ * imprimen un mensaje por operación.
+ */
+public class MedidorRendimiento {
+
+    /**
+     * Operación a medir. Recibe el número de hilo, para que cada hilo pueda
+     * trabajar sobre su propio subconjunto de datos.
+     */
+    @FunctionalInterface
+    public interface Operacion {
+        void ejecutar(int hilo) throws Exception;
+    }
+
+    private static final PrintStream SALIDA_NULA = new PrintStream(OutputStream.nullOutputStream());
+
+    private final int iteracionesCalentamiento;
+    private final int iteracionesMedicion;
+    private final long duracionIteracionMillis;
+    private final com.sun.management.ThreadMXBean hilosMx;
+    private final List<Resultado> resultados = new ArrayList<>();
+
+    public MedidorRendimiento(int iteracionesCalentamiento, int iteracionesMedicion, long duracionIteracionMillis) {
+        this.iteracionesCalentamiento = iteracionesCalentamiento;
+        this.iteracionesMedicion = iteracionesMedicion;
+        this.duracionIteracionMillis = duracionIteracionMillis;
+        this.hilosMx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        this.hilosMx.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    /**
+     * Ejecuta el calentamiento y la medición de una operación
+     *
+     * @param nombre    Nombre del benchmark
+     * @param hilos     Cantidad de hilos que ejecutan la operación en paralelo
+     * @param operacion Operación a medir
+     * @return Resultado de las iteraciones de medición
+     */
+    public Resultado medir(String nombre, int hilos, Operacion operacion) {
+        PrintStream salidaOriginal = System.out;
+        System.setOut(SALIDA_NULA);
+        try {
+            for (int i = 0; i < iteracionesCalentamiento; i++) {
+                ejecutarIteracion(hilos, operacion);
+            }
+
+            long operaciones = 0;
+            long bytes = 0;
+            long nanos = 0;
+            for (int i = 0; i < iteracionesMedicion; i++) {
+                long[] iteracion = ejecutarIteracion(hilos, operacion);
+                operaciones += iteracion[0];
+                bytes += iteracion[1];
+                nanos += iteracion[2];
+            }
+
+            Resultado resultado = new Resultado(nombre, hilos, operaciones, bytes, nanos);
+            resultados.add(resultado);
+            return resultado;
+        } finally {
+            System.setOut(salidaOriginal);
+        }
+    }
+
+    public List<Resultado> getResultados() {
+        return new ArrayList<>(resultados);
+    }
+
+    /**
+     * @return operaciones, bytes asignados y nanosegundos transcurridos
+     */
+    private long[] ejecutarIteracion(int hilos, Operacion operacion) {
+        LongAdder operaciones = new LongAdder();
+        LongAdder bytes = new LongAdder();
+        CountDownLatch inicio = new CountDownLatch(1);
+        CountDownLatch fin = new CountDownLatch(hilos);
+        long[] limite = new long[1];
+
+        for (int h = 0; h < hilos; h++) {
+            final int hilo = h;
+            Thread trabajador = new Thread(() -> {
+                long id = Thread.currentThread().getId();
+                long cuenta = 0;
+                try {
+                    inicio.await();
+                    long bytesInicio = hilosMx.getThreadAllocatedBytes(id);
+                    while (System.nanoTime() < limite[0]) {
+                        operacion.ejecutar(hilo);
+                        cuenta++;
+                    }
+                    bytes.add(hilosMx.getThreadAllocatedBytes(id) - bytesInicio);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (Exception e) {
+                    System.err.println("Error en benchmark: " + e.getMessage());
+                } finally {
+                    operaciones.add(cuenta);
+                    fin.countDown();
+                }
+            }, "benchmark-" + h);
+            trabajador.start();
+        }
+
+        long comienzo = System.nanoTime();
+        limite[0] = comienzo + TimeUnit.MILLISECONDS.toNanos(duracionIteracionMillis);
+        inicio.countDown();
+        try {
+            fin.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        return new long[] { operaciones.sum(), bytes.sum(), System.nanoTime() - comienzo };
+    }
+
+    /**
+     * Resultado agregado de las iteraciones de medición de un benchmark
+     */
+    public static class Resultado {
+        private final String nombre;
+        private final int hilos;
+        private final long operaciones;
+        private final long bytesAsignados;
+        private final long nanos;
+
+        Resultado(String nombre, int hilos, long operaciones, long bytesAsignados, long nanos) {
+            this.nombre = nombre;
+            this.hilos = hilos;
+            this.operaciones = operaciones;
+            this.bytesAsignados = bytesAsignados;
+            this.nanos = nanos;
+        }
+
+        public String getNombre() {
+            return nombre;
+        }
+
+        public int getHilos() {
+            return hilos;
+        }
+
+        public double getOperacionesPorSegundo() {
+            return nanos == 0 ? 0 : operaciones * 1_000_000_000.0 / nanos;
+        }
+
+        public double getBytesPorOperacion() {
+            return operaciones == 0 ? 0 : (double) bytesAsignados / operaciones;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%-45s %3d hilos %,15.1f ops/s %,12.1f B/op",
+                    nombre, hilos, getOperacionesPorSegundo(), getBytesPorOperacion());
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,100 @@
+package app.biblioteca.benchmark;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import app.biblioteca.benchmark.GeneradorCarga.TipoOperacion;
+import app.biblioteca.metrics.HistogramaLatencias;
+
+/**
+ * Resultado de una ejecución de {@link GeneradorCarga}: operaciones exitosas
+ * y rechazadas por tipo, latencias y rendimiento logrado frente al objetivo
+ */
+public class ResultadoCarga {
+    private final double tasaObjetivo;
+    private final Map<TipoOperacion, HistogramaLatencias> latencias = new EnumMap<>(TipoOperacion.class);
+    private final Map<TipoOperacion, LongAdder> exitosas = new EnumMap<>(TipoOperacion.class);
+    private final Map<TipoOperacion, LongAdder> rechazadas = new EnumMap<>(TipoOperacion.class);
+    private volatile Duration duracion = Duration.ZERO;
+    private volatile long noCompletadas;
+
+    ResultadoCarga(double tasaObjetivo) {
+        this.tasaObjetivo = tasaObjetivo;
+        for (TipoOperacion tipo : TipoOperacion.values()) {
+            latencias.put(tipo, new HistogramaLatencias());
+            exitosas.put(tipo, new LongAdder());
+            rechazadas.put(tipo, new LongAdder());
+        }
+    }
+
+    void registrar(TipoOperacion tipo, long latenciaNanos, boolean exitosa) {
+        latencias.get(tipo).registrar(latenciaNanos);
+        (exitosa ? exitosas : rechazadas).get(tipo).increment();
+    }
+
+    void finalizar(Duration duracion, long noCompletadas) {
+        this.duracion = duracion;
+        this.noCompletadas = noCompletadas;
+    }
+
+    public HistogramaLatencias getLatencias(TipoOperacion tipo) {
+        return latencias.get(tipo);
+    }
+
+    public long getExitosas(TipoOperacion tipo) {
+        return exitosas.get(tipo).sum();
+    }
+
+    public long getRechazadas(TipoOperacion tipo) {
+        return rechazadas.get(tipo).sum();
+    }
+
+    /**
+     * Histograma con las latencias de todas las operaciones
+     */
+    public HistogramaLatencias getLatenciasTotales() {
+        HistogramaLatencias totales = new HistogramaLatencias();
+        latencias.values().forEach(totales::agregar);
+        return totales;
+    }
+
+    public long getOperacionesCompletadas() {
+        return latencias.values().stream().mapToLong(HistogramaLatencias::getTotal).sum();
+    }
+
+    /**
+     * Operaciones que quedaron en cola al terminar el tiempo de espera
+     */
+    public long getNoCompletadas() {
+        return noCompletadas;
+    }
+
+    public Duration getDuracion() {
+        return duracion;
+    }
+
+    public double getOperacionesPorSegundo() {
+        long millis = duracion.toMillis();
+        return millis == 0 ? 0 : getOperacionesCompletadas() * 1000.0 / millis;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "Objetivo: %,.0f ops/s | Logrado: %,.1f ops/s | Duración: %d ms",
+                tasaObjetivo, getOperacionesPorSegundo(), duracion.toMillis()));
+        if (noCompletadas > 0) {
+            sb.append(" | No completadas: ").append(noCompletadas);
+        }
+        sb.append('\n');
+        for (TipoOperacion tipo : TipoOperacion.values()) {
+            sb.append(String.format(Locale.ROOT, "%-9s exitosas=%,d rechazadas=%,d %s%n", tipo,
+                    getExitosas(tipo), getRechazadas(tipo), latencias.get(tipo).resumenMicros()));
+        }
+        sb.append(String.format(Locale.ROOT, "%-9s %s", "TOTAL", getLatenciasTotales().resumenMicros()));
+        return sb.toString();
+    }
+}
\ No newline at end of file
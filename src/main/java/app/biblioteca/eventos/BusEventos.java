@@ -0,0 +1,256 @@
+package app.biblioteca.eventos;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import app.biblioteca.interfaces.ObservadorBiblioteca;
+import app.biblioteca.interfaces.RecursoDigital;
+import app.biblioteca.logging.RegistroEventos;
+import app.biblioteca.models.Prestamo;
+import app.biblioteca.models.Reserva;
+
+/**
+ * Bus de eventos del dominio sobre un buffer circular, al estilo del
+ * disruptor de LMAX. Se registra como observador de los servicios, de modo
+ * que notificar un préstamo, devolución o reserva solo cuesta copiar una
+ * referencia al buffer; el trabajo de los suscriptores (notificaciones,
+ * estadísticas, monitores) se hace en hilos propios, fuera de las secciones
+ * críticas de los servicios.
+ *
+ * Cada suscriptor tiene su hilo y su posición de lectura, y recibe los
+ * eventos en lotes: entrega todos los disponibles y luego llama a
+ * {@link ObservadorBiblioteca#loteProcesado()}. Todos los suscriptores ven
+ * todos los eventos en el orden en que se publicaron. Si el suscriptor más
+ * lento se atrasa una vuelta completa del buffer, los productores esperan.
+ * Por eso los servicios publican después de soltar sus locks, y los
+ * suscriptores no publican desde su propio hilo: un suscriptor que necesite
+ * ese lock, o el mismo suscriptor, nunca liberaría la posición esperada.
+ */
+public class BusEventos implements ObservadorBiblioteca {
+    private static final RegistroEventos REGISTRO = RegistroEventos.compartido();
+    private static final int CAPACIDAD_POR_DEFECTO = 4096;
+    private static final int TAMANIO_MAXIMO_LOTE = 256;
+    private static final long ESPERA_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final EventoBiblioteca[] eventos;
+    private final int mascara;
+    // Próxima secuencia a reservar por los productores
+    private final AtomicLong cursor = new AtomicLong();
+    private final List<Suscripcion> suscripciones = new ArrayList<>();
+    // Menor posición de lectura vista en la última comprobación, para no
+    // recorrer los suscriptores en cada publicación
+    private volatile long minimoProcesadoCacheado;
+    private volatile boolean activo;
+
+    public BusEventos() {
+        this(CAPACIDAD_POR_DEFECTO);
+    }
+
+    /**
+     * @param capacidad Cantidad de eventos del buffer; se redondea a la
+     *                  siguiente potencia de dos
+     */
+    public BusEventos(int capacidad) {
+        int tamanio = Integer.highestOneBit(Math.max(2, capacidad) - 1) << 1;
+        this.eventos = new EventoBiblioteca[tamanio];
+        for (int i = 0; i < tamanio; i++) {
+            eventos[i] = new EventoBiblioteca();
+        }
+        this.mascara = tamanio - 1;
+    }
+
+    /**
+     * Agrega un suscriptor. Debe llamarse antes de {@link #iniciar()}.
+     *
+     * @param nombre Nombre del hilo del suscriptor
+     */
+    public synchronized void suscribir(String nombre, ObservadorBiblioteca suscriptor) {
+        if (activo) {
+            throw new IllegalStateException("No se pueden agregar suscriptores con el bus iniciado");
+        }
+        suscripciones.add(new Suscripcion(nombre, suscriptor));
+    }
+
+    public synchronized void iniciar() {
+        if (activo) {
+            return;
+        }
+        activo = true;
+        for (Suscripcion suscripcion : suscripciones) {
+            suscripcion.hilo.start();
+        }
+    }
+
+    /**
+     * Espera a que todos los suscriptores procesen los eventos publicados
+     * hasta ahora
+     *
+     * @return false si no terminaron dentro del tiempo de espera
+     */
+    public boolean vaciar(long tiempo, TimeUnit unidad) {
+        long objetivo = cursor.get();
+        long limite = System.nanoTime() + unidad.toNanos(tiempo);
+        while (minimoProcesado() < objetivo) {
+            if (System.nanoTime() > limite) {
+                return false;
+            }
+            LockSupport.parkNanos(ESPERA_NANOS);
+        }
+        return true;
+    }
+
+    /**
+     * Entrega los eventos pendientes y detiene los hilos de los suscriptores
+     */
+    public void detener() {
+        vaciar(5, TimeUnit.SECONDS);
+        activo = false;
+        for (Suscripcion suscripcion : suscripciones) {
+            LockSupport.unpark(suscripcion.hilo);
+            try {
+                suscripcion.hilo.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public void recursoAgregado(RecursoDigital recurso) {
+        publicar(TipoEvento.RECURSO_AGREGADO, recurso);
+    }
+
+    @Override
+    public void recursoEliminado(RecursoDigital recurso) {
+        publicar(TipoEvento.RECURSO_ELIMINADO, recurso);
+    }
+
+    @Override
+    public void ejemplaresModificados(RecursoDigital recurso, int diferencia) {
+        publicar(TipoEvento.EJEMPLARES_MODIFICADOS, recurso, diferencia);
+    }
+
+    @Override
+    public void prestamoRealizado(Prestamo prestamo) {
+        publicar(TipoEvento.PRESTAMO_REALIZADO, prestamo);
+    }
+
+    @Override
+    public void prestamoDevuelto(Prestamo prestamo) {
+        publicar(TipoEvento.PRESTAMO_DEVUELTO, prestamo);
+    }
+
+    /**
+     * Publica el lote como un único evento, que los suscriptores reciben
+     * entero en {@link ObservadorBiblioteca#prestamosRealizados}
+     */
+    @Override
+    public void prestamosRealizados(List<Prestamo> prestamos) {
+        publicar(TipoEvento.PRESTAMOS_REALIZADOS, prestamos);
+    }
+
+    @Override
+    public void prestamosDevueltos(List<Prestamo> prestamos) {
+        publicar(TipoEvento.PRESTAMOS_DEVUELTOS, prestamos);
+    }
+
+    @Override
+    public void reservaRealizada(Reserva reserva) {
+        publicar(TipoEvento.RESERVA_REALIZADA, reserva);
+    }
+
+    @Override
+    public void reservaCancelada(Reserva reserva) {
+        publicar(TipoEvento.RESERVA_CANCELADA, reserva);
+    }
+
+    @Override
+    public void reservaAtendida(Reserva reserva) {
+        publicar(TipoEvento.RESERVA_ATENDIDA, reserva);
+    }
+
+    private void publicar(TipoEvento tipo, Object dato) {
+        publicar(tipo, dato, 0);
+    }
+
+    private void publicar(TipoEvento tipo, Object dato, int cantidad) {
+        if (!activo || suscripciones.isEmpty()) {
+            return;
+        }
+
+        long secuencia = cursor.getAndIncrement();
+        // La posición sigue ocupada mientras algún suscriptor no la haya leído
+        long envoltura = secuencia - eventos.length;
+        if (envoltura >= minimoProcesadoCacheado) {
+            long minimo;
+            while (envoltura >= (minimo = minimoProcesado())) {
+                LockSupport.parkNanos(ESPERA_NANOS);
+            }
+            minimoProcesadoCacheado = minimo;
+        }
+
+        EventoBiblioteca evento = eventos[(int) (secuencia & mascara)];
+        evento.cargar(tipo, dato, cantidad);
+        evento.secuencia = secuencia;
+    }
+
+    private long minimoProcesado() {
+        long minimo = Long.MAX_VALUE;
+        for (Suscripcion suscripcion : suscripciones) {
+            minimo = Math.min(minimo, suscripcion.procesado);
+        }
+        return minimo == Long.MAX_VALUE ? cursor.get() : minimo;
+    }
+
+    /**
+     * Hilo y posición de lectura de un suscriptor
+     */
+    private final class Suscripcion {
+        private final ObservadorBiblioteca suscriptor;
+        private final Thread hilo;
+        // Próxima secuencia que leerá este suscriptor
+        private volatile long procesado;
+
+        Suscripcion(String nombre, ObservadorBiblioteca suscriptor) {
+            this.suscriptor = suscriptor;
+            this.hilo = new Thread(this::consumir, nombre);
+            this.hilo.setDaemon(true);
+        }
+
+        private void consumir() {
+            long siguiente = procesado;
+
+            while (activo || siguiente < cursor.get()) {
+                int entregados = 0;
+                EventoBiblioteca evento = eventos[(int) (siguiente & mascara)];
+
+                while (evento.secuencia == siguiente && entregados < TAMANIO_MAXIMO_LOTE) {
+                    try {
+                        evento.entregar(suscriptor);
+                    } catch (RuntimeException e) {
+                        REGISTRO.error("eventos.errorSuscriptor", "Error en el suscriptor {}: {}", hilo.getName(),
+                                e.getMessage());
+                    }
+                    siguiente++;
+                    entregados++;
+                    evento = eventos[(int) (siguiente & mascara)];
+                }
+
+                if (entregados > 0) {
+                    try {
+                        suscriptor.loteProcesado();
+                    } catch (RuntimeException e) {
+                        REGISTRO.error("eventos.errorSuscriptor", "Error en el suscriptor {}: {}", hilo.getName(),
+                                e.getMessage());
+                    }
+                    procesado = siguiente;
+                } else {
+                    LockSupport.parkNanos(ESPERA_NANOS * 10);
+                }
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,73 @@
+package app.biblioteca.eventos;
+
+import java.util.List;
+
+import app.biblioteca.interfaces.ObservadorBiblioteca;
+import app.biblioteca.interfaces.RecursoDigital;
+import app.biblioteca.models.Prestamo;
+import app.biblioteca.models.Reserva;
+
+/**
+ * Posición del buffer circular de {@link BusEventos}. Las instancias se
+ * reutilizan: cada publicación sobrescribe el tipo y el dato del evento.
+ */
+final class EventoBiblioteca {
+    // Secuencia publicada; los consumidores solo leen el evento cuando
+    // coincide con la posición que esperan
+    volatile long secuencia = -1;
+
+    private TipoEvento tipo;
+    private Object dato;
+    private int cantidad;
+
+    void cargar(TipoEvento tipo, Object dato, int cantidad) {
+        this.tipo = tipo;
+        this.dato = dato;
+        this.cantidad = cantidad;
+    }
+
+    /**
+     * Entrega el evento al método correspondiente del observador
+     */
+    void entregar(ObservadorBiblioteca observador) {
+        switch (tipo) {
+            case RECURSO_AGREGADO:
+                observador.recursoAgregado((RecursoDigital) dato);
+                break;
+            case RECURSO_ELIMINADO:
+                observador.recursoEliminado((RecursoDigital) dato);
+                break;
+            case EJEMPLARES_MODIFICADOS:
+                observador.ejemplaresModificados((RecursoDigital) dato, cantidad);
+                break;
+            case PRESTAMO_REALIZADO:
+                observador.prestamoRealizado((Prestamo) dato);
+                break;
+            case PRESTAMO_DEVUELTO:
+                observador.prestamoDevuelto((Prestamo) dato);
+                break;
+            case PRESTAMOS_REALIZADOS:
+                observador.prestamosRealizados(lista());
+                break;
+            case PRESTAMOS_DEVUELTOS:
+                observador.prestamosDevueltos(lista());
+                break;
+            case RESERVA_REALIZADA:
+                observador.reservaRealizada((Reserva) dato);
+                break;
+            case RESERVA_CANCELADA:
+                observador.reservaCancelada((Reserva) dato);
+                break;
+            case RESERVA_ATENDIDA:
+                observador.reservaAtendida((Reserva) dato);
+                break;
+            default:
+                throw new IllegalStateException("Tipo de evento desconocido: " + tipo);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Prestamo> lista() {
+        return (List<Prestamo>) dato;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,14 @@
+package app.biblioteca.eventos;
+
+public enum TipoEvento {
+    RECURSO_AGREGADO,
+    RECURSO_ELIMINADO,
+    EJEMPLARES_MODIFICADOS,
+    PRESTAMO_REALIZADO,
+    PRESTAMO_DEVUELTO,
+    PRESTAMOS_REALIZADOS,
+    PRESTAMOS_DEVUELTOS,
+    RESERVA_REALIZADA,
+    RESERVA_CANCELADA,
+    RESERVA_ATENDIDA
+}
\ No newline at end of file
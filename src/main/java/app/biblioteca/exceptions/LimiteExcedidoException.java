@@ -0,0 +1,13 @@
+package app.biblioteca.exceptions;
+
+public class LimiteExcedidoException extends RecursoNoDisponibleException {
+    private static final long serialVersionUID = 1L;
+
+    public LimiteExcedidoException(String mensaje) {
+        super(mensaje);
+    }
+
+    public LimiteExcedidoException(String mensaje, Throwable causa) {
+        super(mensaje, causa);
+    }
+}
\ No newline at end of file
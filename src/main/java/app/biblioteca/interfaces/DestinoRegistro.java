@@ -0,0 +1,19 @@
+package app.biblioteca.interfaces;
+
+import app.biblioteca.logging.EventoRegistro;
+
+/**
+ * Destino final de los eventos del registro. Se invoca siempre desde el hilo
+ * del registro, de a un evento por vez.
+ */
+@FunctionalInterface
+public interface DestinoRegistro {
+    void escribir(EventoRegistro evento);
+
+    /**
+     * Se llama cuando el buffer queda vacío, para que el destino pueda vaciar
+     * su propio buffer de salida
+     */
+    default void vaciar() {
+    }
+}
\ No newline at end of file
@@ -0,0 +1,15 @@
+package app.biblioteca.interfaces;
+
+import java.util.Map;
+
+/**
+ * Destino de las métricas del sistema (consola, archivo, sistema de
+ * monitoreo externo, etc.)
+ */
+@FunctionalInterface
+public interface ExportadorMetricas {
+    /**
+     * @param metricas Valores actuales, ordenados por nombre
+     */
+    void exportar(Map<String, Number> metricas);
+}
\ No newline at end of file
@@ -0,0 +1,64 @@
+package app.biblioteca.interfaces;
+
+import java.util.List;
+
+import app.biblioteca.models.Prestamo;
+import app.biblioteca.models.Reserva;
+
+public interface ObservadorBiblioteca {
+    default void recursoAgregado(RecursoDigital recurso) {
+    }
+
+    default void recursoEliminado(RecursoDigital recurso) {
+    }
+
+    /**
+     * Cambió la cantidad de ejemplares o licencias de un título. La
+     * diferencia es negativa cuando se quitan, por ejemplo al eliminar el
+     * título del catálogo.
+     */
+    default void ejemplaresModificados(RecursoDigital recurso, int diferencia) {
+    }
+
+    default void prestamoRealizado(Prestamo prestamo) {
+    }
+
+    default void prestamoDevuelto(Prestamo prestamo) {
+    }
+
+    /**
+     * Préstamos realizados juntos en una operación en lote. Por omisión se
+     * tratan como préstamos individuales.
+     */
+    default void prestamosRealizados(List<Prestamo> prestamos) {
+        prestamos.forEach(this::prestamoRealizado);
+    }
+
+    /**
+     * Préstamos devueltos juntos en una operación en lote. Por omisión se
+     * tratan como devoluciones individuales.
+     */
+    default void prestamosDevueltos(List<Prestamo> prestamos) {
+        prestamos.forEach(this::prestamoDevuelto);
+    }
+
+    default void reservaRealizada(Reserva reserva) {
+    }
+
+    default void reservaCancelada(Reserva reserva) {
+    }
+
+    /**
+     * La reserva terminó porque el usuario se llevó el recurso en préstamo
+     */
+    default void reservaAtendida(Reserva reserva) {
+    }
+
+    /**
+     * Se llama al terminar de entregar un lote de eventos, cuando el
+     * observador está suscrito a un bus de eventos. Permite agrupar el
+     * trabajo costoso de todo el lote.
+     */
+    default void loteProcesado() {
+    }
+}
\ No newline at end of file
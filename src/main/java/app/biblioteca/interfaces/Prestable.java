@@ -1,12 +1,11 @@
 package app.biblioteca.interfaces;
 
-import java.time.LocalDateTime;
 import app.biblioteca.models.Usuario;
 
 public interface Prestable {
     boolean estaDisponible();
 
-    LocalDateTime getFechaDevolucion();
+    int getDiasPrestamo();
 
     void prestar(Usuario usuario);
 
@@ -1,13 +1,30 @@
 package app.biblioteca.interfaces;
 
+import app.biblioteca.models.CategoriaRecurso;
 import app.biblioteca.models.EstadoRecurso;
+import app.biblioteca.models.TipoRecurso;
 
 public interface RecursoDigital {
     String getIdentificador();
 
+    /**
+     * Índice denso del recurso (ver {@link app.biblioteca.models.IndicesDensos}).
+     * Se asigna al agregarlo al catálogo o, si nunca se agregó, la primera vez
+     * que se pide.
+     */
+    int getIndice();
+
     String getTitulo();
 
     EstadoRecurso getEstado();
 
     void actualizarEstado(EstadoRecurso estado);
+
+    boolean estaDisponible();
+
+    CategoriaRecurso getCategoria();
+
+    default TipoRecurso getTipo() {
+        return TipoRecurso.de(this);
+    }
 }
\ No newline at end of file
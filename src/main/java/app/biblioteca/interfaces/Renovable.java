@@ -1,9 +1,7 @@
 package app.biblioteca.interfaces;
 
-import java.time.LocalDateTime;
-
 public interface Renovable {
-    boolean puedeRenovarse();
+    int getMaxRenovaciones();
 
-    LocalDateTime renovar();
+    int getDiasRenovacion();
 }
\ No newline at end of file
@@ -0,0 +1,39 @@
+package app.biblioteca.logging;
+
+import app.biblioteca.interfaces.DestinoRegistro;
+
+/**
+ * Escribe cada evento por consola con el mismo formato que usaban los
+ * servicios. Con {@code estructurado} se antepone el instante, el nivel, el
+ * hilo y el tipo de evento.
+ */
+public class DestinoConsola implements DestinoRegistro {
+    private final boolean estructurado;
+
+    public DestinoConsola() {
+        this(false);
+    }
+
+    public DestinoConsola(boolean estructurado) {
+        this.estructurado = estructurado;
+    }
+
+    @Override
+    public void escribir(EventoRegistro evento) {
+        String linea = estructurado
+                ? evento.getInstante() + " " + evento.getNivel() + " [" + evento.getHilo() + "] "
+                        + evento.getTipo() + " " + evento.getMensaje()
+                : evento.getMensaje();
+
+        if (evento.getNivel() == NivelRegistro.ERROR) {
+            System.err.println(linea);
+        } else {
+            System.out.println(linea);
+        }
+    }
+
+    @Override
+    public void vaciar() {
+        System.out.flush();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,126 @@
+package app.biblioteca.logging;
+
+import java.time.Instant;
+
+import app.biblioteca.interfaces.DestinoRegistro;
+
+/**
+ * Evento del registro. Las instancias pertenecen al buffer circular de
+ * {@link RegistroEventos} y se reutilizan, por lo que un
+ * {@link DestinoRegistro} no debe guardar la referencia después de
+ * {@link DestinoRegistro#escribir(EventoRegistro)}.
+ */
+public final class EventoRegistro {
+    private static final Object[] SIN_PARAMETROS = new Object[0];
+
+    // Número de secuencia publicado; el consumidor solo lee el evento cuando
+    // coincide con la posición que espera
+    volatile long secuencia = -1;
+
+    NivelRegistro nivel;
+    long instanteMillis;
+    String hilo;
+    String tipo;
+    String plantilla;
+    Object parametro1;
+    Object parametro2;
+    Object parametro3;
+    int cantidadParametros;
+
+    void cargar(NivelRegistro nivel, String tipo, String plantilla, int cantidadParametros,
+            Object parametro1, Object parametro2, Object parametro3) {
+        this.nivel = nivel;
+        this.instanteMillis = System.currentTimeMillis();
+        this.hilo = Thread.currentThread().getName();
+        this.tipo = tipo;
+        this.plantilla = plantilla;
+        this.cantidadParametros = cantidadParametros;
+        this.parametro1 = capturar(parametro1);
+        this.parametro2 = capturar(parametro2);
+        this.parametro3 = capturar(parametro3);
+    }
+
+    /**
+     * Los valores inmutables se guardan tal cual; el resto de los objetos se
+     * convierte a texto en el hilo que registra, porque pueden cambiar antes
+     * de que el hilo del registro escriba el evento
+     */
+    private static Object capturar(Object parametro) {
+        if (parametro == null || parametro instanceof String || parametro instanceof Integer
+                || parametro instanceof Long || parametro instanceof Double || parametro instanceof Boolean
+                || parametro instanceof Enum) {
+            return parametro;
+        }
+        return parametro.toString();
+    }
+
+    void limpiar() {
+        parametro1 = null;
+        parametro2 = null;
+        parametro3 = null;
+    }
+
+    public NivelRegistro getNivel() {
+        return nivel;
+    }
+
+    public Instant getInstante() {
+        return Instant.ofEpochMilli(instanteMillis);
+    }
+
+    public String getHilo() {
+        return hilo;
+    }
+
+    /**
+     * Nombre del tipo de evento, por ejemplo {@code prestamo.realizado}
+     */
+    public String getTipo() {
+        return tipo;
+    }
+
+    /**
+     * Parámetros con los valores que tenían al registrar el evento: los
+     * objetos que no son inmutables llegan convertidos a texto
+     */
+    public Object[] getParametros() {
+        switch (cantidadParametros) {
+            case 0:
+                return SIN_PARAMETROS;
+            case 1:
+                return new Object[] { parametro1 };
+            case 2:
+                return new Object[] { parametro1, parametro2 };
+            default:
+                return new Object[] { parametro1, parametro2, parametro3 };
+        }
+    }
+
+    /**
+     * Reemplaza cada {@code {}} de la plantilla por el parámetro
+     * correspondiente. Se llama desde el hilo del registro, nunca desde el
+     * hilo que generó el evento.
+     */
+    public String getMensaje() {
+        if (cantidadParametros == 0) {
+            return plantilla;
+        }
+
+        StringBuilder sb = new StringBuilder(plantilla.length() + 32);
+        int desde = 0;
+        for (int i = 0; i < cantidadParametros; i++) {
+            int marca = plantilla.indexOf("{}", desde);
+            if (marca < 0) {
+                break;
+            }
+            sb.append(plantilla, desde, marca).append(parametro(i));
+            desde = marca + 2;
+        }
+        sb.append(plantilla, desde, plantilla.length());
+        return sb.toString();
+    }
+
+    private Object parametro(int i) {
+        return i == 0 ? parametro1 : i == 1 ? parametro2 : parametro3;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,8 @@
+package app.biblioteca.logging;
+
+public enum NivelRegistro {
+    DEBUG,
+    INFO,
+    ADVERTENCIA,
+    ERROR
+}
\ No newline at end of file
@@ -0,0 +1,213 @@
+package app.biblioteca.logging;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import app.biblioteca.interfaces.DestinoRegistro;
+
+/**
+ * Registro de eventos asíncrono. Los servicios publican eventos en un buffer
+ * circular de tamaño fijo y un único hilo los formatea y los escribe en el
+ * {@link DestinoRegistro}. Publicar un evento no bloquea ni arma el
+ * mensaje: se reserva una posición del buffer con un CAS y se copian los
+ * parámetros. Si el nivel está deshabilitado la llamada retorna de
+ * inmediato, y las sobrecargas con uno a tres parámetros evitan crear un
+ * arreglo de varargs.
+ *
+ * Los valores de los parámetros se capturan al momento de la llamada:
+ * textos, números, booleanos y enums se guardan tal cual, y cualquier otro
+ * objeto se convierte con toString en el hilo que registra. Así el mensaje
+ * muestra, por ejemplo, una reserva recién creada como activa aunque se
+ * atienda antes de que el hilo del registro la escriba.
+ *
+ * Si el buffer está lleno el evento se descarta y se cuenta en
+ * {@link #getDescartados()}, en lugar de frenar al hilo que lo generó.
+ */
+public class RegistroEventos {
+    private static final int CAPACIDAD_POR_DEFECTO = 8192;
+    private static final long ESPERA_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final RegistroEventos COMPARTIDO = new RegistroEventos(CAPACIDAD_POR_DEFECTO,
+            new DestinoConsola());
+
+    private final EventoRegistro[] eventos;
+    private final int mascara;
+    // Próxima secuencia a reservar por los productores
+    private final AtomicLong cursor = new AtomicLong();
+    // Próxima secuencia que leerá el consumidor
+    private volatile long consumido;
+    private final LongAdder descartados = new LongAdder();
+    private final Thread consumidor;
+    private volatile NivelRegistro nivelMinimo = NivelRegistro.INFO;
+    private volatile DestinoRegistro destino;
+    private volatile boolean activo = true;
+
+    /**
+     * @param capacidad Cantidad de eventos del buffer; se redondea a la
+     *                  siguiente potencia de dos
+     * @param destino   Destino de los eventos
+     */
+    public RegistroEventos(int capacidad, DestinoRegistro destino) {
+        int tamanio = Integer.highestOneBit(Math.max(2, capacidad) - 1) << 1;
+        this.eventos = new EventoRegistro[tamanio];
+        for (int i = 0; i < tamanio; i++) {
+            eventos[i] = new EventoRegistro();
+        }
+        this.mascara = tamanio - 1;
+        this.destino = destino;
+        this.consumidor = new Thread(this::consumir, "registro-eventos");
+        this.consumidor.setDaemon(true);
+        this.consumidor.start();
+    }
+
+    /**
+     * Registro usado por los servicios del sistema
+     */
+    public static RegistroEventos compartido() {
+        return COMPARTIDO;
+    }
+
+    public NivelRegistro getNivel() {
+        return nivelMinimo;
+    }
+
+    public void setNivel(NivelRegistro nivel) {
+        this.nivelMinimo = nivel;
+    }
+
+    public void setDestino(DestinoRegistro destino) {
+        this.destino = destino;
+    }
+
+    public boolean estaHabilitado(NivelRegistro nivel) {
+        return nivel.ordinal() >= nivelMinimo.ordinal();
+    }
+
+    public long getDescartados() {
+        return descartados.sum();
+    }
+
+    public void info(String tipo, String mensaje) {
+        registrar(NivelRegistro.INFO, tipo, mensaje, 0, null, null, null);
+    }
+
+    public void info(String tipo, String plantilla, Object parametro) {
+        registrar(NivelRegistro.INFO, tipo, plantilla, 1, parametro, null, null);
+    }
+
+    public void info(String tipo, String plantilla, Object parametro1, Object parametro2) {
+        registrar(NivelRegistro.INFO, tipo, plantilla, 2, parametro1, parametro2, null);
+    }
+
+    public void info(String tipo, String plantilla, Object parametro1, Object parametro2, Object parametro3) {
+        registrar(NivelRegistro.INFO, tipo, plantilla, 3, parametro1, parametro2, parametro3);
+    }
+
+    public void advertencia(String tipo, String mensaje) {
+        registrar(NivelRegistro.ADVERTENCIA, tipo, mensaje, 0, null, null, null);
+    }
+
+    public void advertencia(String tipo, String plantilla, Object parametro) {
+        registrar(NivelRegistro.ADVERTENCIA, tipo, plantilla, 1, parametro, null, null);
+    }
+
+    public void advertencia(String tipo, String plantilla, Object parametro1, Object parametro2) {
+        registrar(NivelRegistro.ADVERTENCIA, tipo, plantilla, 2, parametro1, parametro2, null);
+    }
+
+    public void error(String tipo, String plantilla, Object parametro) {
+        registrar(NivelRegistro.ERROR, tipo, plantilla, 1, parametro, null, null);
+    }
+
+    public void error(String tipo, String plantilla, Object parametro1, Object parametro2) {
+        registrar(NivelRegistro.ERROR, tipo, plantilla, 2, parametro1, parametro2, null);
+    }
+
+    /**
+     * Espera a que el hilo del registro escriba todos los eventos publicados
+     * hasta ahora, por ejemplo antes de imprimir un reporte por consola
+     *
+     * @return false si no terminó dentro del tiempo de espera
+     */
+    public boolean vaciar() {
+        long objetivo = cursor.get();
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (consumido < objetivo) {
+            if (System.nanoTime() > limite || !consumidor.isAlive()) {
+                return false;
+            }
+            LockSupport.unpark(consumidor);
+            LockSupport.parkNanos(ESPERA_NANOS / 10);
+        }
+        return true;
+    }
+
+    /**
+     * Escribe los eventos pendientes y detiene el hilo del registro. Los
+     * eventos publicados después se descartan.
+     */
+    public void detener() {
+        activo = false;
+        LockSupport.unpark(consumidor);
+        try {
+            consumidor.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void registrar(NivelRegistro nivel, String tipo, String plantilla, int cantidad,
+            Object parametro1, Object parametro2, Object parametro3) {
+        if (nivel.ordinal() < nivelMinimo.ordinal()) {
+            return;
+        }
+        if (!activo) {
+            descartados.increment();
+            return;
+        }
+
+        long secuencia;
+        do {
+            secuencia = cursor.get();
+            if (secuencia - consumido > mascara) {
+                descartados.increment();
+                return;
+            }
+        } while (!cursor.compareAndSet(secuencia, secuencia + 1));
+
+        EventoRegistro evento = eventos[(int) (secuencia & mascara)];
+        evento.cargar(nivel, tipo, plantilla, cantidad, parametro1, parametro2, parametro3);
+        // La escritura volátil publica el evento al consumidor
+        evento.secuencia = secuencia;
+    }
+
+    private void consumir() {
+        long siguiente = 0;
+        boolean pendienteVaciar = false;
+
+        while (activo || siguiente < cursor.get()) {
+            EventoRegistro evento = eventos[(int) (siguiente & mascara)];
+
+            if (evento.secuencia == siguiente) {
+                try {
+                    destino.escribir(evento);
+                } catch (RuntimeException e) {
+                    System.err.println("Error al escribir en el registro: " + e.getMessage());
+                }
+                evento.limpiar();
+                siguiente++;
+                consumido = siguiente;
+                pendienteVaciar = true;
+            } else {
+                if (pendienteVaciar) {
+                    destino.vaciar();
+                    pendienteVaciar = false;
+                }
+                LockSupport.parkNanos(ESPERA_NANOS);
+            }
+        }
+
+        destino.vaciar();
+    }
+}
\ No newline at end of file
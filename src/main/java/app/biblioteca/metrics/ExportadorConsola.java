@@ -0,0 +1,21 @@
+package app.biblioteca.metrics;
+
+import java.util.Map;
+
+import app.biblioteca.interfaces.ExportadorMetricas;
+
+/**
+ * Imprime las métricas por salida estándar, una por línea
+ */
+public class ExportadorConsola implements ExportadorMetricas {
+
+    @Override
+    public void exportar(Map<String, Number> metricas) {
+        StringBuilder sb = new StringBuilder("==== Métricas ====\n");
+        metricas.forEach((nombre, valor) -> sb.append(nombre).append(" = ").append(valor).append('\n'));
+
+        synchronized (System.out) {
+            System.out.print(sb);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,116 @@
+package app.biblioteca.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histograma de latencias de rango dinámico con error relativo acotado,
+ * al estilo de HdrHistogram. Cada potencia de dos se divide en
+ * 128 cubetas lineales, lo que da un error menor al 1% en
+ * todo el rango sin importar la magnitud del valor. Registrar un valor es una
+ * operación atómica sin locks y sin asignaciones, por lo que puede usarse
+ * desde varios hilos a la vez.
+ */
+public class HistogramaLatencias {
+    private static final int BITS_SUBCUBETA = 7;
+    private static final int SUBCUBETAS = 1 << BITS_SUBCUBETA;
+    // Exponentes posibles de un long positivo por encima de la primera cubeta
+    private static final int GRUPOS = 64 - BITS_SUBCUBETA;
+
+    private final AtomicLongArray cuentas = new AtomicLongArray((GRUPOS + 1) * SUBCUBETAS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong maximo = new AtomicLong();
+
+    /**
+     * @param valor Valor a registrar, normalmente nanosegundos. Los valores
+     *              negativos se registran como cero.
+     */
+    public void registrar(long valor) {
+        long v = Math.max(0, valor);
+        cuentas.incrementAndGet(indice(v));
+        total.incrementAndGet();
+        maximo.accumulateAndGet(v, Math::max);
+    }
+
+    public long getTotal() {
+        return total.get();
+    }
+
+    public long getMaximo() {
+        return maximo.get();
+    }
+
+    /**
+     * Valor bajo el cual se encuentra el porcentaje indicado de registros
+     *
+     * @param percentil Entre 0 y 100
+     * @return Límite superior de la cubeta que contiene el percentil, o 0 si
+     *         el histograma está vacío
+     */
+    public long percentil(double percentil) {
+        long cantidad = total.get();
+        if (cantidad == 0) {
+            return 0;
+        }
+
+        long objetivo = Math.max(1, (long) Math.ceil(cantidad * percentil / 100.0));
+        long acumulado = 0;
+        for (int i = 0; i < cuentas.length(); i++) {
+            acumulado += cuentas.get(i);
+            if (acumulado >= objetivo) {
+                return Math.min(limiteSuperior(i), maximo.get());
+            }
+        }
+        return maximo.get();
+    }
+
+    /**
+     * Suma los registros de otro histograma a este
+     */
+    public void agregar(HistogramaLatencias otro) {
+        for (int i = 0; i < cuentas.length(); i++) {
+            long valor = otro.cuentas.get(i);
+            if (valor != 0) {
+                cuentas.addAndGet(i, valor);
+            }
+        }
+        total.addAndGet(otro.total.get());
+        maximo.accumulateAndGet(otro.maximo.get(), Math::max);
+    }
+
+    /**
+     * Resumen de percentiles con los valores expresados en microsegundos
+     */
+    public String resumenMicros() {
+        return String.format("p50=%,d p90=%,d p99=%,d p99.9=%,d max=%,d us",
+                aMicros(percentil(50)), aMicros(percentil(90)), aMicros(percentil(99)),
+                aMicros(percentil(99.9)), aMicros(getMaximo()));
+    }
+
+    private static long aMicros(long nanos) {
+        return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    private static int indice(long valor) {
+        if (valor < SUBCUBETAS) {
+            return (int) valor;
+        }
+        // El grupo es la posición del bit más alto; dentro del grupo se toman
+        // los siguientes BITS_SUBCUBETA bits como subcubeta
+        int exponente = 63 - Long.numberOfLeadingZeros(valor);
+        int grupo = exponente - BITS_SUBCUBETA + 1;
+        int subcubeta = (int) (valor >>> (exponente - BITS_SUBCUBETA)) - SUBCUBETAS;
+        return grupo * SUBCUBETAS + subcubeta;
+    }
+
+    private static long limiteSuperior(int indice) {
+        int grupo = indice / SUBCUBETAS;
+        int subcubeta = indice % SUBCUBETAS;
+        if (grupo == 0) {
+            return subcubeta;
+        }
+        int desplazamiento = grupo - 1;
+        return (((long) (SUBCUBETAS + subcubeta) + 1) << desplazamiento) - 1;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,72 @@
+package app.biblioteca.metrics;
+
+import java.util.Map;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+
+/**
+ * MBean dinámico que expone cada métrica del registro como un atributo de
+ * solo lectura. Los atributos se recalculan en cada consulta, por lo que las
+ * métricas creadas después del registro también aparecen.
+ */
+class MetricasJmx implements DynamicMBean {
+    private final RegistroMetricas registro;
+
+    MetricasJmx(RegistroMetricas registro) {
+        this.registro = registro;
+    }
+
+    @Override
+    public Object getAttribute(String atributo) throws AttributeNotFoundException {
+        Number valor = registro.instantanea().get(atributo);
+        if (valor == null) {
+            throw new AttributeNotFoundException("Métrica desconocida: " + atributo);
+        }
+        return valor.longValue();
+    }
+
+    @Override
+    public void setAttribute(Attribute atributo) {
+        throw new UnsupportedOperationException("Las métricas son de solo lectura");
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] atributos) {
+        Map<String, Number> valores = registro.instantanea();
+        AttributeList lista = new AttributeList();
+        for (String atributo : atributos) {
+            Number valor = valores.get(atributo);
+            if (valor != null) {
+                lista.add(new Attribute(atributo, valor.longValue()));
+            }
+        }
+        return lista;
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList atributos) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String accion, Object[] parametros, String[] firma) {
+        throw new UnsupportedOperationException("Operación no soportada: " + accion);
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        Map<String, Number> valores = registro.instantanea();
+        MBeanAttributeInfo[] atributos = valores.keySet().stream()
+                .map(nombre -> new MBeanAttributeInfo(nombre, "long", nombre, true, false, false))
+                .toArray(MBeanAttributeInfo[]::new);
+
+        return new MBeanInfo(getClass().getName(), "Métricas de la biblioteca", atributos, null,
+                new MBeanOperationInfo[0], null);
+    }
+}
\ No newline at end of file
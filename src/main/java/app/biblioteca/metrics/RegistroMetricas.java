@@ -0,0 +1,152 @@
+package app.biblioteca.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import app.biblioteca.interfaces.ExportadorMetricas;
+
+/**
+ * Registro de métricas del sistema: contadores, temporizadores de latencia
+ * e indicadores calculados al momento de leerlos. Las métricas se crean una
+ * vez y los servicios guardan la referencia, por lo que actualizar una
+ * métrica no requiere buscarla por nombre.
+ *
+ * Los valores pueden consultarse con {@link #instantanea()}, publicarse por
+ * JMX con {@link #registrarEnJmx()} o enviarse periódicamente a los
+ * {@link ExportadorMetricas} registrados.
+ */
+public class RegistroMetricas {
+    private static final RegistroMetricas COMPARTIDO = new RegistroMetricas();
+
+    private final Map<String, LongAdder> contadores = new ConcurrentHashMap<>();
+    private final Map<String, Temporizador> temporizadores = new ConcurrentHashMap<>();
+    private final Map<String, LongSupplier> indicadores = new ConcurrentHashMap<>();
+    private final List<ExportadorMetricas> exportadores = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService exportacion;
+
+    /**
+     * Registro usado por los servicios del sistema
+     */
+    public static RegistroMetricas compartido() {
+        return COMPARTIDO;
+    }
+
+    public LongAdder contador(String nombre) {
+        return contadores.computeIfAbsent(nombre, k -> new LongAdder());
+    }
+
+    public Temporizador temporizador(String nombre) {
+        return temporizadores.computeIfAbsent(nombre, Temporizador::new);
+    }
+
+    /**
+     * Registra un indicador cuyo valor se calcula cada vez que se leen las
+     * métricas. Reemplaza cualquier indicador previo con el mismo nombre.
+     */
+    public void registrarIndicador(String nombre, LongSupplier valor) {
+        indicadores.put(nombre, valor);
+    }
+
+    public void quitarIndicador(String nombre) {
+        indicadores.remove(nombre);
+    }
+
+    public void agregarExportador(ExportadorMetricas exportador) {
+        exportadores.add(exportador);
+    }
+
+    /**
+     * Valores actuales de todas las métricas, ordenados por nombre. Cada
+     * temporizador se expande en su cantidad de ejecuciones y percentiles de
+     * latencia en microsegundos.
+     */
+    public Map<String, Number> instantanea() {
+        Map<String, Number> valores = new TreeMap<>();
+
+        contadores.forEach((nombre, contador) -> valores.put(nombre, contador.sum()));
+        temporizadores.forEach((nombre, temporizador) -> {
+            HistogramaLatencias latencias = temporizador.getLatencias();
+            valores.put(nombre + ".ejecuciones", temporizador.getEjecuciones());
+            valores.put(nombre + ".p50_us", TimeUnit.NANOSECONDS.toMicros(latencias.percentil(50)));
+            valores.put(nombre + ".p99_us", TimeUnit.NANOSECONDS.toMicros(latencias.percentil(99)));
+            valores.put(nombre + ".max_us", TimeUnit.NANOSECONDS.toMicros(latencias.getMaximo()));
+        });
+        indicadores.forEach((nombre, indicador) -> {
+            try {
+                valores.put(nombre, indicador.getAsLong());
+            } catch (RuntimeException e) {
+                System.err.println("Error al leer el indicador " + nombre + ": " + e.getMessage());
+            }
+        });
+
+        return valores;
+    }
+
+    /**
+     * Envía la instantánea actual a todos los exportadores
+     */
+    public void exportar() {
+        if (exportadores.isEmpty()) {
+            return;
+        }
+
+        Map<String, Number> valores = instantanea();
+        for (ExportadorMetricas exportador : exportadores) {
+            try {
+                exportador.exportar(valores);
+            } catch (RuntimeException e) {
+                System.err.println("Error al exportar métricas: " + e.getMessage());
+            }
+        }
+    }
+
+    public synchronized void iniciarExportacion(long periodo, TimeUnit unidad) {
+        detenerExportacion();
+        exportacion = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "exportador-metricas");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        exportacion.scheduleAtFixedRate(this::exportar, periodo, periodo, unidad);
+    }
+
+    public synchronized void detenerExportacion() {
+        if (exportacion != null) {
+            exportacion.shutdownNow();
+            exportacion = null;
+        }
+    }
+
+    /**
+     * Publica las métricas en el servidor de MBeans de la plataforma con el
+     * nombre {@code app.biblioteca:type=Metricas}
+     *
+     * @return true si quedaron registradas
+     */
+    public boolean registrarEnJmx() {
+        try {
+            MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+            ObjectName nombre = new ObjectName("app.biblioteca:type=Metricas");
+            if (!servidor.isRegistered(nombre)) {
+                servidor.registerMBean(new MetricasJmx(this), nombre);
+            }
+            return true;
+        } catch (JMException e) {
+            System.err.println("No se pudieron registrar las métricas en JMX: " + e.getMessage());
+            return false;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,51 @@
+package app.biblioteca.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mide la cantidad de ejecuciones y la latencia de una operación. Pensado
+ * para rutas críticas: registrar cuesta un {@link LongAdder} y una
+ * actualización atómica del histograma, sin locks ni asignaciones.
+ *
+ * <pre>
+ * long inicio = temporizador.iniciar();
+ * try {
+ *     ...
+ * } finally {
+ *     temporizador.registrar(inicio);
+ * }
+ * </pre>
+ */
+public class Temporizador {
+    private final String nombre;
+    private final LongAdder ejecuciones = new LongAdder();
+    private final HistogramaLatencias latencias = new HistogramaLatencias();
+
+    Temporizador(String nombre) {
+        this.nombre = nombre;
+    }
+
+    public long iniciar() {
+        return System.nanoTime();
+    }
+
+    /**
+     * @param inicioNanos Valor devuelto por {@link #iniciar()}
+     */
+    public void registrar(long inicioNanos) {
+        ejecuciones.increment();
+        latencias.registrar(System.nanoTime() - inicioNanos);
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public long getEjecuciones() {
+        return ejecuciones.sum();
+    }
+
+    public HistogramaLatencias getLatencias() {
+        return latencias;
+    }
+}
\ No newline at end of file
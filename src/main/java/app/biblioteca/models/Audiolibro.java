@@ -1,24 +1,21 @@
 package app.biblioteca.models;
 
-import java.time.LocalDateTime;
 import app.biblioteca.interfaces.Prestable;
 import app.biblioteca.interfaces.Renovable;
 
 public class Audiolibro extends RecursoBase implements Prestable, Renovable {
+    private static final int DIAS_PRESTAMO = 10;
+    private static final int MAX_RENOVACIONES = 1;
+
     private String autor;
     private String narrador;
     private int duracionMinutos;
-    private LocalDateTime fechaDevolucion;
-    private Usuario usuarioPrestamo;
-    private int renovacionesRealizadas;
-    private static final int MAX_RENOVACIONES = 1;
 
     public Audiolibro(String identificador, String titulo, String autor, String narrador, int duracionMinutos) {
         super(identificador, titulo);
-        this.autor = autor;
-        this.narrador = narrador;
+        this.autor = CadenasCompartidas.compartir(autor);
+        this.narrador = CadenasCompartidas.compartir(narrador);
         this.duracionMinutos = duracionMinutos;
-        this.renovacionesRealizadas = 0;
     }
 
     public String getAutor() {
@@ -39,8 +36,8 @@ public class Audiolibro extends RecursoBase implements Prestable, Renovable {
     }
 
     @Override
-    public LocalDateTime getFechaDevolucion() {
-        return fechaDevolucion;
+    public int getDiasPrestamo() {
+        return DIAS_PRESTAMO;
     }
 
     @Override
@@ -50,11 +47,8 @@ public class Audiolibro extends RecursoBase implements Prestable, Renovable {
             return;
         }
 
-        this.usuarioPrestamo = usuario;
-        this.fechaDevolucion = LocalDateTime.now().plusDays(10);
         this.estado = EstadoRecurso.PRESTADO;
-        this.renovacionesRealizadas = 0;
-        System.out.println("Audiolibro prestado a " + usuario.getNombre() + " hasta " + fechaDevolucion);
+        System.out.println("Audiolibro prestado a " + usuario.getNombre());
     }
 
     @Override
@@ -64,28 +58,17 @@ public class Audiolibro extends RecursoBase implements Prestable, Renovable {
             return;
         }
 
-        this.usuarioPrestamo = null;
-        this.fechaDevolucion = null;
         this.estado = EstadoRecurso.DISPONIBLE;
         System.out.println("Audiolibro devuelto correctamente");
     }
 
     @Override
-    public boolean puedeRenovarse() {
-        return this.estado == EstadoRecurso.PRESTADO && renovacionesRealizadas < MAX_RENOVACIONES;
+    public int getMaxRenovaciones() {
+        return MAX_RENOVACIONES;
     }
 
     @Override
-    public LocalDateTime renovar() {
-        if (!puedeRenovarse()) {
-            System.out.println("No se puede renovar este audiolibro");
-            return fechaDevolucion;
-        }
-
-        this.fechaDevolucion = this.fechaDevolucion.plusDays(10);
-        this.renovacionesRealizadas++;
-        System.out.println("Audiolibro renovado hasta " + fechaDevolucion);
-
-        return fechaDevolucion;
+    public int getDiasRenovacion() {
+        return DIAS_PRESTAMO;
     }
 }
\ No newline at end of file
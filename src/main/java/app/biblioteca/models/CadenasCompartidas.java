@@ -0,0 +1,28 @@
+package app.biblioteca.models;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tabla de cadenas canónicas para datos que se repiten entre muchos recursos
+ * (autores, editoriales, narradores). Cada valor distinto se guarda una sola
+ * vez y todas las instancias comparten la misma referencia.
+ */
+public final class CadenasCompartidas {
+    private static final ConcurrentHashMap<String, String> TABLA = new ConcurrentHashMap<>();
+
+    private CadenasCompartidas() {
+    }
+
+    public static String compartir(String valor) {
+        if (valor == null) {
+            return null;
+        }
+
+        String existente = TABLA.putIfAbsent(valor, valor);
+        return existente != null ? existente : valor;
+    }
+
+    public static int cantidad() {
+        return TABLA.size();
+    }
+}
\ No newline at end of file
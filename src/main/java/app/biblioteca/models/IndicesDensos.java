@@ -0,0 +1,41 @@
+package app.biblioteca.models;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asigna a usuarios y recursos índices enteros consecutivos desde 0, para
+ * que los contadores internos (cuotas, conteos de préstamos, acumuladores de
+ * los reportes) sean arreglos indexados por índice en lugar de mapas con
+ * claves de texto u objetos. Los identificadores de texto quedan para la API.
+ *
+ * Los índices no se reutilizan: un usuario o recurso eliminado deja un hueco.
+ */
+public final class IndicesDensos {
+    private static final AtomicInteger USUARIOS = new AtomicInteger();
+    private static final AtomicInteger RECURSOS = new AtomicInteger();
+
+    private IndicesDensos() {
+    }
+
+    static int siguienteUsuario() {
+        return USUARIOS.getAndIncrement();
+    }
+
+    static int siguienteRecurso() {
+        return RECURSOS.getAndIncrement();
+    }
+
+    /**
+     * Cantidad de índices de usuario asignados; todos son menores que este valor
+     */
+    public static int cantidadUsuarios() {
+        return USUARIOS.get();
+    }
+
+    /**
+     * Cantidad de índices de recurso asignados; todos son menores que este valor
+     */
+    public static int cantidadRecursos() {
+        return RECURSOS.get();
+    }
+}
\ No newline at end of file
@@ -1,24 +1,21 @@
 package app.biblioteca.models;
 
-import java.time.LocalDateTime;
 import app.biblioteca.interfaces.Prestable;
 import app.biblioteca.interfaces.Renovable;
 
 public class Libro extends RecursoBase implements Prestable, Renovable {
+    private static final int DIAS_PRESTAMO = 15;
+    private static final int MAX_RENOVACIONES = 2;
+
     private String autor;
     private String isbn;
     private int numPaginas;
-    private LocalDateTime fechaDevolucion;
-    private Usuario usuarioPrestamo;
-    private int renovacionesRealizadas;
-    private static final int MAX_RENOVACIONES = 2;
 
     public Libro(String identificador, String titulo, String autor, String isbn, int numPaginas) {
         super(identificador, titulo);
-        this.autor = autor;
+        this.autor = CadenasCompartidas.compartir(autor);
         this.isbn = isbn;
         this.numPaginas = numPaginas;
-        this.renovacionesRealizadas = 0;
     }
 
     public String getAutor() {
@@ -39,8 +36,8 @@ public class Libro extends RecursoBase implements Prestable, Renovable {
     }
 
     @Override
-    public LocalDateTime getFechaDevolucion() {
-        return fechaDevolucion;
+    public int getDiasPrestamo() {
+        return DIAS_PRESTAMO;
     }
 
     @Override
@@ -50,11 +47,8 @@ public class Libro extends RecursoBase implements Prestable, Renovable {
             return;
         }
 
-        this.usuarioPrestamo = usuario;
-        this.fechaDevolucion = LocalDateTime.now().plusDays(15);
         this.estado = EstadoRecurso.PRESTADO;
-        this.renovacionesRealizadas = 0;
-        System.out.println("Libro prestado a " + usuario.getNombre() + " hasta " + fechaDevolucion);
+        System.out.println("Libro prestado a " + usuario.getNombre());
     }
 
     @Override
@@ -64,28 +58,17 @@ public class Libro extends RecursoBase implements Prestable, Renovable {
             return;
         }
 
-        this.usuarioPrestamo = null;
-        this.fechaDevolucion = null;
         this.estado = EstadoRecurso.DISPONIBLE;
         System.out.println("Libro devuelto correctamente");
     }
 
     @Override
-    public boolean puedeRenovarse() {
-        return this.estado == EstadoRecurso.PRESTADO && renovacionesRealizadas < MAX_RENOVACIONES;
+    public int getMaxRenovaciones() {
+        return MAX_RENOVACIONES;
     }
 
     @Override
-    public LocalDateTime renovar() {
-        if (!puedeRenovarse()) {
-            System.out.println("No se puede renovar este libro");
-            return fechaDevolucion;
-        }
-
-        this.fechaDevolucion = this.fechaDevolucion.plusDays(15);
-        this.renovacionesRealizadas++;
-        System.out.println("Libro renovado hasta " + fechaDevolucion);
-
-        return fechaDevolucion;
+    public int getDiasRenovacion() {
+        return DIAS_PRESTAMO;
     }
 }
\ No newline at end of file
@@ -1,24 +1,42 @@
 package app.biblioteca.models;
 
+import java.time.Clock;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
 import app.biblioteca.interfaces.RecursoDigital;
 
 public class Prestamo {
+    private static final long MILLIS_POR_DIA = 24L * 60 * 60 * 1000;
+
     private String id;
     private RecursoDigital recurso;
     private Usuario usuario;
-    private LocalDateTime fechaPrestamo;
-    private LocalDateTime fechaDevolucion;
-    private boolean devuelto;
+    private Clock reloj;
+    // Fechas guardadas como epoch millis para que las comprobaciones de
+    // vencimiento sean una comparación de long sin crear objetos
+    private long fechaPrestamo;
+    private volatile long fechaDevolucion;
+    private volatile long fechaDevolucionReal;
+    private volatile boolean devuelto;
+    private int renovaciones;
 
     public Prestamo(RecursoDigital recurso, Usuario usuario, LocalDateTime fechaDevolucion) {
+        this(recurso, usuario, fechaDevolucion, Clock.systemDefaultZone());
+    }
+
+    public Prestamo(RecursoDigital recurso, Usuario usuario, LocalDateTime fechaDevolucion, Clock reloj) {
+        this(recurso, usuario, aMillis(fechaDevolucion, reloj), reloj);
+    }
+
+    public Prestamo(RecursoDigital recurso, Usuario usuario, long fechaDevolucionMillis, Clock reloj) {
         this.id = UUID.randomUUID().toString();
         this.recurso = recurso;
         this.usuario = usuario;
-        this.fechaPrestamo = LocalDateTime.now();
-        this.fechaDevolucion = fechaDevolucion;
+        this.reloj = reloj;
+        this.fechaPrestamo = reloj.millis();
+        this.fechaDevolucion = fechaDevolucionMillis;
         this.devuelto = false;
     }
 
@@ -35,48 +53,130 @@ public class Prestamo {
     }
 
     public LocalDateTime getFechaPrestamo() {
+        return aFecha(fechaPrestamo);
+    }
+
+    public long getFechaPrestamoMillis() {
         return fechaPrestamo;
     }
 
+    /**
+     * Fecha límite de devolución del préstamo
+     */
     public LocalDateTime getFechaDevolucion() {
+        return aFecha(fechaDevolucion);
+    }
+
+    public long getFechaDevolucionMillis() {
         return fechaDevolucion;
     }
 
+    public LocalDateTime getFechaVencimiento() {
+        return getFechaDevolucion();
+    }
+
     public void setFechaDevolucion(LocalDateTime fechaDevolucion) {
-        this.fechaDevolucion = fechaDevolucion;
+        this.fechaDevolucion = aMillis(fechaDevolucion, reloj);
+    }
+
+    public void setFechaDevolucionMillis(long fechaDevolucionMillis) {
+        this.fechaDevolucion = fechaDevolucionMillis;
+    }
+
+    /**
+     * Fecha en que el recurso fue efectivamente devuelto, o null si sigue
+     * prestado
+     */
+    public LocalDateTime getFechaDevolucionReal() {
+        return devuelto ? aFecha(fechaDevolucionReal) : null;
+    }
+
+    public long getFechaDevolucionRealMillis() {
+        return fechaDevolucionReal;
+    }
+
+    public int getRenovaciones() {
+        return renovaciones;
+    }
+
+    /**
+     * Extiende la fecha límite y cuenta la renovación
+     *
+     * @param nuevaFechaDevolucionMillis Nueva fecha límite en epoch millis
+     */
+    public void renovar(long nuevaFechaDevolucionMillis) {
+        this.fechaDevolucion = nuevaFechaDevolucionMillis;
+        this.renovaciones++;
     }
 
     public boolean isDevuelto() {
         return devuelto;
     }
 
-    public void marcarComoDevuelto() {
+    /**
+     * Marca el préstamo como devuelto. Si dos hilos lo devuelven a la vez,
+     * solo uno lo consigue.
+     *
+     * @return false si ya estaba devuelto
+     */
+    public synchronized boolean marcarComoDevuelto() {
+        if (devuelto) {
+            return false;
+        }
+        this.fechaDevolucionReal = reloj.millis();
         this.devuelto = true;
+        return true;
     }
 
     public boolean estaVencido() {
-        return !devuelto && LocalDateTime.now().isAfter(fechaDevolucion);
+        return estaVencido(reloj.millis());
+    }
+
+    /**
+     * Variante para revisiones en lote, que leen el reloj una sola vez
+     *
+     * @param ahoraMillis Instante actual en epoch millis
+     */
+    public boolean estaVencido(long ahoraMillis) {
+        return !devuelto && ahoraMillis > fechaDevolucion;
     }
 
     public long diasHastaVencimiento() {
+        return diasHastaVencimiento(reloj.millis());
+    }
+
+    /**
+     * Variante para revisiones en lote, que leen el reloj una sola vez
+     *
+     * @param ahoraMillis Instante actual en epoch millis
+     * @return Días restantes, o días de atraso en negativo si ya venció
+     */
+    public long diasHastaVencimiento(long ahoraMillis) {
         if (devuelto) {
             return 0;
         }
 
-        LocalDateTime ahora = LocalDateTime.now();
-        if (ahora.isAfter(fechaDevolucion)) {
+        if (ahoraMillis > fechaDevolucion) {
             // Ya está vencido, retorna días negativos
-            return java.time.Duration.between(fechaDevolucion, ahora).toDays() * -1;
+            return -((ahoraMillis - fechaDevolucion) / MILLIS_POR_DIA);
         } else {
             // Días restantes
-            return java.time.Duration.between(ahora, fechaDevolucion).toDays();
+            return (fechaDevolucion - ahoraMillis) / MILLIS_POR_DIA;
         }
     }
 
+    private LocalDateTime aFecha(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), reloj.getZone());
+    }
+
+    private static long aMillis(LocalDateTime fecha, Clock reloj) {
+        return fecha.atZone(reloj.getZone()).toInstant().toEpochMilli();
+    }
+
     @Override
     public String toString() {
         return "Prestamo [id=" + id + ", recurso=" + recurso.getTitulo() + ", usuario=" + usuario.getNombre()
-                + ", fechaPrestamo=" + fechaPrestamo + ", fechaDevolucion=" + fechaDevolucion + ", devuelto=" + devuelto
-                + "]";
+                + ", fechaPrestamo=" + getFechaPrestamo() + ", fechaDevolucion=" + getFechaDevolucion()
+                + ", devuelto=" + devuelto + "]";
     }
 }
\ No newline at end of file
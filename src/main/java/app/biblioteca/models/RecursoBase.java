@@ -6,11 +6,14 @@ public abstract class RecursoBase implements RecursoDigital {
     protected String identificador;
     protected String titulo;
     protected EstadoRecurso estado;
+    protected CategoriaRecurso categoria;
+    private volatile int indice = -1;
 
     public RecursoBase(String identificador, String titulo) {
         this.identificador = identificador;
         this.titulo = titulo;
         this.estado = EstadoRecurso.DISPONIBLE;
+        this.categoria = CategoriaRecurso.SIN_CATEGORIA;
     }
 
     @Override
@@ -18,6 +21,19 @@ public abstract class RecursoBase implements RecursoDigital {
         return identificador;
     }
 
+    @Override
+    public int getIndice() {
+        int actual = indice;
+        return actual >= 0 ? actual : asignarIndice();
+    }
+
+    private synchronized int asignarIndice() {
+        if (indice < 0) {
+            indice = IndicesDensos.siguienteRecurso();
+        }
+        return indice;
+    }
+
     @Override
     public String getTitulo() {
         return titulo;
@@ -32,4 +48,13 @@ public abstract class RecursoBase implements RecursoDigital {
     public void actualizarEstado(EstadoRecurso estado) {
         this.estado = estado;
     }
+
+    @Override
+    public CategoriaRecurso getCategoria() {
+        return categoria;
+    }
+
+    public void setCategoria(CategoriaRecurso categoria) {
+        this.categoria = categoria;
+    }
 }
\ No newline at end of file
@@ -1,25 +1,41 @@
 package app.biblioteca.models;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
 import app.biblioteca.interfaces.RecursoDigital;
 
 public class Reserva implements Comparable<Reserva> {
+    private static final long VIGENCIA_MILLIS = Duration.ofDays(7).toMillis(); // La reserva expira en 7 días
+    // Cada día de espera suma un nivel de prioridad
+    private static final long ENVEJECIMIENTO_MILLIS = Duration.ofDays(1).toMillis();
+
     private String id;
     private RecursoDigital recurso;
     private Usuario usuario;
-    private LocalDateTime fechaReserva;
-    private LocalDateTime fechaLimite;
-    private boolean activa;
+    private Clock reloj;
+    // Fechas guardadas como epoch millis para comparar sin crear objetos
+    private long fechaReserva;
+    private long fechaLimite;
+    private volatile boolean activa;
+    // Si se le apartó un ejemplar de un título con varios ejemplares
+    private volatile boolean ejemplarApartado;
     private int prioridad;
 
     public Reserva(RecursoDigital recurso, Usuario usuario, int prioridad) {
+        this(recurso, usuario, prioridad, Clock.systemDefaultZone());
+    }
+
+    public Reserva(RecursoDigital recurso, Usuario usuario, int prioridad, Clock reloj) {
         this.id = UUID.randomUUID().toString();
         this.recurso = recurso;
         this.usuario = usuario;
-        this.fechaReserva = LocalDateTime.now();
-        this.fechaLimite = fechaReserva.plusDays(7); // La reserva expira en 7 días
+        this.reloj = reloj;
+        this.fechaReserva = reloj.millis();
+        this.fechaLimite = fechaReserva + VIGENCIA_MILLIS;
         this.activa = true;
         this.prioridad = prioridad;
     }
@@ -37,10 +53,18 @@ public class Reserva implements Comparable<Reserva> {
     }
 
     public LocalDateTime getFechaReserva() {
+        return aFecha(fechaReserva);
+    }
+
+    public long getFechaReservaMillis() {
         return fechaReserva;
     }
 
     public LocalDateTime getFechaLimite() {
+        return aFecha(fechaLimite);
+    }
+
+    public long getFechaLimiteMillis() {
         return fechaLimite;
     }
 
@@ -52,34 +76,85 @@ public class Reserva implements Comparable<Reserva> {
         this.activa = false;
     }
 
+    public boolean isEjemplarApartado() {
+        return ejemplarApartado;
+    }
+
+    public void apartarEjemplar() {
+        this.ejemplarApartado = true;
+    }
+
     public int getPrioridad() {
         return prioridad;
     }
 
+    /**
+     * Cambia la prioridad de una reserva que todavía no está en ninguna cola;
+     * para una reserva en cola, usar {@code SistemaReservas.cambiarPrioridad}
+     */
     public void setPrioridad(int prioridad) {
         this.prioridad = prioridad;
     }
 
+    /**
+     * Prioridad más los niveles ganados por la espera
+     */
+    public int getPrioridadEfectiva() {
+        return getPrioridadEfectiva(reloj.millis());
+    }
+
+    /**
+     * Variante para revisiones en lote, que leen el reloj una sola vez
+     *
+     * @param ahoraMillis Instante actual en epoch millis
+     */
+    public int getPrioridadEfectiva(long ahoraMillis) {
+        return prioridad + (int) (Math.max(0, ahoraMillis - fechaReserva) / ENVEJECIMIENTO_MILLIS);
+    }
+
+    /**
+     * Turno de la reserva en la cola: su fecha adelantada un período de
+     * envejecimiento por cada nivel de prioridad. Atiende primero el turno
+     * menor. Como todas las reservas envejecen al mismo ritmo, el orden entre
+     * dos reservas no cambia con el tiempo y las colas nunca se reordenan.
+     */
+    public long getTurnoMillis() {
+        return fechaReserva - prioridad * ENVEJECIMIENTO_MILLIS;
+    }
+
     public boolean haExpirado() {
-        return LocalDateTime.now().isAfter(fechaLimite);
+        return haExpirado(reloj.millis());
+    }
+
+    /**
+     * Variante para revisiones en lote, que leen el reloj una sola vez
+     *
+     * @param ahoraMillis Instante actual en epoch millis
+     */
+    public boolean haExpirado(long ahoraMillis) {
+        return ahoraMillis > fechaLimite;
     }
 
     @Override
     public int compareTo(Reserva otra) {
-        // Primero comparamos por prioridad (mayor primero)
-        int comparacionPrioridad = Integer.compare(otra.prioridad, this.prioridad);
-        if (comparacionPrioridad != 0) {
-            return comparacionPrioridad;
+        // Primero comparamos por turno, que combina prioridad y espera
+        int comparacionTurno = Long.compare(this.getTurnoMillis(), otra.getTurnoMillis());
+        if (comparacionTurno != 0) {
+            return comparacionTurno;
         }
 
-        // Si tienen la misma prioridad, comparamos por fecha (más antigua primero)
-        return this.fechaReserva.compareTo(otra.fechaReserva);
+        // Si tienen el mismo turno, comparamos por fecha (más antigua primero)
+        return Long.compare(this.fechaReserva, otra.fechaReserva);
+    }
+
+    private LocalDateTime aFecha(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), reloj.getZone());
     }
 
     @Override
     public String toString() {
         return "Reserva [id=" + id + ", recurso=" + recurso.getTitulo() + ", usuario=" + usuario.getNombre()
-                + ", fechaReserva=" + fechaReserva + ", fechaLimite=" + fechaLimite
+                + ", fechaReserva=" + getFechaReserva() + ", fechaLimite=" + getFechaLimite()
                 + ", activa=" + activa + ", prioridad=" + prioridad + "]";
     }
 }
\ No newline at end of file
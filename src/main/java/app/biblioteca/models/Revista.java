@@ -1,19 +1,18 @@
 package app.biblioteca.models;
 
-import java.time.LocalDateTime;
 import app.biblioteca.interfaces.Prestable;
 
 public class Revista extends RecursoBase implements Prestable {
+    private static final int DIAS_PRESTAMO = 7; // Las revistas tienen menor tiempo de préstamo
+
     private String editorial;
     private String issn;
     private int numero;
-    private LocalDateTime fechaDevolucion;
-    private Usuario usuarioPrestamo;
 
     public Revista(String identificador, String titulo, String editorial, String issn, int numero) {
         super(identificador, titulo);
-        this.editorial = editorial;
-        this.issn = issn;
+        this.editorial = CadenasCompartidas.compartir(editorial);
+        this.issn = CadenasCompartidas.compartir(issn);
         this.numero = numero;
     }
 
@@ -35,8 +34,8 @@ public class Revista extends RecursoBase implements Prestable {
     }
 
     @Override
-    public LocalDateTime getFechaDevolucion() {
-        return fechaDevolucion;
+    public int getDiasPrestamo() {
+        return DIAS_PRESTAMO;
     }
 
     @Override
@@ -46,10 +45,8 @@ public class Revista extends RecursoBase implements Prestable {
             return;
         }
 
-        this.usuarioPrestamo = usuario;
-        this.fechaDevolucion = LocalDateTime.now().plusDays(7); // Las revistas tienen menor tiempo de préstamo
         this.estado = EstadoRecurso.PRESTADO;
-        System.out.println("Revista prestada a " + usuario.getNombre() + " hasta " + fechaDevolucion);
+        System.out.println("Revista prestada a " + usuario.getNombre());
     }
 
     @Override
@@ -59,8 +56,6 @@ public class Revista extends RecursoBase implements Prestable {
             return;
         }
 
-        this.usuarioPrestamo = null;
-        this.fechaDevolucion = null;
         this.estado = EstadoRecurso.DISPONIBLE;
         System.out.println("Revista devuelta correctamente");
     }
@@ -0,0 +1,23 @@
+package app.biblioteca.models;
+
+import app.biblioteca.interfaces.RecursoDigital;
+
+public enum TipoRecurso {
+    LIBRO,
+    REVISTA,
+    AUDIOLIBRO,
+    OTRO;
+
+    public static TipoRecurso de(RecursoDigital recurso) {
+        if (recurso instanceof Libro) {
+            return LIBRO;
+        }
+        if (recurso instanceof Revista) {
+            return REVISTA;
+        }
+        if (recurso instanceof Audiolibro) {
+            return AUDIOLIBRO;
+        }
+        return OTRO;
+    }
+}
\ No newline at end of file
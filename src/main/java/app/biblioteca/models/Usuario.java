@@ -4,6 +4,7 @@ public class Usuario {
     private String id;
     private String nombre;
     private String email;
+    private volatile int indice = -1;
 
     public Usuario(String id, String nombre, String email) {
         this.id = id;
@@ -15,6 +16,22 @@ public class Usuario {
         return id;
     }
 
+    /**
+     * Índice denso del usuario (ver {@link IndicesDensos}). Se asigna al
+     * registrarlo o, si nunca se registró, la primera vez que se pide.
+     */
+    public int getIndice() {
+        int actual = indice;
+        return actual >= 0 ? actual : asignarIndice();
+    }
+
+    private synchronized int asignarIndice() {
+        if (indice < 0) {
+            indice = IndicesDensos.siguienteUsuario();
+        }
+        return indice;
+    }
+
     public String getNombre() {
         return nombre;
     }
@@ -0,0 +1,162 @@
+package app.biblioteca.reports;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import app.biblioteca.interfaces.ObservadorBiblioteca;
+import app.biblioteca.interfaces.RecursoDigital;
+import app.biblioteca.models.CategoriaRecurso;
+import app.biblioteca.models.Prestamo;
+import app.biblioteca.models.Reserva;
+
+/**
+ * Estadísticas por categoría actualizadas en vivo a partir de los eventos de
+ * recursos, préstamos y reservas. Los contadores se guardan en arreglos
+ * indexados por {@link CategoriaRecurso#ordinal()}, por lo que cada consulta
+ * cuesta O(categorías) sin importar la cantidad de préstamos.
+ */
+public class EstadisticasCategorias implements ObservadorBiblioteca {
+
+    private static final CategoriaRecurso[] CATEGORIAS = CategoriaRecurso.values();
+
+    // Un recurso cuenta como un ejemplar más los que se le agreguen
+    private final AtomicLongArray totalEjemplares = new AtomicLongArray(CATEGORIAS.length);
+    private final AtomicLongArray prestamosTotales = new AtomicLongArray(CATEGORIAS.length);
+    private final AtomicLongArray prestamosActivos = new AtomicLongArray(CATEGORIAS.length);
+    private final AtomicLongArray prestamosFinalizados = new AtomicLongArray(CATEGORIAS.length);
+    private final AtomicLongArray duracionAcumuladaMillis = new AtomicLongArray(CATEGORIAS.length);
+    private final AtomicLongArray reservasPendientes = new AtomicLongArray(CATEGORIAS.length);
+
+    /**
+     * Carga el inventario existente, para recursos agregados antes de
+     * registrar este observador
+     *
+     * @param recursos Recursos del catálogo
+     */
+    public void cargarInventario(Collection<RecursoDigital> recursos) {
+        for (RecursoDigital recurso : recursos) {
+            recursoAgregado(recurso);
+        }
+    }
+
+    @Override
+    public void recursoAgregado(RecursoDigital recurso) {
+        totalEjemplares.incrementAndGet(indice(recurso));
+    }
+
+    @Override
+    public void recursoEliminado(RecursoDigital recurso) {
+        totalEjemplares.decrementAndGet(indice(recurso));
+    }
+
+    @Override
+    public void ejemplaresModificados(RecursoDigital recurso, int diferencia) {
+        totalEjemplares.addAndGet(indice(recurso), diferencia);
+    }
+
+    @Override
+    public void prestamoRealizado(Prestamo prestamo) {
+        int i = indice(prestamo.getRecurso());
+        prestamosTotales.incrementAndGet(i);
+        prestamosActivos.incrementAndGet(i);
+    }
+
+    @Override
+    public void prestamoDevuelto(Prestamo prestamo) {
+        int i = indice(prestamo.getRecurso());
+        long duracion = prestamo.getFechaDevolucionRealMillis() - prestamo.getFechaPrestamoMillis();
+        prestamosActivos.decrementAndGet(i);
+        prestamosFinalizados.incrementAndGet(i);
+        duracionAcumuladaMillis.addAndGet(i, duracion);
+    }
+
+    @Override
+    public void reservaRealizada(Reserva reserva) {
+        reservasPendientes.incrementAndGet(indice(reserva.getRecurso()));
+    }
+
+    @Override
+    public void reservaCancelada(Reserva reserva) {
+        reservasPendientes.decrementAndGet(indice(reserva.getRecurso()));
+    }
+
+    @Override
+    public void reservaAtendida(Reserva reserva) {
+        reservasPendientes.decrementAndGet(indice(reserva.getRecurso()));
+    }
+
+    /**
+     * Cantidad histórica de préstamos por categoría, en el formato que espera
+     * {@link ReporteVisualizer#imprimirEstadisticasPorCategoria(Map)}
+     *
+     * @return Mapa de categorías con al menos un préstamo
+     */
+    public Map<CategoriaRecurso, Integer> prestamosPorCategoria() {
+        Map<CategoriaRecurso, Integer> resultado = new EnumMap<>(CategoriaRecurso.class);
+        for (int i = 0; i < CATEGORIAS.length; i++) {
+            long valor = prestamosTotales.get(i);
+            if (valor > 0) {
+                resultado.put(CATEGORIAS[i], (int) valor);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Proporción de ejemplares prestados sobre el total de ejemplares de cada
+     * categoría, contando las licencias de los audiolibros como ejemplares
+     *
+     * @return Mapa de categorías con recursos y su utilización entre 0 y 1
+     */
+    public Map<CategoriaRecurso, Double> utilizacionPorCategoria() {
+        Map<CategoriaRecurso, Double> resultado = new EnumMap<>(CategoriaRecurso.class);
+        for (int i = 0; i < CATEGORIAS.length; i++) {
+            long total = totalEjemplares.get(i);
+            if (total > 0) {
+                resultado.put(CATEGORIAS[i], (double) prestamosActivos.get(i) / total);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Duración promedio de los préstamos ya devueltos, en días
+     *
+     * @return Mapa de categorías con préstamos finalizados y su duración promedio
+     */
+    public Map<CategoriaRecurso, Double> duracionPromedioDiasPorCategoria() {
+        Map<CategoriaRecurso, Double> resultado = new EnumMap<>(CategoriaRecurso.class);
+        for (int i = 0; i < CATEGORIAS.length; i++) {
+            long finalizados = prestamosFinalizados.get(i);
+            if (finalizados > 0) {
+                double promedioMillis = (double) duracionAcumuladaMillis.get(i) / finalizados;
+                resultado.put(CATEGORIAS[i], promedioMillis / Duration.ofDays(1).toMillis());
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Cantidad de reservas activas pendientes por categoría
+     *
+     * @return Mapa de categorías con reservas pendientes
+     */
+    public Map<CategoriaRecurso, Integer> reservasPendientesPorCategoria() {
+        Map<CategoriaRecurso, Integer> resultado = new EnumMap<>(CategoriaRecurso.class);
+        for (int i = 0; i < CATEGORIAS.length; i++) {
+            long valor = reservasPendientes.get(i);
+            if (valor > 0) {
+                resultado.put(CATEGORIAS[i], (int) valor);
+            }
+        }
+        return resultado;
+    }
+
+    private static int indice(RecursoDigital recurso) {
+        CategoriaRecurso categoria = recurso.getCategoria();
+        return (categoria != null ? categoria : CategoriaRecurso.SIN_CATEGORIA).ordinal();
+    }
+}
@@ -0,0 +1,212 @@
+package app.biblioteca.reports;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Servicio compartido de ejecución de reportes. Ejecuta los reportes en un
+ * pool de hilos común y guarda en caché los resultados para parámetros
+ * idénticos durante un tiempo de vida (TTL), o hasta que cambien los datos de
+ * origen. La caché guarda como máximo {@link #MAX_ENTRADAS_CACHE} trabajos:
+ * al llenarse se descartan los vencidos y, si no alcanza, los más antiguos.
+ */
+public class PlanificadorReportes {
+
+    private static final Duration TTL_POR_DEFECTO = Duration.ofMinutes(5);
+    public static final int MAX_ENTRADAS_CACHE = 256;
+    private static final PlanificadorReportes COMPARTIDO = new PlanificadorReportes(
+            Runtime.getRuntime().availableProcessors(), TTL_POR_DEFECTO);
+
+    private final ExecutorService executor;
+    private final ConcurrentHashMap<ClaveReporte, TrabajoReporte<?>> cache;
+    private final long ttlMillis;
+    private final AtomicLong secuenciaTrabajos;
+
+    public PlanificadorReportes(int hilos, Duration ttl) {
+        this.executor = Executors.newFixedThreadPool(hilos, crearFabricaHilos());
+        this.cache = new ConcurrentHashMap<>();
+        this.ttlMillis = ttl.toMillis();
+        this.secuenciaTrabajos = new AtomicLong();
+    }
+
+    /**
+     * Obtiene la instancia compartida por todos los reportes de la aplicación
+     *
+     * @return Planificador compartido
+     */
+    public static PlanificadorReportes compartido() {
+        return COMPARTIDO;
+    }
+
+    /**
+     * Envía un reporte para su ejecución asíncrona. Si existe un trabajo en
+     * curso o un resultado vigente para el mismo tipo, parámetros y versión de
+     * datos, se reutiliza en lugar de recalcularlo.
+     *
+     * @param tipoReporte  Nombre del reporte
+     * @param versionDatos Versión de los datos de origen; un valor distinto al
+     *                     del trabajo en caché lo invalida
+     * @param generador    Función que calcula el reporte
+     * @param parametros   Parámetros que identifican el reporte
+     * @return Manejador del trabajo
+     */
+    @SuppressWarnings("unchecked")
+    public <T> TrabajoReporte<T> enviar(String tipoReporte, long versionDatos, Supplier<T> generador,
+            Object... parametros) {
+        ClaveReporte clave = new ClaveReporte(tipoReporte, Arrays.asList(parametros));
+        if (cache.size() >= MAX_ENTRADAS_CACHE && !cache.containsKey(clave)) {
+            liberarEspacio();
+        }
+
+        return (TrabajoReporte<T>) cache.compute(clave, (k, existente) -> {
+            if (existente != null && esVigente(existente, versionDatos)) {
+                return existente;
+            }
+            return crearTrabajo(tipoReporte, versionDatos, generador);
+        });
+    }
+
+    /**
+     * Envía un reporte para su ejecución asíncrona sin utilizar la caché
+     *
+     * @param tipoReporte Nombre del reporte
+     * @param generador   Función que calcula el reporte
+     * @return Manejador del trabajo
+     */
+    public <T> TrabajoReporte<T> enviarSinCache(String tipoReporte, Supplier<T> generador) {
+        return crearTrabajo(tipoReporte, -1, generador);
+    }
+
+    /**
+     * Descarta todos los resultados guardados en caché
+     */
+    public void invalidarCache() {
+        cache.clear();
+    }
+
+    /**
+     * Descarta los resultados en caché de un tipo de reporte
+     *
+     * @param tipoReporte Nombre del reporte
+     */
+    public void invalidarCache(String tipoReporte) {
+        cache.keySet().removeIf(clave -> clave.tipoReporte.equals(tipoReporte));
+    }
+
+    /**
+     * Elimina de la caché los trabajos vencidos, cancelados o fallidos
+     */
+    public void purgarCache() {
+        long ahora = System.currentTimeMillis();
+        cache.values().removeIf(t -> !t.esReutilizable() || ahora - t.getCreadoEnMillis() > ttlMillis);
+    }
+
+    public int tamanioCache() {
+        return cache.size();
+    }
+
+    /**
+     * Detiene el pool de hilos del planificador
+     */
+    public void detener() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        cache.clear();
+    }
+
+    /**
+     * Descarta los trabajos vencidos y, si la caché sigue llena, el más
+     * antiguo
+     */
+    private void liberarEspacio() {
+        purgarCache();
+        while (cache.size() >= MAX_ENTRADAS_CACHE) {
+            ClaveReporte masAntigua = null;
+            long creadoEnMillis = Long.MAX_VALUE;
+            for (var entrada : cache.entrySet()) {
+                if (entrada.getValue().getCreadoEnMillis() < creadoEnMillis) {
+                    creadoEnMillis = entrada.getValue().getCreadoEnMillis();
+                    masAntigua = entrada.getKey();
+                }
+            }
+            if (masAntigua == null) {
+                return;
+            }
+            cache.remove(masAntigua);
+        }
+    }
+
+    private <T> TrabajoReporte<T> crearTrabajo(String tipoReporte, long versionDatos, Supplier<T> generador) {
+        String id = tipoReporte + "-" + secuenciaTrabajos.incrementAndGet();
+        CompletableFuture<T> futuro = new CompletableFuture<>();
+        // Se conserva la tarea del executor para que cancelar interrumpa al generador
+        Future<?> tarea = executor.submit(() -> {
+            try {
+                futuro.complete(generador.get());
+            } catch (Throwable e) {
+                futuro.completeExceptionally(e);
+            }
+        });
+        return new TrabajoReporte<>(id, tipoReporte, futuro, tarea, versionDatos);
+    }
+
+    private boolean esVigente(TrabajoReporte<?> trabajo, long versionDatos) {
+        return trabajo.esReutilizable()
+                && trabajo.getVersionDatos() == versionDatos
+                && System.currentTimeMillis() - trabajo.getCreadoEnMillis() <= ttlMillis;
+    }
+
+    private static ThreadFactory crearFabricaHilos() {
+        AtomicLong contador = new AtomicLong();
+        return tarea -> {
+            Thread hilo = new Thread(tarea, "reportes-" + contador.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        };
+    }
+
+    private static final class ClaveReporte {
+        private final String tipoReporte;
+        private final List<Object> parametros;
+
+        ClaveReporte(String tipoReporte, List<Object> parametros) {
+            this.tipoReporte = tipoReporte;
+            this.parametros = parametros;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ClaveReporte)) {
+                return false;
+            }
+            ClaveReporte otra = (ClaveReporte) o;
+            return tipoReporte.equals(otra.tipoReporte) && parametros.equals(otra.parametros);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(tipoReporte, parametros);
+        }
+    }
+}
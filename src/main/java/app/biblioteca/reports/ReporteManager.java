@@ -1,18 +1,19 @@
 package app.biblioteca.reports;
 
 import java.time.LocalDateTime;
-import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
 import app.biblioteca.interfaces.RecursoDigital;
+import app.biblioteca.metrics.RegistroMetricas;
+import app.biblioteca.metrics.Temporizador;
 import app.biblioteca.models.CategoriaRecurso;
+import app.biblioteca.models.IndicesDensos;
 import app.biblioteca.models.Prestamo;
 import app.biblioteca.models.Usuario;
+import app.biblioteca.services.ConteoPorIndice;
 import app.biblioteca.services.SistemaPrestamos;
 
 /**
@@ -20,6 +21,11 @@ import app.biblioteca.services.SistemaPrestamos;
  * sobre la actividad de la biblioteca
  */
 public class ReporteManager {
+    private static final Temporizador TIEMPO_MAS_PRESTADOS = RegistroMetricas.compartido()
+            .temporizador("reportes.manager.recursosMasPrestados");
+    private static final Temporizador TIEMPO_MAS_PRESTADOS_PERIODO = RegistroMetricas.compartido()
+            .temporizador("reportes.manager.recursosMasPrestadosPorPeriodo");
+
     private final SistemaPrestamos sistemaPrestamos;
 
     public ReporteManager(SistemaPrestamos sistemaPrestamos) {
@@ -33,29 +39,22 @@ public class ReporteManager {
      * @return Mapa ordenado de recursos y su cantidad de préstamos
      */
     public Map<RecursoDigital, Integer> generarReporteRecursosMasPrestados(int limit) {
-        List<Prestamo> todosPrestamos = sistemaPrestamos.listarTodosPrestamos();
-
-        // Crear mapa de conteo de préstamos por recurso
-        Map<RecursoDigital, Integer> conteoRecursos = new HashMap<>();
-
-        // Contar préstamos por recurso
-        for (Prestamo prestamo : todosPrestamos) {
-            RecursoDigital recurso = prestamo.getRecurso();
-            conteoRecursos.put(recurso, conteoRecursos.getOrDefault(recurso, 0) + 1);
+        long inicio = TIEMPO_MAS_PRESTADOS.iniciar();
+        try {
+            List<Prestamo> todosPrestamos = sistemaPrestamos.listarTodosPrestamos();
+
+            // Contar préstamos por índice de recurso
+            ConteoPorIndice<RecursoDigital> conteoRecursos = new ConteoPorIndice<>(RecursoDigital::getIndice,
+                    Math.min(todosPrestamos.size(), IndicesDensos.cantidadRecursos()));
+            for (Prestamo prestamo : todosPrestamos) {
+                conteoRecursos.sumar(prestamo.getRecurso());
+            }
+
+            // Ordenar por número de préstamos (descendente)
+            return conteoRecursos.mayores(limit);
+        } finally {
+            TIEMPO_MAS_PRESTADOS.registrar(inicio);
         }
-
-        // Ordenar por número de préstamos (descendente)
-        Map<RecursoDigital, Integer> ordenado = conteoRecursos.entrySet()
-                .stream()
-                .sorted(Collections.reverseOrder(Map.Entry.comparingByValue()))
-                .limit(limit)
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        Map.Entry::getValue,
-                        (e1, e2) -> e1,
-                        LinkedHashMap::new));
-
-        return ordenado;
     }
 
     /**
@@ -68,33 +67,25 @@ public class ReporteManager {
      */
     public Map<RecursoDigital, Integer> generarReporteRecursosMasPrestadosPorPeriodo(
             LocalDateTime desde, LocalDateTime hasta, int limit) {
-
-        List<Prestamo> prestamosEnPeriodo = sistemaPrestamos.listarTodosPrestamos().stream()
-                .filter(p -> p.getFechaPrestamo().isAfter(desde) &&
-                        p.getFechaPrestamo().isBefore(hasta))
-                .collect(Collectors.toList());
-
-        // Crear mapa de conteo de préstamos por recurso
-        Map<RecursoDigital, Integer> conteoRecursos = new HashMap<>();
-
-        // Contar préstamos por recurso
-        for (Prestamo prestamo : prestamosEnPeriodo) {
-            RecursoDigital recurso = prestamo.getRecurso();
-            conteoRecursos.put(recurso, conteoRecursos.getOrDefault(recurso, 0) + 1);
+        long inicio = TIEMPO_MAS_PRESTADOS_PERIODO.iniciar();
+        try {
+            List<Prestamo> prestamosEnPeriodo = sistemaPrestamos.listarTodosPrestamos().stream()
+                    .filter(p -> p.getFechaPrestamo().isAfter(desde) &&
+                            p.getFechaPrestamo().isBefore(hasta))
+                    .collect(Collectors.toList());
+
+            // Contar préstamos por índice de recurso
+            ConteoPorIndice<RecursoDigital> conteoRecursos = new ConteoPorIndice<>(RecursoDigital::getIndice,
+                    Math.min(prestamosEnPeriodo.size(), IndicesDensos.cantidadRecursos()));
+            for (Prestamo prestamo : prestamosEnPeriodo) {
+                conteoRecursos.sumar(prestamo.getRecurso());
+            }
+
+            // Ordenar por número de préstamos (descendente)
+            return conteoRecursos.mayores(limit);
+        } finally {
+            TIEMPO_MAS_PRESTADOS_PERIODO.registrar(inicio);
         }
-
-        // Ordenar por número de préstamos (descendente)
-        Map<RecursoDigital, Integer> ordenado = conteoRecursos.entrySet()
-                .stream()
-                .sorted(Collections.reverseOrder(Map.Entry.comparingByValue()))
-                .limit(limit)
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        Map.Entry::getValue,
-                        (e1, e2) -> e1,
-                        LinkedHashMap::new));
-
-        return ordenado;
     }
 
     /**
@@ -2,19 +2,27 @@ package app.biblioteca.reports;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
 import app.biblioteca.interfaces.RecursoDigital;
+import app.biblioteca.metrics.RegistroMetricas;
+import app.biblioteca.metrics.Temporizador;
+import app.biblioteca.models.IndicesDensos;
 import app.biblioteca.models.Prestamo;
+import app.biblioteca.services.ConteoPorIndice;
 import app.biblioteca.services.SistemaPrestamos;
 
 /**
  * Clase especializada en generar reportes de recursos más prestados
  */
 public class ReporteRecursosMasPrestados {
+    private static final Temporizador TIEMPO_REPORTE = RegistroMetricas.compartido()
+            .temporizador("reportes.recursosMasPrestados");
+    private static final Temporizador TIEMPO_REPORTE_PERIODO = RegistroMetricas.compartido()
+            .temporizador("reportes.recursosMasPrestadosPorPeriodo");
+
     private final SistemaPrestamos sistemaPrestamos;
     private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
 
@@ -29,8 +37,13 @@ public class ReporteRecursosMasPrestados {
      * @return Mapa ordenado de recursos y su cantidad de préstamos
      */
     public Map<RecursoDigital, Integer> generarReporte(int limite) {
-        List<Prestamo> prestamos = sistemaPrestamos.listarTodosPrestamos();
-        return contarYOrdenarPrestamos(prestamos, limite);
+        long inicio = TIEMPO_REPORTE.iniciar();
+        try {
+            List<Prestamo> prestamos = sistemaPrestamos.listarTodosPrestamos();
+            return contarYOrdenarPrestamos(prestamos, limite);
+        } finally {
+            TIEMPO_REPORTE.registrar(inicio);
+        }
     }
 
     /**
@@ -43,13 +56,17 @@ public class ReporteRecursosMasPrestados {
      */
     public Map<RecursoDigital, Integer> generarReportePorPeriodo(
             LocalDateTime desde, LocalDateTime hasta, int limite) {
-
-        List<Prestamo> prestamosEnPeriodo = sistemaPrestamos.listarTodosPrestamos().stream()
-                .filter(p -> !p.getFechaPrestamo().isBefore(desde) &&
-                        !p.getFechaPrestamo().isAfter(hasta))
-                .collect(Collectors.toList());
-
-        return contarYOrdenarPrestamos(prestamosEnPeriodo, limite);
+        long inicio = TIEMPO_REPORTE_PERIODO.iniciar();
+        try {
+            List<Prestamo> prestamosEnPeriodo = sistemaPrestamos.listarTodosPrestamos().stream()
+                    .filter(p -> !p.getFechaPrestamo().isBefore(desde) &&
+                            !p.getFechaPrestamo().isAfter(hasta))
+                    .collect(Collectors.toList());
+
+            return contarYOrdenarPrestamos(prestamosEnPeriodo, limite);
+        } finally {
+            TIEMPO_REPORTE_PERIODO.registrar(inicio);
+        }
     }
 
     /**
@@ -60,21 +77,15 @@ public class ReporteRecursosMasPrestados {
      * @return Mapa ordenado
      */
     private Map<RecursoDigital, Integer> contarYOrdenarPrestamos(List<Prestamo> prestamos, int limite) {
-        // Agrupar los préstamos por recurso y contar
-        Map<RecursoDigital, Long> conteoPrestamos = prestamos.stream()
-                .collect(Collectors.groupingBy(Prestamo::getRecurso, Collectors.counting()));
-
-        // Convertir a Map<RecursoDigital, Integer> y ordenar por cantidad (descendente)
-        Map<RecursoDigital, Integer> resultado = conteoPrestamos.entrySet().stream()
-                .sorted(Map.Entry.<RecursoDigital, Long>comparingByValue().reversed())
-                .limit(limite)
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        entry -> entry.getValue().intValue(),
-                        (e1, e2) -> e1,
-                        LinkedHashMap::new));
-
-        return resultado;
+        // Contar los préstamos por índice de recurso
+        ConteoPorIndice<RecursoDigital> conteoPrestamos = new ConteoPorIndice<>(RecursoDigital::getIndice,
+                Math.min(prestamos.size(), IndicesDensos.cantidadRecursos()));
+        for (Prestamo prestamo : prestamos) {
+            conteoPrestamos.sumar(prestamo.getRecurso());
+        }
+
+        // Ordenar por cantidad (descendente)
+        return conteoPrestamos.mayores(limite);
     }
 
     /**
@@ -6,13 +6,14 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 import app.biblioteca.exceptions.UsuarioNoEncontradoException;
+import app.biblioteca.metrics.RegistroMetricas;
+import app.biblioteca.metrics.Temporizador;
+import app.biblioteca.models.IndicesDensos;
 import app.biblioteca.models.Prestamo;
 import app.biblioteca.models.Usuario;
+import app.biblioteca.services.ConteoPorIndice;
 import app.biblioteca.services.GestorUsuarios;
 import app.biblioteca.services.SistemaPrestamos;
 
@@ -21,21 +22,36 @@ import app.biblioteca.services.SistemaPrestamos;
  */
 public class ReporteUsuariosActivos {
 
+    private static final Temporizador TIEMPO_REPORTE = RegistroMetricas.compartido()
+            .temporizador("reportes.usuariosActivos");
+    private static final Temporizador TIEMPO_REPORTE_PERIODO = RegistroMetricas.compartido()
+            .temporizador("reportes.usuariosActivosPorPeriodo");
+    private static final Temporizador TIEMPO_PUNTUACION = RegistroMetricas.compartido()
+            .temporizador("reportes.usuariosActivosPuntuacion");
+
+    private static final String REPORTE_PRESTAMOS = "usuarios-prestamos";
+    private static final String REPORTE_PERIODO = "usuarios-prestamos-periodo";
+    private static final String REPORTE_PUNTUACION = "usuarios-puntuacion";
+    private static final String REPORTE_MAS_ACTIVOS = "usuarios-mas-activos";
+
     private SistemaPrestamos sistemaPrestamos;
     private GestorUsuarios gestorUsuarios;
-    private ExecutorService executor;
+    private PlanificadorReportes planificador;
     private ReporteVisualizer visualizer;
 
     public ReporteUsuariosActivos(SistemaPrestamos sistemaPrestamos) {
-        this.sistemaPrestamos = sistemaPrestamos;
-        this.executor = Executors.newSingleThreadExecutor();
-        this.visualizer = new ReporteVisualizer();
+        this(sistemaPrestamos, null, PlanificadorReportes.compartido());
     }
 
     public ReporteUsuariosActivos(SistemaPrestamos sistemaPrestamos, GestorUsuarios gestorUsuarios) {
+        this(sistemaPrestamos, gestorUsuarios, PlanificadorReportes.compartido());
+    }
+
+    public ReporteUsuariosActivos(SistemaPrestamos sistemaPrestamos, GestorUsuarios gestorUsuarios,
+            PlanificadorReportes planificador) {
         this.sistemaPrestamos = sistemaPrestamos;
         this.gestorUsuarios = gestorUsuarios;
-        this.executor = Executors.newSingleThreadExecutor();
+        this.planificador = planificador;
         this.visualizer = new ReporteVisualizer();
     }
 
@@ -43,15 +59,19 @@ public class ReporteUsuariosActivos {
      * Genera un mapa con los usuarios y la cantidad de préstamos realizados
      */
     public Map<Usuario, Integer> generarReporte() {
-        List<Prestamo> prestamos = sistemaPrestamos.listarTodosPrestamos();
-        Map<Usuario, Integer> conteoUsuarios = new HashMap<>();
+        long inicio = TIEMPO_REPORTE.iniciar();
+        try {
+            List<Prestamo> prestamos = sistemaPrestamos.listarTodosPrestamos();
+            ConteoPorIndice<Usuario> conteoUsuarios = nuevoConteo(prestamos);
 
-        for (Prestamo prestamo : prestamos) {
-            Usuario usuario = prestamo.getUsuario();
-            conteoUsuarios.put(usuario, conteoUsuarios.getOrDefault(usuario, 0) + 1);
-        }
+            for (Prestamo prestamo : prestamos) {
+                conteoUsuarios.sumar(prestamo.getUsuario());
+            }
 
-        return conteoUsuarios;
+            return conteoUsuarios.comoMapa();
+        } finally {
+            TIEMPO_REPORTE.registrar(inicio);
+        }
     }
 
     /**
@@ -59,77 +79,137 @@ public class ReporteUsuariosActivos {
      * período específico
      */
     public Map<Usuario, Integer> generarReportePeriodo(LocalDateTime desde, LocalDateTime hasta) {
-        List<Prestamo> prestamos = sistemaPrestamos.listarTodosPrestamos()
-                .stream()
-                .filter(p -> p.getFechaPrestamo().isAfter(desde) && p.getFechaPrestamo().isBefore(hasta))
-                .collect(Collectors.toList());
+        long inicio = TIEMPO_REPORTE_PERIODO.iniciar();
+        try {
+            List<Prestamo> prestamos = sistemaPrestamos.listarTodosPrestamos()
+                    .stream()
+                    .filter(p -> p.getFechaPrestamo().isAfter(desde) && p.getFechaPrestamo().isBefore(hasta))
+                    .collect(Collectors.toList());
 
-        Map<Usuario, Integer> conteoUsuarios = new HashMap<>();
+            ConteoPorIndice<Usuario> conteoUsuarios = nuevoConteo(prestamos);
 
-        for (Prestamo prestamo : prestamos) {
-            Usuario usuario = prestamo.getUsuario();
-            conteoUsuarios.put(usuario, conteoUsuarios.getOrDefault(usuario, 0) + 1);
-        }
+            for (Prestamo prestamo : prestamos) {
+                conteoUsuarios.sumar(prestamo.getUsuario());
+            }
 
-        return conteoUsuarios;
+            return conteoUsuarios.comoMapa();
+        } finally {
+            TIEMPO_REPORTE_PERIODO.registrar(inicio);
+        }
     }
 
     /**
      * Genera un mapa con la puntuación de cada usuario basada en diversos factores
      */
     public Map<Usuario, Double> generarReportePuntuacion() {
-        List<Prestamo> prestamos = sistemaPrestamos.listarTodosPrestamos();
-        Map<Usuario, Double> puntuacionUsuarios = new HashMap<>();
-        Map<Usuario, Integer> devolucionesATiempo = new HashMap<>();
-        Map<Usuario, Integer> devolucionesConRetraso = new HashMap<>();
-        Map<Usuario, Integer> totalPrestamos = new HashMap<>();
-
-        for (Prestamo prestamo : prestamos) {
-            Usuario usuario = prestamo.getUsuario();
-
-            // Contar préstamos totales
-            totalPrestamos.put(usuario, totalPrestamos.getOrDefault(usuario, 0) + 1);
-
-            // Solo contar devoluciones para préstamos ya devueltos
-            if (prestamo.getFechaDevolucion() != null) {
-                if (prestamo.getFechaDevolucion().isBefore(prestamo.getFechaVencimiento())) {
-                    // Devolución a tiempo
-                    devolucionesATiempo.put(usuario, devolucionesATiempo.getOrDefault(usuario, 0) + 1);
-                } else {
-                    // Devolución con retraso
-                    devolucionesConRetraso.put(usuario, devolucionesConRetraso.getOrDefault(usuario, 0) + 1);
+        long inicio = TIEMPO_PUNTUACION.iniciar();
+        try {
+            List<Prestamo> prestamos = sistemaPrestamos.listarTodosPrestamos();
+            Map<Usuario, Double> puntuacionUsuarios = new HashMap<>();
+            ConteoPorIndice<Usuario> devolucionesATiempo = nuevoConteo(prestamos);
+            ConteoPorIndice<Usuario> devolucionesConRetraso = nuevoConteo(prestamos);
+            ConteoPorIndice<Usuario> totalPrestamos = nuevoConteo(prestamos);
+
+            for (Prestamo prestamo : prestamos) {
+                Usuario usuario = prestamo.getUsuario();
+
+                // Contar préstamos totales
+                totalPrestamos.sumar(usuario);
+
+                // Solo contar devoluciones para préstamos ya devueltos
+                if (prestamo.isDevuelto()) {
+                    if (prestamo.getFechaDevolucionRealMillis() <= prestamo.getFechaDevolucionMillis()) {
+                        // Devolución a tiempo
+                        devolucionesATiempo.sumar(usuario);
+                    } else {
+                        // Devolución con retraso
+                        devolucionesConRetraso.sumar(usuario);
+                    }
                 }
             }
-        }
 
-        // Calcular puntuación para cada usuario
-        for (Usuario usuario : totalPrestamos.keySet()) {
-            int total = totalPrestamos.getOrDefault(usuario, 0);
-            int devTiempo = devolucionesATiempo.getOrDefault(usuario, 0);
-            int devRetraso = devolucionesConRetraso.getOrDefault(usuario, 0);
+            // Calcular puntuación para cada usuario
+            for (Map.Entry<Usuario, Integer> entrada : totalPrestamos.comoMapa().entrySet()) {
+                Usuario usuario = entrada.getKey();
+                int total = entrada.getValue();
+                int devTiempo = devolucionesATiempo.get(usuario);
+                int devRetraso = devolucionesConRetraso.get(usuario);
+
+                // Fórmula de puntuación: (préstamos totales + devoluciones a tiempo -
+                // devoluciones con retraso)
+                double puntuacion = total + devTiempo - (devRetraso * 1.5);
+                puntuacionUsuarios.put(usuario, Math.max(0, puntuacion)); // Mínimo 0 puntos
+            }
 
-            // Fórmula de puntuación: (préstamos totales + devoluciones a tiempo -
-            // devoluciones con retraso)
-            double puntuacion = total + devTiempo - (devRetraso * 1.5);
-            puntuacionUsuarios.put(usuario, Math.max(0, puntuacion)); // Mínimo 0 puntos
+            return puntuacionUsuarios;
+        } finally {
+            TIEMPO_PUNTUACION.registrar(inicio);
         }
+    }
 
-        return puntuacionUsuarios;
+    /**
+     * Conteo dimensionado por los préstamos del reporte, que pueden ser muchos
+     * menos que los usuarios con índice en el proceso
+     */
+    private static ConteoPorIndice<Usuario> nuevoConteo(List<Prestamo> prestamos) {
+        return new ConteoPorIndice<>(Usuario::getIndice,
+                Math.min(prestamos.size(), IndicesDensos.cantidadUsuarios()));
+    }
+
+    /**
+     * Envía la generación del reporte de préstamos por usuario al planificador
+     *
+     * @return Manejador del trabajo
+     */
+    public TrabajoReporte<Map<Usuario, Integer>> programarReporte() {
+        return planificador.enviar(REPORTE_PRESTAMOS, sistemaPrestamos.getVersionPrestamos(),
+                this::generarReporte, sistemaPrestamos);
     }
 
     /**
-     * Muestra el reporte de usuarios más activos
+     * Envía la generación del reporte de préstamos por usuario en un período al
+     * planificador
+     *
+     * @return Manejador del trabajo
      */
-    public void mostrarReporte(int limite) {
-        CompletableFuture.supplyAsync(() -> {
+    public TrabajoReporte<Map<Usuario, Integer>> programarReportePeriodo(LocalDateTime desde, LocalDateTime hasta) {
+        return planificador.enviar(REPORTE_PERIODO, sistemaPrestamos.getVersionPrestamos(),
+                () -> generarReportePeriodo(desde, hasta), sistemaPrestamos, desde, hasta);
+    }
+
+    /**
+     * Envía la generación del reporte de puntuación al planificador
+     *
+     * @return Manejador del trabajo
+     */
+    public TrabajoReporte<Map<Usuario, Double>> programarReportePuntuacion() {
+        return planificador.enviar(REPORTE_PUNTUACION, sistemaPrestamos.getVersionPrestamos(),
+                this::generarReportePuntuacion, sistemaPrestamos);
+    }
+
+    /**
+     * Muestra el reporte de usuarios más activos. El cálculo se realiza en el
+     * planificador compartido y se reutiliza mientras no haya nuevos préstamos.
+     *
+     * @return Manejador del trabajo, para esperar o cancelar el reporte
+     */
+    public TrabajoReporte<List<String>> mostrarReporte(int limite) {
+        TrabajoReporte<List<String>> trabajo = planificador.enviar(REPORTE_MAS_ACTIVOS,
+                sistemaPrestamos.getVersionPrestamos(),
+                () -> sistemaPrestamos.obtenerUsuariosMasActivos(limite), sistemaPrestamos, limite);
+
+        trabajo.alCompletar(this::imprimirUsuariosMasActivos);
+        return trabajo;
+    }
+
+    private void imprimirUsuariosMasActivos(List<String> usuariosMasActivos) {
+        synchronized (System.out) {
             System.out.println("\n======= REPORTE DE USUARIOS MÁS ACTIVOS =======");
             System.out.println("------------------------------------------------");
 
-            List<String> usuariosMasActivos = sistemaPrestamos.obtenerUsuariosMasActivos(limite);
-
             if (usuariosMasActivos.isEmpty()) {
                 System.out.println("No hay datos suficientes para generar el reporte.");
-                return false;
+                return;
             }
 
             System.out.println("Ranking | ID Usuario | Nombre");
@@ -153,53 +233,60 @@ public class ReporteUsuariosActivos {
             }
 
             System.out.println("------------------------------------------------");
-            return true;
-        }, executor);
+        }
     }
 
     /**
-     * Muestra el reporte de puntuación de usuarios
+     * Muestra el reporte de puntuación de usuarios. La puntuación se calcula en
+     * el planificador compartido a partir de {@link #generarReportePuntuacion()}.
+     *
+     * @return Manejador del trabajo, para esperar o cancelar el reporte
      */
-    public void mostrarReportePuntuacion(int limite) {
-        // Solo mostrar si tenemos acceso al gestor de usuarios
-        if (gestorUsuarios == null) {
-            System.out.println("No se puede generar el reporte de puntuación sin acceso al gestor de usuarios.");
-            return;
-        }
+    public TrabajoReporte<Map<Usuario, Double>> mostrarReportePuntuacion(int limite) {
+        TrabajoReporte<Map<Usuario, Double>> trabajo = programarReportePuntuacion();
 
-        CompletableFuture.supplyAsync(() -> {
+        trabajo.alCompletar(puntuaciones -> imprimirUsuariosPorPuntuacion(puntuaciones, limite));
+        return trabajo;
+    }
+
+    private void imprimirUsuariosPorPuntuacion(Map<Usuario, Double> puntuaciones, int limite) {
+        List<Map.Entry<Usuario, Double>> usuariosPorPuntuacion = puntuaciones.entrySet().stream()
+                .sorted(Map.Entry.<Usuario, Double>comparingByValue().reversed())
+                .limit(limite)
+                .collect(Collectors.toList());
+
+        synchronized (System.out) {
             System.out.println("\n======= REPORTE DE PUNTUACIÓN DE USUARIOS =======");
             System.out.println("--------------------------------------------------");
 
-            List<Usuario> usuariosPorPuntuacion = gestorUsuarios.obtenerPorPuntuacion();
-
             if (usuariosPorPuntuacion.isEmpty()) {
                 System.out.println("No hay datos suficientes para generar el reporte.");
-                return false;
+                return;
             }
 
             System.out.println("Ranking | ID Usuario | Nombre             | Puntos");
             System.out.println("--------------------------------------------------");
 
             int ranking = 1;
-            int count = 0;
-            for (Usuario usuario : usuariosPorPuntuacion) {
-                if (count++ >= limite)
-                    break;
-
-                System.out.printf("%-7d | %-10s | %-18s | %d%n",
-                        ranking++, usuario.getId(), usuario.getNombre(), usuario.getPuntuacion());
+            for (Map.Entry<Usuario, Double> entry : usuariosPorPuntuacion) {
+                Usuario usuario = entry.getKey();
+                System.out.printf("%-7d | %-10s | %-18s | %.1f%n",
+                        ranking++, usuario.getId(), usuario.getNombre(), entry.getValue());
             }
 
             System.out.println("--------------------------------------------------");
-            return true;
-        }, executor);
+        }
     }
 
     /**
-     * Cierra los recursos del reporte
+     * Cierra los recursos del reporte. El planificador compartido sigue
+     * disponible para el resto de los reportes; solo se descartan los
+     * resultados en caché de los reportes de usuarios.
      */
     public void cerrar() {
-        executor.shutdown();
+        for (String tipoReporte : List.of(REPORTE_PRESTAMOS, REPORTE_PERIODO, REPORTE_PUNTUACION,
+                REPORTE_MAS_ACTIVOS)) {
+            planificador.invalidarCache(tipoReporte);
+        }
     }
 }
\ No newline at end of file
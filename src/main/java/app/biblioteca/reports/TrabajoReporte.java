@@ -0,0 +1,161 @@
+package app.biblioteca.reports;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+import app.biblioteca.logging.RegistroEventos;
+
+/**
+ * Manejador de un reporte enviado al planificador de reportes. Permite
+ * consultar su estado, esperar el resultado o cancelarlo.
+ *
+ * @param <T> Tipo de resultado que produce el reporte
+ */
+public class TrabajoReporte<T> {
+    private static final RegistroEventos REGISTRO = RegistroEventos.compartido();
+
+    public enum Estado {
+        EN_EJECUCION,
+        COMPLETADO,
+        FALLIDO,
+        CANCELADO
+    }
+
+    private final String id;
+    private final String tipoReporte;
+    private final CompletableFuture<T> futuro;
+    private final Future<?> tarea;
+    private final long creadoEnMillis;
+    private final long versionDatos;
+
+    TrabajoReporte(String id, String tipoReporte, CompletableFuture<T> futuro, Future<?> tarea, long versionDatos) {
+        this.id = id;
+        this.tipoReporte = tipoReporte;
+        this.futuro = futuro;
+        this.tarea = tarea;
+        this.creadoEnMillis = System.currentTimeMillis();
+        this.versionDatos = versionDatos;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getTipoReporte() {
+        return tipoReporte;
+    }
+
+    /**
+     * Obtiene el estado actual del trabajo sin bloquear
+     *
+     * @return Estado del trabajo
+     */
+    public Estado getEstado() {
+        if (futuro.isCancelled()) {
+            return Estado.CANCELADO;
+        }
+        if (futuro.isCompletedExceptionally()) {
+            return Estado.FALLIDO;
+        }
+        if (futuro.isDone()) {
+            return Estado.COMPLETADO;
+        }
+        return Estado.EN_EJECUCION;
+    }
+
+    public boolean estaTerminado() {
+        return futuro.isDone();
+    }
+
+    /**
+     * Espera a que el reporte termine y devuelve su resultado
+     *
+     * @return Resultado del reporte
+     * @throws ExecutionException   Si la generación del reporte falló
+     * @throws InterruptedException Si el hilo fue interrumpido mientras esperaba
+     */
+    public T obtenerResultado() throws ExecutionException, InterruptedException {
+        return futuro.get();
+    }
+
+    /**
+     * Espera como máximo el tiempo indicado a que el reporte termine
+     *
+     * @param tiempo Tiempo máximo de espera
+     * @param unidad Unidad del tiempo de espera
+     * @return Resultado del reporte
+     * @throws TimeoutException Si el reporte no terminó dentro del plazo
+     */
+    public T obtenerResultado(long tiempo, TimeUnit unidad)
+            throws ExecutionException, InterruptedException, TimeoutException {
+        return futuro.get(tiempo, unidad);
+    }
+
+    /**
+     * Devuelve el resultado si ya está disponible, o el valor indicado en caso
+     * contrario
+     *
+     * @param valorPorDefecto Valor a devolver si el reporte no terminó
+     * @return Resultado del reporte o el valor por defecto
+     */
+    public T obtenerResultadoSiDisponible(T valorPorDefecto) {
+        try {
+            return futuro.getNow(valorPorDefecto);
+        } catch (CancellationException | CompletionException e) {
+            return valorPorDefecto;
+        }
+    }
+
+    /**
+     * Registra una acción a ejecutar cuando el reporte termine correctamente
+     *
+     * @param accion Acción que recibe el resultado
+     */
+    public void alCompletar(Consumer<? super T> accion) {
+        futuro.thenAccept(accion).exceptionally(e -> {
+            Throwable causa = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (!(causa instanceof CancellationException)) {
+                REGISTRO.error("reporte.error", "Error al generar reporte " + tipoReporte + ": {}",
+                        causa.getMessage());
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Cancela el trabajo. Si todavía no empezó, no llega a ejecutarse; si está
+     * en curso, se interrumpe el hilo que lo genera, y el generador se detiene
+     * solo si atiende la interrupción. Si el resultado estaba compartido desde
+     * la caché, el resto de los solicitantes también lo verán como cancelado.
+     *
+     * @return true si el trabajo fue cancelado
+     */
+    public boolean cancelar() {
+        boolean cancelado = futuro.cancel(false);
+        tarea.cancel(true);
+        return cancelado;
+    }
+
+    long getCreadoEnMillis() {
+        return creadoEnMillis;
+    }
+
+    long getVersionDatos() {
+        return versionDatos;
+    }
+
+    boolean esReutilizable() {
+        return !futuro.isCancelled() && !futuro.isCompletedExceptionally();
+    }
+
+    @Override
+    public String toString() {
+        return "TrabajoReporte [id=" + id + ", tipo=" + tipoReporte + ", estado=" + getEstado() + "]";
+    }
+}
@@ -0,0 +1,428 @@
+package app.biblioteca.services;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+import app.biblioteca.interfaces.ObservadorBiblioteca;
+import app.biblioteca.interfaces.RecursoDigital;
+import app.biblioteca.metrics.RegistroMetricas;
+import app.biblioteca.metrics.Temporizador;
+import app.biblioteca.models.Audiolibro;
+import app.biblioteca.models.IndicesDensos;
+import app.biblioteca.models.Libro;
+import app.biblioteca.models.Prestamo;
+
+/**
+ * Autocompletado de títulos y autores para las terminales del catálogo.
+ *
+ * Los textos se normalizan (minúsculas, sin tildes ni signos) y se guardan
+ * en un trie radix: cada arista lleva una cadena en lugar de un carácter, por
+ * lo que la altura del árbol es la cantidad de bifurcaciones y no la
+ * longitud del texto. Se indexa el título y el autor completos y también a
+ * partir de cada palabra, para que "soled" sugiera "Cien años de soledad".
+ *
+ * Cada nodo guarda los {@value #MAXIMO_SUGERENCIAS} recursos más prestados
+ * de su subárbol, de modo que una consulta solo recorre el prefijo. Como la
+ * cantidad de préstamos de un recurso solo crece, un préstamo actualiza esas
+ * listas en el camino de cada término sin recalcularlas; al eliminar un
+ * recurso sí se recalculan desde las hojas.
+ *
+ * Se mantiene actualizado como observador de {@link GestorRecursos} y
+ * {@link SistemaPrestamos}, directamente o a través del bus de eventos.
+ */
+public class Autocompletado implements ObservadorBiblioteca {
+    public static final int MAXIMO_SUGERENCIAS = 10;
+
+    private static final Temporizador TIEMPO_SUGERIR = RegistroMetricas.compartido()
+            .temporizador("autocompletado.sugerir");
+    private static final Pattern MARCAS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Nodo raiz = new Nodo("");
+    private final Map<String, Entrada> entradas = new HashMap<>();
+
+    /**
+     * Carga el catálogo y la cantidad de préstamos de cada recurso, para
+     * recursos y préstamos anteriores a registrar este observador
+     */
+    public void cargar(List<RecursoDigital> recursos, List<Prestamo> prestamos) {
+        ConteoPorIndice<RecursoDigital> conteo = new ConteoPorIndice<>(RecursoDigital::getIndice,
+                Math.min(recursos.size(), IndicesDensos.cantidadRecursos()));
+        for (Prestamo prestamo : prestamos) {
+            conteo.sumar(prestamo.getRecurso());
+        }
+        for (RecursoDigital recurso : recursos) {
+            agregar(recurso, conteo.get(recurso));
+        }
+    }
+
+    /**
+     * Recursos cuyo título o autor tiene una palabra que empieza con el
+     * prefijo, de más a menos prestado
+     *
+     * @param prefijo  Texto escrito hasta ahora
+     * @param cantidad Cantidad de sugerencias, hasta {@value #MAXIMO_SUGERENCIAS}
+     */
+    public List<RecursoDigital> sugerir(String prefijo, int cantidad) {
+        long inicio = TIEMPO_SUGERIR.iniciar();
+        try {
+            String buscado = normalizar(prefijo);
+            if (buscado.isEmpty() || cantidad <= 0) {
+                return new ArrayList<>();
+            }
+
+            lock.readLock().lock();
+            try {
+                Nodo nodo = buscarPrefijo(buscado);
+                if (nodo == null) {
+                    return new ArrayList<>();
+                }
+                int limite = Math.min(Math.min(cantidad, MAXIMO_SUGERENCIAS), nodo.cantidadMejores);
+                List<RecursoDigital> sugerencias = new ArrayList<>(limite);
+                for (int i = 0; i < limite; i++) {
+                    sugerencias.add(nodo.mejores[i].recurso);
+                }
+                return sugerencias;
+            } finally {
+                lock.readLock().unlock();
+            }
+        } finally {
+            TIEMPO_SUGERIR.registrar(inicio);
+        }
+    }
+
+    @Override
+    public void recursoAgregado(RecursoDigital recurso) {
+        agregar(recurso, 0);
+    }
+
+    @Override
+    public void recursoEliminado(RecursoDigital recurso) {
+        lock.writeLock().lock();
+        try {
+            Entrada entrada = entradas.remove(recurso.getIdentificador());
+            if (entrada != null) {
+                quitarEntrada(entrada);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void prestamoRealizado(Prestamo prestamo) {
+        lock.writeLock().lock();
+        try {
+            Entrada entrada = entradas.get(prestamo.getRecurso().getIdentificador());
+            if (entrada != null) {
+                entrada.prestamos++;
+                for (String termino : entrada.terminos) {
+                    for (Nodo nodo : camino(termino)) {
+                        nodo.promover(entrada);
+                    }
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void agregar(RecursoDigital recurso, long prestamos) {
+        Entrada entrada = new Entrada(recurso, prestamos, terminos(recurso));
+
+        lock.writeLock().lock();
+        try {
+            Entrada anterior = entradas.put(recurso.getIdentificador(), entrada);
+            if (anterior != null) {
+                quitarEntrada(anterior);
+            }
+            for (String termino : entrada.terminos) {
+                Nodo terminal = insertar(termino);
+                terminal.terminales.add(entrada);
+                for (Nodo nodo : camino(termino)) {
+                    nodo.promover(entrada);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void quitarEntrada(Entrada entrada) {
+        for (String termino : entrada.terminos) {
+            List<Nodo> camino = camino(termino);
+            camino.get(camino.size() - 1).terminales.remove(entrada);
+            // Desde la hoja hacia la raíz, para que cada nodo use las listas ya
+            // recalculadas de sus hijos
+            for (int i = camino.size() - 1; i >= 0; i--) {
+                Nodo nodo = camino.get(i);
+                if (i > 0 && nodo.estaVacio()) {
+                    camino.get(i - 1).quitarHijo(nodo);
+                } else {
+                    nodo.recalcular();
+                }
+            }
+        }
+    }
+
+    /**
+     * Nodos desde la raíz hasta el que termina exactamente en el término,
+     * que debe estar insertado
+     */
+    private List<Nodo> camino(String termino) {
+        List<Nodo> camino = new ArrayList<>();
+        Nodo nodo = raiz;
+        int posicion = 0;
+        camino.add(nodo);
+        while (posicion < termino.length()) {
+            nodo = nodo.hijo(termino.charAt(posicion));
+            posicion += nodo.etiqueta.length();
+            camino.add(nodo);
+        }
+        return camino;
+    }
+
+    private Nodo insertar(String termino) {
+        Nodo nodo = raiz;
+        int posicion = 0;
+
+        while (posicion < termino.length()) {
+            Nodo hijo = nodo.hijo(termino.charAt(posicion));
+            if (hijo == null) {
+                hijo = new Nodo(termino.substring(posicion));
+                nodo.agregarHijo(hijo);
+                return hijo;
+            }
+
+            int comun = prefijoComun(hijo.etiqueta, termino, posicion);
+            if (comun < hijo.etiqueta.length()) {
+                // Se parte la arista: el nuevo nodo intermedio hereda las
+                // mejores entradas del hijo, que son las de todo su subárbol
+                Nodo intermedio = new Nodo(hijo.etiqueta.substring(0, comun));
+                nodo.reemplazarHijo(hijo, intermedio);
+                hijo.etiqueta = hijo.etiqueta.substring(comun);
+                intermedio.agregarHijo(hijo);
+                intermedio.recalcular();
+                hijo = intermedio;
+            }
+            nodo = hijo;
+            posicion += comun;
+        }
+        return nodo;
+    }
+
+    private Nodo buscarPrefijo(String prefijo) {
+        Nodo nodo = raiz;
+        int posicion = 0;
+
+        while (posicion < prefijo.length()) {
+            Nodo hijo = nodo.hijo(prefijo.charAt(posicion));
+            if (hijo == null) {
+                return null;
+            }
+            int comun = prefijoComun(hijo.etiqueta, prefijo, posicion);
+            if (posicion + comun == prefijo.length()) {
+                return hijo;
+            }
+            if (comun < hijo.etiqueta.length()) {
+                return null;
+            }
+            nodo = hijo;
+            posicion += comun;
+        }
+        return nodo;
+    }
+
+    private static int prefijoComun(String etiqueta, String texto, int desde) {
+        int limite = Math.min(etiqueta.length(), texto.length() - desde);
+        int i = 0;
+        while (i < limite && etiqueta.charAt(i) == texto.charAt(desde + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static String[] terminos(RecursoDigital recurso) {
+        Set<String> terminos = new LinkedHashSet<>();
+        agregarSufijosDePalabras(terminos, normalizar(recurso.getTitulo()));
+        if (recurso instanceof Libro) {
+            agregarSufijosDePalabras(terminos, normalizar(((Libro) recurso).getAutor()));
+        } else if (recurso instanceof Audiolibro) {
+            agregarSufijosDePalabras(terminos, normalizar(((Audiolibro) recurso).getAutor()));
+        }
+        return terminos.toArray(new String[0]);
+    }
+
+    private static void agregarSufijosDePalabras(Set<String> terminos, String texto) {
+        if (texto.isEmpty()) {
+            return;
+        }
+        terminos.add(texto);
+        for (int i = texto.indexOf(' '); i >= 0; i = texto.indexOf(' ', i + 1)) {
+            terminos.add(texto.substring(i + 1));
+        }
+    }
+
+    static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+
+        // Camino rápido para textos ASCII, que no necesitan quitar tildes
+        StringBuilder normalizado = new StringBuilder(texto.length());
+        boolean separar = false;
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c >= 0x80) {
+                return normalizarUnicode(texto);
+            }
+            if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || (c >= 'A' && c <= 'Z')) {
+                if (separar && normalizado.length() > 0) {
+                    normalizado.append(' ');
+                }
+                separar = false;
+                normalizado.append(c <= 'Z' && c >= 'A' ? (char) (c + ('a' - 'A')) : c);
+            } else {
+                separar = true;
+            }
+        }
+        return normalizado.toString();
+    }
+
+    private static String normalizarUnicode(String texto) {
+        String sinTildes = MARCAS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARADORES.matcher(sinTildes.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    /**
+     * Recurso indexado con su cantidad de préstamos
+     */
+    private static final class Entrada {
+        private final RecursoDigital recurso;
+        private final String clave;
+        private final String[] terminos;
+        private long prestamos;
+
+        Entrada(RecursoDigital recurso, long prestamos, String[] terminos) {
+            this.recurso = recurso;
+            this.clave = normalizar(recurso.getTitulo());
+            this.terminos = terminos;
+            this.prestamos = prestamos;
+        }
+
+        /**
+         * Orden de las sugerencias: más préstamos primero y, a igualdad, por
+         * título
+         */
+        boolean vaAntesQue(Entrada otra) {
+            if (prestamos != otra.prestamos) {
+                return prestamos > otra.prestamos;
+            }
+            return clave.compareTo(otra.clave) < 0;
+        }
+    }
+
+    private static final class Nodo {
+        private String etiqueta;
+        private char[] primeros = new char[0];
+        private Nodo[] hijos = new Nodo[0];
+        private final List<Entrada> terminales = new ArrayList<>(1);
+        private final Entrada[] mejores = new Entrada[MAXIMO_SUGERENCIAS];
+        private int cantidadMejores;
+
+        Nodo(String etiqueta) {
+            this.etiqueta = etiqueta;
+        }
+
+        Nodo hijo(char primero) {
+            int i = Arrays.binarySearch(primeros, primero);
+            return i >= 0 ? hijos[i] : null;
+        }
+
+        void agregarHijo(Nodo hijo) {
+            int i = -Arrays.binarySearch(primeros, hijo.etiqueta.charAt(0)) - 1;
+            primeros = Arrays.copyOf(primeros, primeros.length + 1);
+            hijos = Arrays.copyOf(hijos, hijos.length + 1);
+            System.arraycopy(primeros, i, primeros, i + 1, primeros.length - i - 1);
+            System.arraycopy(hijos, i, hijos, i + 1, hijos.length - i - 1);
+            primeros[i] = hijo.etiqueta.charAt(0);
+            hijos[i] = hijo;
+        }
+
+        void reemplazarHijo(Nodo anterior, Nodo nuevo) {
+            hijos[Arrays.binarySearch(primeros, anterior.etiqueta.charAt(0))] = nuevo;
+        }
+
+        void quitarHijo(Nodo hijo) {
+            int i = Arrays.binarySearch(primeros, hijo.etiqueta.charAt(0));
+            char[] nuevosPrimeros = new char[primeros.length - 1];
+            Nodo[] nuevosHijos = new Nodo[hijos.length - 1];
+            System.arraycopy(primeros, 0, nuevosPrimeros, 0, i);
+            System.arraycopy(primeros, i + 1, nuevosPrimeros, i, primeros.length - i - 1);
+            System.arraycopy(hijos, 0, nuevosHijos, 0, i);
+            System.arraycopy(hijos, i + 1, nuevosHijos, i, hijos.length - i - 1);
+            primeros = nuevosPrimeros;
+            hijos = nuevosHijos;
+        }
+
+        boolean estaVacio() {
+            return terminales.isEmpty() && hijos.length == 0;
+        }
+
+        /**
+         * Ubica la entrada en las mejores del nodo tras agregarla o aumentar
+         * sus préstamos. Como el puntaje solo crece, ninguna otra entrada
+         * puede entrar a la lista por este cambio.
+         */
+        void promover(Entrada entrada) {
+            int posicion = -1;
+            for (int i = 0; i < cantidadMejores; i++) {
+                if (mejores[i] == entrada) {
+                    posicion = i;
+                    break;
+                }
+            }
+            if (posicion < 0) {
+                if (cantidadMejores < MAXIMO_SUGERENCIAS) {
+                    posicion = cantidadMejores++;
+                } else if (entrada.vaAntesQue(mejores[cantidadMejores - 1])) {
+                    posicion = cantidadMejores - 1;
+                } else {
+                    return;
+                }
+                mejores[posicion] = entrada;
+            }
+            while (posicion > 0 && entrada.vaAntesQue(mejores[posicion - 1])) {
+                mejores[posicion] = mejores[posicion - 1];
+                mejores[--posicion] = entrada;
+            }
+        }
+
+        /**
+         * Vuelve a calcular las mejores entradas a partir de las terminales
+         * del nodo y de las mejores de cada hijo
+         */
+        void recalcular() {
+            Arrays.fill(mejores, null);
+            cantidadMejores = 0;
+            for (Entrada entrada : terminales) {
+                promover(entrada);
+            }
+            for (Nodo hijo : hijos) {
+                for (int i = 0; i < hijo.cantidadMejores; i++) {
+                    promover(hijo.mejores[i]);
+                }
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,499 @@
+package app.biblioteca.services;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Conjunto de enteros no negativos comprimido al estilo de los Roaring
+ * bitmaps. Los valores se agrupan por sus 16 bits altos y cada grupo se
+ * guarda en un contenedor: un arreglo ordenado de los 16 bits bajos cuando
+ * tiene pocos valores, o un mapa de 65536 bits cuando tiene más de
+ * {@value #MAXIMO_ARREGLO}. Así los conjuntos dispersos ocupan poco y los
+ * densos se combinan palabra a palabra.
+ *
+ * No es seguro para uso concurrente; {@link IndiceRecursos} lo protege con
+ * su propio lock.
+ */
+final class BitmapCompacto {
+    private static final int MAXIMO_ARREGLO = 4096;
+    private static final int PALABRAS = 1 << 10;
+
+    private char[] claves;
+    private Contenedor[] contenedores;
+    private int tamanio;
+
+    BitmapCompacto() {
+        this(4);
+    }
+
+    private BitmapCompacto(int capacidad) {
+        this.claves = new char[Math.max(1, capacidad)];
+        this.contenedores = new Contenedor[Math.max(1, capacidad)];
+    }
+
+    /**
+     * Crea el conjunto a partir de valores en orden ascendente y sin
+     * repetidos, armando cada contenedor de una vez
+     */
+    static BitmapCompacto deOrdenados(int[] valores, int cantidad) {
+        BitmapCompacto bitmap = new BitmapCompacto();
+        int inicio = 0;
+        while (inicio < cantidad) {
+            char clave = (char) (valores[inicio] >>> 16);
+            int fin = inicio;
+            while (fin < cantidad && (char) (valores[fin] >>> 16) == clave) {
+                fin++;
+            }
+            char[] bajos = new char[fin - inicio];
+            for (int i = inicio; i < fin; i++) {
+                bajos[i - inicio] = (char) valores[i];
+            }
+            Arreglo arreglo = new Arreglo(bajos, bajos.length);
+            bitmap.anexar(clave, bajos.length > MAXIMO_ARREGLO ? arreglo.aBits() : arreglo);
+            inicio = fin;
+        }
+        return bitmap;
+    }
+
+    void agregar(int valor) {
+        char clave = (char) (valor >>> 16);
+        int i = buscar(clave);
+        if (i < 0) {
+            i = -i - 1;
+            insertar(i, clave, new Arreglo(new char[4], 0));
+        }
+        contenedores[i] = contenedores[i].agregar((char) valor);
+    }
+
+    void quitar(int valor) {
+        int i = buscar((char) (valor >>> 16));
+        if (i < 0) {
+            return;
+        }
+        Contenedor contenedor = contenedores[i].quitar((char) valor);
+        if (contenedor.cardinalidad() == 0) {
+            System.arraycopy(claves, i + 1, claves, i, tamanio - i - 1);
+            System.arraycopy(contenedores, i + 1, contenedores, i, tamanio - i - 1);
+            contenedores[--tamanio] = null;
+        } else {
+            contenedores[i] = contenedor;
+        }
+    }
+
+    boolean contiene(int valor) {
+        int i = buscar((char) (valor >>> 16));
+        return i >= 0 && contenedores[i].contiene((char) valor);
+    }
+
+    int cardinalidad() {
+        int total = 0;
+        for (int i = 0; i < tamanio; i++) {
+            total += contenedores[i].cardinalidad();
+        }
+        return total;
+    }
+
+    boolean estaVacio() {
+        return tamanio == 0;
+    }
+
+    /**
+     * Recorre los valores en orden ascendente
+     */
+    void paraCada(IntConsumer accion) {
+        for (int i = 0; i < tamanio; i++) {
+            contenedores[i].paraCada(claves[i] << 16, accion);
+        }
+    }
+
+    /**
+     * Valores en orden ascendente
+     */
+    int[] aArreglo() {
+        int[] valores = new int[cardinalidad()];
+        int[] n = new int[1];
+        paraCada(valor -> valores[n[0]++] = valor);
+        return valores;
+    }
+
+    BitmapCompacto copia() {
+        BitmapCompacto copia = new BitmapCompacto(tamanio);
+        for (int i = 0; i < tamanio; i++) {
+            copia.anexar(claves[i], contenedores[i].copia());
+        }
+        return copia;
+    }
+
+    /**
+     * Intersección
+     */
+    BitmapCompacto y(BitmapCompacto otro) {
+        BitmapCompacto resultado = new BitmapCompacto(Math.min(tamanio, otro.tamanio));
+        int i = 0;
+        int j = 0;
+        while (i < tamanio && j < otro.tamanio) {
+            if (claves[i] < otro.claves[j]) {
+                i++;
+            } else if (claves[i] > otro.claves[j]) {
+                j++;
+            } else {
+                Contenedor contenedor = contenedores[i].y(otro.contenedores[j]);
+                if (contenedor.cardinalidad() > 0) {
+                    resultado.anexar(claves[i], contenedor);
+                }
+                i++;
+                j++;
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Unión
+     */
+    BitmapCompacto o(BitmapCompacto otro) {
+        BitmapCompacto resultado = new BitmapCompacto(tamanio + otro.tamanio);
+        int i = 0;
+        int j = 0;
+        while (i < tamanio || j < otro.tamanio) {
+            if (j == otro.tamanio || (i < tamanio && claves[i] < otro.claves[j])) {
+                resultado.anexar(claves[i], contenedores[i].copia());
+                i++;
+            } else if (i == tamanio || claves[i] > otro.claves[j]) {
+                resultado.anexar(otro.claves[j], otro.contenedores[j].copia());
+                j++;
+            } else {
+                resultado.anexar(claves[i], contenedores[i].o(otro.contenedores[j]));
+                i++;
+                j++;
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Diferencia: los valores de este conjunto que no están en el otro
+     */
+    BitmapCompacto yNo(BitmapCompacto otro) {
+        BitmapCompacto resultado = new BitmapCompacto(tamanio);
+        int j = 0;
+        for (int i = 0; i < tamanio; i++) {
+            while (j < otro.tamanio && otro.claves[j] < claves[i]) {
+                j++;
+            }
+            Contenedor contenedor = j < otro.tamanio && otro.claves[j] == claves[i]
+                    ? contenedores[i].yNo(otro.contenedores[j])
+                    : contenedores[i].copia();
+            if (contenedor.cardinalidad() > 0) {
+                resultado.anexar(claves[i], contenedor);
+            }
+        }
+        return resultado;
+    }
+
+    private int buscar(char clave) {
+        int bajo = 0;
+        int alto = tamanio - 1;
+        while (bajo <= alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (claves[medio] < clave) {
+                bajo = medio + 1;
+            } else if (claves[medio] > clave) {
+                alto = medio - 1;
+            } else {
+                return medio;
+            }
+        }
+        return -(bajo + 1);
+    }
+
+    private void insertar(int posicion, char clave, Contenedor contenedor) {
+        if (tamanio == claves.length) {
+            claves = Arrays.copyOf(claves, tamanio * 2);
+            contenedores = Arrays.copyOf(contenedores, tamanio * 2);
+        }
+        System.arraycopy(claves, posicion, claves, posicion + 1, tamanio - posicion);
+        System.arraycopy(contenedores, posicion, contenedores, posicion + 1, tamanio - posicion);
+        claves[posicion] = clave;
+        contenedores[posicion] = contenedor;
+        tamanio++;
+    }
+
+    private void anexar(char clave, Contenedor contenedor) {
+        insertar(tamanio, clave, contenedor);
+    }
+
+    private abstract static class Contenedor {
+        abstract Contenedor agregar(char valor);
+
+        abstract Contenedor quitar(char valor);
+
+        abstract boolean contiene(char valor);
+
+        abstract int cardinalidad();
+
+        abstract void paraCada(int base, IntConsumer accion);
+
+        abstract Contenedor copia();
+
+        abstract Bits aBits();
+
+        abstract Contenedor y(Contenedor otro);
+
+        abstract Contenedor o(Contenedor otro);
+
+        abstract Contenedor yNo(Contenedor otro);
+    }
+
+    /**
+     * Contenedor disperso: los 16 bits bajos de cada valor, ordenados
+     */
+    private static final class Arreglo extends Contenedor {
+        private char[] valores;
+        private int cantidad;
+
+        Arreglo(char[] valores, int cantidad) {
+            this.valores = valores;
+            this.cantidad = cantidad;
+        }
+
+        @Override
+        Contenedor agregar(char valor) {
+            int i = Arrays.binarySearch(valores, 0, cantidad, valor);
+            if (i >= 0) {
+                return this;
+            }
+            if (cantidad == MAXIMO_ARREGLO) {
+                return aBits().agregar(valor);
+            }
+            i = -i - 1;
+            if (cantidad == valores.length) {
+                valores = Arrays.copyOf(valores, Math.min(MAXIMO_ARREGLO, Math.max(4, cantidad * 2)));
+            }
+            System.arraycopy(valores, i, valores, i + 1, cantidad - i);
+            valores[i] = valor;
+            cantidad++;
+            return this;
+        }
+
+        @Override
+        Contenedor quitar(char valor) {
+            int i = Arrays.binarySearch(valores, 0, cantidad, valor);
+            if (i >= 0) {
+                System.arraycopy(valores, i + 1, valores, i, cantidad - i - 1);
+                cantidad--;
+            }
+            return this;
+        }
+
+        @Override
+        boolean contiene(char valor) {
+            return Arrays.binarySearch(valores, 0, cantidad, valor) >= 0;
+        }
+
+        @Override
+        int cardinalidad() {
+            return cantidad;
+        }
+
+        @Override
+        void paraCada(int base, IntConsumer accion) {
+            for (int i = 0; i < cantidad; i++) {
+                accion.accept(base | valores[i]);
+            }
+        }
+
+        @Override
+        Contenedor copia() {
+            return new Arreglo(Arrays.copyOf(valores, Math.max(1, cantidad)), cantidad);
+        }
+
+        @Override
+        Bits aBits() {
+            long[] palabras = new long[PALABRAS];
+            for (int i = 0; i < cantidad; i++) {
+                palabras[valores[i] >>> 6] |= 1L << valores[i];
+            }
+            return new Bits(palabras, cantidad);
+        }
+
+        @Override
+        Contenedor y(Contenedor otro) {
+            char[] resultado = new char[Math.min(cantidad, otro.cardinalidad())];
+            int n = 0;
+            if (otro instanceof Arreglo) {
+                Arreglo arreglo = (Arreglo) otro;
+                int i = 0;
+                int j = 0;
+                while (i < cantidad && j < arreglo.cantidad) {
+                    if (valores[i] < arreglo.valores[j]) {
+                        i++;
+                    } else if (valores[i] > arreglo.valores[j]) {
+                        j++;
+                    } else {
+                        resultado[n++] = valores[i];
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < cantidad; i++) {
+                    if (otro.contiene(valores[i])) {
+                        resultado[n++] = valores[i];
+                    }
+                }
+            }
+            return new Arreglo(resultado, n);
+        }
+
+        @Override
+        Contenedor o(Contenedor otro) {
+            if (!(otro instanceof Arreglo) || cantidad + otro.cardinalidad() > MAXIMO_ARREGLO) {
+                return aBits().o(otro);
+            }
+            Arreglo arreglo = (Arreglo) otro;
+            char[] resultado = new char[cantidad + arreglo.cantidad];
+            int i = 0;
+            int j = 0;
+            int n = 0;
+            while (i < cantidad || j < arreglo.cantidad) {
+                if (j == arreglo.cantidad || (i < cantidad && valores[i] < arreglo.valores[j])) {
+                    resultado[n++] = valores[i++];
+                } else if (i == cantidad || valores[i] > arreglo.valores[j]) {
+                    resultado[n++] = arreglo.valores[j++];
+                } else {
+                    resultado[n++] = valores[i++];
+                    j++;
+                }
+            }
+            return new Arreglo(resultado, n);
+        }
+
+        @Override
+        Contenedor yNo(Contenedor otro) {
+            char[] resultado = new char[Math.max(1, cantidad)];
+            int n = 0;
+            for (int i = 0; i < cantidad; i++) {
+                if (!otro.contiene(valores[i])) {
+                    resultado[n++] = valores[i];
+                }
+            }
+            return new Arreglo(resultado, n);
+        }
+    }
+
+    /**
+     * Contenedor denso: un bit por cada uno de los 65536 valores posibles
+     */
+    private static final class Bits extends Contenedor {
+        private final long[] palabras;
+        private int cardinalidad;
+
+        Bits(long[] palabras, int cardinalidad) {
+            this.palabras = palabras;
+            this.cardinalidad = cardinalidad;
+        }
+
+        @Override
+        Contenedor agregar(char valor) {
+            long anterior = palabras[valor >>> 6];
+            palabras[valor >>> 6] = anterior | (1L << valor);
+            if (anterior != palabras[valor >>> 6]) {
+                cardinalidad++;
+            }
+            return this;
+        }
+
+        @Override
+        Contenedor quitar(char valor) {
+            long anterior = palabras[valor >>> 6];
+            palabras[valor >>> 6] = anterior & ~(1L << valor);
+            if (anterior != palabras[valor >>> 6]) {
+                cardinalidad--;
+            }
+            return cardinalidad <= MAXIMO_ARREGLO ? aArreglo() : this;
+        }
+
+        @Override
+        boolean contiene(char valor) {
+            return (palabras[valor >>> 6] & (1L << valor)) != 0;
+        }
+
+        @Override
+        int cardinalidad() {
+            return cardinalidad;
+        }
+
+        @Override
+        void paraCada(int base, IntConsumer accion) {
+            for (int i = 0; i < PALABRAS; i++) {
+                long palabra = palabras[i];
+                while (palabra != 0) {
+                    accion.accept(base | (i << 6) | Long.numberOfTrailingZeros(palabra));
+                    palabra &= palabra - 1;
+                }
+            }
+        }
+
+        @Override
+        Contenedor copia() {
+            return new Bits(palabras.clone(), cardinalidad);
+        }
+
+        @Override
+        Bits aBits() {
+            return this;
+        }
+
+        @Override
+        Contenedor y(Contenedor otro) {
+            if (otro instanceof Arreglo) {
+                return otro.y(this);
+            }
+            long[] otras = ((Bits) otro).palabras;
+            long[] resultado = new long[PALABRAS];
+            int total = 0;
+            for (int i = 0; i < PALABRAS; i++) {
+                resultado[i] = palabras[i] & otras[i];
+                total += Long.bitCount(resultado[i]);
+            }
+            return compactar(resultado, total);
+        }
+
+        @Override
+        Contenedor o(Contenedor otro) {
+            long[] otras = otro.aBits().palabras;
+            long[] resultado = new long[PALABRAS];
+            int total = 0;
+            for (int i = 0; i < PALABRAS; i++) {
+                resultado[i] = palabras[i] | otras[i];
+                total += Long.bitCount(resultado[i]);
+            }
+            return new Bits(resultado, total);
+        }
+
+        @Override
+        Contenedor yNo(Contenedor otro) {
+            long[] otras = otro.aBits().palabras;
+            long[] resultado = new long[PALABRAS];
+            int total = 0;
+            for (int i = 0; i < PALABRAS; i++) {
+                resultado[i] = palabras[i] & ~otras[i];
+                total += Long.bitCount(resultado[i]);
+            }
+            return compactar(resultado, total);
+        }
+
+        private Arreglo aArreglo() {
+            char[] valores = new char[Math.max(1, cardinalidad)];
+            int[] n = new int[1];
+            paraCada(0, valor -> valores[n[0]++] = (char) valor);
+            return new Arreglo(valores, n[0]);
+        }
+
+        private static Contenedor compactar(long[] palabras, int cardinalidad) {
+            Bits bits = new Bits(palabras, cardinalidad);
+            return cardinalidad <= MAXIMO_ARREGLO ? bits.aArreglo() : bits;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,98 @@
+package app.biblioteca.services;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import app.biblioteca.interfaces.RecursoDigital;
+import app.biblioteca.models.Libro;
+import app.biblioteca.models.Revista;
+
+/**
+ * Claves únicas del catálogo: identificador, ISBN de los libros e ISSN con
+ * número de las revistas (el ISSN identifica a la publicación y se repite en
+ * cada número). El ISBN y el ISSN se comparan sin guiones ni espacios.
+ *
+ * Un {@link FiltroBloom} delante del índice exacto descarta sin buscar en él
+ * casi todas las claves nuevas, que en una carga masiva son la gran mayoría.
+ * Las claves de recursos eliminados siguen marcadas en el filtro hasta que
+ * se reconstruye al duplicarse la cantidad de claves; mientras tanto solo
+ * cuestan una búsqueda en el índice exacto.
+ */
+final class ClavesCatalogo {
+    private static final int CAPACIDAD_INICIAL = 1024;
+
+    private final Map<String, String> propietarios = new HashMap<>();
+    private final Map<String, String[]> clavesPorId = new HashMap<>();
+    private FiltroBloom filtro = new FiltroBloom(CAPACIDAD_INICIAL);
+    private int capacidad = CAPACIDAD_INICIAL;
+
+    /**
+     * Registra las claves del recurso si ninguna está en uso
+     *
+     * @return {@code null} si se registró, o la clave que ya estaba en uso
+     */
+    synchronized String registrar(RecursoDigital recurso) {
+        String[] claves = claves(recurso);
+        for (String clave : claves) {
+            if (filtro.puedeContener(clave) && propietarios.containsKey(clave)) {
+                return clave;
+            }
+        }
+
+        for (String clave : claves) {
+            propietarios.put(clave, recurso.getIdentificador());
+            filtro.agregar(clave);
+        }
+        clavesPorId.put(recurso.getIdentificador(), claves);
+
+        if (propietarios.size() > capacidad) {
+            capacidad *= 2;
+            reconstruirFiltro();
+        }
+        return null;
+    }
+
+    synchronized void liberar(String identificador) {
+        String[] claves = clavesPorId.remove(identificador);
+        if (claves != null) {
+            for (String clave : claves) {
+                propietarios.remove(clave);
+            }
+        }
+    }
+
+    private void reconstruirFiltro() {
+        filtro = new FiltroBloom(capacidad);
+        for (String clave : propietarios.keySet()) {
+            filtro.agregar(clave);
+        }
+    }
+
+    private static String[] claves(RecursoDigital recurso) {
+        List<String> claves = new ArrayList<>(2);
+        claves.add("identificador " + recurso.getIdentificador());
+        if (recurso instanceof Libro) {
+            String isbn = normalizarCodigo(((Libro) recurso).getIsbn());
+            if (!isbn.isEmpty()) {
+                claves.add("ISBN " + isbn);
+            }
+        } else if (recurso instanceof Revista) {
+            Revista revista = (Revista) recurso;
+            String issn = normalizarCodigo(revista.getIssn());
+            if (!issn.isEmpty()) {
+                claves.add("ISSN " + issn + " número " + revista.getNumero());
+            }
+        }
+        return claves.toArray(new String[0]);
+    }
+
+    private static String normalizarCodigo(String codigo) {
+        if (codigo == null) {
+            return "";
+        }
+        return codigo.replace("-", "").replace(" ", "").toUpperCase(Locale.ROOT);
+    }
+}
\ No newline at end of file
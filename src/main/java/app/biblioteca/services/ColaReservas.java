@@ -0,0 +1,312 @@
+package app.biblioteca.services;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import app.biblioteca.models.Reserva;
+
+/**
+ * Cola de reservas de un recurso ordenada como {@link Reserva#compareTo}:
+ * primero el menor turno, que combina prioridad y espera, y a igual turno la
+ * más antigua. Es un árbol de estadística de orden (un treap donde cada nodo
+ * guarda el tamaño de su subárbol), de modo que la posición de una reserva
+ * en la fila y la reserva en una posición dada se obtienen en O(log n) sin
+ * copiar ni ordenar la cola. Reservas empatadas en turno y fecha quedan en
+ * orden de llegada. Cada nodo cuenta también las reservas de su subárbol
+ * que esperan un ejemplar, para hallar la primera en O(log n) aunque las
+ * anteriores ya tengan uno apartado.
+ *
+ * El envejecimiento no reordena la cola, porque el turno de una reserva no
+ * cambia con el tiempo. Cambiar la prioridad mueve solo esa reserva, en
+ * O(log n) (ver {@link #cambiarPrioridad}).
+ */
+final class ColaReservas {
+    private final Map<Reserva, Nodo> nodos = new HashMap<>();
+    private Nodo raiz;
+    private long secuencia;
+
+    synchronized void agregar(Reserva reserva) {
+        if (nodos.containsKey(reserva)) {
+            return;
+        }
+        Nodo nodo = new Nodo(reserva, secuencia++);
+        nodos.put(reserva, nodo);
+        raiz = insertar(raiz, nodo);
+    }
+
+    synchronized boolean quitar(Reserva reserva) {
+        Nodo nodo = nodos.remove(reserva);
+        if (nodo == null) {
+            return false;
+        }
+        raiz = quitar(raiz, nodo);
+        return true;
+    }
+
+    /**
+     * Cambia la prioridad de una reserva y la mueve a su nuevo lugar en la
+     * fila, conservando su orden de llegada para los desempates
+     *
+     * @return false si la reserva no está en la cola
+     */
+    synchronized boolean cambiarPrioridad(Reserva reserva, int prioridad) {
+        Nodo nodo = nodos.get(reserva);
+        if (nodo == null) {
+            return false;
+        }
+        raiz = quitar(raiz, nodo);
+        reserva.setPrioridad(prioridad);
+        nodo.turno = reserva.getTurnoMillis();
+        nodo.izquierdo = null;
+        nodo.derecho = null;
+        nodo.actualizarTamanio();
+        raiz = insertar(raiz, nodo);
+        return true;
+    }
+
+    synchronized int tamanio() {
+        return nodos.size();
+    }
+
+    synchronized boolean estaVacia() {
+        return raiz == null;
+    }
+
+    /**
+     * Reserva que sigue en la fila, o {@code null} si la cola está vacía
+     */
+    synchronized Reserva primera() {
+        Nodo nodo = raiz;
+        if (nodo == null) {
+            return null;
+        }
+        while (nodo.izquierdo != null) {
+            nodo = nodo.izquierdo;
+        }
+        return nodo.reserva;
+    }
+
+    /**
+     * Primera reserva de la fila que todavía espera un ejemplar
+     *
+     * @return {@code null} si todas tienen uno apartado
+     */
+    synchronized Reserva primeraEnEspera() {
+        Nodo nodo = raiz;
+        while (nodo != null) {
+            if (esperando(nodo.izquierdo) > 0) {
+                nodo = nodo.izquierdo;
+            } else if (nodo.enEspera) {
+                return nodo.reserva;
+            } else {
+                nodo = nodo.derecho;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Registra que la reserva recibió un ejemplar apartado y ya no espera
+     */
+    synchronized void apartar(Reserva reserva) {
+        Nodo buscado = nodos.get(reserva);
+        if (buscado == null || !buscado.enEspera) {
+            return;
+        }
+        buscado.enEspera = false;
+        Nodo nodo = raiz;
+        while (true) {
+            nodo.esperando--;
+            if (nodo == buscado) {
+                return;
+            }
+            nodo = buscado.precede(nodo) ? nodo.izquierdo : nodo.derecho;
+        }
+    }
+
+    /**
+     * Reserva en la posición indicada, contando desde 0
+     *
+     * @return {@code null} si la posición está fuera de la cola
+     */
+    synchronized Reserva get(int posicion) {
+        if (posicion < 0 || posicion >= nodos.size()) {
+            return null;
+        }
+        Nodo nodo = raiz;
+        while (true) {
+            int izquierda = tamanio(nodo.izquierdo);
+            if (posicion < izquierda) {
+                nodo = nodo.izquierdo;
+            } else if (posicion == izquierda) {
+                return nodo.reserva;
+            } else {
+                posicion -= izquierda + 1;
+                nodo = nodo.derecho;
+            }
+        }
+    }
+
+    /**
+     * Posición de la reserva en la fila, contando desde 0
+     *
+     * @return -1 si la reserva no está en la cola
+     */
+    synchronized int posicion(Reserva reserva) {
+        Nodo buscado = nodos.get(reserva);
+        if (buscado == null) {
+            return -1;
+        }
+        int anteriores = 0;
+        Nodo nodo = raiz;
+        while (nodo != buscado) {
+            if (buscado.precede(nodo)) {
+                nodo = nodo.izquierdo;
+            } else {
+                anteriores += tamanio(nodo.izquierdo) + 1;
+                nodo = nodo.derecho;
+            }
+        }
+        return anteriores + tamanio(nodo.izquierdo);
+    }
+
+    /**
+     * Reservas en el orden de la fila
+     */
+    synchronized List<Reserva> enOrden() {
+        List<Reserva> reservas = new ArrayList<>(nodos.size());
+        Deque<Nodo> pendientes = new ArrayDeque<>();
+        Nodo nodo = raiz;
+        while (nodo != null || !pendientes.isEmpty()) {
+            while (nodo != null) {
+                pendientes.push(nodo);
+                nodo = nodo.izquierdo;
+            }
+            nodo = pendientes.pop();
+            reservas.add(nodo.reserva);
+            nodo = nodo.derecho;
+        }
+        return reservas;
+    }
+
+    private static Nodo insertar(Nodo arbol, Nodo nodo) {
+        if (arbol == null) {
+            return nodo;
+        }
+        if (nodo.precede(arbol)) {
+            arbol.izquierdo = insertar(arbol.izquierdo, nodo);
+            if (arbol.izquierdo.peso > arbol.peso) {
+                arbol = rotarDerecha(arbol);
+            }
+        } else {
+            arbol.derecho = insertar(arbol.derecho, nodo);
+            if (arbol.derecho.peso > arbol.peso) {
+                arbol = rotarIzquierda(arbol);
+            }
+        }
+        arbol.actualizarTamanio();
+        return arbol;
+    }
+
+    private static Nodo quitar(Nodo arbol, Nodo nodo) {
+        if (arbol == nodo) {
+            return unir(arbol.izquierdo, arbol.derecho);
+        }
+        if (nodo.precede(arbol)) {
+            arbol.izquierdo = quitar(arbol.izquierdo, nodo);
+        } else {
+            arbol.derecho = quitar(arbol.derecho, nodo);
+        }
+        arbol.actualizarTamanio();
+        return arbol;
+    }
+
+    /**
+     * Une dos árboles cuando todas las reservas del primero preceden a las
+     * del segundo
+     */
+    private static Nodo unir(Nodo primero, Nodo segundo) {
+        if (primero == null) {
+            return segundo;
+        }
+        if (segundo == null) {
+            return primero;
+        }
+        if (primero.peso > segundo.peso) {
+            primero.derecho = unir(primero.derecho, segundo);
+            primero.actualizarTamanio();
+            return primero;
+        }
+        segundo.izquierdo = unir(primero, segundo.izquierdo);
+        segundo.actualizarTamanio();
+        return segundo;
+    }
+
+    private static Nodo rotarDerecha(Nodo nodo) {
+        Nodo izquierdo = nodo.izquierdo;
+        nodo.izquierdo = izquierdo.derecho;
+        izquierdo.derecho = nodo;
+        nodo.actualizarTamanio();
+        return izquierdo;
+    }
+
+    private static Nodo rotarIzquierda(Nodo nodo) {
+        Nodo derecho = nodo.derecho;
+        nodo.derecho = derecho.izquierdo;
+        derecho.izquierdo = nodo;
+        nodo.actualizarTamanio();
+        return derecho;
+    }
+
+    private static int tamanio(Nodo nodo) {
+        return nodo == null ? 0 : nodo.tamanio;
+    }
+
+    private static int esperando(Nodo nodo) {
+        return nodo == null ? 0 : nodo.esperando;
+    }
+
+    private static final class Nodo {
+        final Reserva reserva;
+        final long fechaReserva;
+        final long secuencia;
+        // Prioridad aleatoria del treap, que lo mantiene balanceado en promedio
+        final int peso = ThreadLocalRandom.current().nextInt();
+        long turno;
+        Nodo izquierdo;
+        Nodo derecho;
+        int tamanio = 1;
+        // Si la reserva espera un ejemplar, y cuántas esperan en el subárbol
+        boolean enEspera;
+        int esperando;
+
+        Nodo(Reserva reserva, long secuencia) {
+            this.reserva = reserva;
+            this.fechaReserva = reserva.getFechaReservaMillis();
+            this.turno = reserva.getTurnoMillis();
+            this.secuencia = secuencia;
+            this.enEspera = !reserva.isEjemplarApartado();
+            this.esperando = enEspera ? 1 : 0;
+        }
+
+        boolean precede(Nodo otro) {
+            if (turno != otro.turno) {
+                return turno < otro.turno;
+            }
+            if (fechaReserva != otro.fechaReserva) {
+                return fechaReserva < otro.fechaReserva;
+            }
+            return secuencia < otro.secuencia;
+        }
+
+        void actualizarTamanio() {
+            tamanio = 1 + ColaReservas.tamanio(izquierdo) + ColaReservas.tamanio(derecho);
+            esperando = (enEspera ? 1 : 0) + ColaReservas.esperando(izquierdo) + ColaReservas.esperando(derecho);
+        }
+    }
+}
\ No newline at end of file
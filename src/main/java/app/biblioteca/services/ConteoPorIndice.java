@@ -0,0 +1,148 @@
+package app.biblioteca.services;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+/**
+ * Cuenta ocurrencias de usuarios o recursos por su índice denso (ver
+ * {@link app.biblioteca.models.IndicesDensos}), sin mapas ni valores
+ * encajados. Una tabla hash abierta de enteros lleva cada índice a una
+ * posición en arreglos compactos, así que la memoria depende de los
+ * elementos contados y no de cuántos índices se asignaron en el proceso.
+ * Guarda además el elemento de cada índice para armar los resultados. No es
+ * seguro para varios hilos.
+ *
+ * @param <T> Usuario o recurso contado
+ */
+public final class ConteoPorIndice<T> {
+    private final ToIntFunction<T> indice;
+    // Posición de cada índice en los arreglos compactos, más uno; 0 es una celda libre
+    private int[] tabla;
+    private int[] indices;
+    private int[] conteos;
+    private Object[] elementos;
+    private int distintos;
+
+    /**
+     * @param indice    Obtiene el índice denso de un elemento
+     * @param capacidad Cantidad de elementos distintos prevista; los arreglos
+     *                  crecen si se cuentan más
+     */
+    public ConteoPorIndice(ToIntFunction<T> indice, int capacidad) {
+        this.indice = indice;
+        int inicial = Math.max(16, capacidad);
+        this.tabla = new int[Integer.highestOneBit(inicial * 2 - 1) << 1];
+        this.indices = new int[inicial];
+        this.conteos = new int[inicial];
+        this.elementos = new Object[inicial];
+    }
+
+    public void sumar(T elemento) {
+        sumar(elemento, 1);
+    }
+
+    public void sumar(T elemento, int cantidad) {
+        int i = indice.applyAsInt(elemento);
+        int celda = buscar(i);
+        int posicion = tabla[celda] - 1;
+        if (posicion < 0) {
+            if (distintos == indices.length) {
+                int capacidad = indices.length * 2;
+                indices = Arrays.copyOf(indices, capacidad);
+                conteos = Arrays.copyOf(conteos, capacidad);
+                elementos = Arrays.copyOf(elementos, capacidad);
+            }
+            posicion = distintos++;
+            indices[posicion] = i;
+            elementos[posicion] = elemento;
+            tabla[celda] = posicion + 1;
+            if (distintos * 2 > tabla.length) {
+                redimensionar(tabla.length * 2);
+            }
+        }
+        conteos[posicion] += cantidad;
+    }
+
+    public int get(T elemento) {
+        int posicion = tabla[buscar(indice.applyAsInt(elemento))] - 1;
+        return posicion < 0 ? 0 : conteos[posicion];
+    }
+
+    /**
+     * Cantidad de elementos distintos contados
+     */
+    public int distintos() {
+        return distintos;
+    }
+
+    /**
+     * Elementos contados con su cantidad, en el orden de sus índices
+     */
+    public Map<T, Integer> comoMapa() {
+        // Índice en la parte alta y posición en la baja, para ordenar con
+        // un solo arreglo de primitivos
+        long[] claves = new long[distintos];
+        for (int p = 0; p < distintos; p++) {
+            claves[p] = ((long) indices[p] << 32) | p;
+        }
+        Arrays.sort(claves);
+
+        Map<T, Integer> resultado = new LinkedHashMap<>(distintos * 4 / 3 + 1);
+        for (long clave : claves) {
+            int p = (int) clave;
+            resultado.put(elemento(p), conteos[p]);
+        }
+        return resultado;
+    }
+
+    /**
+     * Los elementos con más ocurrencias, de mayor a menor; los empates
+     * quedan en el orden de sus índices
+     *
+     * @param limite Cantidad máxima de elementos
+     */
+    public Map<T, Integer> mayores(int limite) {
+        // Cantidad invertida en la parte alta e índice en la baja, para
+        // ordenar con un solo arreglo de primitivos
+        long[] claves = new long[distintos];
+        for (int p = 0; p < distintos; p++) {
+            claves[p] = ((long) (Integer.MAX_VALUE - conteos[p]) << 32) | indices[p];
+        }
+        Arrays.sort(claves);
+
+        int cantidad = Math.min(distintos, Math.max(0, limite));
+        Map<T, Integer> resultado = new LinkedHashMap<>(cantidad * 4 / 3 + 1);
+        for (int k = 0; k < cantidad; k++) {
+            int p = tabla[buscar((int) claves[k])] - 1;
+            resultado.put(elemento(p), conteos[p]);
+        }
+        return resultado;
+    }
+
+    /**
+     * Celda de la tabla que tiene el índice, o la libre donde iría
+     */
+    private int buscar(int i) {
+        int mascara = tabla.length - 1;
+        int h = i * 0x9E3779B9;
+        int celda = (h ^ (h >>> 16)) & mascara;
+        while (tabla[celda] != 0 && indices[tabla[celda] - 1] != i) {
+            celda = (celda + 1) & mascara;
+        }
+        return celda;
+    }
+
+    private void redimensionar(int celdas) {
+        tabla = new int[celdas];
+        for (int p = 0; p < distintos; p++) {
+            tabla[buscar(indices[p])] = p + 1;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private T elemento(int p) {
+        return (T) elementos[p];
+    }
+}
\ No newline at end of file
@@ -0,0 +1,219 @@
+package app.biblioteca.services;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import app.biblioteca.exceptions.LimiteExcedidoException;
+import app.biblioteca.interfaces.RecursoDigital;
+import app.biblioteca.models.IndicesDensos;
+import app.biblioteca.models.Prestamo;
+import app.biblioteca.models.Reserva;
+import app.biblioteca.models.TipoRecurso;
+import app.biblioteca.models.Usuario;
+
+/**
+ * Controla los límites de préstamos y reservas de cada usuario. Mantiene
+ * contadores atómicos por usuario que se actualizan al prestar, devolver,
+ * reservar y cancelar, de modo que verificar un límite cuesta O(1) y no
+ * requiere recorrer los préstamos del usuario ni tomar locks.
+ *
+ * Las cuotas están en un arreglo indexado por el índice denso del usuario
+ * (ver {@link IndicesDensos}); solo crear la cuota de un usuario nuevo o
+ * agrandar el arreglo toma un lock.
+ */
+public class ControlCuotas {
+    private static final TipoRecurso[] TIPOS = TipoRecurso.values();
+
+    private final int[] maxPrestamosPorTipo;
+    private final int maxReservas;
+    private final int maxVencidos;
+    // Se reemplaza entero al crecer; las cuotas nunca cambian de posición
+    private volatile CuotaUsuario[] cuotas;
+    // Préstamos vencidos ya contabilizados, para no contarlos dos veces
+    private final Set<Prestamo> vencidosRegistrados;
+
+    /**
+     * @param maxLibros      Máximo de libros prestados a la vez
+     * @param maxRevistas    Máximo de revistas prestadas a la vez
+     * @param maxAudiolibros Máximo de audiolibros prestados a la vez
+     * @param maxReservas    Máximo de reservas activas
+     * @param maxVencidos    Cantidad de préstamos vencidos tolerada antes de
+     *                       bloquear nuevos préstamos
+     */
+    public ControlCuotas(int maxLibros, int maxRevistas, int maxAudiolibros, int maxReservas, int maxVencidos) {
+        this.maxPrestamosPorTipo = new int[TIPOS.length];
+        this.maxPrestamosPorTipo[TipoRecurso.LIBRO.ordinal()] = maxLibros;
+        this.maxPrestamosPorTipo[TipoRecurso.REVISTA.ordinal()] = maxRevistas;
+        this.maxPrestamosPorTipo[TipoRecurso.AUDIOLIBRO.ordinal()] = maxAudiolibros;
+        this.maxPrestamosPorTipo[TipoRecurso.OTRO.ordinal()] = Integer.MAX_VALUE;
+        this.maxReservas = maxReservas;
+        this.maxVencidos = maxVencidos;
+        this.cuotas = new CuotaUsuario[Math.max(16, IndicesDensos.cantidadUsuarios())];
+        this.vencidosRegistrados = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * Límites por defecto: 5 libros, 3 revistas, 2 audiolibros, 5 reservas y
+     * ningún préstamo vencido
+     */
+    public static ControlCuotas porDefecto() {
+        return new ControlCuotas(5, 3, 2, 5, 0);
+    }
+
+    /**
+     * Ocupa un cupo de préstamo para el usuario. Si el préstamo no llega a
+     * realizarse debe liberarse con {@link #liberarCupoPrestamo(Usuario, RecursoDigital)}.
+     *
+     * @throws LimiteExcedidoException Si el usuario está bloqueado o alcanzó su
+     *                                 límite para el tipo de recurso
+     */
+    public void ocuparCupoPrestamo(Usuario usuario, RecursoDigital recurso) throws LimiteExcedidoException {
+        CuotaUsuario cuota = cuotaDe(usuario);
+
+        if (cuota.vencidos.get() > maxVencidos) {
+            throw new LimiteExcedidoException("El usuario " + usuario.getNombre()
+                    + " tiene préstamos vencidos y no puede realizar nuevos préstamos");
+        }
+
+        TipoRecurso tipo = recurso.getTipo();
+        int i = tipo.ordinal();
+        if (!incrementarSiMenor(cuota.prestamos, i, maxPrestamosPorTipo[i])) {
+            throw new LimiteExcedidoException("El usuario " + usuario.getNombre()
+                    + " alcanzó el límite de " + maxPrestamosPorTipo[i] + " préstamos de tipo " + tipo);
+        }
+    }
+
+    public void liberarCupoPrestamo(Usuario usuario, RecursoDigital recurso) {
+        cuotaDe(usuario).prestamos.decrementAndGet(recurso.getTipo().ordinal());
+    }
+
+    /**
+     * Libera el cupo de un préstamo devuelto y, si estaba vencido, levanta el
+     * bloqueo correspondiente
+     */
+    public void prestamoDevuelto(Prestamo prestamo) {
+        CuotaUsuario cuota = cuotaDe(prestamo.getUsuario());
+        cuota.prestamos.decrementAndGet(prestamo.getRecurso().getTipo().ordinal());
+
+        if (vencidosRegistrados.remove(prestamo)) {
+            cuota.vencidos.decrementAndGet();
+        }
+    }
+
+    /**
+     * Registra un préstamo vencido. Llamarlo varias veces para el mismo
+     * préstamo no tiene efecto adicional.
+     *
+     * @return true si el vencimiento no estaba registrado
+     */
+    public boolean registrarVencimiento(Prestamo prestamo) {
+        if (prestamo.isDevuelto() || !vencidosRegistrados.add(prestamo)) {
+            return false;
+        }
+
+        CuotaUsuario cuota = cuotaDe(prestamo.getUsuario());
+        cuota.vencidos.incrementAndGet();
+
+        // Si se devolvió mientras tanto, prestamoDevuelto pudo buscarlo
+        // antes de que se agregara; quien lo quite del conjunto descuenta
+        if (prestamo.isDevuelto() && vencidosRegistrados.remove(prestamo)) {
+            cuota.vencidos.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Ocupa un cupo de reserva para el usuario
+     *
+     * @throws LimiteExcedidoException Si el usuario alcanzó su límite de reservas
+     */
+    public void ocuparCupoReserva(Usuario usuario) throws LimiteExcedidoException {
+        CuotaUsuario cuota = cuotaDe(usuario);
+
+        if (!incrementarSiMenor(cuota.reservas, maxReservas)) {
+            throw new LimiteExcedidoException("El usuario " + usuario.getNombre()
+                    + " alcanzó el límite de " + maxReservas + " reservas activas");
+        }
+    }
+
+    public void liberarCupoReserva(Reserva reserva) {
+        cuotaDe(reserva.getUsuario()).reservas.decrementAndGet();
+    }
+
+    public boolean estaBloqueado(Usuario usuario) {
+        CuotaUsuario cuota = cuotaExistente(usuario);
+        return cuota != null && cuota.vencidos.get() > maxVencidos;
+    }
+
+    public int prestamosActivos(Usuario usuario, TipoRecurso tipo) {
+        CuotaUsuario cuota = cuotaExistente(usuario);
+        return cuota == null ? 0 : cuota.prestamos.get(tipo.ordinal());
+    }
+
+    public int reservasActivas(Usuario usuario) {
+        CuotaUsuario cuota = cuotaExistente(usuario);
+        return cuota == null ? 0 : cuota.reservas.get();
+    }
+
+    private CuotaUsuario cuotaExistente(Usuario usuario) {
+        int indice = usuario.getIndice();
+        CuotaUsuario[] actuales = cuotas;
+        return indice < actuales.length ? actuales[indice] : null;
+    }
+
+    private CuotaUsuario cuotaDe(Usuario usuario) {
+        CuotaUsuario cuota = cuotaExistente(usuario);
+        return cuota != null ? cuota : crearCuota(usuario.getIndice());
+    }
+
+    // Una lectura sin lock puede no ver una cuota recién creada; se vuelve a
+    // buscar con el lock tomado. Las cuotas tienen solo campos final, así que
+    // quien las ve sin lock las ve completas.
+    private synchronized CuotaUsuario crearCuota(int indice) {
+        CuotaUsuario[] actuales = cuotas;
+        if (indice >= actuales.length) {
+            actuales = Arrays.copyOf(actuales, Math.max(indice + 1, actuales.length * 2));
+        }
+        CuotaUsuario cuota = actuales[indice];
+        if (cuota == null) {
+            cuota = new CuotaUsuario();
+            actuales[indice] = cuota;
+        }
+        cuotas = actuales;
+        return cuota;
+    }
+
+    private static boolean incrementarSiMenor(AtomicIntegerArray contadores, int i, int maximo) {
+        while (true) {
+            int actual = contadores.get(i);
+            if (actual >= maximo) {
+                return false;
+            }
+            if (contadores.compareAndSet(i, actual, actual + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private static boolean incrementarSiMenor(AtomicInteger contador, int maximo) {
+        while (true) {
+            int actual = contador.get();
+            if (actual >= maximo) {
+                return false;
+            }
+            if (contador.compareAndSet(actual, actual + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private static final class CuotaUsuario {
+        private final AtomicIntegerArray prestamos = new AtomicIntegerArray(TIPOS.length);
+        private final AtomicInteger reservas = new AtomicInteger();
+        private final AtomicInteger vencidos = new AtomicInteger();
+    }
+}
@@ -0,0 +1,77 @@
+package app.biblioteca.services;
+
+/**
+ * Filtro de Bloom por bloques para cadenas. Todos los bits de una clave caen
+ * en el mismo bloque de 512 bits (una línea de caché), por lo que cada
+ * consulta lee una sola línea de memoria a cambio de una tasa de falsos
+ * positivos algo mayor que la de un filtro clásico del mismo tamaño: cerca
+ * del 1% con {@value #BITS_POR_CLAVE} bits por clave.
+ *
+ * No admite quitar claves ni es seguro para varios hilos; quien lo usa lo
+ * reconstruye y lo protege.
+ */
+final class FiltroBloom {
+    private static final int BITS_POR_CLAVE = 10;
+    private static final int PALABRAS_POR_BLOQUE = 8;
+    private static final int BITS_POR_BLOQUE = PALABRAS_POR_BLOQUE * Long.SIZE;
+    private static final int FUNCIONES = 6;
+
+    private final long[] palabras;
+    private final int bloques;
+
+    /**
+     * @param capacidad Cantidad de claves para la que se dimensiona
+     */
+    FiltroBloom(int capacidad) {
+        long bits = Math.max(1L, capacidad) * BITS_POR_CLAVE;
+        this.bloques = (int) Math.max(1, (bits + BITS_POR_BLOQUE - 1) / BITS_POR_BLOQUE);
+        this.palabras = new long[bloques * PALABRAS_POR_BLOQUE];
+    }
+
+    void agregar(String clave) {
+        long hash = hash(clave);
+        int base = bloque(hash);
+        long bitsBloque = mezclar(hash);
+        for (int i = 0; i < FUNCIONES; i++) {
+            int bit = (int) (bitsBloque >>> (i * 9)) & (BITS_POR_BLOQUE - 1);
+            palabras[base + (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    /**
+     * Indica si la clave pudo haberse agregado; {@code false} es seguro
+     */
+    boolean puedeContener(String clave) {
+        long hash = hash(clave);
+        int base = bloque(hash);
+        long bitsBloque = mezclar(hash);
+        for (int i = 0; i < FUNCIONES; i++) {
+            int bit = (int) (bitsBloque >>> (i * 9)) & (BITS_POR_BLOQUE - 1);
+            if ((palabras[base + (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int bloque(long hash) {
+        return (int) (((hash >>> 32) * bloques) >>> 32) * PALABRAS_POR_BLOQUE;
+    }
+
+    private static long hash(String clave) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < clave.length(); i++) {
+            hash = (hash ^ clave.charAt(i)) * 0x100000001b3L;
+        }
+        return mezclar(hash);
+    }
+
+    /**
+     * Finalizador de SplitMix64, para repartir los bits del hash
+     */
+    private static long mezclar(long valor) {
+        valor = (valor ^ (valor >>> 30)) * 0xbf58476d1ce4e5b9L;
+        valor = (valor ^ (valor >>> 27)) * 0x94d049bb133111ebL;
+        return valor ^ (valor >>> 31);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,218 @@
+package app.biblioteca.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+import app.biblioteca.models.CategoriaRecurso;
+import app.biblioteca.models.EstadoRecurso;
+import app.biblioteca.models.TipoRecurso;
+
+/**
+ * Filtro sobre atributos del catálogo para {@link GestorRecursos#consultar}.
+ * Los filtros se combinan con {@link #y}, {@link #o} y {@link #negar()}, por
+ * ejemplo {@code tipo(AUDIOLIBRO).y(categoria(CIENCIA)).y(estado(DISPONIBLE))}.
+ *
+ * Tipo, categoría y los campos numéricos se resuelven con los bitmaps del
+ * índice. El estado cambia fuera del gestor (al prestar, devolver o reservar
+ * se actualiza el propio recurso), por lo que se verifica sobre el recurso
+ * solo para los candidatos que dejaron los demás filtros.
+ */
+public abstract class FiltroRecursos {
+
+    FiltroRecursos() {
+    }
+
+    public static FiltroRecursos tipo(TipoRecurso... tipos) {
+        return new PorTipo(tipos);
+    }
+
+    public static FiltroRecursos categoria(CategoriaRecurso... categorias) {
+        return new PorCategoria(categorias);
+    }
+
+    public static FiltroRecursos estado(EstadoRecurso... estados) {
+        return new PorEstado(estados);
+    }
+
+    /**
+     * Libros con cantidad de páginas en el rango, ambos extremos incluidos
+     */
+    public static FiltroRecursos numPaginas(int minimo, int maximo) {
+        return new PorRango(IndiceRecursos.CampoNumerico.NUM_PAGINAS, minimo, maximo);
+    }
+
+    /**
+     * Audiolibros con duración en minutos en el rango, ambos extremos
+     * incluidos
+     */
+    public static FiltroRecursos duracionMinutos(int minimo, int maximo) {
+        return new PorRango(IndiceRecursos.CampoNumerico.DURACION_MINUTOS, minimo, maximo);
+    }
+
+    public static FiltroRecursos todos(FiltroRecursos... filtros) {
+        return new Conjuncion(Arrays.asList(filtros));
+    }
+
+    public static FiltroRecursos alguno(FiltroRecursos... filtros) {
+        return new Disyuncion(Arrays.asList(filtros));
+    }
+
+    public FiltroRecursos y(FiltroRecursos otro) {
+        return todos(this, otro);
+    }
+
+    public FiltroRecursos o(FiltroRecursos otro) {
+        return alguno(this, otro);
+    }
+
+    public FiltroRecursos negar() {
+        return new Negacion(this);
+    }
+
+    /**
+     * Filas de {@code candidatos} que cumplen el filtro
+     */
+    abstract BitmapCompacto evaluar(IndiceRecursos indice, BitmapCompacto candidatos);
+
+    /**
+     * Indica si el filtro consulta el estado de los recursos, que se
+     * verifica fila por fila en lugar de resolverse con un bitmap
+     */
+    boolean verificaEstado() {
+        return false;
+    }
+
+    private static final class PorTipo extends FiltroRecursos {
+        private final TipoRecurso[] tipos;
+
+        PorTipo(TipoRecurso[] tipos) {
+            this.tipos = tipos.clone();
+        }
+
+        @Override
+        BitmapCompacto evaluar(IndiceRecursos indice, BitmapCompacto candidatos) {
+            return candidatos.y(indice.filasPorTipo(tipos));
+        }
+    }
+
+    private static final class PorCategoria extends FiltroRecursos {
+        private final CategoriaRecurso[] categorias;
+
+        PorCategoria(CategoriaRecurso[] categorias) {
+            this.categorias = categorias.clone();
+        }
+
+        @Override
+        BitmapCompacto evaluar(IndiceRecursos indice, BitmapCompacto candidatos) {
+            return candidatos.y(indice.filasPorCategoria(categorias));
+        }
+    }
+
+    private static final class PorEstado extends FiltroRecursos {
+        private final EnumSet<EstadoRecurso> estados = EnumSet.noneOf(EstadoRecurso.class);
+
+        PorEstado(EstadoRecurso[] estados) {
+            this.estados.addAll(Arrays.asList(estados));
+        }
+
+        @Override
+        BitmapCompacto evaluar(IndiceRecursos indice, BitmapCompacto candidatos) {
+            return indice.filtrarPorEstado(candidatos, estados);
+        }
+
+        @Override
+        boolean verificaEstado() {
+            return true;
+        }
+    }
+
+    private static final class PorRango extends FiltroRecursos {
+        private final IndiceRecursos.CampoNumerico campo;
+        private final int minimo;
+        private final int maximo;
+
+        PorRango(IndiceRecursos.CampoNumerico campo, int minimo, int maximo) {
+            this.campo = campo;
+            this.minimo = minimo;
+            this.maximo = maximo;
+        }
+
+        @Override
+        BitmapCompacto evaluar(IndiceRecursos indice, BitmapCompacto candidatos) {
+            return candidatos.y(indice.filasEnRango(campo, minimo, maximo));
+        }
+    }
+
+    private static final class Conjuncion extends FiltroRecursos {
+        private final List<FiltroRecursos> filtros = new ArrayList<>();
+
+        Conjuncion(List<FiltroRecursos> filtros) {
+            // Primero los filtros resueltos con bitmaps, para verificar el
+            // estado sobre la menor cantidad de candidatos
+            filtros.stream().filter(f -> !f.verificaEstado()).forEach(this.filtros::add);
+            filtros.stream().filter(FiltroRecursos::verificaEstado).forEach(this.filtros::add);
+        }
+
+        @Override
+        BitmapCompacto evaluar(IndiceRecursos indice, BitmapCompacto candidatos) {
+            BitmapCompacto resultado = candidatos;
+            for (FiltroRecursos filtro : filtros) {
+                if (resultado.estaVacio()) {
+                    break;
+                }
+                resultado = filtro.evaluar(indice, resultado);
+            }
+            return resultado;
+        }
+
+        @Override
+        boolean verificaEstado() {
+            return filtros.stream().anyMatch(FiltroRecursos::verificaEstado);
+        }
+    }
+
+    private static final class Disyuncion extends FiltroRecursos {
+        private final List<FiltroRecursos> filtros = new ArrayList<>();
+
+        Disyuncion(List<FiltroRecursos> filtros) {
+            filtros.stream().filter(f -> !f.verificaEstado()).forEach(this.filtros::add);
+            filtros.stream().filter(FiltroRecursos::verificaEstado).forEach(this.filtros::add);
+        }
+
+        @Override
+        BitmapCompacto evaluar(IndiceRecursos indice, BitmapCompacto candidatos) {
+            BitmapCompacto resultado = new BitmapCompacto();
+            for (FiltroRecursos filtro : filtros) {
+                // Las filas ya incluidas no necesitan volver a verificarse
+                BitmapCompacto pendientes = filtro.verificaEstado() ? candidatos.yNo(resultado) : candidatos;
+                resultado = resultado.o(filtro.evaluar(indice, pendientes));
+            }
+            return resultado;
+        }
+
+        @Override
+        boolean verificaEstado() {
+            return filtros.stream().anyMatch(FiltroRecursos::verificaEstado);
+        }
+    }
+
+    private static final class Negacion extends FiltroRecursos {
+        private final FiltroRecursos filtro;
+
+        Negacion(FiltroRecursos filtro) {
+            this.filtro = filtro;
+        }
+
+        @Override
+        BitmapCompacto evaluar(IndiceRecursos indice, BitmapCompacto candidatos) {
+            return candidatos.yNo(filtro.evaluar(indice, candidatos));
+        }
+
+        @Override
+        boolean verificaEstado() {
+            return filtro.verificaEstado();
+        }
+    }
+}
\ No newline at end of file
@@ -1,42 +1,296 @@
 package app.biblioteca.services;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
 
+import app.biblioteca.interfaces.ObservadorBiblioteca;
 import app.biblioteca.interfaces.RecursoDigital;
+import app.biblioteca.logging.RegistroEventos;
+import app.biblioteca.metrics.RegistroMetricas;
+import app.biblioteca.metrics.Temporizador;
+import app.biblioteca.models.Audiolibro;
+import app.biblioteca.models.CategoriaRecurso;
 import app.biblioteca.models.EstadoRecurso;
+import app.biblioteca.models.Libro;
+import app.biblioteca.models.RecursoBase;
+import app.biblioteca.models.Revista;
+import app.biblioteca.models.TipoRecurso;
 
 public class GestorRecursos {
+    protected static final RegistroEventos REGISTRO = RegistroEventos.compartido();
+    protected static final Temporizador TIEMPO_BUSQUEDA = RegistroMetricas.compartido()
+            .temporizador("recursos.buscarPorTitulo");
+    private static final Temporizador TIEMPO_CONSULTA = RegistroMetricas.compartido()
+            .temporizador("recursos.consultar");
+    private static final Temporizador TIEMPO_BUSQUEDA_APROXIMADA = RegistroMetricas.compartido()
+            .temporizador("recursos.buscarPorTituloAproximado");
+    private static final LongAdder DUPLICADOS = RegistroMetricas.compartido().contador("recursos.duplicados");
+
     private List<RecursoDigital> recursos;
+    private final Map<String, RecursoDigital> recursosPorId = new ConcurrentHashMap<>();
+    private final List<ObservadorBiblioteca> observadores = new CopyOnWriteArrayList<>();
+    private final IndiceRecursos indice = new IndiceRecursos();
+    private final IndiceTitulos indiceTitulos = new IndiceTitulos();
+    private final ClavesCatalogo claves = new ClavesCatalogo();
+    private final InventarioEjemplares inventario = new InventarioEjemplares();
 
     public GestorRecursos() {
         this.recursos = new ArrayList<>();
     }
 
-    public void agregarRecurso(RecursoDigital recurso) {
+    public void agregarObservador(ObservadorBiblioteca observador) {
+        observadores.add(observador);
+    }
+
+    public InventarioEjemplares getInventario() {
+        return inventario;
+    }
+
+    /**
+     * Agrega ejemplares físicos a un título del catálogo. Desde entonces el
+     * recurso representa al título: los préstamos toman cualquier ejemplar
+     * libre y las reservas esperan al primero que se devuelva.
+     *
+     * @return {@code false} si el recurso no existe o la cantidad no es positiva
+     */
+    public boolean agregarEjemplares(String identificador, int cantidad) {
+        RecursoDigital recurso = buscarRecursoPorId(identificador);
+
+        if (recurso == null || cantidad <= 0) {
+            REGISTRO.advertencia("recurso.ejemplaresRechazados", "No se agregaron {} ejemplares al recurso {}",
+                    cantidad, identificador);
+            return false;
+        }
+
+        int total = sumarEjemplares(recurso, cantidad);
+        REGISTRO.info("recurso.ejemplaresAgregados", "Ejemplares de {}: {}", recurso.getTitulo(), total);
+        return true;
+    }
+
+    /**
+     * Agrega ejemplares al inventario y avisa a los observadores, sin validar
+     * la cantidad ni registrar el cambio
+     *
+     * @return Total de ejemplares del título
+     */
+    int sumarEjemplares(RecursoDigital recurso, int cantidad) {
+        int total = inventario.agregarEjemplares(recurso, cantidad);
+        if (cantidad > 0) {
+            observadores.forEach(o -> o.ejemplaresModificados(recurso, cantidad));
+        }
+        return total;
+    }
+
+    /**
+     * Agrega un recurso al catálogo, salvo que repita el identificador, el
+     * ISBN o el ISSN y número de otro recurso
+     *
+     * @return {@code false} si el recurso estaba duplicado y no se agregó
+     */
+    public boolean agregarRecurso(RecursoDigital recurso) {
+        String clave = claves.registrar(recurso);
+        if (clave != null) {
+            DUPLICADOS.increment();
+            REGISTRO.advertencia("recurso.duplicado", "No se agregó {}: ya existe un recurso con {}",
+                    recurso.getTitulo(), clave);
+            return false;
+        }
+        almacenarRecurso(recurso);
+        REGISTRO.info("recurso.agregado", "Recurso agregado correctamente: {}", recurso.getTitulo());
+        return true;
+    }
+
+    /**
+     * Agrega varios recursos, descartando los duplicados, con un solo
+     * mensaje al final
+     *
+     * @return Recursos que no se agregaron por estar duplicados
+     */
+    public List<RecursoDigital> agregarRecursos(Collection<? extends RecursoDigital> nuevos) {
+        List<RecursoDigital> duplicados = cargar(nuevos);
+        REGISTRO.info("recurso.cargaMasiva", "Recursos agregados: {}, duplicados: {}",
+                nuevos.size() - duplicados.size(), duplicados.size());
+        return duplicados;
+    }
+
+    /**
+     * Importa recursos desde un archivo delimitado (coma, punto y coma o
+     * tabulación) con el formato
+     * {@code tipo;id;titulo;autor|editorial;isbn|issn|narrador;paginas|numero|minutos[;categoria]}.
+     * Las líneas se leen y convierten en paralelo; después los recursos se
+     * agregan en el orden del archivo y solo se informa un resumen al final.
+     *
+     * @param archivo Ruta del archivo a importar
+     * @return Resumen de la importación
+     * @throws IOException Si el archivo no puede leerse
+     */
+    public ResultadoImportacion importarRecursos(Path archivo) throws IOException {
+        long inicio = System.nanoTime();
+        LongAdder invalidos = new LongAdder();
+        List<RecursoDigital> leidos = LectorDelimitado.leer(archivo, "tipo", GestorRecursos::parsearRecurso,
+                invalidos);
+        int duplicados = cargar(leidos).size();
+
+        ResultadoImportacion resultado = new ResultadoImportacion(leidos.size() - duplicados, duplicados,
+                invalidos.sum(), Duration.ofNanos(System.nanoTime() - inicio));
+        REGISTRO.info("recurso.importacion", "Importación de recursos finalizada: {}", resultado);
+        return resultado;
+    }
+
+    private List<RecursoDigital> cargar(Collection<? extends RecursoDigital> nuevos) {
+        List<RecursoDigital> duplicados = new ArrayList<>();
+        for (RecursoDigital recurso : nuevos) {
+            if (claves.registrar(recurso) == null) {
+                almacenarRecurso(recurso);
+            } else {
+                DUPLICADOS.increment();
+                duplicados.add(recurso);
+            }
+        }
+        return duplicados;
+    }
+
+    /**
+     * Guarda un recurso cuyas claves ya se registraron, lo indexa y avisa a
+     * los observadores
+     */
+    protected void almacenarRecurso(RecursoDigital recurso) {
+        // Pedir el índice denso lo asigna si todavía no tenía uno
+        recurso.getIndice();
         recursos.add(recurso);
-        System.out.println("Recurso agregado correctamente: " + recurso.getTitulo());
+        recursosPorId.put(recurso.getIdentificador(), recurso);
+        indexarRecurso(recurso, recurso);
+        notificarRecursoAgregado(recurso);
+    }
+
+    /**
+     * Agrega el recurso al índice de consultas
+     *
+     * @param recurso    Recurso del que se leen los atributos
+     * @param referencia Objeto que devuelven las consultas para este recurso
+     */
+    protected void indexarRecurso(RecursoDigital recurso, RecursoDigital referencia) {
+        indice.agregar(recurso, referencia);
+        indiceTitulos.agregar(recurso, referencia);
+    }
+
+    protected void desindexarRecurso(String identificador) {
+        indice.quitar(identificador);
+        indiceTitulos.quitar(identificador);
+        claves.liberar(identificador);
+    }
+
+    protected void notificarRecursoAgregado(RecursoDigital recurso) {
+        observadores.forEach(o -> o.recursoAgregado(recurso));
+    }
+
+    protected void notificarRecursoEliminado(RecursoDigital recurso) {
+        // Los ejemplares agregados al título se quitan junto con él
+        int agregados = inventario.total(recurso) - 1;
+        if (agregados > 0) {
+            observadores.forEach(o -> o.ejemplaresModificados(recurso, -agregados));
+        }
+        observadores.forEach(o -> o.recursoEliminado(recurso));
     }
 
     public RecursoDigital buscarRecursoPorId(String identificador) {
-        for (RecursoDigital recurso : recursos) {
-            if (recurso.getIdentificador().equals(identificador)) {
-                return recurso;
+        return recursosPorId.get(identificador);
+    }
+
+    /**
+     * Busca varios recursos en el índice por identificador, sin recorrer el
+     * catálogo
+     *
+     * @param identificadores Identificadores a buscar
+     * @return Mapa de identificador a recurso, solo con los encontrados
+     */
+    public Map<String, RecursoDigital> buscarRecursosPorIds(Collection<String> identificadores) {
+        Map<String, RecursoDigital> encontrados = new HashMap<>();
+
+        for (String identificador : identificadores) {
+            RecursoDigital recurso = recursosPorId.get(identificador);
+            if (recurso != null) {
+                encontrados.put(identificador, recurso);
             }
         }
-        return null;
+
+        return encontrados;
     }
 
     public List<RecursoDigital> buscarRecursosPorTitulo(String titulo) {
-        List<RecursoDigital> resultados = new ArrayList<>();
+        long inicio = TIEMPO_BUSQUEDA.iniciar();
+        try {
+            List<RecursoDigital> resultados = new ArrayList<>();
 
-        for (RecursoDigital recurso : recursos) {
-            if (recurso.getTitulo().toLowerCase().contains(titulo.toLowerCase())) {
-                resultados.add(recurso);
+            for (RecursoDigital recurso : recursos) {
+                if (recurso.getTitulo().toLowerCase().contains(titulo.toLowerCase())) {
+                    resultados.add(recurso);
+                }
             }
+
+            return resultados;
+        } finally {
+            TIEMPO_BUSQUEDA.registrar(inicio);
         }
+    }
 
-        return resultados;
+    /**
+     * Busca recursos por título tolerando errores de tipeo, con una distancia
+     * máxima según el largo del texto: ninguna hasta 2 letras, una hasta 7 y
+     * dos a partir de 8
+     */
+    public List<RecursoDigital> buscarRecursosPorTituloAproximado(String titulo) {
+        int largo = Autocompletado.normalizar(titulo).length();
+        return buscarRecursosPorTituloAproximado(titulo, largo <= 2 ? 0 : largo <= 7 ? 1 : 2);
+    }
+
+    /**
+     * Busca recursos cuyo título completo está a lo sumo a la distancia de
+     * edición indicada del texto buscado. No distingue mayúsculas, tildes ni
+     * signos, y una transposición de letras vecinas cuenta como una edición.
+     *
+     * @param titulo          Título buscado, posiblemente mal escrito
+     * @param distanciaMaxima Cantidad máxima de ediciones
+     * @return Recursos de menor a mayor distancia y luego por título
+     */
+    public List<RecursoDigital> buscarRecursosPorTituloAproximado(String titulo, int distanciaMaxima) {
+        long inicio = TIEMPO_BUSQUEDA_APROXIMADA.iniciar();
+        try {
+            return indiceTitulos.buscar(titulo, distanciaMaxima);
+        } finally {
+            TIEMPO_BUSQUEDA_APROXIMADA.registrar(inicio);
+        }
+    }
+
+    /**
+     * Recursos que cumplen el filtro, en el orden en que se agregaron
+     *
+     * @param filtro Filtro sobre tipo, categoría, estado y campos numéricos
+     */
+    public List<RecursoDigital> consultar(FiltroRecursos filtro) {
+        long inicio = TIEMPO_CONSULTA.iniciar();
+        try {
+            return indice.consultar(filtro);
+        } finally {
+            TIEMPO_CONSULTA.registrar(inicio);
+        }
+    }
+
+    /**
+     * Cantidad de recursos que cumplen el filtro, sin armar la lista
+     */
+    public int contar(FiltroRecursos filtro) {
+        return indice.contar(filtro);
     }
 
     public List<RecursoDigital> listarRecursos() {
@@ -60,11 +314,42 @@ public class GestorRecursos {
 
         if (recurso != null) {
             recursos.remove(recurso);
-            System.out.println("Recurso eliminado correctamente: " + recurso.getTitulo());
+            recursosPorId.remove(identificador);
+            desindexarRecurso(identificador);
+            notificarRecursoEliminado(recurso);
+            inventario.eliminar(recurso);
+            REGISTRO.info("recurso.eliminado", "Recurso eliminado correctamente: {}", recurso.getTitulo());
             return true;
         }
 
-        System.out.println("No se encontró el recurso con identificador: " + identificador);
+        REGISTRO.advertencia("recurso.noEncontrado", "No se encontró el recurso con identificador: {}", identificador);
         return false;
     }
+
+    private static RecursoDigital parsearRecurso(String[] campos) {
+        if (campos.length < 6 || campos[1].isEmpty() || campos[2].isEmpty()) {
+            return null;
+        }
+
+        int numero = Integer.parseInt(campos[5]);
+        RecursoBase recurso;
+        switch (TipoRecurso.valueOf(campos[0].toUpperCase(Locale.ROOT))) {
+            case LIBRO:
+                recurso = new Libro(campos[1], campos[2], campos[3], campos[4], numero);
+                break;
+            case REVISTA:
+                recurso = new Revista(campos[1], campos[2], campos[3], campos[4], numero);
+                break;
+            case AUDIOLIBRO:
+                recurso = new Audiolibro(campos[1], campos[2], campos[3], campos[4], numero);
+                break;
+            default:
+                return null;
+        }
+
+        if (campos.length > 6 && !campos[6].isEmpty()) {
+            recurso.setCategoria(CategoriaRecurso.valueOf(campos[6].toUpperCase(Locale.ROOT)));
+        }
+        return recurso;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,595 @@
+package app.biblioteca.services;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import app.biblioteca.interfaces.RecursoDigital;
+import app.biblioteca.models.CategoriaRecurso;
+import app.biblioteca.models.EstadoRecurso;
+import app.biblioteca.models.TipoRecurso;
+
+/**
+ * Variante de {@link GestorRecursos} para catálogos muy grandes. Los registros
+ * se guardan fuera del heap en columnas de {@link ByteBuffer} directos
+ * (referencias a identificador y título, categoría, tipo y estado), de modo
+ * que el catálogo no agrega objetos que el GC tenga que recorrer. Las
+ * consultas devuelven vistas livianas que leen y escriben directamente sobre
+ * las columnas.
+ *
+ * Al agregar un recurso solo se copian los datos comunes a todo
+ * {@link RecursoDigital}; los datos propios de cada tipo (autor, ISBN, etc.)
+ * no se conservan.
+ */
+public class GestorRecursosColumnar extends GestorRecursos {
+    private static final VarHandle ENTERO = MethodHandles.byteBufferViewVarHandle(int[].class,
+            ByteOrder.nativeOrder());
+    private static final EstadoRecurso[] ESTADOS = EstadoRecurso.values();
+    private static final CategoriaRecurso[] CATEGORIAS = CategoriaRecurso.values();
+    private static final TipoRecurso[] TIPOS = TipoRecurso.values();
+
+    private static final int ESTADO_ELIMINADO = -1;
+    private static final int INDICE_VACIO = 0;
+    private static final int INDICE_BORRADO = -1;
+    private static final int CAPACIDAD_INICIAL = 1024;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Columnas columnas;
+    private ByteBuffer textos;
+    private int finTextos;
+    private int filas;
+    private int eliminados;
+    // Índice hash por identificador con direccionamiento abierto: guarda fila + 1
+    private ByteBuffer indice;
+    private int capacidadIndice;
+    private int ocupadosIndice;
+
+    public GestorRecursosColumnar() {
+        this(CAPACIDAD_INICIAL);
+    }
+
+    public GestorRecursosColumnar(int capacidadInicial) {
+        int capacidad = Math.max(16, capacidadInicial);
+        this.columnas = new Columnas(capacidad);
+        this.textos = ByteBuffer.allocateDirect(capacidad * 32).order(ByteOrder.nativeOrder());
+        this.capacidadIndice = Integer.highestOneBit(capacidad * 2 - 1) << 1;
+        this.indice = ByteBuffer.allocateDirect(capacidadIndice * Integer.BYTES).order(ByteOrder.nativeOrder());
+    }
+
+    @Override
+    protected void almacenarRecurso(RecursoDigital recurso) {
+        byte[] id = recurso.getIdentificador().getBytes(StandardCharsets.UTF_8);
+        byte[] titulo = recurso.getTitulo().getBytes(StandardCharsets.UTF_8);
+        Vista vista;
+
+        lock.writeLock().lock();
+        try {
+            if (filas == columnas.capacidad) {
+                columnas = columnas.crecer(columnas.capacidad * 2);
+            }
+            asegurarTextos(id.length + titulo.length);
+            if ((ocupadosIndice + 1) * 4L > capacidadIndice * 3L) {
+                reconstruirIndice(capacidadIndice * 2);
+            }
+
+            int fila = filas;
+            columnas.referencias.putInt(fila * 16, escribirTexto(id));
+            columnas.referencias.putInt(fila * 16 + 4, id.length);
+            columnas.referencias.putInt(fila * 16 + 8, escribirTexto(titulo));
+            columnas.referencias.putInt(fila * 16 + 12, titulo.length);
+            columnas.hashes.putInt(fila * 4, recurso.getIdentificador().hashCode());
+            columnas.indices.putInt(fila * 4, recurso.getIndice());
+            columnas.categoria.put(fila, (byte) categoriaDe(recurso).ordinal());
+            columnas.tipo.put(fila, (byte) recurso.getTipo().ordinal());
+            ENTERO.setVolatile(columnas.estado, fila * 4, recurso.getEstado().ordinal());
+            insertarEnIndice(fila);
+            filas++;
+
+            vista = new Vista(this, fila);
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        indexarRecurso(recurso, vista);
+        notificarRecursoAgregado(vista);
+    }
+
+    @Override
+    public RecursoDigital buscarRecursoPorId(String identificador) {
+        lock.readLock().lock();
+        try {
+            int fila = buscarFila(identificador);
+            return fila < 0 ? null : new Vista(this, fila);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Map<String, RecursoDigital> buscarRecursosPorIds(Collection<String> identificadores) {
+        Map<String, RecursoDigital> encontrados = new HashMap<>();
+
+        lock.readLock().lock();
+        try {
+            for (String identificador : identificadores) {
+                int fila = buscarFila(identificador);
+                if (fila >= 0) {
+                    encontrados.put(identificador, new Vista(this, fila));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return encontrados;
+    }
+
+    @Override
+    public List<RecursoDigital> buscarRecursosPorTitulo(String titulo) {
+        long inicio = TIEMPO_BUSQUEDA.iniciar();
+        try {
+            String buscado = titulo.toLowerCase(Locale.ROOT);
+            List<RecursoDigital> resultados = new ArrayList<>();
+
+            lock.readLock().lock();
+            try {
+                for (int fila = 0; fila < filas; fila++) {
+                    if (leerEstado(fila) != ESTADO_ELIMINADO
+                            && leerTitulo(fila).toLowerCase(Locale.ROOT).contains(buscado)) {
+                        resultados.add(new Vista(this, fila));
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            return resultados;
+        } finally {
+            TIEMPO_BUSQUEDA.registrar(inicio);
+        }
+    }
+
+    @Override
+    public List<RecursoDigital> listarRecursos() {
+        List<RecursoDigital> resultado;
+
+        lock.readLock().lock();
+        try {
+            resultado = new ArrayList<>(filas - eliminados);
+            for (int fila = 0; fila < filas; fila++) {
+                if (leerEstado(fila) != ESTADO_ELIMINADO) {
+                    resultado.add(new Vista(this, fila));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return resultado;
+    }
+
+    /**
+     * Recorre solo la columna de estado, sin leer el resto del registro
+     */
+    @Override
+    public List<RecursoDigital> listarRecursosDisponibles() {
+        int disponible = EstadoRecurso.DISPONIBLE.ordinal();
+        List<RecursoDigital> disponibles = new ArrayList<>();
+
+        lock.readLock().lock();
+        try {
+            ByteBuffer estado = columnas.estado;
+            for (int fila = 0; fila < filas; fila++) {
+                if (estado.getInt(fila * 4) == disponible) {
+                    disponibles.add(new Vista(this, fila));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return disponibles;
+    }
+
+    /**
+     * Cuenta los recursos disponibles sin crear vistas
+     */
+    public int contarRecursosDisponibles() {
+        int disponible = EstadoRecurso.DISPONIBLE.ordinal();
+        int cantidad = 0;
+
+        lock.readLock().lock();
+        try {
+            ByteBuffer estado = columnas.estado;
+            for (int fila = 0; fila < filas; fila++) {
+                if (estado.getInt(fila * 4) == disponible) {
+                    cantidad++;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return cantidad;
+    }
+
+    @Override
+    public boolean eliminarRecurso(String identificador) {
+        Vista eliminada = null;
+
+        lock.writeLock().lock();
+        try {
+            int fila = buscarFila(identificador);
+            if (fila >= 0) {
+                eliminada = new Vista(this, fila);
+                ENTERO.setVolatile(columnas.estado, fila * 4, ESTADO_ELIMINADO);
+                quitarDelIndice(fila);
+                eliminados++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        if (eliminada != null) {
+            // Fuera del lock, porque un observador puede bloquearse. La fila
+            // ya está marcada, pero su categoría sigue legible, y los
+            // ejemplares se cuentan antes de quitarlos del inventario
+            notificarRecursoEliminado(eliminada);
+            desindexarRecurso(identificador);
+            getInventario().eliminar(eliminada);
+            REGISTRO.info("recurso.eliminado", "Recurso eliminado correctamente: {}",
+                    leerTituloConLock(eliminada.fila));
+            return true;
+        }
+
+        REGISTRO.advertencia("recurso.noEncontrado", "No se encontró el recurso con identificador: {}", identificador);
+        return false;
+    }
+
+    public int cantidadRecursos() {
+        lock.readLock().lock();
+        try {
+            return filas - eliminados;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Cambia el estado de forma atómica solo si el estado actual es el
+     * esperado
+     *
+     * @return true si el estado fue actualizado
+     */
+    public boolean compararYActualizarEstado(RecursoDigital recurso, EstadoRecurso esperado, EstadoRecurso nuevo) {
+        if (!(recurso instanceof Vista) || ((Vista) recurso).gestor != this) {
+            return false;
+        }
+
+        int fila = ((Vista) recurso).fila;
+        lock.readLock().lock();
+        try {
+            return ENTERO.compareAndSet(columnas.estado, fila * 4, esperado.ordinal(), nuevo.ordinal());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // --- Acceso a columnas. Los métodos sin lock asumen que el llamador ya lo tomó ---
+
+    private int leerEstado(int fila) {
+        return (int) ENTERO.getVolatile(columnas.estado, fila * 4);
+    }
+
+    private String leerTexto(int posicionReferencia) {
+        int offset = columnas.referencias.getInt(posicionReferencia);
+        int largo = columnas.referencias.getInt(posicionReferencia + 4);
+        byte[] bytes = new byte[largo];
+        textos.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private String leerTitulo(int fila) {
+        return leerTexto(fila * 16 + 8);
+    }
+
+    private String leerIdentificadorConLock(int fila) {
+        lock.readLock().lock();
+        try {
+            return leerTexto(fila * 16);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private String leerTituloConLock(int fila) {
+        lock.readLock().lock();
+        try {
+            return leerTitulo(fila);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int leerEstadoConLock(int fila) {
+        lock.readLock().lock();
+        try {
+            return leerEstado(fila);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void escribirEstadoConLock(int fila, EstadoRecurso estado) {
+        lock.readLock().lock();
+        try {
+            // Una fila eliminada no vuelve a cambiar de estado
+            int actual;
+            do {
+                actual = leerEstado(fila);
+                if (actual == ESTADO_ELIMINADO) {
+                    return;
+                }
+            } while (!ENTERO.compareAndSet(columnas.estado, fila * 4, actual, estado.ordinal()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private byte leerByteConLock(boolean categoria, int fila) {
+        lock.readLock().lock();
+        try {
+            return categoria ? columnas.categoria.get(fila) : columnas.tipo.get(fila);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int leerIndiceConLock(int fila) {
+        lock.readLock().lock();
+        try {
+            return columnas.indices.getInt(fila * 4);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int escribirTexto(byte[] bytes) {
+        int offset = finTextos;
+        textos.put(offset, bytes);
+        finTextos += bytes.length;
+        return offset;
+    }
+
+    private void asegurarTextos(int adicionales) {
+        if (finTextos + adicionales <= textos.capacity()) {
+            return;
+        }
+
+        int nuevaCapacidad = textos.capacity();
+        while (finTextos + adicionales > nuevaCapacidad) {
+            nuevaCapacidad *= 2;
+        }
+
+        ByteBuffer nuevo = ByteBuffer.allocateDirect(nuevaCapacidad).order(ByteOrder.nativeOrder());
+        nuevo.put(0, textos, 0, finTextos);
+        textos = nuevo;
+    }
+
+    // --- Índice por identificador ---
+
+    private int buscarFila(String identificador) {
+        byte[] buscado = identificador.getBytes(StandardCharsets.UTF_8);
+        int hash = identificador.hashCode();
+        int mascara = capacidadIndice - 1;
+        int posicion = mezclar(hash) & mascara;
+
+        while (true) {
+            int valor = indice.getInt(posicion * 4);
+            if (valor == INDICE_VACIO) {
+                return -1;
+            }
+            if (valor != INDICE_BORRADO) {
+                int fila = valor - 1;
+                if (columnas.hashes.getInt(fila * 4) == hash && identificadorIgual(fila, buscado)) {
+                    return fila;
+                }
+            }
+            posicion = (posicion + 1) & mascara;
+        }
+    }
+
+    private boolean identificadorIgual(int fila, byte[] buscado) {
+        int offset = columnas.referencias.getInt(fila * 16);
+        int largo = columnas.referencias.getInt(fila * 16 + 4);
+        if (largo != buscado.length) {
+            return false;
+        }
+        for (int i = 0; i < largo; i++) {
+            if (textos.get(offset + i) != buscado[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void insertarEnIndice(int fila) {
+        int mascara = capacidadIndice - 1;
+        int posicion = mezclar(columnas.hashes.getInt(fila * 4)) & mascara;
+
+        while (true) {
+            int valor = indice.getInt(posicion * 4);
+            if (valor == INDICE_VACIO || valor == INDICE_BORRADO) {
+                if (valor == INDICE_VACIO) {
+                    ocupadosIndice++;
+                }
+                indice.putInt(posicion * 4, fila + 1);
+                return;
+            }
+            posicion = (posicion + 1) & mascara;
+        }
+    }
+
+    private void quitarDelIndice(int fila) {
+        int mascara = capacidadIndice - 1;
+        int posicion = mezclar(columnas.hashes.getInt(fila * 4)) & mascara;
+
+        while (true) {
+            int valor = indice.getInt(posicion * 4);
+            if (valor == INDICE_VACIO) {
+                return;
+            }
+            if (valor == fila + 1) {
+                indice.putInt(posicion * 4, INDICE_BORRADO);
+                return;
+            }
+            posicion = (posicion + 1) & mascara;
+        }
+    }
+
+    private void reconstruirIndice(int nuevaCapacidad) {
+        capacidadIndice = nuevaCapacidad;
+        indice = ByteBuffer.allocateDirect(capacidadIndice * Integer.BYTES).order(ByteOrder.nativeOrder());
+        ocupadosIndice = 0;
+
+        for (int fila = 0; fila < filas; fila++) {
+            if (leerEstado(fila) != ESTADO_ELIMINADO) {
+                insertarEnIndice(fila);
+            }
+        }
+    }
+
+    private static int mezclar(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static CategoriaRecurso categoriaDe(RecursoDigital recurso) {
+        return recurso.getCategoria() != null ? recurso.getCategoria() : CategoriaRecurso.SIN_CATEGORIA;
+    }
+
+    /**
+     * Columnas de ancho fijo, una entrada por fila
+     */
+    private static final class Columnas {
+        private final int capacidad;
+        // 4 enteros por fila: offset y largo del identificador y del título
+        private final ByteBuffer referencias;
+        private final ByteBuffer hashes;
+        // Índice denso del recurso original, que la vista conserva
+        private final ByteBuffer indices;
+        private final ByteBuffer estado;
+        private final ByteBuffer categoria;
+        private final ByteBuffer tipo;
+
+        Columnas(int capacidad) {
+            this.capacidad = capacidad;
+            this.referencias = crear(capacidad * 16);
+            this.hashes = crear(capacidad * 4);
+            this.indices = crear(capacidad * 4);
+            this.estado = crear(capacidad * 4);
+            this.categoria = crear(capacidad);
+            this.tipo = crear(capacidad);
+        }
+
+        Columnas crecer(int nuevaCapacidad) {
+            Columnas nuevas = new Columnas(nuevaCapacidad);
+            nuevas.referencias.put(0, referencias, 0, referencias.capacity());
+            nuevas.hashes.put(0, hashes, 0, hashes.capacity());
+            nuevas.indices.put(0, indices, 0, indices.capacity());
+            nuevas.estado.put(0, estado, 0, estado.capacity());
+            nuevas.categoria.put(0, categoria, 0, categoria.capacity());
+            nuevas.tipo.put(0, tipo, 0, tipo.capacity());
+            return nuevas;
+        }
+
+        private static ByteBuffer crear(int bytes) {
+            return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+        }
+    }
+
+    /**
+     * Vista liviana de una fila del catálogo. Solo guarda el número de fila;
+     * todos los datos se leen de las columnas en cada llamada.
+     */
+    private static final class Vista implements RecursoDigital {
+        private final GestorRecursosColumnar gestor;
+        private final int fila;
+
+        Vista(GestorRecursosColumnar gestor, int fila) {
+            this.gestor = gestor;
+            this.fila = fila;
+        }
+
+        @Override
+        public String getIdentificador() {
+            return gestor.leerIdentificadorConLock(fila);
+        }
+
+        @Override
+        public int getIndice() {
+            return gestor.leerIndiceConLock(fila);
+        }
+
+        @Override
+        public String getTitulo() {
+            return gestor.leerTituloConLock(fila);
+        }
+
+        @Override
+        public EstadoRecurso getEstado() {
+            int estado = gestor.leerEstadoConLock(fila);
+            return estado == ESTADO_ELIMINADO ? EstadoRecurso.NO_DISPONIBLE : ESTADOS[estado];
+        }
+
+        @Override
+        public void actualizarEstado(EstadoRecurso estado) {
+            gestor.escribirEstadoConLock(fila, estado);
+        }
+
+        @Override
+        public boolean estaDisponible() {
+            return gestor.leerEstadoConLock(fila) == EstadoRecurso.DISPONIBLE.ordinal();
+        }
+
+        @Override
+        public CategoriaRecurso getCategoria() {
+            return CATEGORIAS[gestor.leerByteConLock(true, fila)];
+        }
+
+        @Override
+        public TipoRecurso getTipo() {
+            return TIPOS[gestor.leerByteConLock(false, fila)];
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Vista)) {
+                return false;
+            }
+            Vista otra = (Vista) o;
+            return gestor == otra.gestor && fila == otra.fila;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(gestor) + fila;
+        }
+
+        @Override
+        public String toString() {
+            return "Recurso [id=" + getIdentificador() + ", titulo=" + getTitulo() + ", estado=" + getEstado() + "]";
+        }
+    }
+}
\ No newline at end of file
@@ -1,54 +1,256 @@
 package app.biblioteca.services;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
 import java.util.List;
-import java.util.Map;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
 
+import app.biblioteca.exceptions.UsuarioNoEncontradoException;
+import app.biblioteca.logging.RegistroEventos;
 import app.biblioteca.models.Usuario;
 
 public class GestorUsuarios {
-    private Map<String, Usuario> usuarios;
+    private static final RegistroEventos REGISTRO = RegistroEventos.compartido();
+
+    private ConcurrentHashMap<String, Usuario> usuarios;
+    // Índice secundario: email normalizado -> usuario
+    private ConcurrentHashMap<String, Usuario> usuariosPorEmail;
+    // Email con el que quedó indexado cada usuario, por si se modifica con setEmail
+    private ConcurrentHashMap<String, String> emailIndexado;
+
+    private enum ResultadoRegistro {
+        REGISTRADO,
+        ID_DUPLICADO,
+        EMAIL_DUPLICADO,
+        INVALIDO
+    }
 
     public GestorUsuarios() {
-        this.usuarios = new HashMap<>();
+        this.usuarios = new ConcurrentHashMap<>();
+        this.usuariosPorEmail = new ConcurrentHashMap<>();
+        this.emailIndexado = new ConcurrentHashMap<>();
     }
 
-    public void registrarUsuario(Usuario usuario) {
-        if (usuarios.containsKey(usuario.getId())) {
-            System.out.println("Ya existe un usuario con el ID: " + usuario.getId());
-            return;
+    public boolean registrarUsuario(Usuario usuario) {
+        ResultadoRegistro resultado = registrarSiAusente(usuario);
+
+        switch (resultado) {
+            case REGISTRADO:
+                REGISTRO.info("usuario.registrado", "Usuario registrado correctamente: {}", usuario.getNombre());
+                return true;
+            case ID_DUPLICADO:
+                REGISTRO.advertencia("usuario.idDuplicado", "Ya existe un usuario con el ID: {}", usuario.getId());
+                return false;
+            case EMAIL_DUPLICADO:
+                REGISTRO.advertencia("usuario.emailDuplicado", "Ya existe un usuario con el email: {}",
+                        usuario.getEmail());
+                return false;
+            default:
+                REGISTRO.advertencia("usuario.invalido", "Los datos del usuario no son válidos");
+                return false;
         }
+    }
 
-        usuarios.put(usuario.getId(), usuario);
-        System.out.println("Usuario registrado correctamente: " + usuario.getNombre());
+    /**
+     * Registra varios usuarios en paralelo, sin mensajes por usuario
+     *
+     * @param nuevosUsuarios Usuarios a registrar
+     * @return Resumen de la importación
+     */
+    public ResultadoImportacion registrarUsuarios(Collection<Usuario> nuevosUsuarios) {
+        return importar(nuevosUsuarios.parallelStream());
+    }
+
+    /**
+     * Importa usuarios desde un archivo delimitado con el formato
+     * {@code id;nombre;email} (también acepta coma o tabulación como
+     * separador). El archivo se lee mapeado en memoria, por bloques que se
+     * convierten en paralelo; los usuarios también se registran en paralelo
+     * y solo se informa un resumen al final.
+     *
+     * @param archivo Ruta del archivo a importar
+     * @return Resumen de la importación
+     * @throws IOException Si el archivo no puede leerse
+     */
+    public ResultadoImportacion importarUsuarios(Path archivo) throws IOException {
+        long inicio = System.nanoTime();
+        LongAdder invalidos = new LongAdder();
+        List<Usuario> leidos = LectorDelimitado.leer(archivo, "id", GestorUsuarios::parsearUsuario, invalidos);
+        ResultadoImportacion registro = importar(leidos.parallelStream());
+
+        ResultadoImportacion resultado = new ResultadoImportacion(registro.getImportados(),
+                registro.getDuplicados(), registro.getInvalidos() + invalidos.sum(),
+                Duration.ofNanos(System.nanoTime() - inicio));
+        REGISTRO.info("usuario.importacion", "Importación de usuarios finalizada: {}", resultado);
+        return resultado;
     }
 
     public Usuario buscarUsuarioPorId(String id) {
         return usuarios.get(id);
     }
 
+    public Usuario buscarPorId(String id) throws UsuarioNoEncontradoException {
+        Usuario usuario = usuarios.get(id);
+
+        if (usuario == null) {
+            throw new UsuarioNoEncontradoException("No existe un usuario con el ID: " + id);
+        }
+
+        return usuario;
+    }
+
+    public Usuario buscarUsuarioPorEmail(String email) {
+        String normalizado = normalizarEmail(email);
+        return normalizado == null ? null : usuariosPorEmail.get(normalizado);
+    }
+
     public List<Usuario> listarUsuarios() {
         return new ArrayList<>(usuarios.values());
     }
 
+    public int cantidadUsuarios() {
+        return usuarios.size();
+    }
+
     public void actualizarUsuario(Usuario usuario) {
-        if (!usuarios.containsKey(usuario.getId())) {
-            System.out.println("No existe un usuario con el ID: " + usuario.getId());
+        boolean[] emailDuplicado = new boolean[1];
+
+        Usuario actualizado = usuarios.computeIfPresent(usuario.getId(), (id, actual) -> {
+            String emailAnterior = emailIndexado.get(id);
+            String emailNuevo = normalizarEmail(usuario.getEmail());
+
+            if (emailNuevo != null && !emailNuevo.equals(emailAnterior)) {
+                Usuario otro = usuariosPorEmail.putIfAbsent(emailNuevo, usuario);
+                if (otro != null && otro != actual) {
+                    emailDuplicado[0] = true;
+                    return actual;
+                }
+            }
+
+            if (emailAnterior != null && !emailAnterior.equals(emailNuevo)) {
+                usuariosPorEmail.remove(emailAnterior, actual);
+            }
+            if (emailNuevo != null) {
+                usuariosPorEmail.put(emailNuevo, usuario);
+                emailIndexado.put(id, emailNuevo);
+            } else {
+                emailIndexado.remove(id);
+            }
+            return usuario;
+        });
+
+        if (actualizado == null) {
+            REGISTRO.advertencia("usuario.noEncontrado", "No existe un usuario con el ID: {}", usuario.getId());
             return;
         }
 
-        usuarios.put(usuario.getId(), usuario);
-        System.out.println("Usuario actualizado correctamente: " + usuario.getNombre());
+        if (emailDuplicado[0]) {
+            REGISTRO.advertencia("usuario.emailDuplicado", "Ya existe un usuario con el email: {}", usuario.getEmail());
+            return;
+        }
+
+        REGISTRO.info("usuario.actualizado", "Usuario actualizado correctamente: {}", usuario.getNombre());
     }
 
     public void eliminarUsuario(String id) {
-        if (!usuarios.containsKey(id)) {
-            System.out.println("No existe un usuario con el ID: " + id);
+        Usuario[] eliminado = new Usuario[1];
+
+        usuarios.computeIfPresent(id, (k, actual) -> {
+            String email = emailIndexado.remove(k);
+            if (email != null) {
+                usuariosPorEmail.remove(email, actual);
+            }
+            eliminado[0] = actual;
+            return null;
+        });
+
+        if (eliminado[0] == null) {
+            REGISTRO.advertencia("usuario.noEncontrado", "No existe un usuario con el ID: {}", id);
             return;
         }
 
-        Usuario usuario = usuarios.remove(id);
-        System.out.println("Usuario eliminado correctamente: " + usuario.getNombre());
+        REGISTRO.info("usuario.eliminado", "Usuario eliminado correctamente: {}", eliminado[0].getNombre());
+    }
+
+    private ResultadoRegistro registrarSiAusente(Usuario usuario) {
+        if (usuario == null || usuario.getId() == null || usuario.getId().isBlank()) {
+            return ResultadoRegistro.INVALIDO;
+        }
+
+        String email = normalizarEmail(usuario.getEmail());
+        ResultadoRegistro[] resultado = { ResultadoRegistro.REGISTRADO };
+
+        // compute serializa las operaciones sobre el mismo ID, de modo que
+        // comprobar y registrar es una única operación atómica
+        usuarios.compute(usuario.getId(), (id, actual) -> {
+            if (actual != null) {
+                resultado[0] = ResultadoRegistro.ID_DUPLICADO;
+                return actual;
+            }
+            if (email != null) {
+                if (usuariosPorEmail.putIfAbsent(email, usuario) != null) {
+                    resultado[0] = ResultadoRegistro.EMAIL_DUPLICADO;
+                    return null;
+                }
+                emailIndexado.put(id, email);
+            }
+            // Pedir el índice denso lo asigna si todavía no tenía uno
+            usuario.getIndice();
+            return usuario;
+        });
+
+        return resultado[0];
+    }
+
+    private ResultadoImportacion importar(Stream<Usuario> nuevosUsuarios) {
+        long inicio = System.nanoTime();
+        LongAdder importados = new LongAdder();
+        LongAdder duplicados = new LongAdder();
+        LongAdder invalidos = new LongAdder();
+
+        nuevosUsuarios.forEach(usuario -> {
+            switch (registrarSiAusente(usuario)) {
+                case REGISTRADO:
+                    importados.increment();
+                    break;
+                case ID_DUPLICADO:
+                case EMAIL_DUPLICADO:
+                    duplicados.increment();
+                    break;
+                default:
+                    invalidos.increment();
+            }
+        });
+
+        return new ResultadoImportacion(importados.sum(), duplicados.sum(), invalidos.sum(),
+                Duration.ofNanos(System.nanoTime() - inicio));
+    }
+
+    /**
+     * Convierte los campos de una línea del archivo de importación en un
+     * usuario. Devuelve null para líneas mal formadas, que se cuentan como
+     * inválidas.
+     */
+    private static Usuario parsearUsuario(String[] campos) {
+        if (campos.length < 3 || campos[0].isEmpty()) {
+            return null;
+        }
+
+        return new Usuario(campos[0], campos[1], campos[2]);
+    }
+
+    private static String normalizarEmail(String email) {
+        if (email == null) {
+            return null;
+        }
+
+        String normalizado = email.trim().toLowerCase(Locale.ROOT);
+        return normalizado.isEmpty() ? null : normalizado;
     }
 }
\ No newline at end of file
@@ -0,0 +1,216 @@
+package app.biblioteca.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import app.biblioteca.interfaces.RecursoDigital;
+import app.biblioteca.models.Audiolibro;
+import app.biblioteca.models.CategoriaRecurso;
+import app.biblioteca.models.EstadoRecurso;
+import app.biblioteca.models.Libro;
+import app.biblioteca.models.TipoRecurso;
+
+/**
+ * Índice de bitmaps del catálogo para {@link FiltroRecursos}. Cada recurso
+ * recibe un número de fila al indexarse y se guarda un {@link BitmapCompacto}
+ * de filas por tipo, por categoría y por rango de cada campo numérico. Los
+ * rangos numéricos se agrupan en potencias de dos: los grupos contenidos en
+ * el rango consultado se unen completos y solo los de los extremos se
+ * revisan valor por valor.
+ */
+final class IndiceRecursos {
+
+    enum CampoNumerico {
+        NUM_PAGINAS,
+        DURACION_MINUTOS
+    }
+
+    private static final CampoNumerico[] CAMPOS = CampoNumerico.values();
+    // Grupo 0 para valores <= 0 y grupo g para [2^(g-1), 2^g - 1]
+    private static final int GRUPOS_NUMERICOS = 32;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> filasPorId = new HashMap<>();
+    private final BitmapCompacto vivas = new BitmapCompacto();
+    private final BitmapCompacto[] porTipo = nuevosBitmaps(TipoRecurso.values().length);
+    private final BitmapCompacto[] porCategoria = nuevosBitmaps(CategoriaRecurso.values().length);
+    private final BitmapCompacto[][] porGrupoNumerico = new BitmapCompacto[CAMPOS.length][];
+    private RecursoDigital[] referencias = new RecursoDigital[64];
+    private int[][] valoresNumericos = new int[CAMPOS.length][64];
+    private int filas;
+
+    IndiceRecursos() {
+        for (int campo = 0; campo < CAMPOS.length; campo++) {
+            porGrupoNumerico[campo] = nuevosBitmaps(GRUPOS_NUMERICOS);
+        }
+    }
+
+    /**
+     * Indexa un recurso
+     *
+     * @param recurso    Recurso del que se leen los atributos
+     * @param referencia Objeto que se devuelve en las consultas
+     */
+    void agregar(RecursoDigital recurso, RecursoDigital referencia) {
+        lock.writeLock().lock();
+        try {
+            Integer anterior = filasPorId.get(recurso.getIdentificador());
+            if (anterior != null) {
+                quitarFila(anterior);
+            }
+
+            int fila = filas++;
+            if (fila == referencias.length) {
+                referencias = Arrays.copyOf(referencias, fila * 2);
+                for (int campo = 0; campo < CAMPOS.length; campo++) {
+                    valoresNumericos[campo] = Arrays.copyOf(valoresNumericos[campo], fila * 2);
+                }
+            }
+
+            referencias[fila] = referencia;
+            filasPorId.put(recurso.getIdentificador(), fila);
+            vivas.agregar(fila);
+            porTipo[recurso.getTipo().ordinal()].agregar(fila);
+            CategoriaRecurso categoria = recurso.getCategoria();
+            porCategoria[(categoria == null ? CategoriaRecurso.SIN_CATEGORIA : categoria).ordinal()].agregar(fila);
+
+            if (recurso instanceof Libro) {
+                indexarNumero(CampoNumerico.NUM_PAGINAS, fila, ((Libro) recurso).getNumPaginas());
+            } else if (recurso instanceof Audiolibro) {
+                indexarNumero(CampoNumerico.DURACION_MINUTOS, fila, ((Audiolibro) recurso).getDuracionMinutos());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void quitar(String identificador) {
+        lock.writeLock().lock();
+        try {
+            Integer fila = filasPorId.remove(identificador);
+            if (fila != null) {
+                quitarFila(fila);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    List<RecursoDigital> consultar(FiltroRecursos filtro) {
+        lock.readLock().lock();
+        try {
+            BitmapCompacto resultado = filtro.evaluar(this, vivas);
+            List<RecursoDigital> recursos = new ArrayList<>(resultado.cardinalidad());
+            resultado.paraCada(fila -> recursos.add(referencias[fila]));
+            return recursos;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int contar(FiltroRecursos filtro) {
+        lock.readLock().lock();
+        try {
+            return filtro.evaluar(this, vivas).cardinalidad();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    BitmapCompacto filasPorTipo(TipoRecurso[] tipos) {
+        BitmapCompacto resultado = new BitmapCompacto();
+        for (TipoRecurso tipo : tipos) {
+            resultado = resultado.o(porTipo[tipo.ordinal()]);
+        }
+        return resultado;
+    }
+
+    BitmapCompacto filasPorCategoria(CategoriaRecurso[] categorias) {
+        BitmapCompacto resultado = new BitmapCompacto();
+        for (CategoriaRecurso categoria : categorias) {
+            resultado = resultado.o(porCategoria[categoria.ordinal()]);
+        }
+        return resultado;
+    }
+
+    BitmapCompacto filasEnRango(CampoNumerico campo, int minimo, int maximo) {
+        BitmapCompacto resultado = new BitmapCompacto();
+        int[] valores = valoresNumericos[campo.ordinal()];
+        int[] bordes = new int[16];
+        int cantidadBordes = 0;
+
+        for (int grupo = 0; grupo < GRUPOS_NUMERICOS; grupo++) {
+            long desde = grupo == 0 ? Integer.MIN_VALUE : 1L << (grupo - 1);
+            long hasta = grupo == 0 ? 0 : (1L << grupo) - 1;
+            BitmapCompacto filasGrupo = porGrupoNumerico[campo.ordinal()][grupo];
+
+            if (hasta < minimo || desde > maximo || filasGrupo.estaVacio()) {
+                continue;
+            }
+            if (desde >= minimo && hasta <= maximo) {
+                resultado = resultado.o(filasGrupo);
+            } else {
+                int[] filasBorde = filasGrupo.aArreglo();
+                for (int fila : filasBorde) {
+                    if (valores[fila] >= minimo && valores[fila] <= maximo) {
+                        if (cantidadBordes == bordes.length) {
+                            bordes = Arrays.copyOf(bordes, cantidadBordes * 2);
+                        }
+                        bordes[cantidadBordes++] = fila;
+                    }
+                }
+            }
+        }
+
+        // Los bordes vienen de dos grupos a lo sumo, cada uno en orden
+        Arrays.sort(bordes, 0, cantidadBordes);
+        return resultado.o(BitmapCompacto.deOrdenados(bordes, cantidadBordes));
+    }
+
+    BitmapCompacto filtrarPorEstado(BitmapCompacto candidatos, EnumSet<EstadoRecurso> estados) {
+        int[] filasCandidatas = candidatos.aArreglo();
+        int cantidad = 0;
+        for (int fila : filasCandidatas) {
+            if (estados.contains(referencias[fila].getEstado())) {
+                filasCandidatas[cantidad++] = fila;
+            }
+        }
+        return BitmapCompacto.deOrdenados(filasCandidatas, cantidad);
+    }
+
+    private void indexarNumero(CampoNumerico campo, int fila, int valor) {
+        valoresNumericos[campo.ordinal()][fila] = valor;
+        porGrupoNumerico[campo.ordinal()][grupoNumerico(valor)].agregar(fila);
+    }
+
+    private void quitarFila(int fila) {
+        vivas.quitar(fila);
+        for (BitmapCompacto bitmap : porTipo) {
+            bitmap.quitar(fila);
+        }
+        for (BitmapCompacto bitmap : porCategoria) {
+            bitmap.quitar(fila);
+        }
+        for (int campo = 0; campo < CAMPOS.length; campo++) {
+            porGrupoNumerico[campo][grupoNumerico(valoresNumericos[campo][fila])].quitar(fila);
+        }
+        referencias[fila] = null;
+    }
+
+    private static int grupoNumerico(int valor) {
+        return valor <= 0 ? 0 : 32 - Integer.numberOfLeadingZeros(valor);
+    }
+
+    private static BitmapCompacto[] nuevosBitmaps(int cantidad) {
+        BitmapCompacto[] bitmaps = new BitmapCompacto[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            bitmaps[i] = new BitmapCompacto();
+        }
+        return bitmaps;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,334 @@
+package app.biblioteca.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import app.biblioteca.interfaces.RecursoDigital;
+
+/**
+ * Índice de trigramas de títulos para la búsqueda con errores de tipeo de
+ * {@link GestorRecursos#buscarRecursosPorTituloAproximado}.
+ *
+ * Los títulos se normalizan como en {@link Autocompletado} y cada título
+ * distinto se guarda una vez con los recursos que lo usan. Una edición
+ * (inserción, borrado, reemplazo o transposición de letras vecinas) altera a
+ * lo sumo {@value #TRIGRAMAS_POR_EDICION} trigramas, de modo que un título a
+ * distancia {@code k} comparte con la consulta al menos
+ * {@code trigramas(consulta) - 4k} de ellos. Los candidatos salen de las
+ * listas de trigramas más cortas y la distancia se calcula solo sobre los
+ * que alcanzan ese mínimo y tienen una longitud compatible. Si el mínimo no es
+ * positivo (consultas cortas con distancia alta), se revisan directamente los
+ * títulos de longitud compatible, que en ese caso son cortos.
+ */
+final class IndiceTitulos {
+    private static final int TRIGRAMAS_POR_EDICION = 4;
+    private static final char BORDE = '\u0001';
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> terminosPorTitulo = new HashMap<>();
+    private final Map<String, Integer> terminosPorId = new HashMap<>();
+    private final TablaTrigramas listasPorTrigrama = new TablaTrigramas();
+    private final List<ListaEnteros> terminosPorLongitud = new ArrayList<>();
+    private final List<String> titulos = new ArrayList<>();
+    private final List<List<RecursoDigital>> recursosPorTermino = new ArrayList<>();
+    // Contadores por término de cada consulta; se vuelven a cero al terminar
+    private final ThreadLocal<int[]> coincidencias = ThreadLocal.withInitial(() -> new int[0]);
+
+    void agregar(RecursoDigital recurso, RecursoDigital referencia) {
+        String titulo = Autocompletado.normalizar(recurso.getTitulo());
+
+        lock.writeLock().lock();
+        try {
+            quitarConLock(recurso.getIdentificador());
+
+            Integer termino = terminosPorTitulo.get(titulo);
+            if (termino == null) {
+                termino = titulos.size();
+                titulos.add(titulo);
+                recursosPorTermino.add(new ArrayList<>(1));
+                terminosPorTitulo.put(titulo, termino);
+                for (long trigrama : trigramas(titulo)) {
+                    listasPorTrigrama.obtenerOCrear(trigrama).agregar(termino);
+                }
+                while (terminosPorLongitud.size() <= titulo.length()) {
+                    terminosPorLongitud.add(new ListaEnteros());
+                }
+                terminosPorLongitud.get(titulo.length()).agregar(termino);
+            }
+            recursosPorTermino.get(termino).add(referencia);
+            terminosPorId.put(recurso.getIdentificador(), termino);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void quitar(String identificador) {
+        lock.writeLock().lock();
+        try {
+            quitarConLock(identificador);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Recursos cuyo título normalizado está a lo sumo a la distancia indicada
+     * del texto buscado, de menor a mayor distancia y luego por título
+     */
+    List<RecursoDigital> buscar(String texto, int distanciaMaxima) {
+        String consulta = Autocompletado.normalizar(texto);
+        if (consulta.isEmpty() || distanciaMaxima < 0) {
+            return new ArrayList<>();
+        }
+
+        lock.readLock().lock();
+        try {
+            List<int[]> encontrados = new ArrayList<>();
+            long[] trigramasConsulta = trigramas(consulta);
+            int minimo = trigramasConsulta.length - TRIGRAMAS_POR_EDICION * distanciaMaxima;
+            int longitudMinima = Math.max(1, consulta.length() - distanciaMaxima);
+            int longitudMaxima = Math.min(terminosPorLongitud.size() - 1, consulta.length() + distanciaMaxima);
+
+            if (minimo <= 0) {
+                for (int longitud = longitudMinima; longitud <= longitudMaxima; longitud++) {
+                    ListaEnteros terminos = terminosPorLongitud.get(longitud);
+                    for (int i = 0; i < terminos.cantidad; i++) {
+                        verificar(consulta, terminos.valores[i], distanciaMaxima, encontrados);
+                    }
+                }
+            } else {
+                int[] contadores = coincidencias.get();
+                if (contadores.length < titulos.size()) {
+                    contadores = new int[Math.max(titulos.size(), contadores.length * 2)];
+                    coincidencias.set(contadores);
+                }
+                ListaEnteros[] listas = new ListaEnteros[trigramasConsulta.length];
+                int cantidadListas = 0;
+                for (long trigrama : trigramasConsulta) {
+                    ListaEnteros terminos = listasPorTrigrama.obtener(trigrama);
+                    if (terminos != null) {
+                        listas[cantidadListas++] = terminos;
+                    }
+                }
+                Arrays.sort(listas, 0, cantidadListas, Comparator.comparingInt(lista -> lista.cantidad));
+
+                // Un título con al menos `minimo` trigramas en común aparece en
+                // alguna de las listas más cortas que quedan fuera de ese mínimo;
+                // solo esas se recorren y las demás se consultan por candidato
+                int generadoras = Math.min(cantidadListas, trigramasConsulta.length - minimo + 1);
+                ListaEnteros tocados = new ListaEnteros();
+                for (int l = 0; l < generadoras; l++) {
+                    ListaEnteros terminos = listas[l];
+                    for (int i = 0; i < terminos.cantidad; i++) {
+                        int termino = terminos.valores[i];
+                        int longitud = titulos.get(termino).length();
+                        if (longitud < longitudMinima || longitud > longitudMaxima) {
+                            continue;
+                        }
+                        if (contadores[termino]++ == 0) {
+                            tocados.agregar(termino);
+                        }
+                    }
+                }
+
+                for (int i = 0; i < tocados.cantidad; i++) {
+                    int termino = tocados.valores[i];
+                    int comunes = contadores[termino];
+                    for (int l = generadoras; l < cantidadListas && comunes < minimo
+                            && comunes + cantidadListas - l >= minimo; l++) {
+                        if (listas[l].contiene(termino)) {
+                            comunes++;
+                        }
+                    }
+                    if (comunes >= minimo) {
+                        verificar(consulta, termino, distanciaMaxima, encontrados);
+                    }
+                    contadores[termino] = 0;
+                }
+            }
+
+            encontrados.sort(Comparator.<int[]>comparingInt(e -> e[1]).thenComparing(e -> titulos.get(e[0])));
+            List<RecursoDigital> resultados = new ArrayList<>();
+            for (int[] encontrado : encontrados) {
+                resultados.addAll(recursosPorTermino.get(encontrado[0]));
+            }
+            return resultados;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void verificar(String consulta, int termino, int distanciaMaxima, List<int[]> encontrados) {
+        if (recursosPorTermino.get(termino).isEmpty()) {
+            return;
+        }
+        int distancia = distancia(consulta, titulos.get(termino), distanciaMaxima);
+        if (distancia <= distanciaMaxima) {
+            encontrados.add(new int[] { termino, distancia });
+        }
+    }
+
+    private void quitarConLock(String identificador) {
+        Integer termino = terminosPorId.remove(identificador);
+        if (termino != null) {
+            // Los términos sin recursos quedan en las listas y se descartan al
+            // verificar; se reutilizan si vuelve a agregarse el mismo título
+            recursosPorTermino.get(termino).removeIf(r -> r.getIdentificador().equals(identificador));
+        }
+    }
+
+    /**
+     * Distancia de edición con transposiciones de letras vecinas (alineamiento
+     * óptimo de cadenas). Solo calcula la banda de ancho {@code 2 * maximo + 1}
+     * alrededor de la diagonal y corta apenas una fila supera el máximo.
+     *
+     * @return La distancia, o {@code maximo + 1} si es mayor que el máximo
+     */
+    static int distancia(String a, String b, int maximo) {
+        if (Math.abs(a.length() - b.length()) > maximo) {
+            return maximo + 1;
+        }
+        int infinito = maximo + 1;
+        int[] anterior2 = new int[b.length() + 1];
+        int[] anterior = new int[b.length() + 1];
+        int[] actual = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            anterior[j] = Math.min(j, infinito);
+        }
+
+        for (int i = 1; i <= a.length(); i++) {
+            int desde = Math.max(1, i - maximo);
+            int hasta = Math.min(b.length(), i + maximo);
+            Arrays.fill(actual, infinito);
+            actual[0] = Math.min(i, infinito);
+            int minimoFila = actual[0];
+
+            for (int j = desde; j <= hasta; j++) {
+                int costo = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int valor = Math.min(anterior[j - 1] + costo, Math.min(anterior[j], actual[j - 1]) + 1);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    valor = Math.min(valor, anterior2[j - 2] + 1);
+                }
+                actual[j] = Math.min(valor, infinito);
+                minimoFila = Math.min(minimoFila, actual[j]);
+            }
+            if (minimoFila > maximo) {
+                return infinito;
+            }
+
+            int[] libre = anterior2;
+            anterior2 = anterior;
+            anterior = actual;
+            actual = libre;
+        }
+        return anterior[b.length()];
+    }
+
+    /**
+     * Trigramas distintos del texto con dos marcas de borde a cada lado,
+     * codificados en un long
+     */
+    private static long[] trigramas(String texto) {
+        String conBordes = "" + BORDE + BORDE + texto + BORDE + BORDE;
+        long[] trigramas = new long[conBordes.length() - 2];
+        for (int i = 0; i < trigramas.length; i++) {
+            trigramas[i] = ((long) conBordes.charAt(i) << 32) | ((long) conBordes.charAt(i + 1) << 16)
+                    | conBordes.charAt(i + 2);
+        }
+        Arrays.sort(trigramas);
+        int distintos = 0;
+        for (int i = 0; i < trigramas.length; i++) {
+            if (i == 0 || trigramas[i] != trigramas[i - 1]) {
+                trigramas[distintos++] = trigramas[i];
+            }
+        }
+        return Arrays.copyOf(trigramas, distintos);
+    }
+
+    private static final class ListaEnteros {
+        private int[] valores = new int[4];
+        private int cantidad;
+
+        void agregar(int valor) {
+            if (cantidad == valores.length) {
+                valores = Arrays.copyOf(valores, cantidad * 2);
+            }
+            valores[cantidad++] = valor;
+        }
+
+        /**
+         * Los términos se agregan en orden creciente, por lo que la lista
+         * está ordenada
+         */
+        boolean contiene(int valor) {
+            return Arrays.binarySearch(valores, 0, cantidad, valor) >= 0;
+        }
+    }
+
+    /**
+     * Tabla hash de direccionamiento abierto de trigrama a lista de términos,
+     * sin objetos por clave. Ningún trigrama codificado vale 0, que marca las
+     * posiciones libres.
+     */
+    private static final class TablaTrigramas {
+        private long[] claves = new long[1024];
+        private ListaEnteros[] listas = new ListaEnteros[1024];
+        private int cantidad;
+
+        ListaEnteros obtener(long trigrama) {
+            int mascara = claves.length - 1;
+            for (int i = posicion(trigrama, mascara); claves[i] != 0; i = (i + 1) & mascara) {
+                if (claves[i] == trigrama) {
+                    return listas[i];
+                }
+            }
+            return null;
+        }
+
+        ListaEnteros obtenerOCrear(long trigrama) {
+            int mascara = claves.length - 1;
+            int i = posicion(trigrama, mascara);
+            while (claves[i] != 0) {
+                if (claves[i] == trigrama) {
+                    return listas[i];
+                }
+                i = (i + 1) & mascara;
+            }
+
+            ListaEnteros lista = new ListaEnteros();
+            claves[i] = trigrama;
+            listas[i] = lista;
+            if (++cantidad * 2 > claves.length) {
+                crecer();
+            }
+            return lista;
+        }
+
+        private void crecer() {
+            long[] clavesAnteriores = claves;
+            ListaEnteros[] listasAnteriores = listas;
+            claves = new long[clavesAnteriores.length * 2];
+            listas = new ListaEnteros[clavesAnteriores.length * 2];
+            int mascara = claves.length - 1;
+            for (int j = 0; j < clavesAnteriores.length; j++) {
+                if (clavesAnteriores[j] != 0) {
+                    int i = posicion(clavesAnteriores[j], mascara);
+                    while (claves[i] != 0) {
+                        i = (i + 1) & mascara;
+                    }
+                    claves[i] = clavesAnteriores[j];
+                    listas[i] = listasAnteriores[j];
+                }
+            }
+        }
+
+        private static int posicion(long trigrama, int mascara) {
+            return (int) ((trigrama * 0x9E3779B97F4A7C15L) >>> 32) & mascara;
+        }
+    }
+}
\ No newline at end of file
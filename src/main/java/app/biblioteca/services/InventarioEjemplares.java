@@ -0,0 +1,303 @@
+package app.biblioteca.services;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import app.biblioteca.interfaces.RecursoDigital;
+import app.biblioteca.models.EstadoRecurso;
+import app.biblioteca.models.Usuario;
+
+/**
+ * Ejemplares físicos de cada título del catálogo, o licencias de préstamo
+ * simultáneo de los audiolibros (ver {@link PoolLicencias}). Un recurso sin ejemplares
+ * agregados es un único ejemplar cuyo estado lleva {@link SistemaPrestamos}
+ * como hasta ahora; al agregarle ejemplares, el recurso pasa a representar
+ * al título y su estado se calcula a partir de estos contadores.
+ *
+ * Cada título lleva la cantidad de ejemplares libres, que un préstamo toma
+ * con un decremento atómico, y los ejemplares apartados para reservas. Un
+ * ejemplar devuelto mientras hay reservas en espera no vuelve a quedar
+ * libre: queda retenido hasta que {@link SistemaReservas} lo aparta para la
+ * reserva de mayor prioridad. Consultar la disponibilidad cuesta O(1) sin
+ * importar la cantidad de ejemplares.
+ *
+ * Las existencias están en un arreglo indexado por el índice denso del
+ * recurso, como las cuotas de {@link ControlCuotas}.
+ */
+public class InventarioEjemplares {
+    private volatile Existencias[] existencias = new Existencias[64];
+    private volatile SistemaReservas sistemaReservas;
+
+    /**
+     * Agrega ejemplares al título. La primera vez cuenta también el ejemplar
+     * que el recurso ya representaba, por lo que agregar 0 deja al título
+     * con un único ejemplar llevado por el inventario.
+     *
+     * @return Total de ejemplares del título
+     */
+    public int agregarEjemplares(RecursoDigital recurso, int cantidad) {
+        if (cantidad < 0) {
+            throw new IllegalArgumentException("La cantidad de ejemplares no puede ser negativa: " + cantidad);
+        }
+
+        // Las reservas del recurso único pasan a esperar ejemplares; la
+        // conversión se hace con la cola de reservas bloqueada
+        SistemaReservas reservas = sistemaReservas;
+        if (reservas != null && !tieneEjemplares(recurso)) {
+            return reservas.convertirEnTitulo(recurso, cantidad);
+        }
+        return agregarEjemplares(recurso, cantidad, null, 0);
+    }
+
+    /**
+     * Agrega ejemplares al título. Si el recurso todavía no tenía, el
+     * ejemplar que representaba queda apartado para {@code apartado}, si no
+     * es null, y otras {@code enEspera} reservas quedan esperando ejemplares.
+     *
+     * @return Total de ejemplares del título
+     */
+    synchronized int agregarEjemplares(RecursoDigital recurso, int cantidad, Usuario apartado, int enEspera) {
+        int indice = recurso.getIndice();
+        Existencias[] actuales = existencias;
+        if (indice >= actuales.length) {
+            actuales = Arrays.copyOf(actuales, Math.max(indice + 1, actuales.length * 2));
+        }
+        Existencias titulo = actuales[indice];
+        if (titulo == null) {
+            titulo = new Existencias();
+            titulo.total = 1;
+            titulo.enEspera = enEspera;
+            // Un único ejemplar prestado sigue prestado, y uno reservado sigue
+            // apartado para su reserva; si no, pasa a estar libre
+            if (apartado != null) {
+                titulo.apartados.add(apartado.getIndice());
+            } else {
+                titulo.disponibles.set(recurso.getEstado() == EstadoRecurso.PRESTADO ? 0 : 1);
+            }
+            actuales[indice] = titulo;
+            existencias = actuales;
+        }
+
+        synchronized (titulo) {
+            titulo.total += cantidad;
+        }
+        liberar(recurso, titulo, cantidad);
+        return titulo.total;
+    }
+
+    /**
+     * Registra las reservas del catálogo, para que al agregar ejemplares a un
+     * recurso único sus reservas conserven su lugar
+     */
+    void setSistemaReservas(SistemaReservas sistemaReservas) {
+        this.sistemaReservas = sistemaReservas;
+    }
+
+    /**
+     * Indica si el recurso tiene ejemplares agregados y su estado lo lleva
+     * este inventario
+     */
+    public boolean tieneEjemplares(RecursoDigital recurso) {
+        return existenciasDe(recurso) != null;
+    }
+
+    /**
+     * Cantidad de ejemplares del título; 1 si no se le agregaron ejemplares
+     */
+    public int total(RecursoDigital recurso) {
+        Existencias titulo = existenciasDe(recurso);
+        return titulo == null ? 1 : titulo.total;
+    }
+
+    /**
+     * Cantidad de ejemplares libres para prestar
+     */
+    public int disponibles(RecursoDigital recurso) {
+        Existencias titulo = existenciasDe(recurso);
+        if (titulo == null) {
+            return recurso.estaDisponible() ? 1 : 0;
+        }
+        return titulo.disponibles.get();
+    }
+
+    /**
+     * Indica si el usuario puede llevarse un ejemplar: uno libre o uno
+     * apartado para él
+     */
+    boolean hayEjemplarPara(RecursoDigital recurso, Usuario usuario) {
+        Existencias titulo = existenciasDe(recurso);
+        return titulo.disponibles.get() > 0 || titulo.apartados.contains(usuario.getIndice());
+    }
+
+    /**
+     * Toma un ejemplar para prestarlo al usuario: el que tenga apartado o,
+     * si no tiene, cualquiera libre
+     *
+     * @return false si no quedaba ninguno
+     */
+    boolean tomar(RecursoDigital recurso, Usuario usuario) {
+        Existencias titulo = existenciasDe(recurso);
+        if (titulo.apartados.remove(usuario.getIndice())) {
+            actualizarEstado(recurso, titulo);
+            return true;
+        }
+
+        while (true) {
+            int libres = titulo.disponibles.get();
+            if (libres == 0) {
+                return false;
+            }
+            if (titulo.disponibles.compareAndSet(libres, libres - 1)) {
+                if (libres == 1) {
+                    actualizarEstado(recurso, titulo);
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Devuelve un ejemplar. Si hay reservas en espera queda retenido para
+     * ellas; si no, vuelve a estar libre.
+     */
+    void devolver(RecursoDigital recurso) {
+        liberar(recurso, existenciasDe(recurso), 1);
+    }
+
+    /**
+     * Registra una reserva nueva: le aparta un ejemplar libre si lo hay o la
+     * deja en espera del próximo que se devuelva. Cada usuario tiene a lo
+     * sumo una reserva activa por título (lo controla {@link SistemaReservas}),
+     * así que los apartados se llevan por usuario.
+     *
+     * @return true si se le apartó un ejemplar
+     */
+    boolean reservar(RecursoDigital recurso, Usuario usuario) {
+        Existencias titulo = existenciasDe(recurso);
+        synchronized (titulo) {
+            int libres = titulo.disponibles.get();
+            while (libres > 0 && !titulo.disponibles.compareAndSet(libres, libres - 1)) {
+                libres = titulo.disponibles.get();
+            }
+            if (libres == 0) {
+                titulo.enEspera++;
+                return false;
+            }
+            titulo.apartados.add(usuario.getIndice());
+        }
+        actualizarEstado(recurso, titulo);
+        return true;
+    }
+
+    /**
+     * Aparta para el usuario un ejemplar retenido para las reservas en espera
+     *
+     * @return false si no hay ejemplares retenidos
+     */
+    boolean apartarRetenido(RecursoDigital recurso, Usuario usuario) {
+        Existencias titulo = existenciasDe(recurso);
+        synchronized (titulo) {
+            if (titulo.retenidos == 0) {
+                return false;
+            }
+            titulo.apartados.add(usuario.getIndice());
+            titulo.retenidos--;
+            titulo.enEspera--;
+            return true;
+        }
+    }
+
+    /**
+     * Quita una reserva de la espera, porque se canceló o se atendió con un
+     * ejemplar libre. Si sobran ejemplares retenidos, se liberan.
+     */
+    void dejarDeEsperar(RecursoDigital recurso) {
+        Existencias titulo = existenciasDe(recurso);
+        boolean sobrante;
+        synchronized (titulo) {
+            titulo.enEspera = Math.max(0, titulo.enEspera - 1);
+            sobrante = titulo.retenidos > titulo.enEspera;
+            if (sobrante) {
+                titulo.retenidos--;
+            }
+        }
+        if (sobrante) {
+            liberar(recurso, titulo, 1);
+        }
+    }
+
+    /**
+     * Libera el ejemplar apartado para el usuario, si tenía uno. Pasa a la
+     * siguiente reserva en espera o vuelve a estar libre.
+     */
+    void liberarApartado(RecursoDigital recurso, Usuario usuario) {
+        Existencias titulo = existenciasDe(recurso);
+        if (titulo.apartados.remove(usuario.getIndice())) {
+            liberar(recurso, titulo, 1);
+        }
+    }
+
+    /**
+     * Olvida los ejemplares de un recurso eliminado del catálogo
+     */
+    synchronized void eliminar(RecursoDigital recurso) {
+        int indice = recurso.getIndice();
+        if (indice < existencias.length) {
+            existencias[indice] = null;
+        }
+    }
+
+    private void liberar(RecursoDigital recurso, Existencias titulo, int cantidad) {
+        // Se liberan bajo el mismo monitor que decide cuántos retener, para
+        // que una reserva que entra en espera no los vea todavía ocupados
+        synchronized (titulo) {
+            int retener = Math.min(cantidad, titulo.enEspera - titulo.retenidos);
+            if (retener > 0) {
+                titulo.retenidos += retener;
+            }
+            int libres = cantidad - Math.max(0, retener);
+            if (libres > 0) {
+                titulo.disponibles.addAndGet(libres);
+            }
+        }
+        actualizarEstado(recurso, titulo);
+    }
+
+    private Existencias existenciasDe(RecursoDigital recurso) {
+        int indice = recurso.getIndice();
+        Existencias[] actuales = existencias;
+        return indice < actuales.length ? actuales[indice] : null;
+    }
+
+    /**
+     * Deriva el estado del título de sus contadores. Si otro hilo cambió los
+     * contadores mientras tanto, vuelve a escribirlo, de modo que la última
+     * escritura siempre corresponde a los contadores vigentes.
+     */
+    private static void actualizarEstado(RecursoDigital recurso, Existencias titulo) {
+        EstadoRecurso estado;
+        do {
+            estado = titulo.estado();
+            recurso.actualizarEstado(estado);
+        } while (estado != titulo.estado());
+    }
+
+    private static final class Existencias {
+        private final AtomicInteger disponibles = new AtomicInteger();
+        // Índices de los usuarios con un ejemplar apartado por reserva
+        private final Set<Integer> apartados = ConcurrentHashMap.newKeySet();
+        // Protegidos por el monitor de las existencias
+        private volatile int total;
+        private volatile int enEspera;
+        private volatile int retenidos;
+
+        EstadoRecurso estado() {
+            if (disponibles.get() > 0) {
+                return EstadoRecurso.DISPONIBLE;
+            }
+            return retenidos > 0 || !apartados.isEmpty() ? EstadoRecurso.RESERVADO : EstadoRecurso.PRESTADO;
+        }
+    }
+}
\ No newline at end of file
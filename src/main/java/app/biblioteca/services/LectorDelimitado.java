@@ -0,0 +1,258 @@
+package app.biblioteca.services;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Lectura en paralelo de archivos delimitados (CSV, TSV o separados por
+ * punto y coma) para las importaciones masivas.
+ *
+ * El archivo se divide en bloques de bytes que se mapean en memoria y se
+ * procesan como tareas de un {@link ForkJoinPool}. Cada bloque procesa las
+ * líneas que empiezan dentro de él: si no arranca al principio de una línea
+ * saltea hasta la siguiente, y la última puede terminar en el bloque vecino.
+ * Los elementos se devuelven en el orden del archivo.
+ *
+ * El separador es la tabulación si aparece en la primera línea, si no el
+ * punto y coma, y si tampoco aparece, la coma. Los campos pueden ir entre
+ * comillas dobles, con {@code ""} para una comilla dentro del campo, pero no
+ * pueden contener saltos de línea.
+ */
+final class LectorDelimitado {
+    private static final long TAMANIO_BLOQUE = 16L * 1024 * 1024;
+    private static final long TAMANIO_MINIMO_BLOQUE = 256L * 1024;
+    // Una línea puede seguir hasta esta cantidad de bytes después de su bloque
+    private static final int LARGO_MAXIMO_LINEA = 1024 * 1024;
+
+    private LectorDelimitado() {
+    }
+
+    /**
+     * Convierte cada línea no vacía del archivo con la función indicada
+     *
+     * @param archivo    Archivo a leer
+     * @param encabezado Nombre de la primera columna; si el primer campo de
+     *                   la primera línea es ese nombre, la línea se saltea
+     * @param convertir  Convierte los campos de una línea; devuelve
+     *                   {@code null} o lanza una excepción si no son válidos
+     * @param invalidas  Acumula la cantidad de líneas no válidas
+     * @return Elementos convertidos, en el orden del archivo
+     */
+    static <T> List<T> leer(Path archivo, String encabezado, Function<String[], T> convertir, LongAdder invalidas)
+            throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            long tamanio = canal.size();
+            if (tamanio == 0) {
+                return new ArrayList<>();
+            }
+
+            char separador = detectarSeparador(canal);
+            int paralelismo = ForkJoinPool.commonPool().getParallelism();
+            long bloque = Math.max(TAMANIO_MINIMO_BLOQUE, Math.min(TAMANIO_BLOQUE, tamanio / (paralelismo * 4L)));
+            Tarea<T> tarea = new Tarea<>(canal, tamanio, 0, tamanio, bloque, separador, encabezado, convertir,
+                    invalidas);
+            try {
+                return ForkJoinPool.commonPool().invoke(tarea);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    private static char detectarSeparador(FileChannel canal) throws IOException {
+        MappedByteBuffer inicio = canal.map(FileChannel.MapMode.READ_ONLY, 0,
+                Math.min(canal.size(), LARGO_MAXIMO_LINEA));
+        boolean puntoYComa = false;
+        while (inicio.hasRemaining()) {
+            byte b = inicio.get();
+            if (b == '\n') {
+                break;
+            }
+            if (b == '\t') {
+                return '\t';
+            }
+            puntoYComa |= b == ';';
+        }
+        return puntoYComa ? ';' : ',';
+    }
+
+    /**
+     * Separa una línea en campos, quitando espacios alrededor de los campos
+     * sin comillas
+     */
+    static String[] separar(String linea, char separador) {
+        List<String> campos = new ArrayList<>(8);
+        StringBuilder campo = null;
+        int i = 0;
+
+        while (i <= linea.length()) {
+            while (i < linea.length() && linea.charAt(i) == ' ') {
+                i++;
+            }
+            if (i < linea.length() && linea.charAt(i) == '"') {
+                campo = campo == null ? new StringBuilder() : campo;
+                campo.setLength(0);
+                i++;
+                while (i < linea.length()) {
+                    char c = linea.charAt(i++);
+                    if (c == '"') {
+                        if (i < linea.length() && linea.charAt(i) == '"') {
+                            campo.append('"');
+                            i++;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        campo.append(c);
+                    }
+                }
+                while (i < linea.length() && linea.charAt(i) != separador) {
+                    i++;
+                }
+                campos.add(campo.toString());
+            } else {
+                int fin = linea.indexOf(separador, i);
+                if (fin < 0) {
+                    fin = linea.length();
+                }
+                campos.add(linea.substring(i, fin).trim());
+                i = fin;
+            }
+            i++;
+        }
+        return campos.toArray(new String[0]);
+    }
+
+    // Solo se ejecuta en el ForkJoinPool, nunca se serializa
+    @SuppressWarnings("serial")
+    private static final class Tarea<T> extends RecursiveTask<List<T>> {
+        private final FileChannel canal;
+        private final long tamanioArchivo;
+        private final long desde;
+        private final long hasta;
+        private final long bloque;
+        private final char separador;
+        private final String encabezado;
+        private final Function<String[], T> convertir;
+        private final LongAdder invalidas;
+
+        Tarea(FileChannel canal, long tamanioArchivo, long desde, long hasta, long bloque, char separador,
+                String encabezado, Function<String[], T> convertir, LongAdder invalidas) {
+            this.canal = canal;
+            this.tamanioArchivo = tamanioArchivo;
+            this.desde = desde;
+            this.hasta = hasta;
+            this.bloque = bloque;
+            this.separador = separador;
+            this.encabezado = encabezado;
+            this.convertir = convertir;
+            this.invalidas = invalidas;
+        }
+
+        @Override
+        protected List<T> compute() {
+            if (hasta - desde > bloque) {
+                long medio = desde + (hasta - desde) / 2;
+                Tarea<T> izquierda = new Tarea<>(canal, tamanioArchivo, desde, medio, bloque, separador, encabezado,
+                        convertir, invalidas);
+                Tarea<T> derecha = new Tarea<>(canal, tamanioArchivo, medio, hasta, bloque, separador, encabezado,
+                        convertir, invalidas);
+                derecha.fork();
+                List<T> resultado = izquierda.compute();
+                resultado.addAll(derecha.join());
+                return resultado;
+            }
+
+            try {
+                return leerBloque();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private List<T> leerBloque() throws IOException {
+            // Se mapea desde el byte anterior para saber si el bloque empieza
+            // al principio de una línea
+            long inicioMapeo = Math.max(0, desde - 1);
+            long finMapeo = Math.min(tamanioArchivo, hasta + LARGO_MAXIMO_LINEA);
+            MappedByteBuffer datos = canal.map(FileChannel.MapMode.READ_ONLY, inicioMapeo, finMapeo - inicioMapeo);
+            int limite = (int) (hasta - inicioMapeo);
+            int posicion = (int) (desde - inicioMapeo);
+            List<T> elementos = new ArrayList<>();
+
+            if (desde > 0) {
+                while (datos.get(posicion - 1) != '\n') {
+                    if (++posicion >= limite) {
+                        return elementos;
+                    }
+                }
+            } else if (datos.limit() >= 3 && (datos.get(0) & 0xFF) == 0xEF && (datos.get(1) & 0xFF) == 0xBB
+                    && (datos.get(2) & 0xFF) == 0xBF) {
+                posicion = 3;
+            }
+
+            // La última línea del bloque termina en el primer salto desde el
+            // último byte del bloque, que puede estar en el bloque siguiente
+            int fin = limite - 1;
+            while (fin < datos.limit() && datos.get(fin) != '\n') {
+                fin++;
+            }
+            if (fin == datos.limit() && finMapeo < tamanioArchivo) {
+                throw new IOException("Línea de más de " + LARGO_MAXIMO_LINEA + " bytes cerca de la posición "
+                        + hasta);
+            }
+            fin = Math.min(fin + 1, datos.limit());
+
+            // Se decodifica el bloque entero de una vez, que es mucho más
+            // rápido que hacerlo línea por línea
+            byte[] bytes = new byte[fin - posicion];
+            datos.get(posicion, bytes);
+            String contenido = new String(bytes, StandardCharsets.UTF_8);
+            boolean primeraLinea = desde == 0;
+
+            for (int inicioLinea = 0; inicioLinea < contenido.length();) {
+                int finLinea = contenido.indexOf('\n', inicioLinea);
+                if (finLinea < 0) {
+                    finLinea = contenido.length();
+                }
+                int finTexto = finLinea > inicioLinea && contenido.charAt(finLinea - 1) == '\r' ? finLinea - 1
+                        : finLinea;
+                String texto = contenido.substring(inicioLinea, finTexto);
+                inicioLinea = finLinea + 1;
+                if (texto.isBlank()) {
+                    continue;
+                }
+                String[] campos = separar(texto, separador);
+                if (primeraLinea && campos[0].equalsIgnoreCase(encabezado)) {
+                    primeraLinea = false;
+                    continue;
+                }
+                primeraLinea = false;
+
+                T elemento;
+                try {
+                    elemento = convertir.apply(campos);
+                } catch (RuntimeException e) {
+                    elemento = null;
+                }
+                if (elemento == null) {
+                    invalidas.increment();
+                } else {
+                    elementos.add(elemento);
+                }
+            }
+            return elementos;
+        }
+    }
+}
\ No newline at end of file
@@ -1,19 +1,39 @@
 package app.biblioteca.services;
 
-import java.util.List;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
+import app.biblioteca.interfaces.ObservadorBiblioteca;
 import app.biblioteca.interfaces.RecursoDigital;
+import app.biblioteca.logging.RegistroEventos;
 import app.biblioteca.models.EstadoRecurso;
+import app.biblioteca.models.Prestamo;
 import app.biblioteca.models.Reserva;
 
-public class MonitorReservas {
+/**
+ * Asigna los recursos disponibles a la siguiente reserva pendiente. Suscrito
+ * al bus de eventos, asigna el recurso en cuanto se devuelve; la revisión
+ * periódica limpia las reservas expiradas y cubre los recursos que quedaron
+ * disponibles por otros caminos.
+ *
+ * En los títulos con varios ejemplares aparta el ejemplar devuelto, o el que
+ * liberó una reserva cancelada, para la siguiente reserva en espera. Cuando
+ * un usuario se lleva en préstamo un recurso que tenía reservado, da la
+ * reserva por atendida.
+ *
+ * La revisión periódica no recorre todas las reservas: solo las expiradas y
+ * la primera de la cola de cada recurso reservado. El envejecimiento de las
+ * reservas no requiere reordenar las colas (ver {@link Reserva#getTurnoMillis}).
+ */
+public class MonitorReservas implements ObservadorBiblioteca {
+    private static final RegistroEventos REGISTRO = RegistroEventos.compartido();
+
     private final SistemaReservas sistemaReservas;
     private final GestorRecursos gestorRecursos;
     private final ServicioNotificacionManager notificacionManager;
     private ScheduledExecutorService scheduler;
+    private volatile PoolLicencias poolLicencias;
     private static final int PERIODO_REVISION_MINUTOS = 30;
 
     public MonitorReservas(SistemaReservas sistemaReservas, GestorRecursos gestorRecursos,
@@ -24,6 +44,14 @@ public class MonitorReservas {
         this.scheduler = Executors.newScheduledThreadPool(1);
     }
 
+    /**
+     * Deja a cargo del pool los audiolibros con licencias: el pool presta la
+     * licencia apartada a la reserva, en lugar de solo avisarle al usuario
+     */
+    public void setPoolLicencias(PoolLicencias poolLicencias) {
+        this.poolLicencias = poolLicencias;
+    }
+
     public void iniciar() {
         scheduler.scheduleAtFixedRate(
                 this::procesarReservas,
@@ -41,27 +69,13 @@ public class MonitorReservas {
             // Primero, limpiar reservas expiradas
             sistemaReservas.limpiarReservasExpiradas();
 
-            // Luego, procesar recursos que se hayan vuelto disponibles
-            List<RecursoDigital> recursosDisponibles = gestorRecursos.listarRecursosDisponibles();
-
-            for (RecursoDigital recurso : recursosDisponibles) {
-                // Verificar si hay reservas para este recurso
-                Reserva siguienteReserva = sistemaReservas.obtenerSiguienteReserva(recurso.getIdentificador());
-
-                if (siguienteReserva != null) {
-                    // Marcar recurso como reservado
-                    recurso.actualizarEstado(EstadoRecurso.RESERVADO);
-
-                    // Notificar al usuario
-                    notificacionManager.enviarNotificacionRecursoDisponible(siguienteReserva);
-
-                    System.out.println("Recurso '" + recurso.getTitulo() + "' notificado a usuario "
-                            + siguienteReserva.getUsuario().getNombre());
-                }
+            // Luego, asignar los recursos reservados que se hayan vuelto disponibles
+            for (RecursoDigital recurso : sistemaReservas.listarRecursosConReservas()) {
+                asignarSiguienteReserva(recurso);
             }
 
             // Contar y mostrar estadísticas
-            int reservasActivas = sistemaReservas.listarReservasActivas().size();
+            int reservasActivas = sistemaReservas.contarReservasActivas();
 
             System.out.println("Procesamiento finalizado. Reservas activas: " + reservasActivas);
 
@@ -71,6 +85,70 @@ public class MonitorReservas {
         }
     }
 
+    @Override
+    public void prestamoDevuelto(Prestamo prestamo) {
+        asignarSiguienteReserva(prestamo.getRecurso());
+    }
+
+    @Override
+    public void prestamoRealizado(Prestamo prestamo) {
+        // Atender publica eventos; desde el hilo del bus podría esperar por
+        // una posición que solo este mismo suscriptor libera
+        scheduler.execute(() -> sistemaReservas.atenderReservas(prestamo.getUsuario(), prestamo.getRecurso()));
+    }
+
+    @Override
+    public void ejemplaresModificados(RecursoDigital recurso, int diferencia) {
+        // Los ejemplares agregados quedan retenidos para las reservas en espera
+        if (diferencia > 0) {
+            asignarSiguienteReserva(recurso);
+        }
+    }
+
+    @Override
+    public void reservaCancelada(Reserva reserva) {
+        // El ejemplar que tenía apartado pudo quedar retenido para otra reserva
+        if (gestorRecursos.getInventario().tieneEjemplares(reserva.getRecurso())) {
+            asignarSiguienteReserva(reserva.getRecurso());
+        }
+    }
+
+    private synchronized void asignarSiguienteReserva(RecursoDigital recurso) {
+        PoolLicencias pool = poolLicencias;
+        if (pool != null && pool.tieneLicencias(recurso)) {
+            return;
+        }
+
+        // En los títulos con varios ejemplares, el inventario ya retuvo el
+        // ejemplar devuelto; falta apartarlo para la reserva que corresponda
+        if (gestorRecursos.getInventario().tieneEjemplares(recurso)) {
+            for (Reserva reserva : sistemaReservas.apartarEjemplares(recurso)) {
+                notificacionManager.enviarNotificacionRecursoDisponible(reserva);
+                REGISTRO.info("reserva.apartada", "Ejemplar de '{}' apartado para usuario {}", recurso.getTitulo(),
+                        reserva.getUsuario().getNombre());
+            }
+            return;
+        }
+
+        if (recurso.getEstado() != EstadoRecurso.DISPONIBLE) {
+            return;
+        }
+
+        // Verificar si hay reservas para este recurso
+        Reserva siguienteReserva = sistemaReservas.obtenerSiguienteReserva(recurso.getIdentificador());
+
+        if (siguienteReserva != null) {
+            // Marcar recurso como reservado
+            recurso.actualizarEstado(EstadoRecurso.RESERVADO);
+
+            // Notificar al usuario
+            notificacionManager.enviarNotificacionRecursoDisponible(siguienteReserva);
+
+            System.out.println("Recurso '" + recurso.getTitulo() + "' notificado a usuario "
+                    + siguienteReserva.getUsuario().getNombre());
+        }
+    }
+
     public void detener() {
         if (scheduler != null) {
             scheduler.shutdown();
@@ -1,6 +1,5 @@
 package app.biblioteca.services;
 
-import java.time.LocalDateTime;
 import java.util.List;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -37,13 +36,25 @@ public class MonitorVencimientos {
             // Obtener todos los préstamos activos
             List<Prestamo> prestamosActivos = sistemaPrestamos.listarPrestamosActivos();
 
+            // Se lee el reloj una sola vez para toda la revisión
+            long ahora = sistemaPrestamos.getReloj().millis();
+            long vencidos = 0;
+            long porVencer = 0;
+
             // Revisar cada préstamo
             for (Prestamo prestamo : prestamosActivos) {
                 // Obtener los días hasta el vencimiento
-                long diasHastaVencimiento = prestamo.diasHastaVencimiento();
+                long diasHastaVencimiento = prestamo.diasHastaVencimiento(ahora);
+
+                if (prestamo.estaVencido(ahora)) {
+                    vencidos++;
+                } else if (diasHastaVencimiento <= 3) {
+                    porVencer++;
+                }
 
                 // Préstamos ya vencidos
                 if (diasHastaVencimiento < 0) {
+                    sistemaPrestamos.registrarVencimiento(prestamo);
                     notificacionManager.enviarNotificacionVencimiento(prestamo);
                     continue;
                 }
@@ -54,15 +65,7 @@ public class MonitorVencimientos {
                 }
             }
 
-            // Contar y mostrar estadísticas
-            long vencidos = prestamosActivos.stream()
-                    .filter(Prestamo::estaVencido)
-                    .count();
-
-            long porVencer = prestamosActivos.stream()
-                    .filter(p -> !p.estaVencido() && p.diasHastaVencimiento() <= 3)
-                    .count();
-
+            // Mostrar estadísticas
             System.out.println(
                     "Revisión finalizada. Préstamos vencidos: " + vencidos + ", Por vencer pronto: " + porVencer);
 
@@ -0,0 +1,56 @@
+package app.biblioteca.services;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import app.biblioteca.interfaces.ObservadorBiblioteca;
+import app.biblioteca.models.Prestamo;
+import app.biblioteca.models.Reserva;
+
+/**
+ * Suscriptor del bus de eventos que envía las notificaciones a los usuarios.
+ * Los préstamos y devoluciones de un mismo lote se agrupan en una
+ * notificación por usuario. Cada instancia es usada por un único hilo
+ * consumidor, por lo que las listas no necesitan sincronización.
+ */
+public class NotificadorEventos implements ObservadorBiblioteca {
+    private final ServicioNotificacionManager notificacionManager;
+    private final List<Prestamo> prestamos = new ArrayList<>();
+    private final List<Prestamo> devoluciones = new ArrayList<>();
+
+    public NotificadorEventos(ServicioNotificacionManager notificacionManager) {
+        this.notificacionManager = notificacionManager;
+    }
+
+    @Override
+    public void prestamoRealizado(Prestamo prestamo) {
+        prestamos.add(prestamo);
+    }
+
+    @Override
+    public void prestamoDevuelto(Prestamo prestamo) {
+        devoluciones.add(prestamo);
+    }
+
+    @Override
+    public void reservaRealizada(Reserva reserva) {
+        notificacionManager.enviarNotificacionReservaRealizada(reserva);
+    }
+
+    @Override
+    public void loteProcesado() {
+        if (prestamos.size() == 1) {
+            notificacionManager.enviarNotificacionPrestamo(prestamos.get(0));
+        } else if (!prestamos.isEmpty()) {
+            notificacionManager.enviarNotificacionPrestamos(prestamos);
+        }
+        prestamos.clear();
+
+        if (devoluciones.size() == 1) {
+            notificacionManager.enviarNotificacionDevolucion(devoluciones.get(0));
+        } else if (!devoluciones.isEmpty()) {
+            notificacionManager.enviarNotificacionDevoluciones(devoluciones);
+        }
+        devoluciones.clear();
+    }
+}
\ No newline at end of file
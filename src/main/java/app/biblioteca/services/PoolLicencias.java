@@ -0,0 +1,240 @@
+package app.biblioteca.services;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import app.biblioteca.exceptions.RecursoNoDisponibleException;
+import app.biblioteca.interfaces.ObservadorBiblioteca;
+import app.biblioteca.interfaces.RecursoDigital;
+import app.biblioteca.logging.RegistroEventos;
+import app.biblioteca.metrics.RegistroMetricas;
+import app.biblioteca.models.Prestamo;
+import app.biblioteca.models.Reserva;
+import app.biblioteca.models.TipoRecurso;
+
+/**
+ * Licencias de préstamo digital de los audiolibros: un audiolibro con N
+ * licencias admite hasta N préstamos simultáneos. Las licencias se cuentan
+ * como ejemplares del {@link InventarioEjemplares}, cuyo contador atómico de
+ * libres hace de semáforo, así que prestar y devolver un audiolibro con
+ * licencias no pasa por el lock de {@link SistemaPrestamos}.
+ *
+ * Suscrito a los préstamos y reservas, el pool devuelve cada préstamo al
+ * llegar su fecha de devolución (la renovada, si se renovó) y entrega en el
+ * acto la licencia que se libera a la siguiente reserva en espera,
+ * prestándole el audiolibro. Si ese préstamo no es posible, por ejemplo
+ * porque el usuario alcanzó su cupo, la reserva se cancela y la licencia
+ * pasa a la siguiente. Para que la licencia no la aparte otro, el
+ * {@link MonitorReservas} deja al pool los audiolibros con licencias (ver
+ * {@link MonitorReservas#setPoolLicencias}).
+ */
+public class PoolLicencias implements ObservadorBiblioteca {
+    private static final RegistroEventos REGISTRO = RegistroEventos.compartido();
+    private static final LongAdder VENCIDAS = RegistroMetricas.compartido().contador("licencias.vencidas");
+    private static final LongAdder ENTREGADAS = RegistroMetricas.compartido().contador("licencias.entregadas");
+
+    private final SistemaPrestamos sistemaPrestamos;
+    private final SistemaReservas sistemaReservas;
+    private final GestorRecursos gestorRecursos;
+    // Índices densos de los audiolibros con licencias
+    private final Set<Integer> licenciados = ConcurrentHashMap.newKeySet();
+    private final Map<String, ScheduledFuture<?>> vencimientos = new ConcurrentHashMap<>();
+    private final ScheduledThreadPoolExecutor scheduler;
+
+    public PoolLicencias(SistemaPrestamos sistemaPrestamos, SistemaReservas sistemaReservas,
+            GestorRecursos gestorRecursos) {
+        this.sistemaPrestamos = sistemaPrestamos;
+        this.sistemaReservas = sistemaReservas;
+        this.gestorRecursos = gestorRecursos;
+        this.scheduler = new ScheduledThreadPoolExecutor(1, tarea -> {
+            Thread hilo = new Thread(tarea, "pool-licencias");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        // Los préstamos devueltos antes de vencer no dejan su tarea en la cola
+        this.scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    public void iniciar() {
+        sistemaPrestamos.agregarObservador(this);
+        sistemaReservas.agregarObservador(this);
+    }
+
+    /**
+     * Fija la cantidad de licencias de un audiolibro. Solo se puede aumentar:
+     * las licencias en uso no se revocan.
+     *
+     * @return false si el recurso no es un audiolibro o tenía más licencias
+     */
+    public boolean asignarLicencias(String idAudiolibro, int licencias) {
+        RecursoDigital recurso = gestorRecursos.buscarRecursoPorId(idAudiolibro);
+        InventarioEjemplares inventario = gestorRecursos.getInventario();
+
+        if (recurso == null || recurso.getTipo() != TipoRecurso.AUDIOLIBRO || licencias < inventario.total(recurso)) {
+            REGISTRO.advertencia("licencias.rechazadas", "No se asignaron {} licencias al recurso {}", licencias,
+                    idAudiolibro);
+            return false;
+        }
+
+        boolean convertido = !inventario.tieneEjemplares(recurso);
+        int agregadas = convertido ? licencias - 1 : licencias - inventario.total(recurso);
+        // Antes de sumar, para que el monitor de reservas deje las licencias al pool
+        licenciados.add(recurso.getIndice());
+        gestorRecursos.sumarEjemplares(recurso, agregadas);
+
+        // El préstamo que ya tuviera pasa a ocupar una licencia y vence como los demás
+        for (Prestamo prestamo : sistemaPrestamos.listarPrestamosActivos()) {
+            if (prestamo.getRecurso().getIndice() == recurso.getIndice()) {
+                programarVencimiento(prestamo);
+            }
+        }
+
+        REGISTRO.info("licencias.asignadas", "Licencias de {}: {}", recurso.getTitulo(), licencias);
+        if (convertido) {
+            entregarApartadas(recurso);
+        }
+        entregarASiguientes(recurso);
+        return true;
+    }
+
+    public boolean tieneLicencias(RecursoDigital recurso) {
+        return licenciados.contains(recurso.getIndice());
+    }
+
+    /**
+     * Cantidad de licencias del audiolibro que no están prestadas ni apartadas
+     */
+    public int licenciasLibres(RecursoDigital recurso) {
+        return tieneLicencias(recurso) ? gestorRecursos.getInventario().disponibles(recurso) : 0;
+    }
+
+    @Override
+    public void prestamoRealizado(Prestamo prestamo) {
+        if (tieneLicencias(prestamo.getRecurso())) {
+            programarVencimiento(prestamo);
+        }
+    }
+
+    @Override
+    public void prestamoDevuelto(Prestamo prestamo) {
+        ScheduledFuture<?> vencimiento = vencimientos.remove(prestamo.getId());
+        if (vencimiento != null) {
+            vencimiento.cancel(false);
+        }
+        if (tieneLicencias(prestamo.getRecurso())) {
+            entregarASiguientes(prestamo.getRecurso());
+        }
+    }
+
+    @Override
+    public void reservaRealizada(Reserva reserva) {
+        // Con una licencia libre, la reserva se convierte en préstamo
+        if (tieneLicencias(reserva.getRecurso()) && reserva.isEjemplarApartado()) {
+            scheduler.execute(() -> entregar(reserva));
+        }
+    }
+
+    @Override
+    public void reservaCancelada(Reserva reserva) {
+        if (tieneLicencias(reserva.getRecurso())) {
+            entregarASiguientes(reserva.getRecurso());
+        }
+    }
+
+    private void programarVencimiento(Prestamo prestamo) {
+        long demora = Math.max(0, prestamo.getFechaDevolucionMillis() - sistemaPrestamos.getReloj().millis());
+        ScheduledFuture<?> anterior = vencimientos.put(prestamo.getId(),
+                scheduler.schedule(() -> vencer(prestamo), demora, TimeUnit.MILLISECONDS));
+        if (anterior != null) {
+            anterior.cancel(false);
+        }
+
+        // Si se devolvió mientras se programaba, prestamoDevuelto pudo no ver la tarea
+        if (prestamo.isDevuelto()) {
+            ScheduledFuture<?> vencimiento = vencimientos.remove(prestamo.getId());
+            if (vencimiento != null) {
+                vencimiento.cancel(false);
+            }
+        }
+    }
+
+    private void vencer(Prestamo prestamo) {
+        try {
+            if (prestamo.isDevuelto()) {
+                vencimientos.remove(prestamo.getId());
+                return;
+            }
+            // Se renovó después de programarse
+            if (prestamo.getFechaDevolucionMillis() > sistemaPrestamos.getReloj().millis()) {
+                programarVencimiento(prestamo);
+                return;
+            }
+            if (sistemaPrestamos.devolverRecurso(prestamo.getId())) {
+                VENCIDAS.increment();
+                REGISTRO.info("licencia.vencida", "Licencia de {} devuelta al vencer el préstamo de {}",
+                        prestamo.getRecurso().getTitulo(), prestamo.getUsuario().getNombre());
+            }
+        } catch (RuntimeException e) {
+            REGISTRO.error("licencia.errorVencimiento", "Error al devolver el préstamo vencido: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Aparta las licencias retenidas para las reservas en espera y presta el
+     * audiolibro a las reservas que recibieron una. Las entregas corren en el
+     * hilo del pool, una a la vez: quien devuelve o cancela puede estar
+     * dentro del lock de {@link SistemaReservas}, y prestar desde ahí
+     * cruzaría los locks de préstamos y reservas.
+     */
+    private void entregarASiguientes(RecursoDigital recurso) {
+        scheduler.execute(() -> {
+            for (Reserva reserva : sistemaReservas.apartarEjemplares(recurso)) {
+                entregar(reserva);
+            }
+        });
+    }
+
+    /**
+     * Presta el audiolibro a la reserva que conservó el único ejemplar al
+     * pasar a tener licencias
+     */
+    private void entregarApartadas(RecursoDigital recurso) {
+        scheduler.execute(() -> {
+            for (Reserva reserva : sistemaReservas.listarReservasPorRecurso(recurso.getIdentificador())) {
+                if (reserva.isEjemplarApartado()) {
+                    entregar(reserva);
+                }
+            }
+        });
+    }
+
+    private void entregar(Reserva reserva) {
+        RecursoDigital recurso = reserva.getRecurso();
+        if (!reserva.isActiva()) {
+            return;
+        }
+
+        try {
+            sistemaPrestamos.prestarRecurso(recurso.getIdentificador(), reserva.getUsuario());
+            sistemaReservas.atenderReservas(reserva.getUsuario(), recurso);
+            ENTREGADAS.increment();
+            REGISTRO.info("licencia.entregada", "Licencia de {} entregada a {} por su reserva", recurso.getTitulo(),
+                    reserva.getUsuario().getNombre());
+        } catch (RecursoNoDisponibleException e) {
+            // Al cancelarse, la licencia apartada pasa a la siguiente reserva
+            REGISTRO.advertencia("licencia.entregaFallida", "Se cancela la reserva {}: {}", reserva.getId(),
+                    e.getMessage());
+            sistemaReservas.cancelarReserva(reserva.getId());
+        }
+    }
+
+    public void detener() {
+        scheduler.shutdownNow();
+        REGISTRO.info("licencias.detenido", "Pool de licencias detenido.");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,103 @@
+package app.biblioteca.services;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reloj de baja resolución: un hilo daemon actualiza periódicamente el
+ * instante actual y las lecturas devuelven el valor guardado, sin consultar
+ * al sistema operativo. Útil para revisiones que recorren muchos préstamos o
+ * reservas y no necesitan precisión de milisegundos.
+ */
+public class RelojCacheado extends Clock {
+    private final Clock base;
+    private final long resolucionMillis;
+    private volatile long ahoraMillis;
+    private ScheduledExecutorService actualizador;
+
+    public RelojCacheado(Clock base, long resolucionMillis) {
+        this.base = base;
+        this.resolucionMillis = resolucionMillis;
+        this.ahoraMillis = base.millis();
+    }
+
+    public void iniciar() {
+        actualizador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "reloj-cacheado");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        actualizador.scheduleAtFixedRate(this::actualizar, resolucionMillis, resolucionMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Fuerza la lectura del reloj base, por ejemplo al comenzar una revisión
+     */
+    public void actualizar() {
+        ahoraMillis = base.millis();
+    }
+
+    public void detener() {
+        if (actualizador != null) {
+            actualizador.shutdownNow();
+        }
+    }
+
+    @Override
+    public long millis() {
+        return ahoraMillis;
+    }
+
+    @Override
+    public Instant instant() {
+        return Instant.ofEpochMilli(ahoraMillis);
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return base.getZone();
+    }
+
+    @Override
+    public Clock withZone(ZoneId zona) {
+        return new VistaZona(this, zona);
+    }
+
+    /**
+     * Mismo instante cacheado, expresado en otra zona horaria
+     */
+    private static final class VistaZona extends Clock {
+        private final RelojCacheado fuente;
+        private final ZoneId zona;
+
+        VistaZona(RelojCacheado fuente, ZoneId zona) {
+            this.fuente = fuente;
+            this.zona = zona;
+        }
+
+        @Override
+        public long millis() {
+            return fuente.millis();
+        }
+
+        @Override
+        public Instant instant() {
+            return fuente.instant();
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return zona;
+        }
+
+        @Override
+        public Clock withZone(ZoneId otraZona) {
+            return new VistaZona(fuente, otraZona);
+        }
+    }
+}
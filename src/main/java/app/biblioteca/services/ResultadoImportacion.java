@@ -0,0 +1,53 @@
+package app.biblioteca.services;
+
+import java.time.Duration;
+
+/**
+ * Resumen de una importación masiva: cantidad de filas importadas,
+ * rechazadas por duplicadas o inválidas, y tiempo total
+ */
+public class ResultadoImportacion {
+    private final long importados;
+    private final long duplicados;
+    private final long invalidos;
+    private final Duration duracion;
+
+    public ResultadoImportacion(long importados, long duplicados, long invalidos, Duration duracion) {
+        this.importados = importados;
+        this.duplicados = duplicados;
+        this.invalidos = invalidos;
+        this.duracion = duracion;
+    }
+
+    public long getImportados() {
+        return importados;
+    }
+
+    public long getDuplicados() {
+        return duplicados;
+    }
+
+    public long getInvalidos() {
+        return invalidos;
+    }
+
+    public long getRechazados() {
+        return duplicados + invalidos;
+    }
+
+    public Duration getDuracion() {
+        return duracion;
+    }
+
+    public double getFilasPorSegundo() {
+        long millis = Math.max(1, duracion.toMillis());
+        return (importados + getRechazados()) * 1000.0 / millis;
+    }
+
+    @Override
+    public String toString() {
+        return "ResultadoImportacion [importados=" + importados + ", duplicados=" + duplicados
+                + ", invalidos=" + invalidos + ", duracion=" + duracion.toMillis() + "ms"
+                + String.format(", filasPorSegundo=%.0f", getFilasPorSegundo()) + "]";
+    }
+}
@@ -1,7 +1,10 @@
 package app.biblioteca.services;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -58,6 +61,46 @@ public class ServicioNotificacionManager {
         colaNotificaciones.add(new NotificacionTask(prestamo.getUsuario(), mensaje, false));
     }
 
+    /**
+     * Envía una única notificación por usuario para un lote de préstamos
+     *
+     * @param prestamos Préstamos realizados en el lote
+     */
+    public void enviarNotificacionPrestamos(List<Prestamo> prestamos) {
+        for (List<Prestamo> delUsuario : agruparPorUsuario(prestamos)) {
+            if (delUsuario.size() == 1) {
+                enviarNotificacionPrestamo(delUsuario.get(0));
+                continue;
+            }
+            String titulos = delUsuario.stream()
+                    .map(p -> "'" + p.getRecurso().getTitulo() + "' (devolver antes de " + p.getFechaDevolucion() + ")")
+                    .collect(Collectors.joining(", "));
+            String mensaje = "Se han realizado " + delUsuario.size() + " préstamos: " + titulos;
+
+            colaNotificaciones.add(new NotificacionTask(delUsuario.get(0).getUsuario(), mensaje, false));
+        }
+    }
+
+    /**
+     * Envía una única notificación por usuario para un lote de devoluciones
+     *
+     * @param prestamos Préstamos devueltos en el lote
+     */
+    public void enviarNotificacionDevoluciones(List<Prestamo> prestamos) {
+        for (List<Prestamo> delUsuario : agruparPorUsuario(prestamos)) {
+            if (delUsuario.size() == 1) {
+                enviarNotificacionDevolucion(delUsuario.get(0));
+                continue;
+            }
+            String titulos = delUsuario.stream()
+                    .map(p -> "'" + p.getRecurso().getTitulo() + "'")
+                    .collect(Collectors.joining(", "));
+            String mensaje = "Se ha registrado la devolución de " + delUsuario.size() + " recursos: " + titulos;
+
+            colaNotificaciones.add(new NotificacionTask(delUsuario.get(0).getUsuario(), mensaje, false));
+        }
+    }
+
     public void enviarNotificacionVencimiento(Prestamo prestamo) {
         String mensaje = "¡ATENCIÓN! El préstamo del recurso '" + prestamo.getRecurso().getTitulo() +
                 "' ha vencido. Por favor, devuélvalo a la brevedad.";
@@ -86,6 +129,20 @@ public class ServicioNotificacionManager {
         colaNotificaciones.add(new NotificacionTask(reserva.getUsuario(), mensaje, true));
     }
 
+    private List<List<Prestamo>> agruparPorUsuario(List<Prestamo> prestamos) {
+        Map<String, List<Prestamo>> porUsuario = prestamos.stream()
+                .collect(Collectors.groupingBy(p -> p.getUsuario().getId(), LinkedHashMap::new,
+                        Collectors.toList()));
+        return new ArrayList<>(porUsuario.values());
+    }
+
+    /**
+     * Cantidad de notificaciones en cola pendientes de envío
+     */
+    public int getTamanioCola() {
+        return colaNotificaciones.size();
+    }
+
     public void detener() {
         this.ejecutando = false;
         procesadorNotificaciones.shutdown();
@@ -1,99 +1,466 @@
 package app.biblioteca.services;
 
-import java.time.LocalDateTime;
+import java.time.Clock;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
+import app.biblioteca.exceptions.LimiteExcedidoException;
 import app.biblioteca.exceptions.RecursoNoDisponibleException;
+import app.biblioteca.interfaces.ObservadorBiblioteca;
+import app.biblioteca.interfaces.Prestable;
 import app.biblioteca.interfaces.RecursoDigital;
+import app.biblioteca.interfaces.Renovable;
+import app.biblioteca.logging.RegistroEventos;
+import app.biblioteca.metrics.RegistroMetricas;
+import app.biblioteca.metrics.Temporizador;
 import app.biblioteca.models.EstadoRecurso;
+import app.biblioteca.models.IndicesDensos;
 import app.biblioteca.models.Prestamo;
 import app.biblioteca.models.Usuario;
 
 public class SistemaPrestamos {
+    private static final RegistroEventos REGISTRO = RegistroEventos.compartido();
+    private static final long MILLIS_POR_DIA = Duration.ofDays(1).toMillis();
+    private static final int DIAS_PRESTAMO_POR_DEFECTO = 15;
+    private static final Temporizador TIEMPO_PRESTAR = RegistroMetricas.compartido()
+            .temporizador("prestamos.prestar");
+    private static final Temporizador TIEMPO_DEVOLVER = RegistroMetricas.compartido()
+            .temporizador("prestamos.devolver");
+    private static final Temporizador TIEMPO_RENOVAR = RegistroMetricas.compartido()
+            .temporizador("prestamos.renovar");
+
     private ConcurrentHashMap<String, Prestamo> prestamos;
+    // Índices por ID de usuario, separando préstamos activos del historial
+    private ConcurrentHashMap<String, Set<Prestamo>> activosPorUsuario;
+    private ConcurrentHashMap<String, Queue<Prestamo>> historialPorUsuario;
     private GestorRecursos gestorRecursos;
+    private ControlCuotas controlCuotas;
+    private Clock reloj;
+    // Se incrementa con cada cambio en los préstamos para invalidar reportes en caché
+    private final AtomicLong versionPrestamos = new AtomicLong();
+    private final List<ObservadorBiblioteca> observadores = new CopyOnWriteArrayList<>();
 
     public SistemaPrestamos(GestorRecursos gestorRecursos) {
+        this(gestorRecursos, null);
+    }
+
+    public SistemaPrestamos(GestorRecursos gestorRecursos, ControlCuotas controlCuotas) {
+        this(gestorRecursos, controlCuotas, Clock.systemDefaultZone());
+    }
+
+    public SistemaPrestamos(GestorRecursos gestorRecursos, ControlCuotas controlCuotas, Clock reloj) {
         this.prestamos = new ConcurrentHashMap<>();
+        this.activosPorUsuario = new ConcurrentHashMap<>();
+        this.historialPorUsuario = new ConcurrentHashMap<>();
         this.gestorRecursos = gestorRecursos;
+        this.controlCuotas = controlCuotas;
+        this.reloj = reloj;
+    }
+
+    public Clock getReloj() {
+        return reloj;
     }
 
-    public synchronized Prestamo prestarRecurso(String idRecurso, Usuario usuario) throws RecursoNoDisponibleException {
-        RecursoDigital recurso = gestorRecursos.buscarRecursoPorId(idRecurso);
+    public void agregarObservador(ObservadorBiblioteca observador) {
+        observadores.add(observador);
+    }
 
-        if (recurso == null) {
-            throw new RecursoNoDisponibleException("El recurso con ID " + idRecurso + " no existe");
+    /**
+     * Presta un recurso al usuario. Los títulos con varios ejemplares o
+     * licencias se prestan sin tomar el lock del sistema, porque el
+     * inventario toma el ejemplar con una operación atómica.
+     */
+    public Prestamo prestarRecurso(String idRecurso, Usuario usuario) throws RecursoNoDisponibleException {
+        long inicio = TIEMPO_PRESTAR.iniciar();
+        try {
+            RecursoDigital recurso = gestorRecursos.buscarRecursoPorId(idRecurso);
+
+            if (recurso == null) {
+                throw new RecursoNoDisponibleException("El recurso con ID " + idRecurso + " no existe");
+            }
+
+            Prestamo prestamo;
+            if (gestorRecursos.getInventario().tieneEjemplares(recurso)) {
+                prestamo = prestar(recurso, usuario);
+            } else {
+                synchronized (this) {
+                    prestamo = prestar(recurso, usuario);
+                }
+            }
+            // Fuera del lock: un observador como el bus de eventos puede
+            // esperar a un suscriptor que a su vez necesita el lock
+            observadores.forEach(o -> o.prestamoRealizado(prestamo));
+            return prestamo;
+        } finally {
+            TIEMPO_PRESTAR.registrar(inicio);
         }
+    }
 
-        if (!recurso.estaDisponible()) {
+    private Prestamo prestar(RecursoDigital recurso, Usuario usuario) throws RecursoNoDisponibleException {
+        if (!hayEjemplarPara(recurso, usuario)) {
             throw new RecursoNoDisponibleException("El recurso " + recurso.getTitulo() + " no está disponible");
         }
 
+        if (controlCuotas != null) {
+            controlCuotas.ocuparCupoPrestamo(usuario, recurso);
+        }
+
+        // Otro préstamo o una reserva pudo llevarse el último ejemplar libre
+        if (!tomarEjemplar(recurso, usuario)) {
+            if (controlCuotas != null) {
+                controlCuotas.liberarCupoPrestamo(usuario, recurso);
+            }
+            throw new RecursoNoDisponibleException("El recurso " + recurso.getTitulo() + " no está disponible");
+        }
+
+        Prestamo prestamo = registrarPrestamo(recurso, usuario);
+
+        REGISTRO.info("prestamo.realizado", "Préstamo realizado: {}", prestamo);
+
+        return prestamo;
+    }
+
+    /**
+     * Presta varios recursos al mismo usuario en una sola operación. Primero
+     * se validan todos los recursos y cupos; si alguno falla no se realiza
+     * ningún préstamo.
+     *
+     * @param idsRecursos Identificadores de los recursos a prestar
+     * @param usuario     Usuario que recibe los préstamos
+     * @return Préstamos realizados, en el mismo orden que los identificadores
+     * @throws RecursoNoDisponibleException Si algún recurso no existe, no está
+     *                                      disponible, está repetido o se
+     *                                      supera un límite del usuario
+     */
+    public List<Prestamo> prestarRecursos(List<String> idsRecursos, Usuario usuario)
+            throws RecursoNoDisponibleException {
+        List<Prestamo> realizados = prestarLote(idsRecursos, usuario);
+        // Un solo evento para todo el lote, que se notifica al usuario en un único mensaje
+        if (!realizados.isEmpty()) {
+            List<Prestamo> lote = List.copyOf(realizados);
+            observadores.forEach(o -> o.prestamosRealizados(lote));
+        }
+        return realizados;
+    }
+
+    private synchronized List<Prestamo> prestarLote(List<String> idsRecursos, Usuario usuario)
+            throws RecursoNoDisponibleException {
+        Map<String, RecursoDigital> encontrados = gestorRecursos.buscarRecursosPorIds(idsRecursos);
+        List<RecursoDigital> recursos = new ArrayList<>(idsRecursos.size());
+        Set<String> vistos = new HashSet<>();
+
+        for (String idRecurso : idsRecursos) {
+            if (!vistos.add(idRecurso)) {
+                throw new RecursoNoDisponibleException("El recurso con ID " + idRecurso + " está repetido en el lote");
+            }
+
+            RecursoDigital recurso = encontrados.get(idRecurso);
+
+            if (recurso == null) {
+                throw new RecursoNoDisponibleException("El recurso con ID " + idRecurso + " no existe");
+            }
+
+            if (!hayEjemplarPara(recurso, usuario)) {
+                throw new RecursoNoDisponibleException("El recurso " + recurso.getTitulo() + " no está disponible");
+            }
+
+            recursos.add(recurso);
+        }
+
+        ocuparCupos(usuario, recursos);
+        tomarEjemplares(usuario, recursos);
+
+        List<Prestamo> realizados = new ArrayList<>(recursos.size());
+        for (RecursoDigital recurso : recursos) {
+            realizados.add(registrarPrestamo(recurso, usuario));
+        }
+        if (!realizados.isEmpty()) {
+            REGISTRO.info("prestamo.loteRealizado", "Préstamo en lote realizado: {} recursos para {}",
+                    realizados.size(), usuario.getNombre());
+        }
+
+        return realizados;
+    }
+
+    /**
+     * Devuelve un préstamo. Como al prestar, los títulos con varios
+     * ejemplares o licencias no toman el lock del sistema.
+     */
+    public boolean devolverRecurso(String idPrestamo) {
+        long inicio = TIEMPO_DEVOLVER.iniciar();
+        try {
+            Prestamo prestamo = prestamos.get(idPrestamo);
+
+            boolean devuelto;
+            if (prestamo != null && gestorRecursos.getInventario().tieneEjemplares(prestamo.getRecurso())) {
+                devuelto = devolver(prestamo);
+            } else {
+                synchronized (this) {
+                    devuelto = devolver(prestamo);
+                }
+            }
+            if (devuelto) {
+                observadores.forEach(o -> o.prestamoDevuelto(prestamo));
+            }
+            return devuelto;
+        } finally {
+            TIEMPO_DEVOLVER.registrar(inicio);
+        }
+    }
+
+    private boolean devolver(Prestamo prestamo) {
+        // registrarDevolucion falla si otro hilo lo devolvió primero
+        if (prestamo == null || prestamo.isDevuelto() || !registrarDevolucion(prestamo)) {
+            REGISTRO.advertencia("prestamo.noEncontrado", "El préstamo no existe o ya fue devuelto");
+            return false;
+        }
+
+        REGISTRO.info("prestamo.devuelto", "Recurso devuelto: {}", prestamo.getRecurso().getTitulo());
+
+        return true;
+    }
+
+    /**
+     * Devuelve varios préstamos en una sola operación. Si alguno no existe, ya
+     * fue devuelto o está repetido, no se devuelve ninguno.
+     *
+     * @param idsPrestamos Identificadores de los préstamos a devolver
+     * @return Préstamos devueltos, o una lista vacía si el lote fue rechazado.
+     *         No incluye los que otro hilo devolvió mientras tanto.
+     */
+    public List<Prestamo> devolverRecursos(List<String> idsPrestamos) {
+        List<Prestamo> devueltos = devolverLote(idsPrestamos);
+        if (!devueltos.isEmpty()) {
+            List<Prestamo> lote = List.copyOf(devueltos);
+            observadores.forEach(o -> o.prestamosDevueltos(lote));
+        }
+        return devueltos;
+    }
+
+    private synchronized List<Prestamo> devolverLote(List<String> idsPrestamos) {
+        List<Prestamo> aDevolver = new ArrayList<>(idsPrestamos.size());
+        Set<String> vistos = new HashSet<>();
+
+        for (String idPrestamo : idsPrestamos) {
+            Prestamo prestamo = prestamos.get(idPrestamo);
+
+            if (!vistos.add(idPrestamo) || prestamo == null || prestamo.isDevuelto()) {
+                REGISTRO.advertencia("prestamo.loteRechazado", "El préstamo {} no existe, ya fue devuelto o está "
+                        + "repetido. No se devolvió ningún recurso del lote", idPrestamo);
+                return new ArrayList<>();
+            }
+
+            aDevolver.add(prestamo);
+        }
+
+        // Los títulos con ejemplares se devuelven sin el lock, así que otro hilo
+        // pudo devolver alguno después de la validación
+        List<Prestamo> devueltos = new ArrayList<>(aDevolver.size());
+        for (Prestamo prestamo : aDevolver) {
+            if (registrarDevolucion(prestamo)) {
+                devueltos.add(prestamo);
+            }
+        }
+        if (!devueltos.isEmpty()) {
+            REGISTRO.info("prestamo.loteDevuelto", "Devolución en lote realizada: {} recursos", devueltos.size());
+        }
+
+        return devueltos;
+    }
+
+    public synchronized boolean renovarPrestamo(String idPrestamo) {
+        long inicio = TIEMPO_RENOVAR.iniciar();
+        try {
+            Prestamo prestamo = prestamos.get(idPrestamo);
+
+            if (prestamo == null || prestamo.isDevuelto()) {
+                REGISTRO.advertencia("prestamo.noEncontrado", "El préstamo no existe o ya fue devuelto");
+                return false;
+            }
+
+            if (prestamo.estaVencido(reloj.millis())) {
+                REGISTRO.advertencia("prestamo.renovacionRechazada", "El préstamo está vencido y no puede renovarse");
+                return false;
+            }
+
+            if (!(prestamo.getRecurso() instanceof Renovable)) {
+                REGISTRO.advertencia("prestamo.renovacionRechazada", "El recurso {} no admite renovaciones",
+                        prestamo.getRecurso().getTitulo());
+                return false;
+            }
+
+            Renovable renovable = (Renovable) prestamo.getRecurso();
+            if (prestamo.getRenovaciones() >= renovable.getMaxRenovaciones()) {
+                REGISTRO.advertencia("prestamo.renovacionRechazada",
+                        "El préstamo alcanzó el máximo de {} renovaciones", renovable.getMaxRenovaciones());
+                return false;
+            }
+
+            // Calculamos nueva fecha de devolución
+            prestamo.renovar(prestamo.getFechaDevolucionMillis() + renovable.getDiasRenovacion() * MILLIS_POR_DIA);
+            versionPrestamos.incrementAndGet();
+
+            REGISTRO.info("prestamo.renovado", "Préstamo renovado hasta: {}", prestamo.getFechaDevolucion());
+
+            return true;
+        } finally {
+            TIEMPO_RENOVAR.registrar(inicio);
+        }
+    }
+
+    /**
+     * Registra un préstamo vencido para que bloquee nuevos préstamos del
+     * usuario hasta su devolución
+     */
+    public void registrarVencimiento(Prestamo prestamo) {
+        if (controlCuotas != null) {
+            controlCuotas.registrarVencimiento(prestamo);
+        }
+    }
+
+    private Prestamo registrarPrestamo(RecursoDigital recurso, Usuario usuario) {
         // Calculamos la fecha de devolución
-        LocalDateTime fechaDevolucion = calcularFechaDevolucion(recurso);
+        long fechaDevolucion = calcularFechaDevolucion(recurso);
 
         // Creamos el préstamo
-        Prestamo prestamo = new Prestamo(recurso, usuario, fechaDevolucion);
+        Prestamo prestamo = new Prestamo(recurso, usuario, fechaDevolucion, reloj);
 
-        // Actualizamos el estado del recurso
-        recurso.actualizarEstado(EstadoRecurso.PRESTADO);
+        // Actualizamos el estado del recurso; el de los títulos con
+        // ejemplares ya lo actualizó el inventario
+        if (!gestorRecursos.getInventario().tieneEjemplares(recurso)) {
+            recurso.actualizarEstado(EstadoRecurso.PRESTADO);
+        }
 
         // Guardamos el préstamo
         prestamos.put(prestamo.getId(), prestamo);
-
-        System.out.println("Préstamo realizado: " + prestamo);
+        activosPorUsuario.computeIfAbsent(usuario.getId(), k -> ConcurrentHashMap.newKeySet()).add(prestamo);
+        versionPrestamos.incrementAndGet();
 
         return prestamo;
     }
 
-    public synchronized boolean devolverRecurso(String idPrestamo) {
-        Prestamo prestamo = prestamos.get(idPrestamo);
-
-        if (prestamo == null || prestamo.isDevuelto()) {
-            System.out.println("El préstamo no existe o ya fue devuelto");
+    /**
+     * @return false si el préstamo ya estaba devuelto
+     */
+    private boolean registrarDevolucion(Prestamo prestamo) {
+        // Marcar el préstamo como devuelto
+        if (!prestamo.marcarComoDevuelto()) {
             return false;
         }
+        moverAHistorial(prestamo);
+        if (controlCuotas != null) {
+            controlCuotas.prestamoDevuelto(prestamo);
+        }
 
-        // Marcar el préstamo como devuelto
-        prestamo.marcarComoDevuelto();
-
-        // Actualizar el estado del recurso
+        // Devolver el ejemplar, o actualizar el estado si el recurso es uno solo
         RecursoDigital recurso = prestamo.getRecurso();
-        recurso.actualizarEstado(EstadoRecurso.DISPONIBLE);
+        InventarioEjemplares inventario = gestorRecursos.getInventario();
+        if (inventario.tieneEjemplares(recurso)) {
+            inventario.devolver(recurso);
+        } else {
+            recurso.actualizarEstado(EstadoRecurso.DISPONIBLE);
+        }
+        versionPrestamos.incrementAndGet();
+        return true;
+    }
 
-        System.out.println("Recurso devuelto: " + recurso.getTitulo());
+    /**
+     * Ocupa los cupos de todos los recursos del lote, o de ninguno si alguno
+     * supera el límite del usuario
+     */
+    private void ocuparCupos(Usuario usuario, List<RecursoDigital> recursos) throws LimiteExcedidoException {
+        if (controlCuotas == null) {
+            return;
+        }
 
-        return true;
+        int ocupados = 0;
+        try {
+            for (RecursoDigital recurso : recursos) {
+                controlCuotas.ocuparCupoPrestamo(usuario, recurso);
+                ocupados++;
+            }
+        } catch (LimiteExcedidoException e) {
+            for (int i = 0; i < ocupados; i++) {
+                controlCuotas.liberarCupoPrestamo(usuario, recursos.get(i));
+            }
+            throw e;
+        }
     }
 
-    public synchronized boolean renovarPrestamo(String idPrestamo) {
-        Prestamo prestamo = prestamos.get(idPrestamo);
+    private boolean hayEjemplarPara(RecursoDigital recurso, Usuario usuario) {
+        InventarioEjemplares inventario = gestorRecursos.getInventario();
+        return inventario.tieneEjemplares(recurso) ? inventario.hayEjemplarPara(recurso, usuario)
+                : recurso.estaDisponible();
+    }
 
-        if (prestamo == null || prestamo.isDevuelto()) {
-            System.out.println("El préstamo no existe o ya fue devuelto");
-            return false;
+    /**
+     * Toma el ejemplar que se va a prestar. Los recursos sin ejemplares se
+     * marcan como prestados al registrar el préstamo.
+     */
+    private boolean tomarEjemplar(RecursoDigital recurso, Usuario usuario) {
+        InventarioEjemplares inventario = gestorRecursos.getInventario();
+        return inventario.tieneEjemplares(recurso) ? inventario.tomar(recurso, usuario) : recurso.estaDisponible();
+    }
+
+    /**
+     * Toma un ejemplar de cada recurso del lote, o de ninguno si alguno se
+     * quedó sin ejemplares libres. En ese caso también libera los cupos.
+     */
+    private void tomarEjemplares(Usuario usuario, List<RecursoDigital> recursos)
+            throws RecursoNoDisponibleException {
+        for (int i = 0; i < recursos.size(); i++) {
+            if (!tomarEjemplar(recursos.get(i), usuario)) {
+                InventarioEjemplares inventario = gestorRecursos.getInventario();
+                for (int j = 0; j < i; j++) {
+                    if (inventario.tieneEjemplares(recursos.get(j))) {
+                        inventario.devolver(recursos.get(j));
+                    }
+                }
+                if (controlCuotas != null) {
+                    recursos.forEach(r -> controlCuotas.liberarCupoPrestamo(usuario, r));
+                }
+                throw new RecursoNoDisponibleException("El recurso " + recursos.get(i).getTitulo()
+                        + " no está disponible");
+            }
         }
+    }
 
-        if (prestamo.estaVencido()) {
-            System.out.println("El préstamo está vencido y no puede renovarse");
-            return false;
+    private void moverAHistorial(Prestamo prestamo) {
+        String idUsuario = prestamo.getUsuario().getId();
+        Set<Prestamo> activos = activosPorUsuario.get(idUsuario);
+        if (activos != null) {
+            activos.remove(prestamo);
         }
+        historialPorUsuario.computeIfAbsent(idUsuario, k -> new ConcurrentLinkedQueue<>()).add(prestamo);
+    }
 
-        // Calculamos nueva fecha de devolución
-        LocalDateTime nuevaFecha = prestamo.getFechaDevolucion().plusDays(15);
-        prestamo.setFechaDevolucion(nuevaFecha);
+    private long calcularFechaDevolucion(RecursoDigital recurso) {
+        return reloj.millis() + diasPrestamo(recurso) * MILLIS_POR_DIA;
+    }
 
-        System.out.println("Préstamo renovado hasta: " + nuevaFecha);
+    /**
+     * Plazo de préstamo del recurso: cada tipo define el suyo; por defecto, 15 días
+     */
+    static int diasPrestamo(RecursoDigital recurso) {
+        return recurso instanceof Prestable ? ((Prestable) recurso).getDiasPrestamo() : DIAS_PRESTAMO_POR_DEFECTO;
+    }
 
-        return true;
+    public long getVersionPrestamos() {
+        return versionPrestamos.get();
     }
 
-    private LocalDateTime calcularFechaDevolucion(RecursoDigital recurso) {
-        // Por defecto, 15 días para cualquier recurso
-        return LocalDateTime.now().plusDays(15);
+    public List<Prestamo> listarTodosPrestamos() {
+        return new ArrayList<>(prestamos.values());
     }
 
     public List<Prestamo> listarPrestamosActivos() {
@@ -103,14 +470,53 @@ public class SistemaPrestamos {
     }
 
     public List<Prestamo> listarPrestamosPorUsuario(Usuario usuario) {
-        return prestamos.values().stream()
-                .filter(p -> p.getUsuario().getId().equals(usuario.getId()))
-                .collect(Collectors.toList());
+        List<Prestamo> resultado = listarPrestamosActivosPorUsuario(usuario);
+        resultado.addAll(listarHistorialPorUsuario(usuario));
+        return resultado;
+    }
+
+    public List<Prestamo> listarPrestamosActivosPorUsuario(Usuario usuario) {
+        Set<Prestamo> activos = activosPorUsuario.get(usuario.getId());
+        return activos == null ? new ArrayList<>() : new ArrayList<>(activos);
+    }
+
+    public List<Prestamo> listarHistorialPorUsuario(Usuario usuario) {
+        Queue<Prestamo> historial = historialPorUsuario.get(usuario.getId());
+        return historial == null ? new ArrayList<>() : new ArrayList<>(historial);
+    }
+
+    public int contarPrestamosActivos(Usuario usuario) {
+        Set<Prestamo> activos = activosPorUsuario.get(usuario.getId());
+        return activos == null ? 0 : activos.size();
+    }
+
+    /**
+     * Cantidad total de préstamos activos, sin recorrer el historial
+     */
+    public int contarPrestamosActivos() {
+        int total = 0;
+        for (Set<Prestamo> activos : activosPorUsuario.values()) {
+            total += activos.size();
+        }
+        return total;
     }
 
     public List<Prestamo> listarPrestamosVencidos() {
+        long ahora = reloj.millis();
         return prestamos.values().stream()
-                .filter(p -> !p.isDevuelto() && p.estaVencido())
+                .filter(p -> p.estaVencido(ahora))
+                .collect(Collectors.toList());
+    }
+
+    public List<String> obtenerUsuariosMasActivos(int limite) {
+        ConteoPorIndice<Usuario> conteoPorUsuario = new ConteoPorIndice<>(Usuario::getIndice,
+                Math.min(prestamos.size(), IndicesDensos.cantidadUsuarios()));
+        for (Prestamo prestamo : prestamos.values()) {
+            conteoPorUsuario.sumar(prestamo.getUsuario());
+        }
+
+        return conteoPorUsuario.mayores(limite).keySet().stream()
+                .map(Usuario::getId)
                 .collect(Collectors.toList());
     }
 }
\ No newline at end of file
@@ -1,100 +1,367 @@
 package app.biblioteca.services;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.PriorityQueue;
-import java.util.concurrent.BlockingQueue;
+import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 import app.biblioteca.exceptions.RecursoNoDisponibleException;
+import app.biblioteca.interfaces.ObservadorBiblioteca;
 import app.biblioteca.interfaces.RecursoDigital;
+import app.biblioteca.logging.RegistroEventos;
+import app.biblioteca.metrics.RegistroMetricas;
+import app.biblioteca.metrics.Temporizador;
 import app.biblioteca.models.EstadoRecurso;
 import app.biblioteca.models.Reserva;
 import app.biblioteca.models.Usuario;
 
 public class SistemaReservas {
-    private ConcurrentHashMap<String, BlockingQueue<Reserva>> reservasPorRecurso;
+    private static final RegistroEventos REGISTRO = RegistroEventos.compartido();
+    private static final Temporizador TIEMPO_RESERVAR = RegistroMetricas.compartido().temporizador("reservas.reservar");
+    private static final Temporizador TIEMPO_CANCELAR = RegistroMetricas.compartido().temporizador("reservas.cancelar");
+
+    private ConcurrentHashMap<String, ColaReservas> reservasPorRecurso;
     private ConcurrentHashMap<String, Reserva> todasLasReservas;
+    // Índices por ID de usuario, separando reservas activas del historial
+    private ConcurrentHashMap<String, Set<Reserva>> activasPorUsuario;
+    private ConcurrentHashMap<String, Queue<Reserva>> historialPorUsuario;
+    // Reservas en orden de creación, que es también el de expiración
+    private final Queue<Reserva> porExpiracion = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger reservasActivas = new AtomicInteger();
     private GestorRecursos gestorRecursos;
+    private ControlCuotas controlCuotas;
+    private Clock reloj;
     private ReentrantLock lock = new ReentrantLock();
+    private final List<ObservadorBiblioteca> observadores = new CopyOnWriteArrayList<>();
 
     public SistemaReservas(GestorRecursos gestorRecursos) {
+        this(gestorRecursos, null);
+    }
+
+    public SistemaReservas(GestorRecursos gestorRecursos, ControlCuotas controlCuotas) {
+        this(gestorRecursos, controlCuotas, Clock.systemDefaultZone());
+    }
+
+    public SistemaReservas(GestorRecursos gestorRecursos, ControlCuotas controlCuotas, Clock reloj) {
         this.reservasPorRecurso = new ConcurrentHashMap<>();
         this.todasLasReservas = new ConcurrentHashMap<>();
+        this.activasPorUsuario = new ConcurrentHashMap<>();
+        this.historialPorUsuario = new ConcurrentHashMap<>();
         this.gestorRecursos = gestorRecursos;
+        this.controlCuotas = controlCuotas;
+        this.reloj = reloj;
+        gestorRecursos.getInventario().setSistemaReservas(this);
+    }
+
+    public void agregarObservador(ObservadorBiblioteca observador) {
+        observadores.add(observador);
     }
 
     public Reserva reservarRecurso(String idRecurso, Usuario usuario, int prioridad)
             throws RecursoNoDisponibleException {
-        RecursoDigital recurso = gestorRecursos.buscarRecursoPorId(idRecurso);
+        long inicio = TIEMPO_RESERVAR.iniciar();
+        try {
+            RecursoDigital recurso = gestorRecursos.buscarRecursoPorId(idRecurso);
+
+            if (recurso == null) {
+                throw new RecursoNoDisponibleException("El recurso con ID " + idRecurso + " no existe");
+            }
+
+            if (controlCuotas != null) {
+                controlCuotas.ocuparCupoReserva(usuario);
+            }
+
+            // Crear la reserva
+            Reserva reserva = new Reserva(recurso, usuario, prioridad, reloj);
+
+            lock.lock();
+            try {
+
+                // Los ejemplares se apartan por usuario: una segunda reserva
+                // del mismo título compartiría el ejemplar de la primera
+                InventarioEjemplares inventario = gestorRecursos.getInventario();
+                if (inventario.tieneEjemplares(recurso) && tieneReservaActiva(usuario, recurso)) {
+                    if (controlCuotas != null) {
+                        controlCuotas.liberarCupoReserva(reserva);
+                    }
+                    throw new RecursoNoDisponibleException("El usuario " + usuario.getNombre()
+                            + " ya tiene una reserva activa de " + recurso.getTitulo());
+                }
+
+                // A un título con varios ejemplares se le aparta uno libre o
+                // queda en espera del primero que se devuelva; un recurso
+                // único disponible pasa a estar reservado
+                if (inventario.tieneEjemplares(recurso)) {
+                    if (inventario.reservar(recurso, usuario)) {
+                        reserva.apartarEjemplar();
+                    }
+                } else if (recurso.estaDisponible()) {
+                    recurso.actualizarEstado(EstadoRecurso.RESERVADO);
+                }
+
+                // Añadir la reserva a la cola de este recurso
+                reservasPorRecurso.computeIfAbsent(idRecurso, k -> new ColaReservas()).agregar(reserva);
+
+                // Guardar la referencia a la reserva
+                todasLasReservas.put(reserva.getId(), reserva);
+                porExpiracion.add(reserva);
+                reservasActivas.incrementAndGet();
+                activasPorUsuario.computeIfAbsent(usuario.getId(), k -> ConcurrentHashMap.newKeySet()).add(reserva);
+            } finally {
+                lock.unlock();
+            }
 
-        if (recurso == null) {
-            throw new RecursoNoDisponibleException("El recurso con ID " + idRecurso + " no existe");
+            // Fuera del lock: un observador como el bus de eventos puede
+            // esperar a un suscriptor que a su vez necesita el lock
+            observadores.forEach(o -> o.reservaRealizada(reserva));
+            REGISTRO.info("reserva.realizada", "Reserva realizada: {}", reserva);
+
+            return reserva;
+        } finally {
+            TIEMPO_RESERVAR.registrar(inicio);
         }
+    }
 
-        lock.lock();
+    public boolean cancelarReserva(String idReserva) {
+        long inicio = TIEMPO_CANCELAR.iniciar();
         try {
-            // Crear la reserva
-            Reserva reserva = new Reserva(recurso, usuario, prioridad);
+            Reserva reserva = todasLasReservas.get(idReserva);
 
-            // Actualizar el estado del recurso si está disponible
-            if (recurso.estaDisponible()) {
-                recurso.actualizarEstado(EstadoRecurso.RESERVADO);
+            if (reserva == null || !reserva.isActiva()) {
+                REGISTRO.advertencia("reserva.noEncontrada", "La reserva no existe o ya fue cancelada");
+                return false;
             }
 
-            // Obtener o crear la cola de reservas para este recurso
-            BlockingQueue<Reserva> colaReservas = reservasPorRecurso.computeIfAbsent(
-                    idRecurso, k -> new LinkedBlockingQueue<>());
+            lock.lock();
+            try {
+                // Otro hilo pudo cancelarla mientras esperábamos el lock
+                if (!reserva.isActiva()) {
+                    return false;
+                }
 
-            // Añadir la reserva a la cola
-            colaReservas.add(reserva);
+                // Marcar la reserva como inactiva
+                reserva.cancelar();
+                moverAHistorial(reserva);
+                if (controlCuotas != null) {
+                    controlCuotas.liberarCupoReserva(reserva);
+                }
 
-            // Guardar la referencia a la reserva
-            todasLasReservas.put(reserva.getId(), reserva);
+                String idRecurso = reserva.getRecurso().getIdentificador();
+                ColaReservas colaReservas = reservasPorRecurso.get(idRecurso);
+                InventarioEjemplares inventario = gestorRecursos.getInventario();
+
+                if (inventario.tieneEjemplares(reserva.getRecurso())) {
+                    // El ejemplar apartado pasa a la siguiente reserva o queda libre
+                    liberarEjemplar(reserva, inventario);
+                    if (colaReservas != null) {
+                        colaReservas.quitar(reserva);
+                    }
+                } else if (colaReservas != null) {
+                    // Eliminar la reserva de la cola
+                    colaReservas.quitar(reserva);
+
+                    // Si no hay más reservas, marcar el recurso como disponible
+                    if (colaReservas.estaVacia() && reserva.getRecurso().getEstado() == EstadoRecurso.RESERVADO) {
+                        reserva.getRecurso().actualizarEstado(EstadoRecurso.DISPONIBLE);
+                    }
+                }
+                quitarSiVacia(idRecurso, colaReservas);
 
-            System.out.println("Reserva realizada: " + reserva);
+            } finally {
+                lock.unlock();
+            }
 
-            return reserva;
+            observadores.forEach(o -> o.reservaCancelada(reserva));
+            REGISTRO.info("reserva.cancelada", "Reserva cancelada: {}", reserva);
+
+            return true;
         } finally {
-            lock.unlock();
+            TIEMPO_CANCELAR.registrar(inicio);
         }
     }
 
-    public boolean cancelarReserva(String idReserva) {
-        Reserva reserva = todasLasReservas.get(idReserva);
+    /**
+     * Da por atendidas las reservas del usuario sobre un recurso que acaba de
+     * llevarse en préstamo
+     *
+     * @return Cantidad de reservas atendidas
+     */
+    public int atenderReservas(Usuario usuario, RecursoDigital recurso) {
+        Set<Reserva> activas = activasPorUsuario.get(usuario.getId());
+        if (activas == null) {
+            return 0;
+        }
 
-        if (reserva == null || !reserva.isActiva()) {
-            System.out.println("La reserva no existe o ya fue cancelada");
-            return false;
+        List<Reserva> atendidas = new ArrayList<>();
+        lock.lock();
+        try {
+            for (Reserva reserva : activas) {
+                if (!reserva.isActiva() || reserva.getRecurso().getIndice() != recurso.getIndice()) {
+                    continue;
+                }
+
+                reserva.cancelar();
+                moverAHistorial(reserva);
+                if (controlCuotas != null) {
+                    controlCuotas.liberarCupoReserva(reserva);
+                }
+                ColaReservas colaReservas = reservasPorRecurso.get(recurso.getIdentificador());
+                if (colaReservas != null) {
+                    colaReservas.quitar(reserva);
+                    quitarSiVacia(recurso.getIdentificador(), colaReservas);
+                }
+                // El préstamo ya se llevó el ejemplar apartado; una reserva
+                // que seguía en espera deja de esperar
+                InventarioEjemplares inventario = gestorRecursos.getInventario();
+                if (inventario.tieneEjemplares(recurso) && !reserva.isEjemplarApartado()) {
+                    inventario.dejarDeEsperar(recurso);
+                }
+
+                atendidas.add(reserva);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        for (Reserva reserva : atendidas) {
+            observadores.forEach(o -> o.reservaAtendida(reserva));
+            REGISTRO.info("reserva.atendida", "Reserva atendida: {}", reserva);
+        }
+        return atendidas.size();
+    }
+
+    /**
+     * Aparta los ejemplares devueltos de un título para las reservas en
+     * espera, de mayor a menor prioridad
+     *
+     * @return Reservas a las que se apartó un ejemplar
+     */
+    public List<Reserva> apartarEjemplares(RecursoDigital recurso) {
+        List<Reserva> apartadas = new ArrayList<>();
+        InventarioEjemplares inventario = gestorRecursos.getInventario();
+        if (!inventario.tieneEjemplares(recurso)) {
+            return apartadas;
         }
 
         lock.lock();
         try {
-            // Marcar la reserva como inactiva
-            reserva.cancelar();
+            // Dentro del lock, porque una cola vacía se quita del mapa
+            ColaReservas colaReservas = reservasPorRecurso.get(recurso.getIdentificador());
+            if (colaReservas == null) {
+                return apartadas;
+            }
 
-            String idRecurso = reserva.getRecurso().getIdentificador();
-            BlockingQueue<Reserva> colaReservas = reservasPorRecurso.get(idRecurso);
+            // La cola lleva cuáles esperan, así que no se recorren las que ya tienen uno
+            Reserva reserva = colaReservas.primeraEnEspera();
+            while (reserva != null && inventario.apartarRetenido(recurso, reserva.getUsuario())) {
+                reserva.apartarEjemplar();
+                colaReservas.apartar(reserva);
+                apartadas.add(reserva);
+                reserva = colaReservas.primeraEnEspera();
+            }
+        } finally {
+            lock.unlock();
+        }
+        return apartadas;
+    }
 
-            if (colaReservas != null) {
-                // Eliminar la reserva de la cola
-                colaReservas.remove(reserva);
+    /**
+     * Agrega ejemplares a un recurso único. Sus reservas activas pasan a
+     * esperar ejemplares en el mismo orden; si el recurso estaba reservado,
+     * la primera conserva el ejemplar. Como los ejemplares se apartan por
+     * usuario, de varias reservas del mismo usuario queda solo la primera.
+     *
+     * @return Total de ejemplares del título
+     */
+    int convertirEnTitulo(RecursoDigital recurso, int cantidad) {
+        InventarioEjemplares inventario = gestorRecursos.getInventario();
+        List<Reserva> canceladas = new ArrayList<>();
+        int total;
+        lock.lock();
+        try {
+            if (inventario.tieneEjemplares(recurso)) {
+                return inventario.agregarEjemplares(recurso, cantidad, null, 0);
+            }
 
-                // Si no hay más reservas, marcar el recurso como disponible
-                if (colaReservas.isEmpty() && reserva.getRecurso().getEstado() == EstadoRecurso.RESERVADO) {
-                    reserva.getRecurso().actualizarEstado(EstadoRecurso.DISPONIBLE);
+            List<Reserva> enEspera = new ArrayList<>();
+            ColaReservas colaReservas = reservasPorRecurso.get(recurso.getIdentificador());
+            if (colaReservas != null) {
+                Set<Integer> usuarios = new HashSet<>();
+                for (Reserva reserva : colaReservas.enOrden()) {
+                    if (!reserva.isActiva()) {
+                        continue;
+                    }
+                    if (usuarios.add(reserva.getUsuario().getIndice())) {
+                        enEspera.add(reserva);
+                        continue;
+                    }
+                    reserva.cancelar();
+                    moverAHistorial(reserva);
+                    if (controlCuotas != null) {
+                        controlCuotas.liberarCupoReserva(reserva);
+                    }
+                    colaReservas.quitar(reserva);
+                    canceladas.add(reserva);
                 }
             }
 
-            System.out.println("Reserva cancelada: " + reserva);
-
-            return true;
+            Reserva apartada = recurso.getEstado() == EstadoRecurso.RESERVADO && !enEspera.isEmpty()
+                    ? enEspera.get(0) : null;
+            total = inventario.agregarEjemplares(recurso, cantidad, apartada == null ? null : apartada.getUsuario(),
+                    apartada == null ? enEspera.size() : enEspera.size() - 1);
+            if (apartada != null) {
+                apartada.apartarEjemplar();
+                colaReservas.apartar(apartada);
+            }
         } finally {
             lock.unlock();
         }
+
+        for (Reserva reserva : canceladas) {
+            observadores.forEach(o -> o.reservaCancelada(reserva));
+            REGISTRO.info("reserva.cancelada", "Reserva cancelada: {}", reserva);
+        }
+        return total;
+    }
+
+    /**
+     * Quita del mapa la cola de un recurso que se quedó sin reservas. Se
+     * llama con el lock tomado, como las altas en la cola.
+     */
+    private void quitarSiVacia(String idRecurso, ColaReservas colaReservas) {
+        if (colaReservas != null && colaReservas.estaVacia()) {
+            reservasPorRecurso.remove(idRecurso, colaReservas);
+        }
+    }
+
+    private boolean tieneReservaActiva(Usuario usuario, RecursoDigital recurso) {
+        Set<Reserva> activas = activasPorUsuario.get(usuario.getId());
+        if (activas == null) {
+            return false;
+        }
+        for (Reserva reserva : activas) {
+            if (reserva.isActiva() && reserva.getRecurso().getIndice() == recurso.getIndice()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void liberarEjemplar(Reserva reserva, InventarioEjemplares inventario) {
+        if (reserva.isEjemplarApartado()) {
+            inventario.liberarApartado(reserva.getRecurso(), reserva.getUsuario());
+        } else {
+            inventario.dejarDeEsperar(reserva.getRecurso());
+        }
     }
 
     public List<Reserva> listarReservasActivas() {
@@ -104,57 +371,160 @@ public class SistemaReservas {
     }
 
     public List<Reserva> listarReservasPorUsuario(Usuario usuario) {
-        return todasLasReservas.values().stream()
-                .filter(r -> r.isActiva() && r.getUsuario().getId().equals(usuario.getId()))
-                .collect(Collectors.toList());
+        Set<Reserva> activas = activasPorUsuario.get(usuario.getId());
+        return activas == null ? new ArrayList<>() : new ArrayList<>(activas);
+    }
+
+    public List<Reserva> listarHistorialReservasPorUsuario(Usuario usuario) {
+        Queue<Reserva> historial = historialPorUsuario.get(usuario.getId());
+        return historial == null ? new ArrayList<>() : new ArrayList<>(historial);
+    }
+
+    public int contarReservasActivas(Usuario usuario) {
+        Set<Reserva> activas = activasPorUsuario.get(usuario.getId());
+        return activas == null ? 0 : activas.size();
+    }
+
+    /**
+     * Cantidad total de reservas pendientes de todos los usuarios
+     */
+    public int contarReservasActivas() {
+        return reservasActivas.get();
+    }
+
+    private void moverAHistorial(Reserva reserva) {
+        reservasActivas.decrementAndGet();
+        String idUsuario = reserva.getUsuario().getId();
+        Set<Reserva> activas = activasPorUsuario.get(idUsuario);
+        if (activas != null) {
+            activas.remove(reserva);
+        }
+        historialPorUsuario.computeIfAbsent(idUsuario, k -> new ConcurrentLinkedQueue<>()).add(reserva);
     }
 
     public List<Reserva> listarReservasPorRecurso(String idRecurso) {
-        BlockingQueue<Reserva> colaReservas = reservasPorRecurso.get(idRecurso);
+        ColaReservas colaReservas = reservasPorRecurso.get(idRecurso);
 
         if (colaReservas == null) {
             return new ArrayList<>();
         }
 
-        // Convertir la cola a lista ordenada por prioridad
-        PriorityQueue<Reserva> colaOrdenada = new PriorityQueue<>(colaReservas);
-        List<Reserva> result = new ArrayList<>();
+        // La cola ya está ordenada por prioridad
+        List<Reserva> result = colaReservas.enOrden();
+        result.removeIf(r -> !r.isActiva());
+        return result;
+    }
 
-        while (!colaOrdenada.isEmpty()) {
-            Reserva r = colaOrdenada.poll();
-            if (r.isActiva()) {
-                result.add(r);
+    /**
+     * Recursos que tienen reservas en cola
+     */
+    public List<RecursoDigital> listarRecursosConReservas() {
+        List<RecursoDigital> recursos = new ArrayList<>();
+        for (ColaReservas colaReservas : reservasPorRecurso.values()) {
+            Reserva primera = colaReservas.primera();
+            if (primera != null) {
+                recursos.add(primera.getRecurso());
             }
         }
-
-        return result;
+        return recursos;
     }
 
     public Reserva obtenerSiguienteReserva(String idRecurso) {
-        BlockingQueue<Reserva> colaReservas = reservasPorRecurso.get(idRecurso);
+        ColaReservas colaReservas = reservasPorRecurso.get(idRecurso);
+        return colaReservas == null ? null : colaReservas.primera();
+    }
+
+    /**
+     * Cambia la prioridad de una reserva activa y la mueve a su nuevo lugar
+     * en la fila, en O(log n)
+     *
+     * @return false si la reserva no existe o ya no está activa
+     */
+    public boolean cambiarPrioridad(String idReserva, int prioridad) {
+        Reserva reserva = todasLasReservas.get(idReserva);
+        if (reserva == null || !reserva.isActiva()) {
+            REGISTRO.advertencia("reserva.noEncontrada", "La reserva no existe o ya fue cancelada");
+            return false;
+        }
 
-        if (colaReservas == null || colaReservas.isEmpty()) {
+        lock.lock();
+        try {
+            ColaReservas colaReservas = reservasPorRecurso.get(reserva.getRecurso().getIdentificador());
+            if (!reserva.isActiva() || colaReservas == null || !colaReservas.cambiarPrioridad(reserva, prioridad)) {
+                return false;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        REGISTRO.info("reserva.prioridadCambiada", "Prioridad de la reserva {}: {}", idReserva, prioridad);
+        return true;
+    }
+
+    /**
+     * Posición de la reserva en la fila de su recurso, en O(log n)
+     *
+     * @return Posición contando desde 1, o 0 si la reserva no existe o ya no
+     *         está activa
+     */
+    public int obtenerPosicion(String idReserva) {
+        Reserva reserva = todasLasReservas.get(idReserva);
+        if (reserva == null || !reserva.isActiva()) {
+            return 0;
+        }
+        ColaReservas colaReservas = reservasPorRecurso.get(reserva.getRecurso().getIdentificador());
+        return colaReservas == null ? 0 : colaReservas.posicion(reserva) + 1;
+    }
+
+    /**
+     * Espera estimada hasta que la reserva reciba un ejemplar. Se supone que
+     * cada ejemplar del título atiende a una reserva por plazo de préstamo
+     * completo, por lo que la estimación es pesimista.
+     *
+     * @return {@code null} si la reserva no existe o ya no está activa
+     */
+    public Duration estimarEspera(String idReserva) {
+        int posicion = obtenerPosicion(idReserva);
+        if (posicion == 0) {
             return null;
         }
 
-        // Convertir la cola a cola de prioridad
-        PriorityQueue<Reserva> colaOrdenada = new PriorityQueue<>(colaReservas);
+        Reserva reserva = todasLasReservas.get(idReserva);
+        RecursoDigital recurso = reserva.getRecurso();
+        InventarioEjemplares inventario = gestorRecursos.getInventario();
+        if (reserva.isEjemplarApartado() || inventario.disponibles(recurso) >= posicion) {
+            return Duration.ZERO;
+        }
 
-        // Obtener la reserva de mayor prioridad
-        return colaOrdenada.peek();
+        int turnos = (posicion - 1) / inventario.total(recurso) + 1;
+        return Duration.ofDays((long) turnos * SistemaPrestamos.diasPrestamo(recurso));
     }
 
+    /**
+     * Cancela las reservas expiradas. Como expiran en el orden en que se
+     * crearon, solo recorre las expiradas y las ya inactivas que encuentra
+     * antes, no todas las reservas.
+     */
     public void limpiarReservasExpiradas() {
-        List<Reserva> expiradas = todasLasReservas.values().stream()
-                .filter(r -> r.isActiva() && r.haExpirado())
-                .collect(Collectors.toList());
+        long ahora = reloj.millis();
+        List<Reserva> expiradas = new ArrayList<>();
+        synchronized (porExpiracion) {
+            Reserva reserva = porExpiracion.peek();
+            while (reserva != null && (!reserva.isActiva() || reserva.haExpirado(ahora))) {
+                porExpiracion.poll();
+                if (reserva.isActiva()) {
+                    expiradas.add(reserva);
+                }
+                reserva = porExpiracion.peek();
+            }
+        }
 
         for (Reserva reserva : expiradas) {
             cancelarReserva(reserva.getId());
         }
 
         if (!expiradas.isEmpty()) {
-            System.out.println("Se han eliminado " + expiradas.size() + " reservas expiradas");
+            REGISTRO.info("reserva.expiradas", "Se han eliminado {} reservas expiradas", expiradas.size());
         }
     }
 }
\ No newline at end of file